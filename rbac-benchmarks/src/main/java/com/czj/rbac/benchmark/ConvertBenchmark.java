@@ -0,0 +1,95 @@
+package com.czj.rbac.benchmark;
+
+import com.czj.rbac.model.SysUser;
+import com.czj.rbac.model.vo.UserVO;
+import com.czj.rbac.service.impl.BaseServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BaseServiceImpl.convert/convertList耗时基准，SysUser转换为UserVO，列表大小对应常见分页大小
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertBenchmark {
+
+    private final Converter converter = new Converter();
+
+    private SysUser user;
+
+    /**
+     * 暴露受保护的转换方法
+     */
+    private static final class Converter extends BaseServiceImpl {
+        <T> T convertOne(Object source, Class<T> targetClass) {
+            return convert(source, targetClass);
+        }
+
+        <T> List<T> convertAll(List<?> sourceList, Class<T> targetClass) {
+            return convertList(sourceList, targetClass);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        user = user(1);
+    }
+
+    @State(Scope.Benchmark)
+    public static class ListState {
+        @Param({"10", "100"})
+        private int size;
+
+        private List<SysUser> users;
+
+        @Setup
+        public void setUp() {
+            users = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                users.add(user(i));
+            }
+        }
+    }
+
+    private static SysUser user(long id) {
+        SysUser user = new SysUser();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setNickname("用户" + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setPhone("1380000" + String.format("%04d", id));
+        user.setStatus(1);
+        user.setCreateTime(LocalDateTime.now());
+        user.setUpdateTime(LocalDateTime.now());
+        user.setLastLoginTime(LocalDateTime.now());
+        return user;
+    }
+
+    @Benchmark
+    public UserVO convert() {
+        return converter.convertOne(user, UserVO.class);
+    }
+
+    @Benchmark
+    public List<UserVO> convertList(ListState state) {
+        return converter.convertAll(state.users, UserVO.class);
+    }
+}
@@ -0,0 +1,134 @@
+package com.czj.rbac.benchmark;
+
+import com.czj.rbac.model.vo.PermissionVO;
+import com.czj.rbac.model.vo.RoleVO;
+import com.czj.rbac.model.vo.UserVO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserVO/RoleVO/PermissionVO的Jackson序列化与反序列化耗时基准
+ * ObjectMapper按Spring Boot默认方式构建，RoleVO带20个权限，PermissionVO为两层树
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private UserVO user;
+
+    private RoleVO role;
+
+    private PermissionVO permission;
+
+    private byte[] userJson;
+
+    private byte[] roleJson;
+
+    private byte[] permissionJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+        user = new UserVO();
+        user.setId(1L);
+        user.setUsername("admin");
+        user.setNickname("管理员");
+        user.setEmail("admin@example.com");
+        user.setPhone("13800000000");
+        user.setStatus(1);
+        user.setCreateTime(LocalDateTime.now());
+        user.setLastLoginTime(LocalDateTime.now());
+        user.setPermissions(List.of("sys:user:list", "sys:user:add", "sys:user:edit", "sys:role:list"));
+
+        List<PermissionVO> permissions = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            permissions.add(permission(i, 0L));
+        }
+        role = new RoleVO();
+        role.setId(1L);
+        role.setRoleName("管理员");
+        role.setRoleCode("ROLE_ADMIN");
+        role.setStatus(1);
+        role.setCreateTime(LocalDateTime.now());
+        role.setPermissions(permissions);
+
+        permission = permission(1L, 0L);
+        List<PermissionVO> children = new ArrayList<>();
+        for (long i = 2; i <= 6; i++) {
+            children.add(permission(i, 1L));
+        }
+        permission.setChildren(children);
+
+        userJson = objectMapper.writeValueAsBytes(user);
+        roleJson = objectMapper.writeValueAsBytes(role);
+        permissionJson = objectMapper.writeValueAsBytes(permission);
+    }
+
+    private static PermissionVO permission(long id, long parentId) {
+        PermissionVO permission = new PermissionVO();
+        permission.setId(id);
+        permission.setParentId(parentId);
+        permission.setPermissionName("权限" + id);
+        permission.setPermissionCode("sys:perm:" + id);
+        permission.setType("MENU");
+        permission.setPath("/sys/perm/" + id);
+        permission.setStatus(1);
+        permission.setCreateTime(LocalDateTime.now());
+        return permission;
+    }
+
+    @Benchmark
+    public byte[] writeUser() throws Exception {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public UserVO readUser() throws Exception {
+        return objectMapper.readValue(userJson, UserVO.class);
+    }
+
+    @Benchmark
+    public byte[] writeRole() throws Exception {
+        return objectMapper.writeValueAsBytes(role);
+    }
+
+    @Benchmark
+    public RoleVO readRole() throws Exception {
+        return objectMapper.readValue(roleJson, RoleVO.class);
+    }
+
+    @Benchmark
+    public byte[] writePermissionTree() throws Exception {
+        return objectMapper.writeValueAsBytes(permission);
+    }
+
+    @Benchmark
+    public PermissionVO readPermissionTree() throws Exception {
+        return objectMapper.readValue(permissionJson, PermissionVO.class);
+    }
+}
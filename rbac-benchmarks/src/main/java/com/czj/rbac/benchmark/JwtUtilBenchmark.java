@@ -0,0 +1,122 @@
+package com.czj.rbac.benchmark;
+
+import com.czj.rbac.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil单个令牌签发、解析耗时基准
+ * legacy*为改造前的做法：每次调用以Base64字符串密钥重新派生密钥并构建解析器；
+ * codec*为预派生SecretKey和预构建解析器的JwtUtil。parseCached为命中已验证缓存的路径
+ * 运行: java -jar rbac-benchmarks/target/benchmarks.jar JwtUtilBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    private JwtUtil jwtUtil;
+
+    /**
+     * 改造前JwtUtil内部保存的Base64密钥
+     */
+    private String legacySecret;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        // 已验证缓存容量为0，codecParse每次都做签名校验
+        jwtUtil = new JwtUtil(SECRET, 3600000L, 0);
+        legacySecret = Base64.getEncoder().encodeToString(SECRET.getBytes(StandardCharsets.UTF_8));
+        token = jwtUtil.generateJwt(claims());
+    }
+
+    private static Map<String, Object> claims() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 1L);
+        claims.put("loginId", "4f1c2a7e-6b0d-4a53-9d2e-0c1f8e2b7a90");
+        claims.put("exp", new Date(System.currentTimeMillis() + 3600000L));
+        return claims;
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String legacySign() {
+        return Jwts.builder()
+                .setClaims(claims())
+                .signWith(SignatureAlgorithm.HS256, legacySecret)
+                .compact();
+    }
+
+    @Benchmark
+    public String codecSign() {
+        return jwtUtil.generateJwt(claims());
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Claims legacyParse() {
+        return Jwts.parser()
+                .setSigningKey(legacySecret)
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Benchmark
+    public Claims codecParse() {
+        return jwtUtil.parseJwt(token);
+    }
+
+    @State(Scope.Benchmark)
+    public static class CachedState {
+        private JwtUtil jwtUtil;
+        private String token;
+
+        @Setup
+        public void setUp() {
+            jwtUtil = new JwtUtil(SECRET, 3600000L, 10000);
+            token = jwtUtil.generateJwt(claims());
+        }
+    }
+
+    @Benchmark
+    public Claims parseCached(CachedState state) {
+        return state.jwtUtil.parseJwt(state.token);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(JwtUtilBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,46 @@
+package com.czj.rbac.benchmark;
+
+import com.czj.rbac.util.PasswordUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PasswordUtil.matches耗时基准，分别测试密码正确和错误两种情况
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordUtilBenchmark {
+
+    private static final String PASSWORD = "Admin@123456";
+
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        encoded = PasswordUtil.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return PasswordUtil.matches(PASSWORD, encoded);
+    }
+
+    @Benchmark
+    public boolean mismatches() {
+        return PasswordUtil.matches("wrong-password", encoded);
+    }
+}
@@ -0,0 +1,248 @@
+package com.czj.rbac.benchmark;
+
+import com.czj.rbac.annotation.RequirePermission;
+import com.czj.rbac.aspect.PermissionAspect;
+import com.czj.rbac.mapper.SysPermissionMapper;
+import com.czj.rbac.mapper.SysRoleMapper;
+import com.czj.rbac.mapper.SysUserMapper;
+import com.czj.rbac.model.SysPermission;
+import com.czj.rbac.model.SysRole;
+import com.czj.rbac.service.PermissionEngine;
+import com.czj.rbac.service.UnifiedPermissionService;
+import com.czj.rbac.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口权限校验(PermissionAspect.checkPermission)耗时基准
+ * 令牌校验走JwtUtil已验证缓存，权限判断走PermissionEngine内存位图，Mapper由内存桩代替，
+ * 预热后不再访问。测量的是每个带@RequirePermission的请求在业务方法之外的固定开销
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionAspectBenchmark {
+
+    private static final String SECRET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    private static final long USER_ID = 1L;
+
+    /**
+     * 角色拥有的权限数量
+     */
+    private static final int PERMISSION_COUNT = 200;
+
+    private PermissionAspect aspect;
+
+    private ProceedingJoinPoint joinPoint;
+
+    private RequirePermission anyPermission;
+
+    private RequirePermission allPermissions;
+
+    @Setup
+    public void setUp() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3600000L, 10000);
+
+        PermissionEngine engine = new PermissionEngine();
+        ReflectionTestUtils.setField(engine, "userMapper", Stubs.of(SysUserMapper.class,
+            Map.of("findRoleIdsByUserId", args -> List.of(1L, 2L))));
+        ReflectionTestUtils.setField(engine, "roleMapper", Stubs.of(SysRoleMapper.class,
+            Map.of("findById", args -> role((Long) args[0]))));
+        ReflectionTestUtils.setField(engine, "permissionMapper", Stubs.of(SysPermissionMapper.class,
+            Map.of("findPermissionsByRoleId", args -> permissions((Long) args[0]))));
+
+        UnifiedPermissionService permissionService = new UnifiedPermissionService();
+        ReflectionTestUtils.setField(permissionService, "permissionEngine", engine);
+
+        aspect = new PermissionAspect();
+        ReflectionTestUtils.setField(aspect, "permissionService", permissionService);
+        ReflectionTestUtils.setField(aspect, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(aspect, "meterRegistry", new SimpleMeterRegistry());
+
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", USER_ID);
+        claims.put("exp", new Date(System.currentTimeMillis() + 3600000L));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", JwtUtil.TOKEN_PREFIX + jwtUtil.generateJwt(claims));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        joinPoint = new StubJoinPoint();
+        anyPermission = PermissionAspectBenchmark.class.getDeclaredMethod("anyTarget")
+            .getAnnotation(RequirePermission.class);
+        allPermissions = PermissionAspectBenchmark.class.getDeclaredMethod("allTarget")
+            .getAnnotation(RequirePermission.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static SysRole role(Long roleId) {
+        SysRole role = new SysRole();
+        role.setId(roleId);
+        role.setRoleCode("ROLE_" + roleId);
+        role.setStatus(1);
+        return role;
+    }
+
+    private static List<SysPermission> permissions(Long roleId) {
+        List<SysPermission> permissions = new ArrayList<>(PERMISSION_COUNT);
+        for (int i = 0; i < PERMISSION_COUNT; i++) {
+            SysPermission permission = new SysPermission();
+            permission.setPermissionCode("role" + roleId + ":perm:" + i);
+            permissions.add(permission);
+        }
+        return permissions;
+    }
+
+    @RequirePermission("missing:perm,role2:perm:150")
+    private void anyTarget() {
+    }
+
+    @RequirePermission(value = "role1:perm:10,role2:perm:150,role2:perm:199", requireAll = true)
+    private void allTarget() {
+    }
+
+    @Benchmark
+    public Object checkAnyPermission() throws Throwable {
+        return aspect.checkPermission(joinPoint, anyPermission);
+    }
+
+    @Benchmark
+    public Object checkAllPermissions() throws Throwable {
+        return aspect.checkPermission(joinPoint, allPermissions);
+    }
+
+    /**
+     * 只返回固定结果的连接点，不计入业务方法耗时
+     */
+    private static final class StubJoinPoint implements ProceedingJoinPoint {
+
+        private static final Object RESULT = new Object();
+
+        private final Signature signature = new StubSignature();
+
+        @Override
+        public void set$AroundClosure(AroundClosure arc) {
+        }
+
+        @Override
+        public Object proceed() {
+            return RESULT;
+        }
+
+        @Override
+        public Object proceed(Object[] args) {
+            return RESULT;
+        }
+
+        @Override
+        public String toShortString() {
+            return "benchmark";
+        }
+
+        @Override
+        public String toLongString() {
+            return "benchmark";
+        }
+
+        @Override
+        public Object getThis() {
+            return null;
+        }
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public Object[] getArgs() {
+            return new Object[0];
+        }
+
+        @Override
+        public Signature getSignature() {
+            return signature;
+        }
+
+        @Override
+        public SourceLocation getSourceLocation() {
+            return null;
+        }
+
+        @Override
+        public String getKind() {
+            return METHOD_EXECUTION;
+        }
+
+        @Override
+        public StaticPart getStaticPart() {
+            return null;
+        }
+    }
+
+    private static final class StubSignature implements Signature {
+
+        @Override
+        public String toShortString() {
+            return "target";
+        }
+
+        @Override
+        public String toLongString() {
+            return "target";
+        }
+
+        @Override
+        public String getName() {
+            return "target";
+        }
+
+        @Override
+        public int getModifiers() {
+            return 0;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Class getDeclaringType() {
+            return PermissionAspectBenchmark.class;
+        }
+
+        @Override
+        public String getDeclaringTypeName() {
+            return PermissionAspectBenchmark.class.getName();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.czj.rbac.benchmark;
+
+import com.czj.rbac.mapper.SysPermissionMapper;
+import com.czj.rbac.model.SysPermission;
+import com.czj.rbac.model.vo.PermissionVO;
+import com.czj.rbac.service.CacheInvalidationBus;
+import com.czj.rbac.service.PermissionTreeIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PermissionTreeIndex耗时基准
+ * rebuild为整棵树从数据库行重新构建(原每次变更后的开销)，move为单个节点在两个父节点间来回移动的增量更新，
+ * read为读取当前快照
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionTreeBenchmark {
+
+    /**
+     * 每个节点的子节点数
+     */
+    private static final int FAN_OUT = 8;
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private PermissionTreeIndex treeIndex;
+
+    private SysPermission moving;
+
+    private long moveCount;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime createTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<SysPermission> permissions = new ArrayList<>(size);
+        // 按id倒序排列，父节点在子节点之后出现
+        for (long id = size; id >= 1; id--) {
+            SysPermission permission = new SysPermission();
+            permission.setId(id);
+            permission.setPid(id == 1 ? 0L : (id - 2) / FAN_OUT + 1);
+            permission.setPermissionCode("perm:" + id);
+            permission.setPermissionName("权限" + id);
+            permission.setStatus(1);
+            permission.setCreateTime(createTime.plusSeconds(id));
+            permissions.add(permission);
+        }
+        // 最后一个叶子节点在两个非根节点之间移动
+        moving = permissions.get(0);
+
+        treeIndex = new PermissionTreeIndex();
+        ReflectionTestUtils.setField(treeIndex, "permissionMapper", Stubs.of(SysPermissionMapper.class, Map.of(
+            "findList", args -> permissions,
+            "findById", args -> moving)));
+        ReflectionTestUtils.setField(treeIndex, "invalidationBus", new CacheInvalidationBus() {
+            @Override
+            public void publish(String cache, String type, String key) {
+            }
+        });
+        treeIndex.getTree(null);
+    }
+
+    @Benchmark
+    public List<PermissionVO> rebuild() {
+        treeIndex.invalidate();
+        return treeIndex.getTree(null);
+    }
+
+    @Benchmark
+    public List<PermissionVO> move() {
+        moving.setPid(++moveCount % 2 == 0 ? 2L : 3L);
+        treeIndex.put(moving.getId());
+        return treeIndex.getTree(null);
+    }
+
+    @Benchmark
+    public List<PermissionVO> read() {
+        return treeIndex.getTree(null);
+    }
+}
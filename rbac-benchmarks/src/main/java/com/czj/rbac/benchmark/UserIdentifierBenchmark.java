@@ -0,0 +1,81 @@
+package com.czj.rbac.benchmark;
+
+import com.czj.rbac.config.IdentifierConfig;
+import com.czj.rbac.service.impl.LocalUserIdentifierServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地用户标识分配吞吐基准
+ * 检查点步长影响刷盘频率，单线程和多线程分别测试
+ * 运行: java -jar rbac-benchmarks/target/benchmarks.jar UserIdentifierBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserIdentifierBenchmark {
+
+    private Path dir;
+
+    private LocalUserIdentifierServiceImpl identifierService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("identifier-bench");
+        IdentifierConfig config = new IdentifierConfig();
+        config.setSegmentStep(10000);
+        config.setCheckpointPath(dir.resolve("sequence.checkpoint").toString());
+        identifierService = new LocalUserIdentifierServiceImpl();
+        ReflectionTestUtils.setField(identifierService, "identifierConfig", config);
+        identifierService.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        identifierService.destroy();
+        Files.deleteIfExists(dir.resolve("sequence.checkpoint"));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public String generate() {
+        return identifierService.generateUserIdentifier();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String generateContended() {
+        return identifierService.generateUserIdentifier();
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(UserIdentifierBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -7,6 +7,8 @@ import com.czj.rbac.model.enums.LogLevel;
 import com.czj.rbac.model.enums.LogType;
 import com.czj.rbac.model.vo.UserVO;
 import com.czj.rbac.util.IpUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -19,6 +21,7 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Aspect
@@ -28,9 +31,12 @@ public class LoggingAspect {
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Around("@annotation(logOperation)")
     public Object log(ProceedingJoinPoint point, LogOperation logOperation) throws Throwable {
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         String methodName = point.getSignature().getName();
         
         try {
@@ -41,8 +47,8 @@ public class LoggingAspect {
             publishLogEvent(logOperation, true, null);
             
             // 记录执行时间
-            long endTime = System.currentTimeMillis();
-            log.debug("方法执行完成: {}ms - {}", endTime - startTime, methodName);
+            long elapsed = record(logOperation, "success", startTime);
+            log.debug("方法执行完成: {}ms - {}", TimeUnit.NANOSECONDS.toMillis(elapsed), methodName);
             
             return result;
         } catch (Throwable e) {
@@ -50,13 +56,28 @@ public class LoggingAspect {
             publishLogEvent(logOperation, false, e.getMessage());
             
             // 记录执行时间
-            long endTime = System.currentTimeMillis();
-            log.error("方法执行异常: {}ms - {} - {}", endTime - startTime, methodName, e.getMessage());
+            long elapsed = record(logOperation, "failure", startTime);
+            log.error("方法执行异常: {}ms - {} - {}", TimeUnit.NANOSECONDS.toMillis(elapsed), methodName, e.getMessage());
             
             throw e;
         }
     }
 
+    /**
+     * 记录操作耗时指标，返回耗时(纳秒)
+     */
+    private long record(LogOperation logOperation, String result, long startTime) {
+        long elapsed = System.nanoTime() - startTime;
+        Timer.builder("rbac.operation")
+            .description("业务操作耗时")
+            .tag("module", logOperation.module())
+            .tag("operation", logOperation.operation())
+            .tag("result", result)
+            .register(meterRegistry)
+            .record(elapsed, TimeUnit.NANOSECONDS);
+        return elapsed;
+    }
+
     private void publishLogEvent(LogOperation logOperation, boolean success, String errorMsg) {
         try {
             // 获取当前用户
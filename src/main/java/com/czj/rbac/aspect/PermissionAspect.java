@@ -5,6 +5,9 @@ import com.czj.rbac.common.BusinessException;
 import com.czj.rbac.common.ResponseCode;
 import com.czj.rbac.service.UnifiedPermissionService;
 import com.czj.rbac.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -14,20 +17,48 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Aspect
 @Component
 public class PermissionAspect {
 
+    /**
+     * 校验结果，作为指标标签
+     */
+    private static final String RESULT_GRANTED = "granted";
+    private static final String RESULT_DENIED = "denied";
+    private static final String RESULT_UNAUTHORIZED = "unauthorized";
+    private static final String RESULT_ERROR = "error";
+
     @Autowired
     private UnifiedPermissionService permissionService;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 注解权限值 -> 解析后的权限编码，避免每次请求重复split
+     */
+    private final Map<String, String[]> parsedPermissions = new ConcurrentHashMap<>();
+
+    /**
+     * 权限值|校验结果 -> 耗时指标
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
     @Around("@annotation(permission)")
     public Object checkPermission(ProceedingJoinPoint point, RequirePermission permission) throws Throwable {
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         String methodName = point.getSignature().getName();
-        
+        String result = RESULT_UNAUTHORIZED;
+
         try {
             // 获取token并验证
             String token = JwtUtil.getTokenFromRequest();
@@ -36,57 +67,72 @@ public class PermissionAspect {
                 throw new BusinessException(ResponseCode.UNAUTHORIZED, "未登录或登录已过期");
             }
 
-            // 验证token
-            try {
-                if (!JwtUtil.validateToken(token)) {
-                    log.warn("token无效或已过期");
-                    throw new BusinessException(ResponseCode.UNAUTHORIZED, "未登录或登录已过期");
-                }
-            } catch (Exception e) {
-                log.error("验证token时发生错误: {}", e.getMessage());
+            // 验证token，复用AuthInterceptor已解析的结果
+            Claims claims = jwtUtil.getValidClaims(token);
+            if (claims == null) {
+                log.warn("token无效或已过期");
                 throw new BusinessException(ResponseCode.UNAUTHORIZED, "未登录或登录已过期");
             }
             
             // 获取当前用户ID
-            Long userId = JwtUtil.getCurrentUserId();
+            Long userId = JwtUtil.getUserId(claims);
             if (userId == null) {
                 log.warn("无法获取用户ID");
                 throw new BusinessException(ResponseCode.UNAUTHORIZED, "未登录或登录已过期");
             }
+            result = RESULT_ERROR;
 
             // 获取注解中的权限值
-            String[] requiredPermissions = permission.value().split(",");
+            String[] requiredPermissions = parsedPermissions.computeIfAbsent(permission.value(), this::parsePermissions);
             boolean requireAll = permission.requireAll();
 
             log.debug("权限校验 - 用户: {}, 需要权限: {}, 需要全部权限: {}", 
                      userId, Arrays.toString(requiredPermissions), requireAll);
 
             // 校验权限
-            boolean hasPermission = false;
-            if (requireAll) {
-                hasPermission = Arrays.stream(requiredPermissions)
-                    .allMatch(p -> permissionService.checkFunctionPermission(userId, p.trim()));
-            } else {
-                hasPermission = Arrays.stream(requiredPermissions)
-                    .anyMatch(p -> permissionService.checkFunctionPermission(userId, p.trim()));
-            }
+            boolean hasPermission = permissionService.checkFunctionPermissions(userId, requiredPermissions, requireAll);
 
             if (!hasPermission) {
+                result = RESULT_DENIED;
                 throw new BusinessException(ResponseCode.FORBIDDEN, "权限不足");
             }
-
-            // 执行目标方法
-            Object result = point.proceed();
-            
-            // 记录执行时间
-            long endTime = System.currentTimeMillis();
-            log.debug("权限校验耗时: {}ms - {}", endTime - startTime, methodName);
-            
-            return result;
+            result = RESULT_GRANTED;
         } catch (Throwable e) {
-            long endTime = System.currentTimeMillis();
-            log.error("权限校验失败: {}ms - {} - {}", endTime - startTime, methodName, e.getMessage());
+            log.error("权限校验失败: {}ms - {} - {}", elapsedMillis(startTime), methodName, e.getMessage());
             throw e;
+        } finally {
+            // 只统计校验本身，不含业务方法
+            timer(permission.value(), result).record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
         }
+
+        log.debug("权限校验耗时: {}ms - {}", elapsedMillis(startTime), methodName);
+        // 执行目标方法
+        return point.proceed();
+    }
+
+    /**
+     * 按权限值和校验结果获取耗时指标
+     */
+    private Timer timer(String permission, String result) {
+        return timers.computeIfAbsent(permission + '|' + result, key -> Timer.builder("rbac.permission.check")
+            .description("接口权限校验耗时")
+            .tag("permission", permission)
+            .tag("result", result)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 解析注解中的权限值
+     */
+    private String[] parsePermissions(String value) {
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(StringUtils::hasText)
+            .toArray(String[]::new);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.czj.rbac.common;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ */
+@Data
+public class CursorResult<T> {
+    private List<T> list;        // 当前页数据
+    private String nextCursor;   // 下一页游标，没有更多数据时为null
+    private Boolean hasMore;     // 是否还有下一页
+    private Integer pageSize;    // 每页大小
+    private Long total;          // 总记录数，未请求时为null，可能来自缓存
+
+    public CursorResult(List<T> list, String nextCursor, Integer pageSize, Long total) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+        this.pageSize = pageSize;
+        this.total = total;
+    }
+}
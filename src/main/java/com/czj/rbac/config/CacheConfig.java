@@ -24,6 +24,11 @@ public class CacheConfig {
      */
     private CacheProperties permission = new CacheProperties();
     
+    /**
+     * 跨节点本地缓存失效配置
+     */
+    private InvalidationProperties invalidation = new InvalidationProperties();
+    
     @Data
     public static class CacheProperties {
         /**
@@ -45,5 +50,38 @@ public class CacheConfig {
          * null值的过期时间(秒)
          */
         private long nullExpireTime = 60;
+        
+        /**
+         * 过期时间随机增量上限(秒)，防止缓存雪崩
+         */
+        private long expireJitter = 0;
+        
+        /**
+         * 本地缓存最大条目数
+         */
+        private long localMaxSize = 10000;
+        
+        /**
+         * 本地缓存过期时间(秒)
+         */
+        private long localExpireTime = 60;
+    }
+    
+    @Data
+    public static class InvalidationProperties {
+        /**
+         * 失效消息频道
+         */
+        private String channel = "rbac:cache:invalidate";
+        
+        /**
+         * 单条消息最多携带的失效条目数
+         */
+        private int batchSize = 100;
+        
+        /**
+         * 批量发送间隔(毫秒)
+         */
+        private long flushInterval = 10;
     }
-} 
\ No newline at end of file
+}
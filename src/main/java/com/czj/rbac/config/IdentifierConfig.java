@@ -0,0 +1,34 @@
+package com.czj.rbac.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户标识生成配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rbac.identifier")
+public class IdentifierConfig {
+
+    /**
+     * 每次申请的号段长度：Redis实现为INCRBY步长，本地实现为检查点步长。节点重启时未用完的号段作废
+     */
+    private int segmentStep = 1000;
+
+    /**
+     * 当前号段剩余比例低于该值时异步预取下一个号段
+     */
+    private double prefetchRatio = 0.2;
+
+    /**
+     * 本地实现的序号检查点文件，记录已预留的最大序号
+     */
+    private String checkpointPath = "sequence.checkpoint";
+
+    /**
+     * 改造前保存最大序号的文本文件，检查点不存在时从中读取起始序号，只读不写
+     */
+    private String legacySequencePath = "sequence.txt";
+}
@@ -30,6 +30,16 @@ public class LogConfig {
      */
     private int retentionDays = 30;
     
+    /**
+     * 批量写入配置
+     */
+    private WriterConfig writer = new WriterConfig();
+    
+    /**
+     * 日志表分区维护配置
+     */
+    private PartitionConfig partition = new PartitionConfig();
+    
     @Data
     public static class AsyncConfig {
         /**
@@ -47,6 +57,95 @@ public class LogConfig {
          */
         private int queueCapacity = 100;
     }
+    
+    /**
+     * 缓冲区满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /**
+         * 阻塞写入方，超过blockTimeout后丢弃
+         */
+        BLOCK,
+        /**
+         * 丢弃并计数
+         */
+        DROP,
+        /**
+         * 写入磁盘，空闲时回放
+         */
+        SPILL
+    }
+    
+    @Data
+    public static class WriterConfig {
+        /**
+         * 环形缓冲区容量，取整为2的幂
+         */
+        private int bufferSize = 8192;
+        
+        /**
+         * 单次批量插入的最大行数
+         */
+        private int batchSize = 500;
+        
+        /**
+         * 未攒满一批时的最长等待时间(毫秒)
+         */
+        private long flushInterval = 200;
+        
+        /**
+         * 缓冲区满时的处理策略
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+        
+        /**
+         * BLOCK策略下的最长阻塞时间(毫秒)
+         */
+        private long blockTimeout = 1000;
+        
+        /**
+         * 溢出日志目录，缓冲区溢出和数据库写入失败的日志都写入该目录
+         */
+        private String spillPath = "logs/audit-spill";
+        
+        /**
+         * 溢出日志单个段文件大小(字节)
+         */
+        private long segmentSize = 16 * 1024 * 1024;
+        
+        /**
+         * 溢出日志段文件总大小上限(字节)，达到上限后新日志不再写入溢出日志
+         */
+        private long spillMaxSize = 512L * 1024 * 1024;
+        
+        /**
+         * 数据库写入失败后，下次尝试写库的间隔(毫秒)，期间新批次直接写入溢出日志
+         */
+        private long retryInterval = 5000;
+        
+        /**
+         * 缓冲区空闲时每轮最多回放的溢出日志批数，之后回到缓冲区继续写入
+         */
+        private int replayBatches = 4;
+    }
+    
+    @Data
+    public static class PartitionConfig {
+        /**
+         * 分区维护和过期日志清理的执行时间
+         */
+        private String cron = "0 0 2 * * ?";
+        
+        /**
+         * 提前创建的按天分区数
+         */
+        private int precreateDays = 7;
+        
+        /**
+         * 表未分区时按批删除过期日志的每批行数
+         */
+        private int deleteBatchSize = 10000;
+    }
     /**
      * 日志异步任务执行器
      */
@@ -0,0 +1,42 @@
+package com.czj.rbac.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 登录日志配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rbac.login-log")
+public class LoginLogConfig {
+    
+    /**
+     * 登录日志保留天数
+     */
+    private int retentionDays = 30;
+    
+    /**
+     * 批量写入配置
+     */
+    private WriterConfig writer = new WriterConfig();
+    
+    @Data
+    public static class WriterConfig {
+        /**
+         * 登录/登出事件缓冲区容量，取整为2的幂，满时丢弃并计数
+         */
+        private int bufferSize = 8192;
+        
+        /**
+         * 单次批量插入或批量更新的最大行数
+         */
+        private int batchSize = 200;
+        
+        /**
+         * 未攒满一批时的最长等待时间(毫秒)
+         */
+        private long flushInterval = 200;
+    }
+}
@@ -0,0 +1,205 @@
+package com.czj.rbac.config;
+
+import com.czj.rbac.service.AuditLogWriter;
+import com.czj.rbac.service.AuditSpillStore;
+import com.czj.rbac.service.CacheInvalidationBus;
+import com.czj.rbac.service.LoginInfoWriter;
+import com.czj.rbac.service.PasswordHashService;
+import com.czj.rbac.service.PermissionEngine;
+import com.czj.rbac.service.TokenBlacklistService;
+import com.czj.rbac.service.TwoLevelCache;
+import com.czj.rbac.service.TwoLevelCacheManager;
+import com.czj.rbac.service.VersionedJsonCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 业务指标配置
+ * 把各组件已有的计数器以函数指标的形式注册到MeterRegistry，抓取时才读取，不增加热点路径开销。
+ * 线程池的活跃数、队列长度由Spring Boot的TaskExecutorMetricsAutoConfiguration导出(executor.*)
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder rbacMetrics(TwoLevelCacheManager cacheManager,
+                                   CacheInvalidationBus invalidationBus,
+                                   PermissionEngine permissionEngine,
+                                   TokenBlacklistService tokenBlacklistService,
+                                   AuditLogWriter auditLogWriter,
+                                   AuditSpillStore auditSpillStore,
+                                   LoginInfoWriter loginInfoWriter,
+                                   PasswordHashService passwordHashService,
+                                   VersionedJsonCache versionedJsonCache,
+                                   @Qualifier("logTaskExecutor") ThreadPoolTaskExecutor logTaskExecutor) {
+        // MeterBinder在所有单例初始化完成后才绑定，此时各业务缓存已在@PostConstruct中创建
+        return registry -> {
+            for (TwoLevelCache<?> cache : cacheManager.getCaches()) {
+                bindCache(registry, cache);
+            }
+            counter(registry, "rbac.cache.invalidation.resyncs", "因丢失失效消息而清空本地缓存的次数",
+                invalidationBus, CacheInvalidationBus::getResyncCount);
+            bindPermissionEngine(registry, permissionEngine);
+            bindTokenBlacklist(registry, tokenBlacklistService);
+            bindAuditLog(registry, auditLogWriter, auditSpillStore);
+            bindLoginInfo(registry, loginInfoWriter);
+            bindPasswordHash(registry, passwordHashService);
+            bindConditionalResponses(registry, versionedJsonCache);
+            bindRejections(registry, "logTaskExecutor", logTaskExecutor);
+        };
+    }
+
+    private static void bindCache(MeterRegistry registry, TwoLevelCache<?> cache) {
+        String name = cache.getName();
+        counter(registry, "rbac.cache.requests", "二级缓存查询次数", cache, TwoLevelCache::getLocalHits,
+            "cache", name, "result", "l1_hit");
+        counter(registry, "rbac.cache.requests", "二级缓存查询次数", cache, TwoLevelCache::getRedisHits,
+            "cache", name, "result", "l2_hit");
+        counter(registry, "rbac.cache.requests", "二级缓存查询次数", cache, TwoLevelCache::getMisses,
+            "cache", name, "result", "miss");
+        FunctionTimer.builder("rbac.cache.load", cache,
+                TwoLevelCache::getLoadCount, TwoLevelCache::getLoadNanos, TimeUnit.NANOSECONDS)
+            .description("二级缓存未命中时的回源加载耗时")
+            .tag("cache", name)
+            .register(registry);
+        gauge(registry, "rbac.cache.size", "二级缓存本地条目数", cache, TwoLevelCache::getLocalSize,
+            "cache", name);
+    }
+
+    private static void bindPermissionEngine(MeterRegistry registry, PermissionEngine engine) {
+        counter(registry, "rbac.permission.cache.requests", "用户权限位图查询次数", engine, PermissionEngine::getUserHits,
+            "result", "hit");
+        counter(registry, "rbac.permission.cache.requests", "用户权限位图查询次数", engine, PermissionEngine::getUserMisses,
+            "result", "miss");
+        gauge(registry, "rbac.permission.cache.size", "已缓存的权限位图数", engine, PermissionEngine::getCachedUserCount,
+            "type", "user");
+        gauge(registry, "rbac.permission.cache.size", "已缓存的权限位图数", engine, PermissionEngine::getCachedRoleCount,
+            "type", "role");
+    }
+
+    private static void bindTokenBlacklist(MeterRegistry registry, TokenBlacklistService blacklist) {
+        counter(registry, "rbac.token.blacklist.lookups", "令牌黑名单查询次数", blacklist, TokenBlacklistService::getLookups,
+            "source", "all");
+        counter(registry, "rbac.token.blacklist.lookups", "令牌黑名单查询次数", blacklist, TokenBlacklistService::getRedisLookups,
+            "source", "redis");
+        counter(registry, "rbac.token.blacklist.revoked", "命中黑名单的令牌数", blacklist, TokenBlacklistService::getRevokedHits);
+    }
+
+    private static void bindAuditLog(MeterRegistry registry, AuditLogWriter writer, AuditSpillStore spillStore) {
+        counter(registry, "rbac.log.audit.events", "操作日志条数", writer, AuditLogWriter::getSubmittedCount,
+            "state", "submitted");
+        counter(registry, "rbac.log.audit.events", "操作日志条数", writer, AuditLogWriter::getWrittenCount,
+            "state", "written");
+        counter(registry, "rbac.log.audit.events", "操作日志条数", writer, AuditLogWriter::getDroppedCount,
+            "state", "dropped");
+        counter(registry, "rbac.log.audit.events", "操作日志条数", writer, AuditLogWriter::getSpilledCount,
+            "state", "spilled");
+        counter(registry, "rbac.log.audit.events", "操作日志条数", writer, AuditLogWriter::getFailedCount,
+            "state", "failed");
+        counter(registry, "rbac.log.audit.events", "操作日志条数", writer, AuditLogWriter::getQuarantinedCount,
+            "state", "quarantined");
+        counter(registry, "rbac.log.audit.batches", "操作日志批量写入次数", writer, AuditLogWriter::getBatchCount);
+        gauge(registry, "rbac.log.audit.pending", "操作日志缓冲区待写条数", writer, AuditLogWriter::getPending);
+        gauge(registry, "rbac.log.audit.spill.segments", "溢出日志段文件数", spillStore, AuditSpillStore::getSegmentCount);
+    }
+
+    private static void bindLoginInfo(MeterRegistry registry, LoginInfoWriter writer) {
+        counter(registry, "rbac.log.login.events", "登录记录条数", writer, LoginInfoWriter::getSubmittedCount,
+            "state", "submitted");
+        counter(registry, "rbac.log.login.events", "登录记录条数", writer, LoginInfoWriter::getInsertedCount,
+            "state", "inserted");
+        counter(registry, "rbac.log.login.events", "登录记录条数", writer, LoginInfoWriter::getLogoutCount,
+            "state", "logout");
+        counter(registry, "rbac.log.login.events", "登录记录条数", writer, LoginInfoWriter::getDroppedCount,
+            "state", "dropped");
+        counter(registry, "rbac.log.login.events", "登录记录条数", writer, LoginInfoWriter::getFailedCount,
+            "state", "failed");
+        counter(registry, "rbac.log.login.flushes", "登录记录批量写入次数", writer, LoginInfoWriter::getFlushCount);
+        gauge(registry, "rbac.log.login.pending", "登录记录缓冲区待写条数", writer, LoginInfoWriter::getPending);
+        gauge(registry, "rbac.log.login.flush.max", "登录记录单批写入最长耗时(毫秒)", writer, LoginInfoWriter::getMaxFlushMillis);
+    }
+
+    private static void bindPasswordHash(MeterRegistry registry, PasswordHashService service) {
+        counter(registry, "rbac.password.hash.rejected", "密码哈希线程池拒绝次数", service, PasswordHashService::getRejectedCount);
+        counter(registry, "rbac.password.hash.timeouts", "密码哈希等待超时次数", service, PasswordHashService::getTimeoutCount);
+        counter(registry, "rbac.password.hash.rehashes", "登录时重新哈希的密码数", service, PasswordHashService::getRehashCount);
+    }
+
+    private static void bindConditionalResponses(MeterRegistry registry, VersionedJsonCache cache) {
+        counter(registry, "rbac.http.conditional", "带版本号的JSON响应次数", cache, VersionedJsonCache::getNotModifiedCount,
+            "result", "not_modified");
+        counter(registry, "rbac.http.conditional", "带版本号的JSON响应次数", cache, VersionedJsonCache::getHitCount,
+            "result", "hit");
+        counter(registry, "rbac.http.conditional", "带版本号的JSON响应次数", cache, VersionedJsonCache::getRenderCount,
+            "result", "render");
+    }
+
+    /**
+     * 为线程池包装一层计数的拒绝策略，原有策略行为不变
+     */
+    private static void bindRejections(MeterRegistry registry, String name, ThreadPoolTaskExecutor executor) {
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        CountingRejectedExecutionHandler handler;
+        if (pool.getRejectedExecutionHandler() instanceof CountingRejectedExecutionHandler counting) {
+            handler = counting;
+        } else {
+            handler = new CountingRejectedExecutionHandler(pool.getRejectedExecutionHandler());
+            pool.setRejectedExecutionHandler(handler);
+        }
+        counter(registry, "rbac.executor.rejected", "线程池拒绝的任务数", handler, CountingRejectedExecutionHandler::getRejectedCount,
+            "name", name);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, String description, T obj,
+                                    ToDoubleFunction<T> function, String... tags) {
+        FunctionCounter.builder(name, obj, function)
+            .description(description)
+            .tags(tags)
+            .register(registry);
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, String description, T obj,
+                                  ToDoubleFunction<T> function, String... tags) {
+        Gauge.builder(name, obj, function)
+            .description(description)
+            .tags(tags)
+            .register(registry);
+    }
+
+    /**
+     * 统计拒绝次数后交给原拒绝策略处理
+     */
+    private static final class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+
+        private final RejectedExecutionHandler delegate;
+
+        private final AtomicLong rejectedCount = new AtomicLong();
+
+        private CountingRejectedExecutionHandler(RejectedExecutionHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            rejectedCount.incrementAndGet();
+            delegate.rejectedExecution(task, executor);
+        }
+
+        long getRejectedCount() {
+            return rejectedCount.get();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.czj.rbac.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import lombok.Data;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rbac.password-hash")
+public class PasswordConfig {
+
+    /**
+     * BCrypt强度(4-31)，每加1计算量翻倍；调高后旧哈希在下次登录时重新计算
+     */
+    private int strength = 10;
+
+    /**
+     * 哈希线程数，哈希为CPU密集型，不宜超过CPU核数
+     */
+    private int poolSize = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * 等待队列容量，队列满时直接拒绝
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * 请求线程等待哈希结果的最长时间(毫秒)
+     */
+    private long timeout = 5000;
+
+    /**
+     * 密码哈希执行器
+     * 线程数和队列均有上限，撞库等突发登录请求被快速拒绝，不会占满处理其他接口的请求线程
+     */
+    @Bean("passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,27 @@
+package com.czj.rbac.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 角色等级配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rbac.role-levels")
+public class RoleLevelConfig {
+
+    /**
+     * 超级管理员角色编码，等级不低于该角色的用户可管理所有用户
+     */
+    private String superAdminRole = "ROLE_SUPER_ADMIN";
+
+    /**
+     * 角色编码 -> 等级，未配置的角色等级为0
+     */
+    private Map<String, Integer> levels = new HashMap<>();
+}
@@ -22,7 +22,6 @@ public class WebConfig implements WebMvcConfigurer {
                     "/favicon.ico",
                     "/static/**",
                     "/auth/login",    // 添加登录接口
-                    "/auth/logout",   // 添加登出接口
                     "/auth/info"      // 添加用户信息接口
                 )
                 .order(1);                     // 优先级，数字越小优先级越高
@@ -16,7 +16,6 @@ public class WebMvcConfig implements WebMvcConfigurer {
     
     private static final List<String> EXCLUDE_PATHS = Arrays.asList(
         "/auth/login",
-        "/auth/logout",
         "/error",
         "/swagger-ui/**",
         "/v3/api-docs/**",
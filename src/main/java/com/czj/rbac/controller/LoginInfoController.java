@@ -1,15 +1,22 @@
 package com.czj.rbac.controller;
 
+import com.czj.rbac.service.DataExportService;
 import com.czj.rbac.service.LoginInfoService;
+import com.czj.rbac.model.enums.ExportFormat;
+import com.czj.rbac.model.query.LoginInfoQuery;
 import com.czj.rbac.model.LoginInfo;
 import com.czj.rbac.common.Result;
 import com.czj.rbac.common.PageResult;
+import com.czj.rbac.common.CursorResult;
 import com.czj.rbac.annotation.RequirePermission;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 
 @Slf4j
@@ -20,6 +27,9 @@ public class LoginInfoController {
     @Autowired
     private LoginInfoService loginInfoService;
 
+    @Autowired
+    private DataExportService dataExportService;
+
     /**
      * 分页查询登录日志
      */
@@ -40,6 +50,42 @@ public class LoginInfoController {
         return Result.success(result);
     }
 
+    /**
+     * 游标分页查询登录日志，nextCursor传入下一次请求的cursor参数
+     */
+    @GetMapping("/cursor")
+    @RequirePermission("sys:log:query")
+    public Result<CursorResult<LoginInfo>> cursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String loginIp,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @RequestParam(required = false) Integer loginStatus,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        
+        CursorResult<LoginInfo> result = loginInfoService.findByCursor(
+            cursor, size, userId, username, loginIp, startTime, endTime, loginStatus, withTotal);
+        return Result.success(result);
+    }
+
+    /**
+     * 流式导出登录日志，format为csv或ndjson，exportFields限制在导出白名单内，gzip为true时输出.gz文件
+     */
+    @GetMapping("/export")
+    @RequirePermission("sys:log:query")
+    public void export(LoginInfoQuery query,
+                       @RequestParam(required = false) String format,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = DataExportService.parseFormat(format);
+        try (OutputStream out = dataExportService.openResponse(response, "login-info", exportFormat, gzip)) {
+            dataExportService.exportLoginInfo(query, exportFormat, out);
+        }
+    }
+
     /**
      * 获取用户最近一次登录记录
      */
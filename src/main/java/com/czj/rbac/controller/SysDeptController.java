@@ -0,0 +1,60 @@
+package com.czj.rbac.controller;
+
+import com.czj.rbac.annotation.RequirePermission;
+import com.czj.rbac.common.BusinessException;
+import com.czj.rbac.common.ResponseCode;
+import com.czj.rbac.common.Result;
+import com.czj.rbac.model.dto.DeptDTO;
+import com.czj.rbac.model.vo.DeptVO;
+import com.czj.rbac.service.SysDeptService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/dept")
+public class SysDeptController {
+
+    @Autowired
+    private SysDeptService deptService;
+
+    @GetMapping("/tree")
+    @RequirePermission("sys:dept:query")
+    public Result<List<DeptVO>> tree() {
+        return Result.success(deptService.findTree());
+    }
+
+    @PostMapping
+    @RequirePermission("sys:dept:add")
+    public Result<Void> add(@RequestBody DeptDTO deptDTO) {
+        log.info("新增部门: {}", deptDTO);
+        if (deptDTO == null || !StringUtils.hasText(deptDTO.getDeptName())) {
+            throw new BusinessException(ResponseCode.PARAM_ERROR, "部门名称不能为空");
+        }
+        deptService.add(deptDTO);
+        return Result.success();
+    }
+
+    @PutMapping
+    @RequirePermission("sys:dept:update")
+    public Result<Void> update(@RequestBody DeptDTO deptDTO) {
+        log.info("更新部门: {}", deptDTO);
+        if (deptDTO == null || deptDTO.getId() == null) {
+            throw new BusinessException(ResponseCode.PARAM_ERROR, "部门信息不能为空");
+        }
+        deptService.update(deptDTO);
+        return Result.success();
+    }
+
+    @DeleteMapping("/{id}")
+    @RequirePermission("sys:dept:delete")
+    public Result<Void> delete(@PathVariable Long id) {
+        log.info("删除部门: {}", id);
+        deptService.delete(id);
+        return Result.success();
+    }
+}
@@ -1,16 +1,24 @@
 package com.czj.rbac.controller;
 
 import com.czj.rbac.annotation.RequirePermission;
+import com.czj.rbac.common.CursorResult;
 import com.czj.rbac.common.PageResult;
 import com.czj.rbac.common.Result;
 import com.czj.rbac.common.BusinessException;
 import com.czj.rbac.common.ResponseCode;
 import com.czj.rbac.model.SysLog;
+import com.czj.rbac.model.enums.ExportFormat;
+import com.czj.rbac.model.query.LogQuery;
+import com.czj.rbac.service.DataExportService;
 import com.czj.rbac.service.SysLogService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 @Slf4j
 @RestController
 @RequestMapping("/log")
@@ -19,6 +27,9 @@ public class SysLogController {
     @Autowired
     private SysLogService logService;
 
+    @Autowired
+    private DataExportService dataExportService;
+
     @GetMapping("/{id}")
     @RequirePermission("sys:log:query")
     public Result<SysLog> getById(@PathVariable Long id) {
@@ -49,4 +60,35 @@ public class SysLogController {
         PageResult<SysLog> pageResult = logService.findPage(page, size, module, operation, startTime, endTime);
         return Result.success(pageResult);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 游标分页查询日志，nextCursor传入下一次请求的cursor参数
+     */
+    @GetMapping("/cursor")
+    @RequirePermission("sys:log:query")
+    public Result<CursorResult<SysLog>> cursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String module,
+            @RequestParam(required = false) String operation,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return Result.success(logService.findByCursor(cursor, size, module, operation, startTime, endTime, withTotal));
+    }
+
+    /**
+     * 流式导出日志，format为csv或ndjson，exportFields限制在导出白名单内，gzip为true时输出.gz文件
+     */
+    @GetMapping("/export")
+    @RequirePermission("sys:log:query")
+    public void export(LogQuery query,
+                       @RequestParam(required = false) String format,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = DataExportService.parseFormat(format);
+        try (OutputStream out = dataExportService.openResponse(response, "sys-log", exportFormat, gzip)) {
+            dataExportService.exportLogs(query, exportFormat, out);
+        }
+    }
+}
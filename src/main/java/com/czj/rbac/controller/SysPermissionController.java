@@ -8,9 +8,13 @@ import com.czj.rbac.common.ResponseCode;
 import com.czj.rbac.model.dto.PermissionDTO;
 import com.czj.rbac.model.query.PermissionQuery;
 import com.czj.rbac.model.vo.PermissionVO;
+import com.czj.rbac.service.DataVersionService;
 import com.czj.rbac.service.SysPermissionService;
+import com.czj.rbac.service.VersionedJsonCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.bind.annotation.*;
 import com.czj.rbac.util.SecurityUtils;
 import org.springframework.util.StringUtils;
@@ -25,6 +29,9 @@ public class SysPermissionController {
     @Autowired
     private SysPermissionService permissionService;
 
+    @Autowired
+    private VersionedJsonCache versionedJsonCache;
+
     @GetMapping("/{id}")
     @RequirePermission("sys:permission:query")
     public Result<PermissionVO> getById(@PathVariable Long id) {
@@ -83,19 +90,21 @@ public class SysPermissionController {
 
     @GetMapping("/list")
     @RequirePermission("sys:permission:query")
-    public Result<List<PermissionVO>> list(Integer status, String type) {
+    public ResponseEntity<byte[]> list(Integer status, String type, WebRequest request) {
         log.info("查询权限列表, status: {}, type: {}", status, type);
         if (status != null && status != 0 && status != 1) {
             throw new BusinessException(ResponseCode.PARAM_ERROR, "无效的状态值");
         }
-        return Result.success(permissionService.findList(status, type));
+        return versionedJsonCache.respond(request, DataVersionService.PERMISSION, "list:" + status + ":" + type,
+            () -> Result.success(permissionService.findList(status, type)));
     }
 
     @GetMapping("/tree")
     @RequirePermission("sys:permission:query")
-    public Result<List<PermissionVO>> tree(String type) {
+    public ResponseEntity<byte[]> tree(String type, WebRequest request) {
         log.info("查询权限树, type: {}", type);
-        return Result.success(permissionService.findPermissionTree(type));
+        return versionedJsonCache.respond(request, DataVersionService.PERMISSION, "tree:" + type,
+            () -> Result.success(permissionService.findPermissionTree(type)));
     }
 
     @PostMapping
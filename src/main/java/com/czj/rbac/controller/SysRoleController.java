@@ -8,10 +8,14 @@ import com.czj.rbac.common.ResponseCode;
 import com.czj.rbac.model.dto.RoleDTO;
 import com.czj.rbac.model.query.RoleQuery;
 import com.czj.rbac.model.vo.RoleVO;
+import com.czj.rbac.service.DataVersionService;
 import com.czj.rbac.service.SysRoleService;
+import com.czj.rbac.service.VersionedJsonCache;
 import com.czj.rbac.util.SecurityUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.util.StringUtils;
 
@@ -27,6 +31,9 @@ public class SysRoleController {
     @Autowired
     private SysRoleService roleService;
 
+    @Autowired
+    private VersionedJsonCache versionedJsonCache;
+
     @GetMapping("/{id}")
     @RequirePermission("sys:role:query")
     public Result<RoleVO> getById(@PathVariable Long id) {
@@ -62,12 +69,13 @@ public class SysRoleController {
 
     @GetMapping("/list")
     @RequirePermission("sys:role:query")
-    public Result<List<RoleVO>> list(Integer status) {
+    public ResponseEntity<byte[]> list(Integer status, WebRequest request) {
         log.info("查询角色列表, status: {}", status);
         if (status != null && status != 0 && status != 1) {
             throw new BusinessException(ResponseCode.PARAM_ERROR, "无效的状态值");
         }
-        return Result.success(roleService.findList(status));
+        return versionedJsonCache.respond(request, DataVersionService.ROLE, "list:" + status,
+            () -> Result.success(roleService.findList(status)));
     }
 
     @PostMapping
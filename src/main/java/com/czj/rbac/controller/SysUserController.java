@@ -6,7 +6,10 @@ import com.czj.rbac.common.Result;
 import com.czj.rbac.model.dto.UserDTO;
 import com.czj.rbac.model.query.UserQuery;
 import com.czj.rbac.model.vo.UserVO;
+import com.czj.rbac.model.enums.ExportFormat;
+import com.czj.rbac.service.DataExportService;
 import com.czj.rbac.service.SysUserService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,6 +20,7 @@ import com.czj.rbac.common.ResponseCode;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.UUID;
 import java.util.List;
 
@@ -31,12 +35,30 @@ public class SysUserController {
     @Autowired
     private SysUserService userService;
 
+    @Autowired
+    private DataExportService dataExportService;
+
     @GetMapping("/page")
     @RequirePermission("sys:user:query")
     public Result<PageResult<UserVO>> page(UserQuery query) {
         return Result.success(userService.findPage(query));
     }
 
+    /**
+     * 流式导出用户，format为csv或ndjson，exportFields限制在导出白名单内，gzip为true时输出.gz文件
+     */
+    @GetMapping("/export")
+    @RequirePermission("sys:user:query")
+    public void export(UserQuery query,
+                       @RequestParam(required = false) String format,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = DataExportService.parseFormat(format);
+        try (OutputStream out = dataExportService.openResponse(response, "sys-user", exportFormat, gzip)) {
+            dataExportService.exportUsers(query, exportFormat, out);
+        }
+    }
+
     @GetMapping("/{id}")
     @RequirePermission("sys:user:query")
     public Result<UserVO> getById(@PathVariable Long id) {
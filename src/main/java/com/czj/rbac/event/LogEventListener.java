@@ -1,11 +1,10 @@
 package com.czj.rbac.event;
 
-import com.czj.rbac.mapper.SysLogMapper;
 import com.czj.rbac.model.SysLog;
+import com.czj.rbac.service.AuditLogWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -15,9 +14,11 @@ import java.time.LocalDateTime;
 public class LogEventListener {
 
     @Autowired
-    private SysLogMapper logMapper;
+    private AuditLogWriter auditLogWriter;
 
-    @Async("logTaskExecutor")
+    /**
+     * 转换后交给批量写入器，只写内存缓冲区，无需异步线程池
+     */
     @EventListener
     public void handleLogEvent(LogEvent event) {
         try {
@@ -39,10 +40,10 @@ public class LogEventListener {
             sysLog.setCreateTime(event.getOperateTime());
             sysLog.setUpdateTime(LocalDateTime.now());
 
-            // 保存日志
-            logMapper.insert(sysLog);
+            // 提交到批量写入缓冲区
+            auditLogWriter.submit(sysLog);
             
-            log.debug("日志事件处理完成: {}", event);
+            log.debug("日志事件已提交: {}", event);
         } catch (Exception e) {
             log.error("处理日志事件失败: {}", e.getMessage());
         }
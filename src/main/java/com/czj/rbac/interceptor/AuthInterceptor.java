@@ -3,11 +3,13 @@ package com.czj.rbac.interceptor;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.HandlerInterceptor;
 import com.czj.rbac.common.BusinessException;
 import com.czj.rbac.common.ResponseCode;
+import com.czj.rbac.service.TokenBlacklistService;
 import com.czj.rbac.util.JwtUtil;
 import io.jsonwebtoken.Claims;
 import java.util.Arrays;
@@ -17,6 +19,12 @@ import java.util.List;
 @Component
 public class AuthInterceptor implements HandlerInterceptor {
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TokenBlacklistService tokenBlacklistService;
+
     private static final List<String> WHITE_LIST = Arrays.asList(
         "/auth/login",
         "/auth/logout",
@@ -41,8 +49,9 @@ public class AuthInterceptor implements HandlerInterceptor {
         String requestURI = request.getRequestURI();
         log.debug("请求URI: {}", requestURI);
         
-        // 1. 白名单放行
+        // 1. 白名单放行，携带有效token时仍解析用户信息（如登出、刷新）
         if (isWhiteListUrl(requestURI)) {
+            jwtUtil.resolveClaims(request);
             return true;
         }
 
@@ -53,24 +62,22 @@ public class AuthInterceptor implements HandlerInterceptor {
             throw new BusinessException(ResponseCode.UNAUTHORIZED);
         }
 
-        // 3. 验证token有效性
-        try {
-            if (!JwtUtil.validateToken(token)) {
-                log.warn("Token无效，URI: {}", requestURI);
-                throw new BusinessException(ResponseCode.UNAUTHORIZED);
-            }
-
-            // 4. 设置用户信息到请求上下文
-            Claims claims = JwtUtil.parseJwt(token);
-            request.setAttribute("userId", claims.get("userId"));
-            request.setAttribute("username", claims.get("username"));
-            
-            return true;
-        } catch (Exception e) {
-            log.error("Token验证失败: {}", e.getMessage());
+        // 3. 验证token有效性，解析结果保存在请求属性中供后续使用
+        Claims claims = jwtUtil.resolveClaims(request);
+        if (claims == null) {
+            log.warn("Token无效，URI: {}", requestURI);
+            throw new BusinessException(ResponseCode.UNAUTHORIZED);
+        }
+        String jwt = token.startsWith(JwtUtil.TOKEN_PREFIX) ? token.substring(JwtUtil.TOKEN_PREFIX.length()) : token;
+        if (tokenBlacklistService.isRevoked(jwt, claims)) {
+            log.warn("Token已被吊销，URI: {}", requestURI);
             throw new BusinessException(ResponseCode.UNAUTHORIZED);
         }
 
+        // 4. 设置用户信息到请求上下文
+        request.setAttribute("userId", claims.get("userId"));
+        request.setAttribute("username", claims.get("username"));
+        return true;
     }
 
     private boolean isWhiteListUrl(String requestURI) {
@@ -1,6 +1,8 @@
 package com.czj.rbac.mapper;
 
 import com.czj.rbac.model.LoginInfo;
+import com.czj.rbac.model.query.LoginInfoQuery;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import java.time.LocalDateTime;
@@ -13,6 +15,11 @@ public interface LoginInfoMapper {
      */
     int insert(LoginInfo loginInfo);
     
+    /**
+     * 批量插入登录信息
+     */
+    int batchInsert(@Param("list") List<LoginInfo> list);
+    
     /**
      * 更新登录信息
      */
@@ -40,6 +47,24 @@ public interface LoginInfoMapper {
                             @Param("endTime") LocalDateTime endTime,
                             @Param("loginStatus") Integer loginStatus);
     
+    /**
+     * 游标分页查询，按(login_time, id)倒序，cursorTime为null时查询第一页
+     */
+    List<LoginInfo> findByCursor(@Param("userId") Long userId,
+                                @Param("username") String username,
+                                @Param("loginIp") String loginIp,
+                                @Param("startTime") LocalDateTime startTime,
+                                @Param("endTime") LocalDateTime endTime,
+                                @Param("loginStatus") Integer loginStatus,
+                                @Param("cursorTime") LocalDateTime cursorTime,
+                                @Param("cursorId") Long cursorId,
+                                @Param("limit") Integer limit);
+    
+    /**
+     * 流式查询，用于导出，调用方需在事务内遍历并关闭游标
+     */
+    Cursor<LoginInfo> streamByQuery(@Param("query") LoginInfoQuery query);
+    
     /**
      * 统计总数
      */
@@ -57,6 +82,11 @@ public interface LoginInfoMapper {
                         @Param("loginId") String loginId,
                         @Param("logoutTime") LocalDateTime logoutTime);
     
+    /**
+     * 批量更新登出时间，按userId+loginId匹配，取各元素的logoutTime
+     */
+    int batchUpdateLogoutTime(@Param("list") List<LoginInfo> list);
+    
     /**
      * 删除指定时间之前的数据
      */
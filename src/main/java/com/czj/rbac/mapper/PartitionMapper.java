@@ -0,0 +1,29 @@
+package com.czj.rbac.mapper;
+
+import com.czj.rbac.model.TablePartition;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import java.util.List;
+
+/**
+ * 日志表分区维护，表名和分区名由调用方生成，不接受外部输入
+ */
+@Mapper
+public interface PartitionMapper {
+    /**
+     * 按顺序查询表的分区，未分区时返回空列表
+     */
+    List<TablePartition> listPartitions(@Param("table") String table);
+    
+    /**
+     * 将MAXVALUE分区拆分出新的分区
+     */
+    int addPartitions(@Param("table") String table,
+                      @Param("futurePartition") String futurePartition,
+                      @Param("partitions") List<TablePartition> partitions);
+    
+    /**
+     * 删除分区
+     */
+    int dropPartitions(@Param("table") String table, @Param("names") List<String> names);
+}
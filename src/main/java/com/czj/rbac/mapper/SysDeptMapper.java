@@ -0,0 +1,69 @@
+package com.czj.rbac.mapper;
+
+import com.czj.rbac.model.SysDept;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface SysDeptMapper {
+
+    /**
+     * 查询所有部门
+     */
+    List<SysDept> findAll();
+
+    SysDept findById(@Param("id") Long id);
+
+    int insert(SysDept dept);
+
+    int update(SysDept dept);
+
+    int deleteById(@Param("id") Long id);
+
+    /**
+     * 统计直接子部门数
+     */
+    int countChildren(@Param("id") Long id);
+
+    /**
+     * 统计直属该部门的用户数
+     */
+    int countUsers(@Param("id") Long id);
+
+    /**
+     * 为新部门写入闭包行：自身一行，加上父部门的每个祖先各一行
+     */
+    int insertClosure(@Param("deptId") Long deptId, @Param("parentId") Long parentId);
+
+    /**
+     * 删除以deptId为根的子树与子树外祖先之间的闭包行，子树内部的行保留
+     */
+    int detachClosure(@Param("deptId") Long deptId);
+
+    /**
+     * 将以deptId为根的子树挂到parentId下：父部门的每个祖先与子树的每个节点各一行
+     */
+    int attachClosure(@Param("deptId") Long deptId, @Param("parentId") Long parentId);
+
+    /**
+     * 删除叶子部门的闭包行
+     */
+    int deleteClosure(@Param("deptId") Long deptId);
+
+    /**
+     * 判断ancestorId是否为descendantId的祖先或自身
+     */
+    int isAncestor(@Param("ancestorId") Long ancestorId, @Param("descendantId") Long descendantId);
+
+    /**
+     * 查询部门子树(含自身)下的所有用户ID
+     */
+    List<Long> findUserIdsInSubtree(@Param("deptId") Long deptId);
+
+    /**
+     * 查询直属部门的用户ID
+     */
+    List<Long> findUserIdsByDeptId(@Param("deptId") Long deptId);
+}
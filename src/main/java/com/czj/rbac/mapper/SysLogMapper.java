@@ -1,6 +1,8 @@
 package com.czj.rbac.mapper;
 
 import com.czj.rbac.model.SysLog;
+import com.czj.rbac.model.query.LogQuery;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import java.time.LocalDateTime;
@@ -69,10 +71,39 @@ public interface SysLogMapper {
              @Param("endTime") String endTime);
 
     /**
-     * 删除过期日志
+     * 游标分页查询日志，按(create_time, id)倒序
+     *
+     * @param module 模块名称
+     * @param operation 操作类型
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param cursorTime 上一页最后一条的创建时间，为null时查询第一页
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 查询条数
+     * @return 日志列表
+     */
+    List<SysLog> findByCursor(@Param("module") String module,
+                              @Param("operation") String operation,
+                              @Param("startTime") String startTime,
+                              @Param("endTime") String endTime,
+                              @Param("cursorTime") LocalDateTime cursorTime,
+                              @Param("cursorId") Long cursorId,
+                              @Param("limit") Integer limit);
+
+    /**
+     * 流式查询日志，用于导出，调用方需在事务内遍历并关闭游标
+     *
+     * @param query 查询条件
+     * @return 日志游标
+     */
+    Cursor<SysLog> streamByQuery(@Param("query") LogQuery query);
+
+    /**
+     * 删除过期日志，单次最多删除limit条
      *
      * @param expireTime 过期时间
+     * @param limit 最大删除条数
      * @return 删除的记录数
      */
-    int deleteExpiredLogs(@Param("expireTime") LocalDateTime expireTime);
+    int deleteExpiredLogs(@Param("expireTime") LocalDateTime expireTime, @Param("limit") int limit);
 } 
\ No newline at end of file
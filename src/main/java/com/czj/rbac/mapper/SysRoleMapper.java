@@ -142,4 +142,12 @@ public interface SysRoleMapper {
      * @return 权限ID列表
      */
     List<Long> findPermissionIdsByRoleId(@Param("roleId") Long roleId);
-} 
\ No newline at end of file
+    
+    /**
+     * 获取拥有指定权限的角色ID
+     *
+     * @param permissionId 权限ID
+     * @return 角色ID列表
+     */
+    List<Long> findRoleIdsByPermissionId(@Param("permissionId") Long permissionId);
+}
@@ -1,9 +1,11 @@
 package com.czj.rbac.mapper;
 
 import com.czj.rbac.model.SysUser;
+import com.czj.rbac.model.query.UserDataScope;
 import com.czj.rbac.model.query.UserQuery;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import java.time.LocalDateTime;
 import java.util.List;
 import com.czj.rbac.model.vo.PermissionVO;
@@ -109,13 +111,19 @@ public interface SysUserMapper {
     /**
      * 查询总记录数
      * @param query 查询条件
+     * @param scope 数据权限条件，为null时不限制
      * @return 总记录数
      */
-    int count(@Param("query") UserQuery query);
+    int count(@Param("query") UserQuery query, @Param("scope") UserDataScope scope);
 
     int count();
 
-    List<SysUser> selectPage(@Param("query") UserQuery query);
+    List<SysUser> selectPage(@Param("query") UserQuery query, @Param("scope") UserDataScope scope);
+
+    /**
+     * 流式查询用户，用于导出，调用方需在事务内遍历并关闭游标
+     */
+    Cursor<SysUser> streamByQuery(@Param("query") UserQuery query, @Param("scope") UserDataScope scope);
 
     void delete(Long id);
 
@@ -146,11 +154,28 @@ public interface SysUserMapper {
      */
     int resetLoginFail(@Param("id") Long id);
 
+    /**
+     * 更新密码哈希
+     *
+     * @param id 用户ID
+     * @param password 新的密码哈希
+     * @return 影响的行数
+     */
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
     /**
      * 根据角色ID查询用户ID列表
      */
     List<Long> findUserIdsByRoleId(@Param("roleId") Long roleId);
 
+    /**
+     * 根据用户ID查询角色ID列表(不过滤角色状态)
+     *
+     * @param userId 用户ID
+     * @return 角色ID列表
+     */
+    List<Long> findRoleIdsByUserId(@Param("userId") Long userId);
+
     /**
      * 根据用户ID查询部门ID
      *
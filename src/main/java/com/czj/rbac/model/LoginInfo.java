@@ -34,7 +34,7 @@ public class LoginInfo {
     private String deviceType;
     
     /**
-     * 设备信息
+     * 设备信息（原始User-Agent，超长截断）
      */
     private String deviceInfo;
     
@@ -0,0 +1,18 @@
+package com.czj.rbac.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class SysDept extends BaseModel {
+    /**
+     * 顶级部门的父ID
+     */
+    public static final long ROOT_PARENT_ID = 0L;
+
+    private Long parentId;
+    private String deptName;
+    private Integer sortOrder;
+    private Integer status;
+}
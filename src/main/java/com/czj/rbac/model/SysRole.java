@@ -9,6 +9,10 @@ public class SysRole {
     private String roleName;
     private String roleCode;
     private String description;
+    /**
+     * 数据权限范围，见DataScope
+     */
+    private Integer dataScope;
     private Integer status;
     private LocalDateTime createTime;
     private LocalDateTime updateTime;
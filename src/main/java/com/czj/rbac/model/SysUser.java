@@ -23,6 +23,7 @@ public class SysUser extends BaseModel {
     private String email;
     private String phone;
     private String avatar;
+    private Long deptId;
     private Integer status;
     private Integer loginFailCount;
     private LocalDateTime lastLoginTime;
@@ -0,0 +1,24 @@
+package com.czj.rbac.model;
+
+import lombok.Data;
+
+/**
+ * 表分区信息
+ */
+@Data
+public class TablePartition {
+    /**
+     * 分区名
+     */
+    private String name;
+    
+    /**
+     * 分区上界(不含)，格式yyyy-MM-dd，MAXVALUE分区为null
+     */
+    private String lessThan;
+    
+    /**
+     * 估算行数
+     */
+    private Long tableRows;
+}
@@ -0,0 +1,12 @@
+package com.czj.rbac.model.dto;
+
+import lombok.Data;
+
+@Data
+public class DeptDTO {
+    private Long id;
+    private Long parentId; // 父部门ID，0或为空表示顶级部门
+    private String deptName;
+    private Integer sortOrder;
+    private Integer status;
+}
@@ -9,6 +9,7 @@ public class RoleDTO {
     private String roleName;
     private String roleCode;
     private String description;
+    private Integer dataScope; // 数据权限范围
     private Integer status;
     private List<Long> permissionIds; // 权限ID列表
 } 
\ No newline at end of file
@@ -12,6 +12,7 @@ public class UserDTO {
     private String email;
     private String phone;
     private String avatar;
+    private Long deptId;
     private Integer status;
     private List<Long> roleIds;  // 用户角色ID列表
 } 
\ No newline at end of file
@@ -2,25 +2,31 @@ package com.czj.rbac.model.enums;
 
 /**
  * 数据权限范围枚举
- * TODO: 目前仅使用ALL和SELF两种权限范围，其他类型预留
+ * 按可见范围从大到小为 ALL > DEPT_AND_CHILD > DEPT > SELF，用户有多个角色时取最大的范围
+ * TODO: CUSTOM自定义数据范围预留
  */
 public enum DataScope {
-    ALL(1, "所有数据"),
-    SELF(2, "仅本人数据");
+    ALL(1, "所有数据", 4),
+    SELF(2, "仅本人数据", 1),
+    DEPT_AND_CHILD(3, "本部门及以下数据", 3),
+    DEPT(4, "本部门数据", 2);
 
     // TODO: 预留的数据权限范围，后续可能会用到
         /*
-        DEPT_AND_CHILD(3, "本部门及以下数据"),
-        DEPT(4, "本部门数据"),
         CUSTOM(5, "自定义数据");
         */
 
     private final int code;
     private final String desc;
+    /**
+     * 可见范围大小，用于合并多个角色的数据范围
+     */
+    private final int breadth;
 
-    DataScope(int code, String desc) {
+    DataScope(int code, String desc, int breadth) {
         this.code = code;
         this.desc = desc;
+        this.breadth = breadth;
     }
 
     public int getCode() {
@@ -31,6 +37,13 @@ public enum DataScope {
         return desc;
     }
 
+    /**
+     * 返回两者中可见范围更大的一个
+     */
+    public DataScope widest(DataScope other) {
+        return other != null && other.breadth > breadth ? other : this;
+    }
+
     public static DataScope getByCode(int code) {
         for (DataScope scope : values()) {
             if (scope.getCode() == code) {
@@ -39,4 +52,4 @@ public enum DataScope {
         }
         return SELF; // 默认返回仅本人数据
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,11 @@
 package com.czj.rbac.model.query;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.util.StringUtils;
 import java.util.*;
 
@@ -62,9 +67,18 @@ public class BaseQuery {
     private static final Set<String> ALLOWED_ORDER_FIELDS = new HashSet<>();
     
     /**
-     * 允许导出的字段集合
+     * 允许导出的公共字段
      */
-    private static final Set<String> ALLOWED_EXPORT_FIELDS = new HashSet<>();
+    private static final Set<String> ALLOWED_EXPORT_FIELDS = new LinkedHashSet<>();
+    
+    /**
+     * 当前查询允许导出的字段，按导出列顺序排列。由子类注册，不接受请求参数绑定
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Set<String> allowedExportFields = new LinkedHashSet<>(ALLOWED_EXPORT_FIELDS);
     
     static {
         // 添加允许排序的字段
@@ -143,7 +157,7 @@ public class BaseQuery {
         
         // 验证导出字段
         if (needExport && exportFields != null) {
-            exportFields.removeIf(field -> !ALLOWED_EXPORT_FIELDS.contains(field.toLowerCase()));
+            exportFields.removeIf(field -> field == null || !allowedExportFields.contains(field.toLowerCase()));
         }
         
         // 验证高级搜索条件
@@ -303,8 +317,23 @@ public class BaseQuery {
      */
     protected void addAllowedExportField(String field) {
         if (StringUtils.hasText(field)) {
-            ALLOWED_EXPORT_FIELDS.add(field.toLowerCase());
+            allowedExportFields.add(field.toLowerCase());
+        }
+    }
+    
+    /**
+     * 实际导出的字段：请求中白名单内的字段，未指定时为全部允许的字段
+     */
+    public List<String> resolveExportFields() {
+        List<String> fields = new ArrayList<>();
+        if (exportFields != null) {
+            for (String field : exportFields) {
+                if (field != null && allowedExportFields.contains(field.toLowerCase())) {
+                    fields.add(field.toLowerCase());
+                }
+            }
         }
+        return fields.isEmpty() ? new ArrayList<>(allowedExportFields) : fields;
     }
     
     /**
@@ -0,0 +1,29 @@
+package com.czj.rbac.model.query;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class LogQuery extends BaseQuery {
+    /**
+     * 模块名称
+     */
+    private String module;
+    
+    /**
+     * 操作类型
+     */
+    private String operation;
+    
+    public LogQuery() {
+        // 添加系统日志允许导出的字段
+        addAllowedExportField("module");
+        addAllowedExportField("operation");
+        addAllowedExportField("content");
+        addAllowedExportField("success");
+        addAllowedExportField("error_msg");
+        addAllowedExportField("operator_id");
+        addAllowedExportField("operator_name");
+    }
+}
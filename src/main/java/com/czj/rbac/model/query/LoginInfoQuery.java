@@ -0,0 +1,42 @@
+package com.czj.rbac.model.query;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class LoginInfoQuery extends BaseQuery {
+    /**
+     * 用户ID
+     */
+    private Long userId;
+    
+    /**
+     * 用户名
+     */
+    private String username;
+    
+    /**
+     * 登录IP
+     */
+    private String loginIp;
+    
+    /**
+     * 登录状态(1-成功 0-失败)
+     */
+    private Integer loginStatus;
+    
+    public LoginInfoQuery() {
+        // 添加登录日志允许导出的字段
+        addAllowedExportField("user_id");
+        addAllowedExportField("username");
+        addAllowedExportField("login_id");
+        addAllowedExportField("device_info");
+        addAllowedExportField("login_ip");
+        addAllowedExportField("login_location");
+        addAllowedExportField("login_time");
+        addAllowedExportField("logout_time");
+        addAllowedExportField("login_status");
+        addAllowedExportField("fail_reason");
+    }
+}
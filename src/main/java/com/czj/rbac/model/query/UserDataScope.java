@@ -0,0 +1,92 @@
+package com.czj.rbac.model.query;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 用户列表的数据权限条件
+ * 每个请求解析一次，作为SQL条件传给SysUserMapper的分页、计数和导出查询，替代逐行的数据权限校验
+ */
+@Getter
+public class UserDataScope {
+
+    /**
+     * 当前用户ID，本人数据始终可见，为null时不可见任何数据
+     */
+    private final Long userId;
+
+    /**
+     * 是否可见全部用户
+     */
+    private final boolean all;
+
+    /**
+     * 是否按角色等级放开，可见不持有excludedRoleIds中任一角色的用户
+     */
+    private final boolean managed;
+
+    /**
+     * 等级不低于当前用户的启用角色ID，managed为true时非空
+     */
+    private final List<Long> excludedRoleIds;
+
+    /**
+     * 可见该部门的用户，为null时不按部门放开
+     */
+    private final Long deptId;
+
+    /**
+     * 是否包含deptId的下级部门，按部门闭包表匹配
+     */
+    private final boolean includeChildDepts;
+
+    private UserDataScope(Long userId, boolean all, List<Long> excludedRoleIds, Long deptId, boolean includeChildDepts) {
+        this.userId = userId;
+        this.all = all;
+        this.managed = excludedRoleIds != null;
+        this.excludedRoleIds = excludedRoleIds == null ? Collections.emptyList() : excludedRoleIds;
+        this.deptId = deptId;
+        this.includeChildDepts = includeChildDepts;
+    }
+
+    /**
+     * 全部数据
+     */
+    public static UserDataScope all(Long userId) {
+        return new UserDataScope(userId, true, null, null, false);
+    }
+
+    /**
+     * 本人及等级低于当前用户的用户
+     *
+     * @param excludedRoleIds 等级不低于当前用户的启用角色ID，不能为空
+     */
+    public static UserDataScope managed(Long userId, List<Long> excludedRoleIds) {
+        return new UserDataScope(userId, false, excludedRoleIds, null, false);
+    }
+
+    /**
+     * 仅本人数据
+     */
+    public static UserDataScope self(Long userId) {
+        return new UserDataScope(userId, false, null, null, false);
+    }
+
+    /**
+     * 在当前范围上追加部门范围
+     *
+     * @param includeChildDepts 是否包含下级部门
+     */
+    public UserDataScope withDept(Long deptId, boolean includeChildDepts) {
+        return new UserDataScope(userId, all, managed ? excludedRoleIds : null, deptId, includeChildDepts);
+    }
+
+    @Override
+    public String toString() {
+        return "UserDataScope(userId=" + userId + ", all=" + all + ", managed=" + managed
+            + ", excludedRoleIds=" + excludedRoleIds
+            + ", deptId=" + deptId + ", includeChildDepts=" + includeChildDepts + ")";
+    }
+}
@@ -47,6 +47,13 @@ public class UserQuery extends BaseQuery {
         addAllowedOrderField("username");
         addAllowedOrderField("nickname");
         addAllowedOrderField("last_login_time");
+        
+        // 添加用户表允许导出的字段，不包含密码
+        addAllowedExportField("username");
+        addAllowedExportField("nickname");
+        addAllowedExportField("email");
+        addAllowedExportField("phone");
+        addAllowedExportField("last_login_time");
     }
     
     @Override
@@ -0,0 +1,16 @@
+package com.czj.rbac.model.vo;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class DeptVO {
+    private Long id;
+    private Long parentId;
+    private String deptName;
+    private Integer sortOrder;
+    private Integer status;
+    private LocalDateTime createTime;
+    private List<DeptVO> children; // 子部门列表
+}
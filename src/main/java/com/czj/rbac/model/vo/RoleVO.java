@@ -10,6 +10,7 @@ public class RoleVO {
     private String roleName;
     private String roleCode;
     private String description;
+    private Integer dataScope;
     private Integer status;
     private LocalDateTime createTime;
     private List<PermissionVO> permissions; // 权限列表
@@ -40,6 +40,11 @@ public class UserVO {
      */
     private String avatar;
     
+    /**
+     * 所属部门ID
+     */
+    private Long deptId;
+    
     /**
      * 状态(1:启用,0:禁用)
      */
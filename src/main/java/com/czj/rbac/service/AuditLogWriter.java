@@ -0,0 +1,308 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.LogConfig;
+import com.czj.rbac.mapper.SysLogMapper;
+import com.czj.rbac.model.SysLog;
+import com.czj.rbac.util.RingBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 审计日志批量写入
+ * 日志先写入有界无锁环形缓冲区，由单个写入线程按批量大小或时间间隔合并为一次batchInsert。
+ * 缓冲区满时按overflowPolicy阻塞、丢弃或溢出到磁盘；写库失败的批次写入溢出日志，
+ * 之后retryInterval内的批次直接写入溢出日志，数据库恢复后在空闲时回放。
+ * 因数据本身导致的批量写入失败会逐条重试，仍然失败的日志写入隔离文件，不进入溢出日志
+ */
+@Slf4j
+@Service
+public class AuditLogWriter {
+
+    @Autowired
+    private SysLogMapper logMapper;
+
+    @Autowired
+    private LogConfig logConfig;
+
+    @Autowired
+    private AuditSpillStore spillStore;
+
+    private RingBuffer<SysLog> buffer;
+
+    private Thread drainer;
+
+    private volatile boolean running;
+
+    /**
+     * 写入线程凑满当前批次还差的条数，缓冲区达到该数量时唤醒写入线程
+     */
+    private volatile int wakeupThreshold;
+
+    /**
+     * 写库失败后允许再次写库的时间，0表示数据库可用
+     */
+    private volatile long retryAt;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong spilledCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong quarantinedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        LogConfig.WriterConfig config = logConfig.getWriter();
+        buffer = new RingBuffer<>(config.getBufferSize());
+        wakeupThreshold = config.getBatchSize();
+        running = true;
+        drainer = new Thread(this::drainLoop, "audit-log-writer");
+        drainer.setDaemon(true);
+        drainer.start();
+        log.info("审计日志写入线程启动 - bufferSize: {}, batchSize: {}, flushInterval: {}ms, overflowPolicy: {}",
+            buffer.capacity(), config.getBatchSize(), config.getFlushInterval(), config.getOverflowPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * 提交日志，不访问数据库
+     *
+     * @return 是否已进入缓冲区或溢出文件
+     */
+    public boolean submit(SysLog sysLog) {
+        submittedCount.incrementAndGet();
+        LogConfig.WriterConfig config = logConfig.getWriter();
+        if (buffer.offer(sysLog)) {
+            if (buffer.size() >= wakeupThreshold) {
+                LockSupport.unpark(drainer);
+            }
+            return true;
+        }
+        switch (config.getOverflowPolicy()) {
+            case BLOCK -> {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getBlockTimeout());
+                LockSupport.unpark(drainer);
+                while (System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                    if (buffer.offer(sysLog)) {
+                        return true;
+                    }
+                }
+            }
+            case SPILL -> {
+                if (spillStore.append(sysLog)) {
+                    spilledCount.incrementAndGet();
+                    return true;
+                }
+            }
+            default -> {
+            }
+        }
+        long dropped = droppedCount.incrementAndGet();
+        if ((dropped & (dropped - 1)) == 0) {
+            log.warn("审计日志缓冲区已满，日志被丢弃 - dropped: {}", dropped);
+        }
+        return false;
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getSpilledCount() {
+        return spilledCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getQuarantinedCount() {
+        return quarantinedCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * 数据库是否可写(未处于失败退避期)
+     */
+    public boolean isDatabaseAvailable() {
+        return System.currentTimeMillis() >= retryAt;
+    }
+
+    /**
+     * 缓冲区中待写入的日志数
+     */
+    public int getPending() {
+        return buffer.size();
+    }
+
+    private void drainLoop() {
+        LogConfig.WriterConfig config = logConfig.getWriter();
+        int batchSize = config.getBatchSize();
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushInterval());
+        List<SysLog> batch = new ArrayList<>(batchSize);
+        long batchStart = 0;
+        while (running || buffer.size() > 0) {
+            int drained = buffer.drainTo(batch, batchSize - batch.size());
+            if (drained > 0 && batchStart == 0) {
+                batchStart = System.nanoTime();
+            }
+            long waited = System.nanoTime() - batchStart;
+            if (batch.size() >= batchSize || (!batch.isEmpty() && (waited >= flushIntervalNanos || !running))) {
+                flush(batch);
+                batch = new ArrayList<>(batchSize);
+                batchStart = 0;
+                continue;
+            }
+            wakeupThreshold = batchSize - batch.size();
+            if (batch.isEmpty()) {
+                spillStore.sync();
+                if (isDatabaseAvailable() && spillStore.hasPending()) {
+                    // 每轮只回放有限批数，避免积压较多时缓冲区长时间得不到处理
+                    int replayed = spillStore.replay(batchSize, config.getReplayBatches(), this::replay);
+                    if (replayed > 0 && spillStore.hasPending()) {
+                        continue;
+                    }
+                }
+                LockSupport.parkNanos(flushIntervalNanos);
+            } else {
+                LockSupport.parkNanos(flushIntervalNanos - waited);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+        log.info("审计日志写入线程退出 - written: {}, dropped: {}", writtenCount.get(), droppedCount.get());
+    }
+
+    private void flush(List<SysLog> batch) {
+        List<SysLog> pending = isDatabaseAvailable() ? write(batch) : batch;
+        if (!pending.isEmpty()) {
+            spill(pending);
+        }
+    }
+
+    /**
+     * 回放一批溢出日志，整批因数据库不可用而失败时返回false，保留在溢出日志中
+     */
+    private boolean replay(List<SysLog> batch) {
+        List<SysLog> pending = write(batch);
+        if (pending.size() == batch.size()) {
+            return false;
+        }
+        if (!pending.isEmpty()) {
+            // 部分写入后数据库不可用，剩余日志重新追加到溢出日志末尾
+            spill(pending);
+        }
+        return true;
+    }
+
+    private void spill(List<SysLog> logs) {
+        if (spillStore.append(logs)) {
+            spilledCount.addAndGet(logs.size());
+        } else {
+            failedCount.addAndGet(logs.size());
+        }
+    }
+
+    /**
+     * 写入一批日志
+     *
+     * @return 因数据库不可用而未写入的日志，需写入溢出日志
+     */
+    private List<SysLog> write(List<SysLog> batch) {
+        try {
+            logMapper.batchInsert(batch);
+            onWritten(batch.size());
+            return List.of();
+        } catch (Exception e) {
+            if (isUnavailable(e)) {
+                onUnavailable(batch.size(), e);
+                return batch;
+            }
+            log.error("审计日志批量写入失败，逐条重试 - size: {}, error: {}", batch.size(), e.getMessage());
+        }
+        // 逐条写入，避免单条异常数据导致整批反复进入溢出日志
+        List<SysLog> rejected = new ArrayList<>();
+        int written = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            SysLog sysLog = batch.get(i);
+            try {
+                logMapper.insert(sysLog);
+                written++;
+            } catch (Exception e) {
+                if (isUnavailable(e)) {
+                    writtenCount.addAndGet(written);
+                    quarantine(rejected);
+                    onUnavailable(batch.size() - i, e);
+                    return batch.subList(i, batch.size());
+                }
+                rejected.add(sysLog);
+                log.error("审计日志写入失败 - module: {}, operation: {}, error: {}",
+                    sysLog.getModule(), sysLog.getOperation(), e.getMessage());
+            }
+        }
+        onWritten(written);
+        quarantine(rejected);
+        return List.of();
+    }
+
+    private void onWritten(int count) {
+        writtenCount.addAndGet(count);
+        batchCount.incrementAndGet();
+        if (retryAt != 0) {
+            retryAt = 0;
+            log.info("审计日志写库恢复");
+        }
+    }
+
+    private void onUnavailable(int count, Exception e) {
+        retryAt = System.currentTimeMillis() + logConfig.getWriter().getRetryInterval();
+        log.error("审计日志写库失败，数据库不可用 - size: {}, error: {}", count, e.getMessage());
+    }
+
+    private void quarantine(List<SysLog> rejected) {
+        if (rejected.isEmpty()) {
+            return;
+        }
+        int quarantined = spillStore.quarantine(rejected);
+        quarantinedCount.addAndGet(quarantined);
+        failedCount.addAndGet(rejected.size() - quarantined);
+    }
+
+    /**
+     * 连接失败、超时等与数据无关的异常视为数据库不可用，其余数据访问异常视为数据本身的问题
+     */
+    private static boolean isUnavailable(Exception e) {
+        return !(e instanceof NonTransientDataAccessException) || e instanceof DataAccessResourceFailureException;
+    }
+}
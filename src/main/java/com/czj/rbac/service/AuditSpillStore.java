@@ -0,0 +1,390 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.LogConfig;
+import com.czj.rbac.model.SysLog;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 审计日志溢出日志
+ * 无法及时写入sys_log的日志追加到本地内存映射的分段文件，数据库恢复后按批回放。
+ * 段文件结构: [8字节已回放偏移][记录...]，记录为[4字节长度][4字节CRC32][JSON]，长度为0表示段内数据结束。
+ * 段写满后切换新段；回放进度在每批写入成功后持久化，崩溃后可能重复回放最后一批。
+ * 段文件总大小不超过spillMaxSize，超出后拒绝追加；无法入库的异常日志按行写入隔离文件，不再回放
+ */
+@Slf4j
+@Service
+public class AuditSpillStore {
+
+    private static final String SEGMENT_PREFIX = "audit-";
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final String QUARANTINE_FILE = "quarantine.ndjson";
+
+    @Autowired
+    private LogConfig logConfig;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 已写满或已封存、等待回放的段，按序号排列
+     */
+    private final Deque<Path> sealed = new ArrayDeque<>();
+
+    /**
+     * 当前写入段
+     */
+    private Segment active;
+
+    private long nextSequence;
+
+    private boolean dirty;
+
+    /**
+     * 段文件总大小是否已达上限
+     */
+    private boolean full;
+
+    /**
+     * 段文件总大小达到上限
+     */
+    private static class SpillFullException extends IOException {
+        SpillFullException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 内存映射的段文件
+     */
+    private static class Segment implements AutoCloseable {
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        Segment(Path path, long size) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size > 0 ? size : channel.size());
+        }
+
+        @Override
+        public void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path dir = directory();
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .forEach(sealed::add);
+        }
+        if (!sealed.isEmpty()) {
+            nextSequence = sequenceOf(sealed.getLast()) + 1;
+            log.info("发现未回放的审计日志段 - count: {}", sealed.size());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        sealActive();
+    }
+
+    /**
+     * 追加日志，不立即刷盘
+     */
+    public synchronized boolean append(SysLog sysLog) {
+        try {
+            write(sysLog);
+            return true;
+        } catch (SpillFullException e) {
+            return false;
+        } catch (IOException e) {
+            log.error("审计日志写入溢出段失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 批量追加日志并刷盘
+     */
+    public synchronized boolean append(List<SysLog> logs) {
+        try {
+            for (SysLog sysLog : logs) {
+                write(sysLog);
+            }
+            sync();
+            return true;
+        } catch (SpillFullException e) {
+            sync();
+            return false;
+        } catch (IOException e) {
+            log.error("审计日志批量写入溢出段失败 - size: {}, error: {}", logs.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 将无法入库的日志按行写入隔离文件，隔离文件不回放，超过段大小后不再写入
+     *
+     * @return 写入隔离文件的条数
+     */
+    public synchronized int quarantine(List<SysLog> logs) {
+        Path path = directory().resolve(QUARANTINE_FILE);
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (SysLog sysLog : logs) {
+                lines.append(objectMapper.writeValueAsString(sysLog)).append('\n');
+            }
+            byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+            long size = Files.exists(path) ? Files.size(path) : 0;
+            if (size + bytes.length > logConfig.getWriter().getSegmentSize()) {
+                log.error("审计日志隔离文件已满，日志被丢弃 - size: {}", logs.size());
+                return 0;
+            }
+            Files.write(path, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.warn("审计日志无法入库，已写入隔离文件 - file: {}, size: {}", path, logs.size());
+            return logs.size();
+        } catch (IOException e) {
+            log.error("审计日志写入隔离文件失败 - size: {}, error: {}", logs.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 将当前段的修改刷到磁盘
+     */
+    public synchronized void sync() {
+        if (dirty && active != null) {
+            active.buffer.force();
+            dirty = false;
+        }
+    }
+
+    /**
+     * 是否有待回放的日志
+     */
+    public synchronized boolean hasPending() {
+        return !sealed.isEmpty() || (active != null && active.buffer.position() > HEADER_SIZE);
+    }
+
+    /**
+     * 按批回放溢出日志，writer返回false时停止，未写入的日志保留到下次回放
+     *
+     * @return 回放成功的条数
+     */
+    public int replay(int batchSize, Predicate<List<SysLog>> writer) {
+        return replay(batchSize, Integer.MAX_VALUE, writer);
+    }
+
+    /**
+     * 按批回放溢出日志，最多回放maxBatches批，剩余的日志保留到下次回放
+     *
+     * @return 回放成功的条数
+     */
+    public int replay(int batchSize, int maxBatches, Predicate<List<SysLog>> writer) {
+        int[] written = {0};
+        int[] budget = {maxBatches};
+        int segments = 0;
+        while (budget[0] > 0) {
+            Path path;
+            synchronized (this) {
+                // 已封存的段回放完后再封存当前段，回放期间的新日志写入新段
+                if (sealed.isEmpty()) {
+                    sealActive();
+                }
+                path = sealed.peekFirst();
+            }
+            if (path == null || !replaySegment(path, batchSize, writer, written, budget)) {
+                break;
+            }
+            synchronized (this) {
+                sealed.remove(path);
+                if (full) {
+                    full = false;
+                    log.info("审计日志溢出段已回放，恢复追加");
+                }
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("删除已回放的审计日志段失败 - file: {}, error: {}", path, e.getMessage());
+            }
+            segments++;
+        }
+        if (written[0] > 0) {
+            log.info("审计日志溢出段回放 - segments: {}, count: {}", segments, written[0]);
+        }
+        return written[0];
+    }
+
+    /**
+     * 回放单个段，成功写入的条数累加到written，每写入一批budget减一，段内全部写入时返回true
+     */
+    private boolean replaySegment(Path path, int batchSize, Predicate<List<SysLog>> writer, int[] written,
+                                  int[] budget) {
+        try (Segment segment = new Segment(path, 0)) {
+            MappedByteBuffer buffer = segment.buffer;
+            int offset = (int) buffer.getLong(0);
+            List<SysLog> batch = new ArrayList<>(batchSize);
+            int position = offset;
+            while (true) {
+                int length = position + RECORD_HEADER_SIZE <= buffer.capacity() ? buffer.getInt(position) : 0;
+                boolean end = length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity();
+                if (!end) {
+                    byte[] bytes = new byte[length];
+                    buffer.get(position + RECORD_HEADER_SIZE, bytes);
+                    if (crc(bytes) != buffer.getInt(position + 4)) {
+                        log.warn("审计日志段记录校验失败，忽略后续内容 - file: {}, position: {}", path, position);
+                        end = true;
+                    } else {
+                        try {
+                            batch.add(objectMapper.readValue(bytes, SysLog.class));
+                        } catch (JsonProcessingException e) {
+                            // 无法解析的记录跳过，避免阻塞后续回放
+                            log.error("审计日志段记录解析失败，已跳过 - file: {}, position: {}, error: {}",
+                                path, position, e.getOriginalMessage());
+                        }
+                        position += RECORD_HEADER_SIZE + length;
+                    }
+                }
+                if (batch.size() >= batchSize || (end && !batch.isEmpty())) {
+                    if (!writer.test(batch)) {
+                        return false;
+                    }
+                    written[0] += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                    // 持久化回放进度
+                    buffer.putLong(0, position);
+                    buffer.force();
+                    budget[0]--;
+                }
+                if (end) {
+                    return true;
+                }
+                if (budget[0] <= 0) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            log.error("审计日志段回放失败 - file: {}, error: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    private void write(SysLog sysLog) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(sysLog);
+        int required = RECORD_HEADER_SIZE + bytes.length;
+        long segmentSize = logConfig.getWriter().getSegmentSize();
+        if (required > segmentSize - HEADER_SIZE - 4) {
+            throw new IOException("日志超过段大小: " + required);
+        }
+        // 预留4字节作为段结束标记
+        if (active == null || active.buffer.remaining() < required + 4) {
+            rotate(segmentSize);
+        }
+        MappedByteBuffer buffer = active.buffer;
+        int position = buffer.position();
+        buffer.putInt(position + 4, crc(bytes));
+        buffer.put(position + RECORD_HEADER_SIZE, bytes);
+        // 最后写入长度，读取方看到长度时内容已完整
+        buffer.putInt(position, bytes.length);
+        buffer.position(position + required);
+        dirty = true;
+    }
+
+    private void rotate(long segmentSize) throws IOException {
+        sealActive();
+        long maxSize = logConfig.getWriter().getSpillMaxSize();
+        if ((sealed.size() + 1L) * segmentSize > maxSize) {
+            if (!full) {
+                full = true;
+                log.error("审计日志溢出段已达上限，停止追加 - segments: {}, maxSize: {}", sealed.size(), maxSize);
+            }
+            throw new SpillFullException("溢出日志已达上限: " + maxSize);
+        }
+        Path path = directory().resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+        active = new Segment(path, segmentSize);
+        active.buffer.putLong(0, HEADER_SIZE);
+        active.buffer.position(HEADER_SIZE);
+        log.debug("创建审计日志段 - file: {}", path);
+    }
+
+    private void sealActive() {
+        if (active == null) {
+            return;
+        }
+        boolean hasData = active.buffer.position() > HEADER_SIZE;
+        try {
+            active.close();
+        } catch (IOException e) {
+            log.error("关闭审计日志段失败 - file: {}, error: {}", active.path, e.getMessage());
+        }
+        if (hasData) {
+            sealed.add(active.path);
+        } else {
+            try {
+                Files.deleteIfExists(active.path);
+            } catch (IOException e) {
+                log.warn("删除空审计日志段失败 - file: {}", active.path);
+            }
+        }
+        active = null;
+        dirty = false;
+    }
+
+    private Path directory() {
+        return Paths.get(logConfig.getWriter().getSpillPath());
+    }
+
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 当前待回放的段数(含写入中的段)
+     */
+    public synchronized int getSegmentCount() {
+        return sealed.size() + (active != null ? 1 : 0);
+    }
+}
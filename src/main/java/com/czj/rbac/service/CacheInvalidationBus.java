@@ -0,0 +1,273 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.CacheConfig;
+import com.czj.rbac.util.TransactionUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存失效总线
+ * 本地缓存失效后通过Redis发布订阅通知其他节点，消息按批合并发送。
+ * 处于事务中时在提交后才发送，避免其他节点在提交前重新加载到旧数据。
+ * 发布订阅在重连期间会丢消息，接收方按节点检查消息序号，序号不连续或重新订阅时清空所有本地缓存
+ */
+@Slf4j
+@Service
+public class CacheInvalidationBus implements MessageListener, SubscriptionListener {
+
+    public static final String TYPE_KEY = "KEY";
+    public static final String TYPE_PREFIX = "PREFIX";
+    public static final String TYPE_ALL = "ALL";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheConfig cacheConfig;
+
+    /**
+     * 当前节点标识，用于忽略自己发出的消息
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 消息序号
+     */
+    private final AtomicLong sequence = new AtomicLong(0);
+
+    /**
+     * 其他节点 -> 已收到的最大消息序号
+     */
+    private final Map<String, Long> lastSequences = new ConcurrentHashMap<>();
+
+    /**
+     * 是否已完成首次订阅，之后的订阅通知视为重连
+     */
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    /**
+     * 因丢失消息而清空本地缓存的次数
+     */
+    private final AtomicLong resyncCount = new AtomicLong(0);
+
+    /**
+     * 缓存名称 -> 本地失效处理器
+     */
+    private final Map<String, Listener> listeners = new ConcurrentHashMap<>();
+
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingSize = new AtomicInteger(0);
+
+    private ScheduledExecutorService flushExecutor;
+
+    /**
+     * 本地失效处理器
+     */
+    public interface Listener {
+        void onInvalidate(Entry entry);
+    }
+
+    /**
+     * 失效条目
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        /**
+         * 缓存名称
+         */
+        private String cache;
+
+        /**
+         * 失效类型: KEY、PREFIX、ALL
+         */
+        private String type;
+
+        /**
+         * 缓存key或key前缀
+         */
+        private String key;
+    }
+
+    /**
+     * 失效消息
+     */
+    @Data
+    public static class InvalidationMessage {
+        private String nodeId;
+        private long sequence;
+        private List<Entry> entries;
+    }
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(cacheConfig.getInvalidation().getChannel()));
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-invalidation-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = cacheConfig.getInvalidation().getFlushInterval();
+        flushExecutor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flushExecutor.shutdown();
+        flush();
+    }
+
+    /**
+     * 注册本地失效处理器
+     */
+    public void register(String cacheName, Listener listener) {
+        listeners.put(cacheName, listener);
+    }
+
+    /**
+     * 发布失效条目
+     */
+    public void publish(String cache, String type, String key) {
+        Entry entry = new Entry(cache, type, key);
+        TransactionUtils.afterCommit(() -> enqueue(entry));
+    }
+
+    private void enqueue(Entry entry) {
+        pending.offer(entry);
+        if (pendingSize.incrementAndGet() >= cacheConfig.getInvalidation().getBatchSize()) {
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    /**
+     * 合并发送待发布的失效条目，同一时间只有一个线程发送，保证条目按入队顺序发出
+     */
+    synchronized void flush() {
+        int batchSize = cacheConfig.getInvalidation().getBatchSize();
+        List<Entry> batch = new ArrayList<>(batchSize);
+        Entry entry;
+        while ((entry = pending.poll()) != null) {
+            pendingSize.decrementAndGet();
+            batch.add(entry);
+            if (batch.size() >= batchSize) {
+                send(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<Entry> entries) {
+        InvalidationMessage message = new InvalidationMessage();
+        message.setNodeId(nodeId);
+        message.setSequence(sequence.incrementAndGet());
+        message.setEntries(entries);
+        try {
+            stringRedisTemplate.convertAndSend(cacheConfig.getInvalidation().getChannel(),
+                objectMapper.writeValueAsString(message));
+            log.debug("发布缓存失效消息 - sequence: {}, size: {}", message.getSequence(), entries.size());
+        } catch (Exception e) {
+            log.error("发布缓存失效消息失败 - size: {}, error: {}", entries.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 因丢失消息而清空本地缓存的次数
+     */
+    public long getResyncCount() {
+        return resyncCount.get();
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        if (!subscribed.compareAndSet(false, true)) {
+            // 重连后重新订阅，断开期间的消息已丢失
+            lastSequences.clear();
+            invalidateLocalAll("重新订阅");
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            InvalidationMessage invalidation = objectMapper.readValue(
+                new String(message.getBody(), StandardCharsets.UTF_8), InvalidationMessage.class);
+            if (nodeId.equals(invalidation.getNodeId()) || invalidation.getEntries() == null) {
+                return;
+            }
+            long current = invalidation.getSequence();
+            long[] previous = {0};
+            lastSequences.compute(invalidation.getNodeId(), (node, last) -> {
+                previous[0] = last == null ? 0 : last;
+                return last == null ? current : Math.max(last, current);
+            });
+            if (previous[0] > 0 && current > previous[0] + 1) {
+                invalidateLocalAll(String.format("节点[%s]消息序号不连续: %d -> %d",
+                    invalidation.getNodeId(), previous[0], current));
+            }
+            for (Entry entry : invalidation.getEntries()) {
+                Listener listener = listeners.get(entry.getCache());
+                if (listener != null) {
+                    listener.onInvalidate(entry);
+                }
+            }
+            log.debug("处理缓存失效消息 - node: {}, sequence: {}, size: {}",
+                invalidation.getNodeId(), invalidation.getSequence(), invalidation.getEntries().size());
+        } catch (Exception e) {
+            log.error("处理缓存失效消息失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 通知所有已注册的缓存清空本地数据
+     */
+    private void invalidateLocalAll(String reason) {
+        resyncCount.incrementAndGet();
+        log.warn("可能丢失缓存失效消息，清空所有本地缓存 - reason: {}", reason);
+        listeners.forEach((cache, listener) -> {
+            try {
+                listener.onInvalidate(new Entry(cache, TYPE_ALL, null));
+            } catch (Exception e) {
+                log.error("清空本地缓存失败 - cache: {}, error: {}", cache, e.getMessage());
+            }
+        });
+    }
+}
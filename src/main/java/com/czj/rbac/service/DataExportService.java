@@ -0,0 +1,143 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.common.BusinessException;
+import com.czj.rbac.common.ResponseCode;
+import com.czj.rbac.mapper.LoginInfoMapper;
+import com.czj.rbac.mapper.SysLogMapper;
+import com.czj.rbac.mapper.SysUserMapper;
+import com.czj.rbac.model.LoginInfo;
+import com.czj.rbac.model.SysLog;
+import com.czj.rbac.model.SysUser;
+import com.czj.rbac.model.enums.ExportFormat;
+import com.czj.rbac.model.query.BaseQuery;
+import com.czj.rbac.model.query.LogQuery;
+import com.czj.rbac.model.query.LoginInfoQuery;
+import com.czj.rbac.model.query.UserDataScope;
+import com.czj.rbac.model.query.UserQuery;
+import com.czj.rbac.util.ExportWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据导出
+ * 通过MyBatis Cursor逐行读取并直接写入响应流，不在内存中缓存结果集。
+ * 导出字段限制在查询对象的导出白名单内
+ */
+@Slf4j
+@Service
+public class DataExportService {
+
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private SysLogMapper logMapper;
+
+    @Autowired
+    private LoginInfoMapper loginInfoMapper;
+
+    @Autowired
+    private SysUserMapper userMapper;
+
+    @Autowired
+    private DataPermissionService dataPermissionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 导出系统日志
+     *
+     * @return 导出行数
+     */
+    @Transactional(readOnly = true)
+    public long exportLogs(LogQuery query, ExportFormat format, OutputStream out) throws IOException {
+        query.validate();
+        try (Cursor<SysLog> cursor = logMapper.streamByQuery(query)) {
+            return write(cursor, SysLog.class, query, format, out);
+        }
+    }
+
+    /**
+     * 导出登录日志
+     *
+     * @return 导出行数
+     */
+    @Transactional(readOnly = true)
+    public long exportLoginInfo(LoginInfoQuery query, ExportFormat format, OutputStream out) throws IOException {
+        query.validate();
+        try (Cursor<LoginInfo> cursor = loginInfoMapper.streamByQuery(query)) {
+            return write(cursor, LoginInfo.class, query, format, out);
+        }
+    }
+
+    /**
+     * 导出用户，只导出当前用户数据权限范围内的用户
+     *
+     * @return 导出行数
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(UserQuery query, ExportFormat format, OutputStream out) throws IOException {
+        query.validate();
+        UserDataScope scope = dataPermissionService.resolveUserDataScope();
+        try (Cursor<SysUser> cursor = userMapper.streamByQuery(query, scope)) {
+            return write(cursor, SysUser.class, query, format, out);
+        }
+    }
+
+    /**
+     * 设置下载响应头并返回输出流，gzip为true时输出.gz文件
+     */
+    public OutputStream openResponse(HttpServletResponse response, String name, ExportFormat format,
+                                     boolean gzip) throws IOException {
+        String filename = name + "-" + LocalDateTime.now().format(FILE_TIME_FORMAT) + format.getExtension()
+            + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : format.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build().toString());
+        OutputStream out = response.getOutputStream();
+        return gzip ? new GZIPOutputStream(out, GZIP_BUFFER_SIZE) : out;
+    }
+
+    /**
+     * 解析导出格式，默认CSV
+     */
+    public static ExportFormat parseFormat(String format) {
+        if (format == null || format.isEmpty()) {
+            return ExportFormat.CSV;
+        }
+        try {
+            return ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ResponseCode.PARAM_ERROR, "不支持的导出格式: " + format);
+        }
+    }
+
+    private <T> long write(Cursor<T> cursor, Class<T> type, BaseQuery query, ExportFormat format,
+                           OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        try (ExportWriter writer = new ExportWriter(format, out, type, query.resolveExportFields(), objectMapper)) {
+            for (T row : cursor) {
+                writer.write(row);
+            }
+            log.info("导出完成 - type: {}, format: {}, rows: {}, cost: {}ms",
+                type.getSimpleName(), format, writer.getCount(), System.currentTimeMillis() - start);
+            return writer.getCount();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.czj.rbac.service;
 
+import com.czj.rbac.model.query.UserDataScope;
+
 import java.util.List;
 
 /**
@@ -22,17 +24,23 @@ public interface DataPermissionService {
      */
     boolean checkUserDataPermission(Long userId);
     
+    /**
+     * 解析当前用户可见的用户数据范围，判定规则与checkUserDataPermission一致
+     * @return 用于用户列表查询的数据权限条件
+     */
+    UserDataScope resolveUserDataScope();
+    
     /**
      * 获取数据范围
      * @param userId 用户ID
-     * @return 数据范围内的ID列表
+     * @return 数据范围内的部门ID列表
      */
     List<Long> getDataScope(Long userId);
     
     /**
      * 获取用户数据范围
      * @param userId 用户ID
-     * @return 用户数据范围内的ID列表
+     * @return 用户数据范围内的用户ID列表，全部数据范围时返回null表示不限制
      */
     List<Long> getUserDataScope(Long userId);
     
@@ -0,0 +1,221 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据集版本号
+ * 每个数据集(权限、角色)在Redis哈希中维护一个单调递增的版本号和一个纪元，任何写操作在事务提交后递增版本号，
+ * 两者共同用作接口的ETag。纪元随版本号一起创建，Redis清空或计数器丢失后重新生成，旧ETag不会匹配到新内容。
+ * 版本号随失效消息发往其他节点：递增前先发出本节点待发送的增量失效，消息按顺序处理，
+ * 其他节点采用新版本号时，该版本之前的所有写操作的增量都已应用
+ */
+@Slf4j
+@Service
+public class DataVersionService {
+
+    public static final String PERMISSION = "permission";
+    public static final String ROLE = "role";
+
+    private static final String KEY_PREFIX = "data:version:";
+    private static final String CACHE_NAME = "data:version";
+
+    private static final String FIELD_EPOCH = "epoch";
+    private static final String FIELD_VERSION = "version";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    /**
+     * 数据集 -> 本地记录的版本号
+     */
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 失效次数，用于丢弃失效期间从Redis读取的旧版本号
+     */
+    private final AtomicLong resets = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        invalidationBus.register(CACHE_NAME, entry -> {
+            if (CacheInvalidationBus.TYPE_KEY.equals(entry.getType())) {
+                onRemoteBump(entry.getKey());
+            } else {
+                resets.incrementAndGet();
+                versions.clear();
+            }
+        });
+    }
+
+    /**
+     * 获取数据集当前版本号，Redis不可用时返回null。
+     * 本地没有记录时才读取Redis，之后只随本节点的写操作和其他节点的消息前进
+     */
+    public Version getVersion(String dataset) {
+        Version version = versions.get(dataset);
+        if (version != null) {
+            return version;
+        }
+        long stamp = resets.get();
+        try {
+            Version loaded = load(dataset);
+            if (resets.get() == stamp) {
+                versions.merge(dataset, loaded, Version::newer);
+            }
+            return loaded;
+        } catch (Exception e) {
+            log.error("读取数据版本号失败 - dataset: {}, error: {}", dataset, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 递增数据集版本号，在事务提交后执行，
+     * 调用方应在本次写操作的其他提交后动作(如内存索引更新)之后调用，保证新版本号对应的是新数据
+     */
+    public void bump(String dataset) {
+        TransactionUtils.afterCommit(() -> {
+            // 先发出本次写操作的增量失效，其他节点收到新版本号时增量已经到达
+            invalidationBus.flush();
+            resets.incrementAndGet();
+            try {
+                HashOperations<String, String, String> hash = stringRedisTemplate.opsForHash();
+                String key = KEY_PREFIX + dataset;
+                long value = hash.increment(key, FIELD_VERSION, 1);
+                Version version = new Version(epoch(hash, key), value);
+                versions.merge(dataset, version, Version::newer);
+                invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_KEY, dataset + ":" + version);
+                log.debug("数据版本号递增 - dataset: {}, version: {}", dataset, version);
+            } catch (Exception e) {
+                versions.remove(dataset);
+                log.error("递增数据版本号失败 - dataset: {}, error: {}", dataset, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 采用其他节点递增后的版本号，消息格式不正确时丢弃本地记录，下次访问重新读取
+     */
+    private void onRemoteBump(String key) {
+        int index = key == null ? -1 : key.indexOf(':');
+        Version version = index < 0 ? null : Version.parse(key.substring(index + 1));
+        if (version == null) {
+            resets.incrementAndGet();
+            versions.remove(index < 0 ? key : key.substring(0, index));
+            return;
+        }
+        versions.merge(key.substring(0, index), version, Version::newer);
+    }
+
+    private Version load(String dataset) {
+        HashOperations<String, String, String> hash = stringRedisTemplate.opsForHash();
+        String key = KEY_PREFIX + dataset;
+        List<String> values = hash.multiGet(key, Arrays.asList(FIELD_EPOCH, FIELD_VERSION));
+        String epoch = values.get(0);
+        if (epoch == null) {
+            epoch = epoch(hash, key);
+            values = hash.multiGet(key, Arrays.asList(FIELD_EPOCH, FIELD_VERSION));
+        }
+        String value = values.get(1);
+        return new Version(epoch, value == null ? 0 : Long.parseLong(value));
+    }
+
+    /**
+     * 读取纪元，不存在时创建，多个节点同时创建时以先写入的为准
+     */
+    private static String epoch(HashOperations<String, String, String> hash, String key) {
+        String created = Long.toString(System.currentTimeMillis(), 36);
+        if (Boolean.TRUE.equals(hash.putIfAbsent(key, FIELD_EPOCH, created))) {
+            return created;
+        }
+        String epoch = hash.get(key, FIELD_EPOCH);
+        return epoch == null ? created : epoch;
+    }
+
+    /**
+     * 版本号，格式为"纪元-序号"，只有同一纪元内的序号可以比较大小
+     */
+    public static final class Version {
+
+        private final String epoch;
+
+        private final long value;
+
+        public Version(String epoch, long value) {
+            this.epoch = epoch;
+            this.value = value;
+        }
+
+        public String getEpoch() {
+            return epoch;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        /**
+         * 是否为同一纪元内更早的版本
+         */
+        public boolean isOlderThan(Version other) {
+            return epoch.equals(other.epoch) && value < other.value;
+        }
+
+        /**
+         * 两者中较新的版本，纪元不同时以后到达的为准
+         */
+        static Version newer(Version current, Version incoming) {
+            return incoming.isOlderThan(current) ? current : incoming;
+        }
+
+        static Version parse(String text) {
+            int index = text.lastIndexOf('-');
+            if (index <= 0) {
+                return null;
+            }
+            try {
+                return new Version(text.substring(0, index), Long.parseLong(text.substring(index + 1)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Version)) {
+                return false;
+            }
+            Version other = (Version) o;
+            return value == other.value && epoch.equals(other.epoch);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(epoch, value);
+        }
+
+        @Override
+        public String toString() {
+            return epoch + "-" + value;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.mapper.SysDeptMapper;
+import com.czj.rbac.model.SysDept;
+import com.czj.rbac.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 部门树区间索引
+ * 按先序遍历给每个部门编号，部门的子树恰好是编号区间[enter, exit]，
+ * "X是否在Y之下"为两次比较，子树部门ID为有序数组的一段连续切片。
+ * 索引为不可变快照，部门增删和移动时在内存中按父子关系重建(4k部门为微秒级)后整体替换，
+ * 并通过缓存失效总线通知其他节点从数据库重新加载
+ */
+@Slf4j
+@Service
+public class DeptTreeIndex {
+
+    private static final String CACHE_NAME = "dept:tree";
+
+    @Autowired
+    private SysDeptMapper deptMapper;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    /**
+     * 当前快照，为null时下次访问从数据库加载
+     */
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        invalidationBus.register(CACHE_NAME, entry -> snapshot = null);
+    }
+
+    /**
+     * 部门是否存在
+     */
+    public boolean contains(Long deptId) {
+        return deptId != null && current().positions.containsKey(deptId);
+    }
+
+    /**
+     * 判断deptId是否为ancestorId自身或其下级部门
+     */
+    public boolean isDescendant(Long ancestorId, Long deptId) {
+        if (ancestorId == null || deptId == null) {
+            return false;
+        }
+        Snapshot current = current();
+        Integer ancestor = current.positions.get(ancestorId);
+        Integer dept = current.positions.get(deptId);
+        return ancestor != null && dept != null
+            && ancestor <= dept && dept <= current.exits[ancestor];
+    }
+
+    /**
+     * 获取部门子树(含自身)的所有部门ID
+     */
+    public List<Long> getSubtreeIds(Long deptId) {
+        if (deptId == null) {
+            return Collections.emptyList();
+        }
+        Snapshot current = current();
+        Integer position = current.positions.get(deptId);
+        if (position == null) {
+            return Collections.emptyList();
+        }
+        int exit = current.exits[position];
+        List<Long> ids = new ArrayList<>(exit - position + 1);
+        for (int i = position; i <= exit; i++) {
+            ids.add(current.ids[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * 获取所有部门ID
+     */
+    public List<Long> getAllIds() {
+        Snapshot current = current();
+        List<Long> ids = new ArrayList<>(current.ids.length);
+        for (long id : current.ids) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * 部门新增或移动后，事务提交时更新父子关系并重建索引
+     */
+    public void put(Long deptId, Long parentId) {
+        TransactionUtils.afterCommit(() -> {
+            rebuild(parents -> parents.put(deptId, parentId));
+            invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_ALL, null);
+        });
+    }
+
+    /**
+     * 部门删除后，事务提交时移除并重建索引
+     */
+    public void remove(Long deptId) {
+        TransactionUtils.afterCommit(() -> {
+            rebuild(parents -> parents.remove(deptId));
+            invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_ALL, null);
+        });
+    }
+
+    /**
+     * 部门数
+     */
+    public int size() {
+        return current().ids.length;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : load();
+    }
+
+    private synchronized Snapshot load() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        Map<Long, Long> parents = new HashMap<>();
+        List<SysDept> depts = deptMapper.findAll();
+        if (depts != null) {
+            for (SysDept dept : depts) {
+                parents.put(dept.getId(), dept.getParentId());
+            }
+        }
+        current = Snapshot.build(parents);
+        snapshot = current;
+        log.info("加载部门树索引 - 部门数: {}", current.ids.length);
+        return current;
+    }
+
+    private synchronized void rebuild(Consumer<Map<Long, Long>> change) {
+        Map<Long, Long> parents = new HashMap<>(current().parents);
+        change.accept(parents);
+        snapshot = Snapshot.build(parents);
+    }
+
+    /**
+     * 不可变的先序编号快照
+     */
+    private static final class Snapshot {
+
+        /**
+         * 部门ID -> 父部门ID
+         */
+        private final Map<Long, Long> parents;
+
+        /**
+         * 部门ID -> 先序编号
+         */
+        private final Map<Long, Integer> positions;
+
+        /**
+         * 先序编号 -> 部门ID
+         */
+        private final long[] ids;
+
+        /**
+         * 先序编号 -> 子树中最后一个节点的编号
+         */
+        private final int[] exits;
+
+        private Snapshot(Map<Long, Long> parents, Map<Long, Integer> positions, long[] ids, int[] exits) {
+            this.parents = parents;
+            this.positions = positions;
+            this.ids = ids;
+            this.exits = exits;
+        }
+
+        /**
+         * 迭代先序遍历，父部门不存在的部门视为顶级部门
+         */
+        static Snapshot build(Map<Long, Long> parents) {
+            Map<Long, List<Long>> children = new HashMap<>();
+            List<Long> roots = new ArrayList<>();
+            for (Map.Entry<Long, Long> entry : parents.entrySet()) {
+                Long parentId = entry.getValue();
+                if (parentId == null || !parents.containsKey(parentId)) {
+                    roots.add(entry.getKey());
+                } else {
+                    children.computeIfAbsent(parentId, k -> new ArrayList<>()).add(entry.getKey());
+                }
+            }
+            Collections.sort(roots);
+
+            int size = parents.size();
+            Map<Long, Integer> positions = new HashMap<>(size * 2);
+            long[] ids = new long[size];
+            int[] exits = new int[size];
+            int next = 0;
+            // 栈帧为{部门ID, 0-进入 1-离开}，离开时记录子树最后一个编号
+            Deque<long[]> stack = new ArrayDeque<>();
+            for (int r = roots.size() - 1; r >= 0; r--) {
+                stack.push(new long[]{roots.get(r), 0});
+            }
+            while (!stack.isEmpty()) {
+                long[] frame = stack.pop();
+                long id = frame[0];
+                if (frame[1] == 1) {
+                    exits[positions.get(id)] = next - 1;
+                    continue;
+                }
+                positions.put(id, next);
+                ids[next++] = id;
+                stack.push(new long[]{id, 1});
+                List<Long> kids = children.get(id);
+                if (kids != null) {
+                    Collections.sort(kids);
+                    for (int k = kids.size() - 1; k >= 0; k--) {
+                        stack.push(new long[]{kids.get(k), 0});
+                    }
+                }
+            }
+            if (next != size) {
+                // 存在环的部门不可达，不参与范围判断
+                log.warn("部门树存在环，{}个部门未编入索引", size - next);
+                ids = Arrays.copyOf(ids, next);
+                exits = Arrays.copyOf(exits, next);
+            }
+            return new Snapshot(Collections.unmodifiableMap(parents), positions, ids, exits);
+        }
+    }
+}
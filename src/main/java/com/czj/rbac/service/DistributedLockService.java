@@ -1,9 +1,14 @@
 package com.czj.rbac.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import com.czj.rbac.util.TransactionUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.concurrent.TimeUnit;
 
@@ -16,6 +21,9 @@ public class DistributedLockService {
     
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     /**
      * 尝试获取分布式锁
@@ -26,10 +34,13 @@ public class DistributedLockService {
     public boolean tryLock(String lockKey, long timeout) {
         String key = LOCK_PREFIX + lockKey;
         try {
-            return Boolean.TRUE.equals(
+            boolean acquired = Boolean.TRUE.equals(
                 redisTemplate.opsForValue().setIfAbsent(key, "1", timeout, TimeUnit.SECONDS)
             );
+            acquireCounter(lockKey, acquired ? "acquired" : "failed").increment();
+            return acquired;
         } catch (Exception e) {
+            acquireCounter(lockKey, "error").increment();
             log.error("获取分布式锁失败 - key: {}, error: {}", lockKey, e.getMessage());
             return false;
         }
@@ -61,11 +72,53 @@ public class DistributedLockService {
         if (!tryLock(lockKey, timeout)) {
             throw new RuntimeException("获取锁失败");
         }
+        long start = System.nanoTime();
         try {
             return task.execute();
         } finally {
-            unlock(lockKey);
+            release(lockKey, start);
+        }
+    }
+
+    /**
+     * 在锁保护下执行任务，处于事务中时锁保持到事务提交或回滚后才释放，
+     * 避免其他节点在本事务提交前拿到锁并基于未提交前的数据做校验；不在事务中时同executeWithLock
+     */
+    public <T> T executeWithTransactionLock(String lockKey, long timeout, DistributedTask<T> task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return executeWithLock(lockKey, timeout, task);
+        }
+        if (!tryLock(lockKey, timeout)) {
+            throw new RuntimeException("获取锁失败");
         }
+        long start = System.nanoTime();
+        TransactionUtils.afterCompletion(() -> release(lockKey, start));
+        return task.execute();
+    }
+
+    private void release(String lockKey, long start) {
+        unlock(lockKey);
+        Timer.builder("rbac.lock.held")
+            .description("持有分布式锁的时长")
+            .tag("lock", lockName(lockKey))
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter acquireCounter(String lockKey, String result) {
+        return Counter.builder("rbac.lock.acquire")
+            .description("获取分布式锁的次数")
+            .tag("lock", lockName(lockKey))
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * 去掉锁key最后一段(通常为ID)作为指标标签，避免标签值无限增长
+     */
+    private static String lockName(String lockKey) {
+        int index = lockKey.lastIndexOf(':');
+        return index > 0 ? lockKey.substring(0, index) : lockKey;
     }
     
     /**
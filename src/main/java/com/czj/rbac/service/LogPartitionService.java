@@ -0,0 +1,200 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.LogConfig;
+import com.czj.rbac.config.LoginLogConfig;
+import com.czj.rbac.mapper.LoginInfoMapper;
+import com.czj.rbac.mapper.PartitionMapper;
+import com.czj.rbac.mapper.SysLogMapper;
+import com.czj.rbac.model.TablePartition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志表分区维护
+ * sys_log按create_time、sys_login_info按login_time按天做RANGE COLUMNS分区(见V1.0.23迁移)，
+ * 每天提前从MAXVALUE分区拆出未来的分区，并整区删除超过保留天数的分区。
+ * 表未分区时退回按时间条件删除
+ */
+@Slf4j
+@Service
+public class LogPartitionService {
+
+    public static final String SYS_LOG = "sys_log";
+
+    public static final String LOGIN_INFO = "sys_login_info";
+
+    /**
+     * 接收超出已建分区范围数据的MAXVALUE分区
+     */
+    private static final String FUTURE_PARTITION = "p_future";
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    @Autowired
+    private PartitionMapper partitionMapper;
+
+    @Autowired
+    private SysLogMapper logMapper;
+
+    @Autowired
+    private LoginInfoMapper loginInfoMapper;
+
+    @Autowired
+    private LogConfig logConfig;
+
+    @Autowired
+    private LoginLogConfig loginLogConfig;
+
+    private ScheduledExecutorService scheduler;
+
+    private CronExpression cron;
+
+    @PostConstruct
+    public void init() {
+        cron = CronExpression.parse(logConfig.getPartition().getCron());
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 启动时先补齐未来分区，之后按cron执行完整维护
+        scheduler.execute(this::precreateAll);
+        scheduleNext();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 补齐分区并清理所有日志表的过期数据
+     */
+    public void maintain() {
+        precreateAll();
+        purge(SYS_LOG, logConfig.getRetentionDays());
+        purge(LOGIN_INFO, loginLogConfig.getRetentionDays());
+    }
+
+    /**
+     * 清理指定天数之前的日志，已分区的表删除整个分区
+     *
+     * @return 删除的分区数，表未分区时为删除的行数
+     */
+    public int purge(String table, int retentionDays) {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        try {
+            List<TablePartition> partitions = partitionMapper.listPartitions(table);
+            if (partitions.isEmpty()) {
+                return deleteExpired(table, cutoff.atStartOfDay());
+            }
+            List<String> expired = new ArrayList<>();
+            for (TablePartition partition : partitions) {
+                // 上界不晚于截止日期时，分区内全部数据已过期
+                if (partition.getLessThan() != null && !LocalDate.parse(partition.getLessThan()).isAfter(cutoff)) {
+                    expired.add(partition.getName());
+                }
+            }
+            if (!expired.isEmpty()) {
+                partitionMapper.dropPartitions(table, expired);
+                log.info("删除过期日志分区 - table: {}, partitions: {}", table, expired);
+            }
+            return expired.size();
+        } catch (Exception e) {
+            log.error("清理过期日志失败 - table: {}, error: {}", table, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 为已分区的表创建到今天之后precreateDays天为止的分区
+     *
+     * @return 新建的分区数
+     */
+    public int precreate(String table) {
+        try {
+            List<TablePartition> partitions = partitionMapper.listPartitions(table);
+            if (partitions.isEmpty()
+                || !FUTURE_PARTITION.equals(partitions.get(partitions.size() - 1).getName())) {
+                return 0;
+            }
+            LocalDate next = LocalDate.now();
+            for (TablePartition partition : partitions) {
+                if (partition.getLessThan() != null) {
+                    LocalDate bound = LocalDate.parse(partition.getLessThan());
+                    if (bound.isAfter(next)) {
+                        next = bound;
+                    }
+                }
+            }
+            LocalDate last = LocalDate.now().plusDays(logConfig.getPartition().getPrecreateDays());
+            List<TablePartition> created = new ArrayList<>();
+            for (LocalDate day = next; !day.isAfter(last); day = day.plusDays(1)) {
+                TablePartition partition = new TablePartition();
+                partition.setName(day.format(PARTITION_NAME));
+                partition.setLessThan(day.plusDays(1).toString());
+                created.add(partition);
+            }
+            if (!created.isEmpty()) {
+                partitionMapper.addPartitions(table, FUTURE_PARTITION, created);
+                log.info("创建日志分区 - table: {}, from: {}, to: {}", table, next, last);
+            }
+            return created.size();
+        } catch (Exception e) {
+            log.error("创建日志分区失败 - table: {}, error: {}", table, e.getMessage());
+            return 0;
+        }
+    }
+
+    private void precreateAll() {
+        precreate(SYS_LOG);
+        precreate(LOGIN_INFO);
+    }
+
+    private int deleteExpired(String table, LocalDateTime expireTime) {
+        if (LOGIN_INFO.equals(table)) {
+            int count = loginInfoMapper.deleteBeforeTime(expireTime);
+            log.info("清理过期登录日志{}条", count);
+            return count;
+        }
+        // 分批删除，避免单个大事务长时间锁表
+        int batchSize = logConfig.getPartition().getDeleteBatchSize();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = logMapper.deleteExpiredLogs(expireTime, batchSize);
+            total += deleted;
+        } while (deleted >= batchSize);
+        log.info("清理过期日志完成，清理数量: {}", total);
+        return total;
+    }
+
+    private void scheduleNext() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = cron.next(now);
+        if (next == null || scheduler.isShutdown()) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            try {
+                maintain();
+            } finally {
+                scheduleNext();
+            }
+        }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -1,6 +1,7 @@
 package com.czj.rbac.service;
 
 import com.czj.rbac.model.LoginInfo;
+import com.czj.rbac.common.CursorResult;
 import com.czj.rbac.common.PageResult;
 import java.time.LocalDateTime;
 
@@ -22,6 +23,13 @@ public interface LoginInfoService {
                                  String loginIp, LocalDateTime startTime, LocalDateTime endTime,
                                  Integer loginStatus);
     
+    /**
+     * 游标分页查询登录日志，cursor为空时查询第一页，withTotal为true时返回缓存的总数
+     */
+    CursorResult<LoginInfo> findByCursor(String cursor, Integer size, Long userId, String username,
+                                         String loginIp, LocalDateTime startTime, LocalDateTime endTime,
+                                         Integer loginStatus, boolean withTotal);
+    
     /**
      * 获取用户最近一次登录记录
      */
@@ -0,0 +1,228 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.LoginLogConfig;
+import com.czj.rbac.mapper.LoginInfoMapper;
+import com.czj.rbac.model.LoginInfo;
+import com.czj.rbac.util.RingBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 登录日志批量写入
+ * 登录记录和登出时间分别进入有界无锁环形缓冲区，由单个写入线程合并为多行insert和批量update。
+ * 每轮先取出登出事件，再写完它之前提交的全部登录记录，保证登出更新时对应的登录记录已入库
+ */
+@Slf4j
+@Service
+public class LoginInfoWriter {
+
+    @Autowired
+    private LoginInfoMapper loginInfoMapper;
+
+    @Autowired
+    private LoginLogConfig loginLogConfig;
+
+    private RingBuffer<LoginInfo> logins;
+
+    /**
+     * 登出事件，只使用userId、loginId、logoutTime
+     */
+    private RingBuffer<LoginInfo> logouts;
+
+    private Thread drainer;
+
+    private volatile boolean running;
+
+    private int batchSize;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong insertedCount = new AtomicLong();
+    private final AtomicLong logoutCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+
+    @PostConstruct
+    public void init() {
+        LoginLogConfig.WriterConfig config = loginLogConfig.getWriter();
+        batchSize = config.getBatchSize();
+        logins = new RingBuffer<>(config.getBufferSize());
+        logouts = new RingBuffer<>(config.getBufferSize());
+        running = true;
+        drainer = new Thread(this::drainLoop, "login-info-writer");
+        drainer.setDaemon(true);
+        drainer.start();
+        log.info("登录日志写入线程启动 - bufferSize: {}, batchSize: {}, flushInterval: {}ms",
+            logins.capacity(), batchSize, config.getFlushInterval());
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * 提交登录记录，不访问数据库
+     */
+    public boolean submitLogin(LoginInfo info) {
+        return offer(logins, info);
+    }
+
+    /**
+     * 提交登出时间，不访问数据库
+     */
+    public boolean submitLogout(LoginInfo info) {
+        return offer(logouts, info);
+    }
+
+    private boolean offer(RingBuffer<LoginInfo> buffer, LoginInfo info) {
+        submittedCount.incrementAndGet();
+        if (buffer.offer(info)) {
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(drainer);
+            }
+            return true;
+        }
+        long dropped = droppedCount.incrementAndGet();
+        if ((dropped & (dropped - 1)) == 0) {
+            log.warn("登录日志缓冲区已满，记录被丢弃 - dropped: {}", dropped);
+        }
+        return false;
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getInsertedCount() {
+        return insertedCount.get();
+    }
+
+    public long getLogoutCount() {
+        return logoutCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * 缓冲区中待写入的事件数
+     */
+    public int getPending() {
+        return logins.size() + logouts.size();
+    }
+
+    /**
+     * 最近一次刷新耗时(毫秒)
+     */
+    public double getLastFlushMillis() {
+        return lastFlushNanos / 1_000_000.0;
+    }
+
+    /**
+     * 最大刷新耗时(毫秒)
+     */
+    public double getMaxFlushMillis() {
+        return maxFlushNanos / 1_000_000.0;
+    }
+
+    /**
+     * 平均刷新耗时(毫秒)
+     */
+    public double getAvgFlushMillis() {
+        long count = flushCount.get();
+        return count == 0 ? 0 : flushNanos.get() / 1_000_000.0 / count;
+    }
+
+    private void drainLoop() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(loginLogConfig.getWriter().getFlushInterval());
+        while (running || getPending() > 0) {
+            if (getPending() > 0) {
+                flush();
+            }
+            if (running && logins.size() < batchSize && logouts.size() < batchSize) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+        log.info("登录日志写入线程退出 - inserted: {}, logout: {}, dropped: {}",
+            insertedCount.get(), logoutCount.get(), droppedCount.get());
+    }
+
+    private void flush() {
+        long start = System.nanoTime();
+        // 先取登出事件，之后写入的登录记录包含了它们对应的登录
+        List<LoginInfo> logoutBatch = new ArrayList<>();
+        logouts.drainTo(logoutBatch, batchSize);
+        // 只写本轮开始时已提交的登录记录，避免登录高峰时一直无法处理登出
+        int remaining = logins.size();
+        while (remaining > 0) {
+            List<LoginInfo> loginBatch = new ArrayList<>(batchSize);
+            int drained = logins.drainTo(loginBatch, Math.min(batchSize, remaining));
+            if (drained == 0) {
+                break;
+            }
+            insert(loginBatch);
+            remaining -= drained;
+        }
+        if (!logoutBatch.isEmpty()) {
+            updateLogout(logoutBatch);
+        }
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = elapsed;
+        maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        flushNanos.addAndGet(elapsed);
+        flushCount.incrementAndGet();
+    }
+
+    private void insert(List<LoginInfo> batch) {
+        try {
+            loginInfoMapper.batchInsert(batch);
+            insertedCount.addAndGet(batch.size());
+        } catch (Exception e) {
+            log.error("登录日志批量写入失败，逐条重试 - size: {}, error: {}", batch.size(), e.getMessage());
+            // 逐条写入，避免单条异常数据导致整批丢失
+            for (LoginInfo info : batch) {
+                try {
+                    loginInfoMapper.insert(info);
+                    insertedCount.incrementAndGet();
+                } catch (Exception ex) {
+                    failedCount.incrementAndGet();
+                    log.error("记录登录信息失败 - userId: {}, error: {}", info.getUserId(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void updateLogout(List<LoginInfo> batch) {
+        try {
+            loginInfoMapper.batchUpdateLogoutTime(batch);
+            logoutCount.addAndGet(batch.size());
+        } catch (Exception e) {
+            failedCount.addAndGet(batch.size());
+            log.error("批量记录登出时间失败 - size: {}, error: {}", batch.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.common.BusinessException;
+import com.czj.rbac.common.ResponseCode;
+import com.czj.rbac.config.PasswordConfig;
+import com.czj.rbac.util.PasswordUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 密码哈希
+ * 新密码使用BCrypt，强度可配置；兼容旧的salt$md5格式，登录成功后由调用方按needsRehash重新哈希。
+ * 哈希计算在有界的passwordHashExecutor中执行，队列满或等待超时时返回服务繁忙
+ */
+@Slf4j
+@Service
+public class PasswordHashService {
+
+    @Autowired
+    private PasswordConfig passwordConfig;
+
+    @Autowired
+    @Qualifier("passwordHashExecutor")
+    private ThreadPoolTaskExecutor passwordHashExecutor;
+
+    private BCryptPasswordEncoder encoder;
+
+    /**
+     * 因队列已满被拒绝的次数
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * 等待超时的次数
+     */
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    /**
+     * 旧格式哈希重新计算的次数
+     */
+    private final AtomicLong rehashCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        encoder = new BCryptPasswordEncoder(passwordConfig.getStrength());
+    }
+
+    /**
+     * 哈希密码
+     */
+    public String encode(String rawPassword) {
+        return execute(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * 校验密码，同时支持BCrypt和旧的salt$md5格式
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        if (!isBCrypt(encodedPassword)) {
+            // MD5计算开销很小，无需进入哈希线程池
+            return PasswordUtil.matches(rawPassword, encodedPassword);
+        }
+        return execute(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 是否需要重新哈希：旧格式，或BCrypt强度低于当前配置
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return !isBCrypt(encodedPassword) || encoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * 校验通过后按当前配置重新哈希，不需要时返回null
+     */
+    public String rehashIfNeeded(String rawPassword, String encodedPassword) {
+        if (!needsRehash(encodedPassword)) {
+            return null;
+        }
+        rehashCount.incrementAndGet();
+        return encode(rawPassword);
+    }
+
+    /**
+     * 等待中的哈希任务数
+     */
+    public int getQueueDepth() {
+        return passwordHashExecutor.getThreadPoolExecutor().getQueue().size();
+    }
+
+    /**
+     * 正在执行的哈希任务数
+     */
+    public int getActiveCount() {
+        return passwordHashExecutor.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getRehashCount() {
+        return rehashCount.get();
+    }
+
+    private static boolean isBCrypt(String encodedPassword) {
+        return encodedPassword != null && encodedPassword.startsWith("$2");
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = passwordHashExecutor.submit(task);
+        } catch (TaskRejectedException e) {
+            rejectedCount.incrementAndGet();
+            log.warn("密码哈希队列已满，拒绝请求 - queueDepth: {}", getQueueDepth());
+            throw new BusinessException(ResponseCode.SERVICE_UNAVAILABLE, "请求过于频繁，请稍后再试");
+        }
+        try {
+            return future.get(passwordConfig.getTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeoutCount.incrementAndGet();
+            log.warn("密码哈希等待超时 - queueDepth: {}", getQueueDepth());
+            throw new BusinessException(ResponseCode.SERVICE_UNAVAILABLE, "请求过于频繁，请稍后再试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new BusinessException(ResponseCode.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            log.error("密码哈希失败", e.getCause());
+            throw new BusinessException(ResponseCode.SYSTEM_ERROR, "密码处理失败");
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.mapper.SysPermissionMapper;
+import com.czj.rbac.mapper.SysRoleMapper;
+import com.czj.rbac.mapper.SysUserMapper;
+import com.czj.rbac.model.SysPermission;
+import com.czj.rbac.model.SysRole;
+import com.czj.rbac.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 权限位图引擎
+ * 将权限编码映射为连续的序号，每个角色的权限预编译为 long[] 位图，
+ * 用户位图由其角色位图按位或得到。角色授权变更时只重算该角色及其关联用户，
+ * 并通过缓存失效总线通知其他节点清除对应位图
+ */
+@Slf4j
+@Service
+public class PermissionEngine {
+
+    private static final long[] EMPTY_BITS = new long[0];
+
+    private static final String CACHE_NAME = "permission:engine";
+    private static final String USER_KEY_PREFIX = "user:";
+    private static final String ROLE_KEY_PREFIX = "role:";
+
+    @Autowired
+    private SysPermissionMapper permissionMapper;
+
+    @Autowired
+    private SysRoleMapper roleMapper;
+
+    @Autowired
+    private SysUserMapper userMapper;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    /**
+     * 权限编码 -> 序号
+     */
+    private final Map<String, Integer> codeOrdinals = new ConcurrentHashMap<>();
+
+    /**
+     * 下一个可分配的序号
+     */
+    private final AtomicInteger nextOrdinal = new AtomicInteger(0);
+
+    /**
+     * 角色ID -> 权限位图，禁用的角色为空位图
+     */
+    private final Map<Long, long[]> roleBits = new ConcurrentHashMap<>();
+
+    /**
+     * 用户ID -> 角色ID
+     */
+    private final Map<Long, long[]> userRoles = new ConcurrentHashMap<>();
+
+    /**
+     * 用户ID -> 权限位图
+     */
+    private final Map<Long, long[]> userBits = new ConcurrentHashMap<>();
+
+    /**
+     * 失效版本号，用于丢弃失效期间编译出的旧位图
+     */
+    private final AtomicLong generation = new AtomicLong(0);
+
+    private final LongAdder userHits = new LongAdder();
+    private final LongAdder userMisses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        invalidationBus.register(CACHE_NAME, this::onRemoteInvalidate);
+    }
+
+    /**
+     * 检查用户是否拥有指定权限
+     */
+    public boolean hasPermission(Long userId, String permissionCode) {
+        if (userId == null || permissionCode == null) {
+            return false;
+        }
+        // 先编译位图，保证用户拥有的权限编码都已分配序号
+        long[] bits = getUserBits(userId);
+        Integer ordinal = codeOrdinals.get(permissionCode);
+        return ordinal != null && testBit(bits, ordinal);
+    }
+
+    /**
+     * 检查用户是否拥有任意一个权限
+     */
+    public boolean hasAnyPermission(Long userId, String[] permissionCodes) {
+        if (userId == null || permissionCodes == null) {
+            return false;
+        }
+        long[] bits = getUserBits(userId);
+        for (String code : permissionCodes) {
+            Integer ordinal = codeOrdinals.get(code);
+            if (ordinal != null && testBit(bits, ordinal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 检查用户是否拥有全部权限
+     */
+    public boolean hasAllPermissions(Long userId, String[] permissionCodes) {
+        if (userId == null || permissionCodes == null) {
+            return false;
+        }
+        long[] bits = getUserBits(userId);
+        for (String code : permissionCodes) {
+            Integer ordinal = codeOrdinals.get(code);
+            if (ordinal == null || !testBit(bits, ordinal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取权限编码对应的序号，不存在时分配新序号
+     */
+    public int intern(String permissionCode) {
+        return codeOrdinals.computeIfAbsent(permissionCode, code -> nextOrdinal.getAndIncrement());
+    }
+
+    /**
+     * 将权限编码列表编译为位图
+     */
+    public long[] compile(List<String> permissionCodes) {
+        if (permissionCodes == null || permissionCodes.isEmpty()) {
+            return EMPTY_BITS;
+        }
+        List<Integer> ordinals = new ArrayList<>(permissionCodes.size());
+        int maxOrdinal = -1;
+        for (String code : permissionCodes) {
+            if (!StringUtils.hasText(code)) {
+                continue;
+            }
+            int ordinal = intern(code);
+            ordinals.add(ordinal);
+            maxOrdinal = Math.max(maxOrdinal, ordinal);
+        }
+        long[] bits = new long[(maxOrdinal >> 6) + 1];
+        for (int ordinal : ordinals) {
+            bits[ordinal >> 6] |= 1L << ordinal;
+        }
+        return bits;
+    }
+
+    /**
+     * 清除用户的权限位图，下次校验时重新编译。
+     * 在事务提交后执行，避免并发校验在提交前重新加载旧角色并回填
+     */
+    public void evictUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            removeUser(userId);
+            invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_KEY, USER_KEY_PREFIX + userId);
+            log.debug("清除用户权限位图 - userId: {}", userId);
+        });
+    }
+
+    /**
+     * 批量清除用户的权限位图，在事务提交后执行
+     */
+    public void evictUsers(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        TransactionUtils.afterCommit(() -> {
+            for (Long userId : ids) {
+                removeUser(userId);
+                invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_KEY, USER_KEY_PREFIX + userId);
+            }
+            log.debug("批量清除用户权限位图 - userIds: {}", ids);
+        });
+    }
+
+    /**
+     * 清除所有用户的权限位图
+     */
+    public void evictAll() {
+        clearAll();
+        invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_ALL, null);
+        log.info("清除所有用户权限位图");
+    }
+
+    /**
+     * 用户位图命中次数
+     */
+    public long getUserHits() {
+        return userHits.sum();
+    }
+
+    /**
+     * 用户位图未命中、从数据库编译的次数
+     */
+    public long getUserMisses() {
+        return userMisses.sum();
+    }
+
+    /**
+     * 已缓存位图的用户数
+     */
+    public int getCachedUserCount() {
+        return userBits.size();
+    }
+
+    /**
+     * 已缓存位图的角色数
+     */
+    public int getCachedRoleCount() {
+        return roleBits.size();
+    }
+
+    /**
+     * 角色授权或状态变更后重算该角色位图，并只重算该角色下已缓存的用户位图
+     *
+     * @return 该角色关联的用户ID
+     */
+    public List<Long> refreshRole(Long roleId) {
+        if (roleId == null) {
+            return Collections.emptyList();
+        }
+        generation.incrementAndGet();
+        roleBits.put(roleId, loadRoleBits(roleId));
+        List<Long> userIds = userMapper.findUserIdsByRoleId(roleId);
+        int recomputed = 0;
+        if (userIds != null) {
+            for (Long userId : userIds) {
+                long[] roleIds = userRoles.get(userId);
+                if (roleIds == null) {
+                    // 未缓存的用户下次校验时再编译
+                    userBits.remove(userId);
+                    continue;
+                }
+                userBits.put(userId, union(roleIds));
+                recomputed++;
+            }
+        }
+        invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_KEY, ROLE_KEY_PREFIX + roleId);
+        log.debug("重算角色权限位图 - roleId: {}, 重算用户数: {}", roleId, recomputed);
+        return userIds == null ? Collections.emptyList() : userIds;
+    }
+
+    /**
+     * 权限编码或状态变更后重算引用该权限的角色
+     */
+    public void refreshPermission(Long permissionId) {
+        if (permissionId == null) {
+            return;
+        }
+        List<Long> roleIds = roleMapper.findRoleIdsByPermissionId(permissionId);
+        if (roleIds == null) {
+            return;
+        }
+        for (Long roleId : roleIds) {
+            refreshRole(roleId);
+        }
+    }
+
+    /**
+     * 处理其他节点发来的失效条目，只清除本地位图，下次校验时重新编译
+     */
+    private void onRemoteInvalidate(CacheInvalidationBus.Entry entry) {
+        String key = entry.getKey();
+        if (!CacheInvalidationBus.TYPE_KEY.equals(entry.getType()) || key == null) {
+            clearAll();
+        } else if (key.startsWith(USER_KEY_PREFIX)) {
+            removeUser(Long.valueOf(key.substring(USER_KEY_PREFIX.length())));
+        } else if (key.startsWith(ROLE_KEY_PREFIX)) {
+            removeRole(Long.valueOf(key.substring(ROLE_KEY_PREFIX.length())));
+        }
+    }
+
+    private void removeUser(Long userId) {
+        generation.incrementAndGet();
+        userRoles.remove(userId);
+        userBits.remove(userId);
+    }
+
+    /**
+     * 清除角色位图以及包含该角色的用户位图
+     */
+    private void removeRole(Long roleId) {
+        generation.incrementAndGet();
+        roleBits.remove(roleId);
+        userRoles.entrySet().removeIf(e -> {
+            for (long id : e.getValue()) {
+                if (id == roleId) {
+                    userBits.remove(e.getKey());
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private void clearAll() {
+        generation.incrementAndGet();
+        roleBits.clear();
+        userRoles.clear();
+        userBits.clear();
+    }
+
+    /**
+     * 获取用户的权限位图，未命中时从数据库编译
+     */
+    private long[] getUserBits(Long userId) {
+        long[] bits = userBits.get(userId);
+        if (bits != null) {
+            userHits.increment();
+            return bits;
+        }
+        userMisses.increment();
+        long stamp = generation.get();
+        long[] roleIds = loadUserRoles(userId);
+        bits = union(roleIds);
+        // 编译期间发生过失效则不回填，避免旧数据覆盖
+        if (generation.get() == stamp) {
+            userRoles.put(userId, roleIds);
+            userBits.putIfAbsent(userId, bits);
+        }
+        return bits;
+    }
+
+    /**
+     * 获取角色的权限位图，未命中时从数据库编译
+     */
+    private long[] getRoleBits(Long roleId) {
+        long[] bits = roleBits.get(roleId);
+        if (bits != null) {
+            return bits;
+        }
+        long stamp = generation.get();
+        bits = loadRoleBits(roleId);
+        if (generation.get() == stamp) {
+            roleBits.putIfAbsent(roleId, bits);
+        }
+        return bits;
+    }
+
+    /**
+     * 合并多个角色的权限位图
+     */
+    private long[] union(long[] roleIds) {
+        long[] result = EMPTY_BITS;
+        for (long roleId : roleIds) {
+            long[] bits = getRoleBits(roleId);
+            if (bits.length > result.length) {
+                result = Arrays.copyOf(result, bits.length);
+            }
+            for (int i = 0; i < bits.length; i++) {
+                result[i] |= bits[i];
+            }
+        }
+        return result;
+    }
+
+    private long[] loadUserRoles(Long userId) {
+        List<Long> roleIds = userMapper.findRoleIdsByUserId(userId);
+        if (roleIds == null || roleIds.isEmpty()) {
+            return new long[0];
+        }
+        return roleIds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long[] loadRoleBits(Long roleId) {
+        SysRole role = roleMapper.findById(roleId);
+        if (role == null || role.getStatus() == null || role.getStatus() != 1) {
+            return EMPTY_BITS;
+        }
+        List<SysPermission> permissions = permissionMapper.findPermissionsByRoleId(roleId);
+        if (permissions == null || permissions.isEmpty()) {
+            return EMPTY_BITS;
+        }
+        List<String> codes = new ArrayList<>(permissions.size());
+        for (SysPermission permission : permissions) {
+            codes.add(permission.getPermissionCode());
+        }
+        return compile(codes);
+    }
+
+    private static boolean testBit(long[] bits, int ordinal) {
+        int word = ordinal >> 6;
+        return word < bits.length && (bits[word] & (1L << ordinal)) != 0;
+    }
+}
@@ -0,0 +1,350 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.mapper.SysPermissionMapper;
+import com.czj.rbac.model.SysPermission;
+import com.czj.rbac.model.vo.PermissionVO;
+import com.czj.rbac.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 权限树内存模型
+ * 首次访问时从数据库构建整棵树，之后权限的新增、修改、移动和删除在事务提交后以增量方式应用：
+ * 只复制变更节点到根的路径上的节点，其余子树在新旧快照间共享，同层节点始终保持有序。
+ * 读取方拿到的是带版本号的不可变快照，无需重建或加锁；其他节点通过缓存失效总线收到权限ID后各自增量更新
+ */
+@Slf4j
+@Service
+public class PermissionTreeIndex {
+
+    private static final String CACHE_NAME = "permission:tree";
+
+    /**
+     * 同层按创建时间倒序，与原权限树排序一致
+     */
+    private static final Comparator<PermissionVO> NODE_ORDER = Comparator
+        .comparing(PermissionVO::getCreateTime, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(PermissionVO::getId);
+
+    @Autowired
+    private SysPermissionMapper permissionMapper;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    /**
+     * 当前发布的快照，为null时下次访问从数据库加载
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * 权限ID -> 当前快照中的节点，只在持有锁时读写
+     */
+    private final Map<Long, PermissionVO> nodes = new HashMap<>();
+
+    /**
+     * 已发布的最大版本号，只在持有锁时修改
+     */
+    private long version;
+
+    @PostConstruct
+    public void init() {
+        invalidationBus.register(CACHE_NAME, entry -> {
+            if (CacheInvalidationBus.TYPE_KEY.equals(entry.getType())) {
+                refresh(Long.valueOf(entry.getKey()));
+            } else {
+                invalidateLocal();
+            }
+        });
+    }
+
+    /**
+     * 获取权限树，type不为空时只返回该类型的顶级权限及其子树
+     * 返回的节点在快照间共享，调用方不得修改
+     */
+    public List<PermissionVO> getTree(String type) {
+        return current().roots(type);
+    }
+
+    /**
+     * 当前快照的版本号，树有任何变化时递增
+     */
+    public long getVersion() {
+        return current().version;
+    }
+
+    /**
+     * 判断permissionId是否为ancestorId自身或其下级权限
+     */
+    public synchronized boolean isSelfOrDescendant(Long ancestorId, Long permissionId) {
+        current();
+        Long id = permissionId;
+        // 深度以节点数为上限，防止脏数据成环时死循环
+        for (int depth = 0; id != null && depth <= nodes.size(); depth++) {
+            if (id.equals(ancestorId)) {
+                return true;
+            }
+            PermissionVO node = nodes.get(id);
+            id = node == null ? null : node.getParentId();
+        }
+        return false;
+    }
+
+    /**
+     * 权限新增、修改、移动或状态变更后，事务提交时重新读取该权限并增量更新
+     */
+    public void put(Long permissionId) {
+        if (permissionId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            refresh(permissionId);
+            invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_KEY, String.valueOf(permissionId));
+        });
+    }
+
+    /**
+     * 权限删除后，事务提交时从树中移除
+     */
+    public void remove(Collection<Long> permissionIds) {
+        if (permissionIds == null || permissionIds.isEmpty()) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            for (Long permissionId : permissionIds) {
+                refresh(permissionId);
+                invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_KEY, String.valueOf(permissionId));
+            }
+        });
+    }
+
+    /**
+     * 整体失效，下次访问时从数据库重新构建
+     */
+    public void invalidate() {
+        TransactionUtils.afterCommit(() -> {
+            invalidateLocal();
+            invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_ALL, null);
+        });
+    }
+
+    /**
+     * 权限节点数
+     */
+    public synchronized int size() {
+        current();
+        return nodes.size();
+    }
+
+    private synchronized void invalidateLocal() {
+        snapshot = null;
+        nodes.clear();
+    }
+
+    /**
+     * 按数据库中的最新状态更新单个节点，权限已不存在时移除
+     */
+    private synchronized void refresh(Long permissionId) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // 尚未加载，下次访问时会读到最新数据
+            return;
+        }
+        SysPermission permission = permissionMapper.findById(permissionId);
+        List<PermissionVO> roots = current.roots;
+        PermissionVO old = nodes.get(permissionId);
+        if (old != null) {
+            roots = detach(roots, old);
+        }
+        if (permission == null) {
+            nodes.remove(permissionId);
+            if (old != null) {
+                // 正常删除前已校验没有子权限，此处兜底把遗留的子节点提升为顶级
+                for (PermissionVO child : old.getChildren()) {
+                    roots = insertSorted(roots, child);
+                }
+            }
+        } else {
+            PermissionVO node = toNode(permission, old == null ? Collections.emptyList() : old.getChildren());
+            nodes.put(permissionId, node);
+            roots = attach(roots, node);
+        }
+        snapshot = new Snapshot(++version, roots);
+        log.debug("增量更新权限树 - permissionId: {}, version: {}", permissionId, version);
+    }
+
+    /**
+     * 从父节点的子列表中摘除节点，返回新的顶级列表
+     */
+    private List<PermissionVO> detach(List<PermissionVO> roots, PermissionVO node) {
+        PermissionVO parent = parentOf(node);
+        if (parent == null) {
+            return without(roots, node.getId());
+        }
+        return replace(roots, copy(parent, without(parent.getChildren(), node.getId())));
+    }
+
+    /**
+     * 把节点按序插入父节点的子列表，返回新的顶级列表
+     */
+    private List<PermissionVO> attach(List<PermissionVO> roots, PermissionVO node) {
+        PermissionVO parent = parentOf(node);
+        if (parent == null) {
+            return insertSorted(roots, node);
+        }
+        return replace(roots, copy(parent, insertSorted(parent.getChildren(), node)));
+    }
+
+    /**
+     * 用新节点替换同ID的旧节点，并逐级复制到根的路径
+     */
+    private List<PermissionVO> replace(List<PermissionVO> roots, PermissionVO node) {
+        PermissionVO current = node;
+        for (int depth = 0; depth <= nodes.size(); depth++) {
+            nodes.put(current.getId(), current);
+            PermissionVO parent = parentOf(current);
+            if (parent == null) {
+                return replaceIn(roots, current);
+            }
+            current = copy(parent, replaceIn(parent.getChildren(), current));
+        }
+        throw new IllegalStateException("权限树存在环, permissionId: " + node.getId());
+    }
+
+    private PermissionVO parentOf(PermissionVO node) {
+        Long parentId = node.getParentId();
+        return parentId == null || parentId.equals(node.getId()) ? null : nodes.get(parentId);
+    }
+
+    private static List<PermissionVO> without(List<PermissionVO> list, Long id) {
+        List<PermissionVO> result = new ArrayList<>(list.size());
+        for (PermissionVO item : list) {
+            if (!item.getId().equals(id)) {
+                result.add(item);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static List<PermissionVO> insertSorted(List<PermissionVO> list, PermissionVO node) {
+        int index = Collections.binarySearch(list, node, NODE_ORDER);
+        List<PermissionVO> result = new ArrayList<>(list.size() + 1);
+        result.addAll(list);
+        result.add(index < 0 ? -index - 1 : index, node);
+        return Collections.unmodifiableList(result);
+    }
+
+    private static List<PermissionVO> replaceIn(List<PermissionVO> list, PermissionVO node) {
+        List<PermissionVO> result = new ArrayList<>(list);
+        for (int i = 0; i < result.size(); i++) {
+            if (result.get(i).getId().equals(node.getId())) {
+                result.set(i, node);
+                break;
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static PermissionVO copy(PermissionVO source, List<PermissionVO> children) {
+        return new PermissionVO(source.getId(), source.getPermissionName(), source.getPermissionCode(),
+            source.getDescription(), source.getParentId(), source.getType(), source.getPath(),
+            source.getStatus(), source.getCreateTime(), children);
+    }
+
+    private static PermissionVO toNode(SysPermission permission, List<PermissionVO> children) {
+        Long parentId = permission.getPid() == null || permission.getPid() <= 0 ? null : permission.getPid();
+        return new PermissionVO(permission.getId(), permission.getPermissionName(), permission.getPermissionCode(),
+            permission.getDescription(), parentId, permission.getType(), permission.getPath(),
+            permission.getStatus(), permission.getCreateTime(), children);
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : load();
+    }
+
+    /**
+     * 从数据库构建整棵树，父权限不存在的权限视为顶级权限
+     */
+    private synchronized Snapshot load() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        List<SysPermission> permissions = permissionMapper.findList(null, null);
+        Map<Long, List<PermissionVO>> children = new HashMap<>();
+        Map<Long, PermissionVO> rows = new HashMap<>();
+        for (SysPermission permission : permissions) {
+            PermissionVO row = toNode(permission, null);
+            rows.put(row.getId(), row);
+        }
+        List<PermissionVO> roots = new ArrayList<>();
+        for (PermissionVO row : rows.values()) {
+            if (row.getParentId() == null || !rows.containsKey(row.getParentId())) {
+                roots.add(row);
+            } else {
+                children.computeIfAbsent(row.getParentId(), k -> new ArrayList<>()).add(row);
+            }
+        }
+        for (PermissionVO row : rows.values()) {
+            List<PermissionVO> kids = children.get(row.getId());
+            if (kids == null) {
+                row.setChildren(Collections.emptyList());
+            } else {
+                kids.sort(NODE_ORDER);
+                row.setChildren(Collections.unmodifiableList(kids));
+            }
+        }
+        roots.sort(NODE_ORDER);
+        nodes.clear();
+        nodes.putAll(rows);
+        current = new Snapshot(++version, Collections.unmodifiableList(roots));
+        snapshot = current;
+        log.info("加载权限树 - 权限数: {}, version: {}", rows.size(), version);
+        return current;
+    }
+
+    /**
+     * 不可变快照，按类型过滤的顶级列表在首次访问时计算
+     */
+    private static final class Snapshot {
+
+        private final long version;
+
+        private final List<PermissionVO> roots;
+
+        private final Map<String, List<PermissionVO>> rootsByType = new ConcurrentHashMap<>();
+
+        private Snapshot(long version, List<PermissionVO> roots) {
+            this.version = version;
+            this.roots = roots;
+        }
+
+        List<PermissionVO> roots(String type) {
+            if (type == null) {
+                return roots;
+            }
+            return rootsByType.computeIfAbsent(type, t -> {
+                List<PermissionVO> result = new ArrayList<>();
+                for (PermissionVO root : roots) {
+                    if (Objects.equals(t, root.getType())) {
+                        result.add(root);
+                    }
+                }
+                return Collections.unmodifiableList(result);
+            });
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.RoleLevelConfig;
+import com.czj.rbac.mapper.SysRoleMapper;
+import com.czj.rbac.mapper.SysUserMapper;
+import com.czj.rbac.model.SysRole;
+import com.czj.rbac.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 角色等级索引
+ * 角色等级取自sys_role和rbac.role-levels配置，按用户缓存其启用角色中的最高等级，
+ * 数据权限比较只读内存。用户分配角色、角色状态或编码变更时增量更新，并通过缓存失效总线通知其他节点
+ */
+@Slf4j
+@Service
+public class RoleLevelIndex {
+
+    /**
+     * 没有启用的角色
+     */
+    public static final int NO_ROLE = -1;
+
+    private static final String CACHE_NAME = "permission:role-level";
+    private static final String USER_KEY_PREFIX = "user:";
+    private static final String ROLE_KEY_PREFIX = "role:";
+
+    @Autowired
+    private SysRoleMapper roleMapper;
+
+    @Autowired
+    private SysUserMapper userMapper;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @Autowired
+    private RoleLevelConfig roleLevelConfig;
+
+    /**
+     * 角色ID -> 等级，禁用的角色为NO_ROLE
+     */
+    private final Map<Long, Integer> roleLevels = new ConcurrentHashMap<>();
+
+    /**
+     * 用户ID -> 角色ID
+     */
+    private final Map<Long, long[]> userRoles = new ConcurrentHashMap<>();
+
+    /**
+     * 用户ID -> 最高角色等级
+     */
+    private final Map<Long, Integer> userLevels = new ConcurrentHashMap<>();
+
+    /**
+     * 失效版本号，用于丢弃失效期间从数据库加载的旧数据
+     */
+    private final AtomicLong generation = new AtomicLong(0);
+
+    /**
+     * 是否已从sys_role加载全部角色
+     */
+    private volatile boolean rolesLoaded;
+
+    @PostConstruct
+    public void init() {
+        invalidationBus.register(CACHE_NAME, this::onRemoteInvalidate);
+    }
+
+    /**
+     * 获取用户启用角色中的最高等级，没有启用的角色时返回NO_ROLE
+     */
+    public int getUserLevel(Long userId) {
+        Integer level = userLevels.get(userId);
+        if (level != null) {
+            return level;
+        }
+        long stamp = generation.get();
+        long[] roleIds = loadUserRoles(userId);
+        int computed = computeLevel(roleIds);
+        // 加载期间发生过变更则不回填，避免旧数据覆盖
+        if (generation.get() == stamp) {
+            userRoles.put(userId, roleIds);
+            userLevels.putIfAbsent(userId, computed);
+        }
+        return computed;
+    }
+
+    /**
+     * 检查管理者是否可以管理目标用户
+     * 本人数据始终可管理；管理者没有启用的角色时不可管理他人；
+     * 达到超级管理员等级时可管理所有人；否则需高于目标用户等级，目标没有角色视为最低等级
+     */
+    public boolean canManage(Long managerId, Long targetId) {
+        if (managerId == null || targetId == null) {
+            return false;
+        }
+        if (managerId.equals(targetId)) {
+            return true;
+        }
+        return canManage(getUserLevel(managerId), targetId);
+    }
+
+    /**
+     * 获取该等级的管理者不可管理的角色，即启用且等级不低于managerLevel的角色，
+     * 列表查询在SQL中排除持有这些角色的用户，与canManage的判定一致。达到超级管理员等级时返回空列表
+     *
+     * @param managerLevel 管理者等级，不能为NO_ROLE
+     */
+    public List<Long> getUnmanageableRoleIds(int managerLevel) {
+        if (managerLevel >= getSuperAdminLevel()) {
+            return Collections.emptyList();
+        }
+        if (!rolesLoaded) {
+            loadRoles();
+        }
+        List<Long> result = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : roleLevels.entrySet()) {
+            int level = entry.getValue();
+            if (level != NO_ROLE && level >= managerLevel) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用户角色分配变更，事务提交后直接按新角色重算等级
+     */
+    public void updateUserRoles(Long userId, List<Long> roleIds) {
+        if (userId == null) {
+            return;
+        }
+        long[] ids = roleIds == null ? new long[0] : roleIds.stream().mapToLong(Long::longValue).toArray();
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            userRoles.put(userId, ids);
+            userLevels.put(userId, computeLevel(ids));
+            invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_KEY, USER_KEY_PREFIX + userId);
+            log.debug("更新用户角色等级 - userId: {}, roleIds: {}", userId, roleIds);
+        });
+    }
+
+    /**
+     * 清除用户的等级，下次比较时重新加载
+     */
+    public void evictUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            removeUser(userId);
+            invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_KEY, USER_KEY_PREFIX + userId);
+        });
+    }
+
+    /**
+     * 角色状态或编码变更后重新加载该角色等级，并在内存中重算持有该角色的用户
+     */
+    public void refreshRole(Long roleId) {
+        if (roleId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            roleLevels.put(roleId, loadRoleLevel(roleMapper.findById(roleId)));
+            int recomputed = recomputeUsers(roleId);
+            invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.TYPE_KEY, ROLE_KEY_PREFIX + roleId);
+            log.debug("重算角色等级 - roleId: {}, 重算用户数: {}", roleId, recomputed);
+        });
+    }
+
+    /**
+     * 已缓存等级的用户数
+     */
+    public int getCachedUserCount() {
+        return userLevels.size();
+    }
+
+    private boolean canManage(int managerLevel, Long targetId) {
+        if (managerLevel == NO_ROLE) {
+            return false;
+        }
+        if (managerLevel >= getSuperAdminLevel()) {
+            return true;
+        }
+        int targetLevel = getUserLevel(targetId);
+        return targetLevel == NO_ROLE || managerLevel > targetLevel;
+    }
+
+    private int getSuperAdminLevel() {
+        Integer level = roleLevelConfig.getLevels().get(roleLevelConfig.getSuperAdminRole());
+        return level == null ? Integer.MAX_VALUE : level;
+    }
+
+    /**
+     * 处理其他节点发来的失效条目，只清除本地数据，下次比较时重新加载
+     */
+    private void onRemoteInvalidate(CacheInvalidationBus.Entry entry) {
+        String key = entry.getKey();
+        if (!CacheInvalidationBus.TYPE_KEY.equals(entry.getType()) || key == null) {
+            clearAll();
+        } else if (key.startsWith(USER_KEY_PREFIX)) {
+            removeUser(Long.valueOf(key.substring(USER_KEY_PREFIX.length())));
+        } else if (key.startsWith(ROLE_KEY_PREFIX)) {
+            Long roleId = Long.valueOf(key.substring(ROLE_KEY_PREFIX.length()));
+            generation.incrementAndGet();
+            roleLevels.remove(roleId);
+            // 新增的角色也通过此消息通知，列表过滤需要完整的角色表，下次访问时补齐
+            rolesLoaded = false;
+            recomputeUsers(roleId);
+        }
+    }
+
+    /**
+     * 重算持有该角色的已缓存用户
+     */
+    private int recomputeUsers(Long roleId) {
+        int recomputed = 0;
+        for (Map.Entry<Long, long[]> entry : userRoles.entrySet()) {
+            for (long id : entry.getValue()) {
+                if (id == roleId) {
+                    userLevels.put(entry.getKey(), computeLevel(entry.getValue()));
+                    recomputed++;
+                    break;
+                }
+            }
+        }
+        return recomputed;
+    }
+
+    private void removeUser(Long userId) {
+        generation.incrementAndGet();
+        userRoles.remove(userId);
+        userLevels.remove(userId);
+    }
+
+    private void clearAll() {
+        generation.incrementAndGet();
+        rolesLoaded = false;
+        roleLevels.clear();
+        userRoles.clear();
+        userLevels.clear();
+    }
+
+    private int computeLevel(long[] roleIds) {
+        int max = NO_ROLE;
+        for (long roleId : roleIds) {
+            max = Math.max(max, getRoleLevel(roleId));
+        }
+        return max;
+    }
+
+    /**
+     * 获取角色等级，首次访问时从sys_role加载全部角色，之后新增的角色单独加载
+     */
+    private int getRoleLevel(Long roleId) {
+        Integer level = roleLevels.get(roleId);
+        if (level != null) {
+            return level;
+        }
+        if (!rolesLoaded) {
+            loadRoles();
+            level = roleLevels.get(roleId);
+            if (level != null) {
+                return level;
+            }
+        }
+        long stamp = generation.get();
+        int loaded = loadRoleLevel(roleMapper.findById(roleId));
+        if (generation.get() == stamp) {
+            roleLevels.putIfAbsent(roleId, loaded);
+        }
+        return loaded;
+    }
+
+    private synchronized void loadRoles() {
+        if (rolesLoaded) {
+            return;
+        }
+        long stamp = generation.get();
+        List<SysRole> roles = roleMapper.findList(null);
+        if (generation.get() != stamp) {
+            return;
+        }
+        if (roles != null) {
+            for (SysRole role : roles) {
+                roleLevels.putIfAbsent(role.getId(), loadRoleLevel(role));
+            }
+        }
+        rolesLoaded = true;
+        log.info("加载角色等级 - 角色数: {}", roleLevels.size());
+    }
+
+    private int loadRoleLevel(SysRole role) {
+        if (role == null || role.getStatus() == null || role.getStatus() != 1) {
+            return NO_ROLE;
+        }
+        Integer level = roleLevelConfig.getLevels().get(role.getRoleCode());
+        return level == null ? 0 : level;
+    }
+
+    private long[] loadUserRoles(Long userId) {
+        List<Long> roleIds = userMapper.findRoleIdsByUserId(userId);
+        if (roleIds == null || roleIds.isEmpty()) {
+            return new long[0];
+        }
+        return roleIds.stream().mapToLong(Long::longValue).toArray();
+    }
+}
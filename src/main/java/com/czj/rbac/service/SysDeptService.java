@@ -0,0 +1,27 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.model.dto.DeptDTO;
+import com.czj.rbac.model.vo.DeptVO;
+import java.util.List;
+
+public interface SysDeptService {
+    /**
+     * 查询部门树
+     */
+    List<DeptVO> findTree();
+
+    /**
+     * 新增部门
+     */
+    void add(DeptDTO deptDTO);
+
+    /**
+     * 更新部门，父部门变化时移动整棵子树
+     */
+    void update(DeptDTO deptDTO);
+
+    /**
+     * 删除部门，存在子部门或用户时不允许删除
+     */
+    void delete(Long id);
+}
@@ -1,5 +1,6 @@
 package com.czj.rbac.service;
 
+import com.czj.rbac.common.CursorResult;
 import com.czj.rbac.common.PageResult;
 import com.czj.rbac.model.SysLog;
 
@@ -48,4 +49,19 @@ public interface SysLogService {
      * @return 分页结果
      */
     PageResult<SysLog> findPage(Integer page, Integer size, String module, String operation, String startTime, String endTime);
-} 
\ No newline at end of file
+
+    /**
+     * 游标分页查询日志，查询代价与翻页深度无关
+     *
+     * @param cursor 上一页返回的游标，为空时查询第一页
+     * @param size 每页大小
+     * @param module 模块名称
+     * @param operation 操作类型
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param withTotal 是否返回总数，总数按查询条件缓存
+     * @return 游标分页结果
+     */
+    CursorResult<SysLog> findByCursor(String cursor, Integer size, String module, String operation,
+                                      String startTime, String endTime, boolean withTotal);
+}
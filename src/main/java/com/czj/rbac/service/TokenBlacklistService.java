@@ -0,0 +1,240 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.util.BloomFilter;
+import com.czj.rbac.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token黑名单
+ * 黑名单key为loginId，旧令牌没有loginId时使用token摘要，不再保存完整JWT。
+ * 本地布隆过滤器判定"一定未吊销"时不访问Redis，只有过滤器命中时才查询Redis确认。
+ * 过滤器定期从Redis索引重建以剔除过期条目，新增的吊销经CacheInvalidationBus同步到其他节点。
+ * 登录时被挤下线的会话由会话脚本写入按用户划分的会话黑名单，查询时一并检查
+ */
+@Slf4j
+@Service
+public class TokenBlacklistService {
+
+    public static final String BLACKLIST_PREFIX = "token:blacklist:";
+
+    /**
+     * 黑名单索引，member为吊销标识，score为过期时间戳
+     */
+    public static final String BLACKLIST_INDEX = "token:blacklist:index";
+
+    /**
+     * 用户会话黑名单，member为被挤下线的loginId，score为过期时间戳
+     */
+    public static final String USER_BLACKLIST_PREFIX = "token:blacklist:user:";
+
+    /**
+     * 失效总线上的名称
+     */
+    private static final String BUS_NAME = "token:blacklist";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @Value("${rbac.jwt.token.blacklist-size:10000}")
+    private long expectedSize;
+
+    @Value("${rbac.jwt.token.blacklist-fpp:0.01}")
+    private double fpp;
+
+    @Value("${rbac.jwt.token.blacklist-refresh-interval:60000}")
+    private long refreshInterval;
+
+    /**
+     * 本地过滤器，为null时表示尚未从Redis加载，此时所有查询回源Redis
+     */
+    private volatile BloomFilter filter;
+
+    /**
+     * 上次重建后新增的吊销标识 -> 加入时间，重建时补入新过滤器
+     */
+    private final Map<String, Long> recent = new ConcurrentHashMap<>();
+
+    private final AtomicLong redisLookups = new AtomicLong();
+
+    private final AtomicLong lookups = new AtomicLong();
+
+    private final AtomicLong revokedHits = new AtomicLong();
+
+    private ScheduledExecutorService refreshExecutor;
+
+    @PostConstruct
+    public void init() {
+        // 先创建线程池再订阅，注册后立即到达的消息也能提交重建
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "token-blacklist-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        invalidationBus.register(BUS_NAME, entry -> {
+            if (CacheInvalidationBus.TYPE_KEY.equals(entry.getType())) {
+                mark(entry.getKey());
+            } else {
+                // 可能丢失了其他节点的吊销通知，从Redis索引重建过滤器
+                refreshExecutor.execute(this::rebuild);
+            }
+        });
+        refreshExecutor.scheduleWithFixedDelay(this::rebuild, 0, refreshInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * 令牌的吊销标识
+     */
+    public static String revocationId(String jwt, Claims claims) {
+        String loginId = claims != null ? claims.get("loginId", String.class) : null;
+        return loginId != null ? loginId : JwtUtil.digest(jwt);
+    }
+
+    /**
+     * 判断令牌是否已吊销
+     */
+    public boolean isRevoked(String jwt, Claims claims) {
+        lookups.incrementAndGet();
+        String id = revocationId(jwt, claims);
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(id)) {
+            return false;
+        }
+        redisLookups.incrementAndGet();
+        try {
+            boolean revoked = Boolean.TRUE.equals(stringRedisTemplate.hasKey(BLACKLIST_PREFIX + id))
+                || isSessionRevoked(claims);
+            if (revoked) {
+                revokedHits.incrementAndGet();
+            }
+            return revoked;
+        } catch (Exception e) {
+            log.error("检查Token黑名单失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 会话是否已在用户会话黑名单中
+     */
+    private boolean isSessionRevoked(Claims claims) {
+        String loginId = claims != null ? claims.get("loginId", String.class) : null;
+        Long userId = JwtUtil.getUserId(claims);
+        if (loginId == null || userId == null) {
+            return false;
+        }
+        Double expireAt = stringRedisTemplate.opsForZSet().score(USER_BLACKLIST_PREFIX + userId, loginId);
+        return expireAt != null && expireAt > System.currentTimeMillis();
+    }
+
+    /**
+     * 吊销令牌，直到令牌过期
+     *
+     * @return 是否新加入黑名单，令牌已过期或已在黑名单中时返回false
+     */
+    public boolean revoke(String jwt, Claims claims) {
+        Date expiration = claims.getExpiration();
+        long expireAt = expiration != null ? expiration.getTime() : System.currentTimeMillis() + refreshInterval;
+        return revoke(revocationId(jwt, claims), expireAt);
+    }
+
+    /**
+     * 按吊销标识吊销，直到expireAt
+     */
+    public boolean revoke(String id, long expireAt) {
+        long remainingTime = expireAt - System.currentTimeMillis();
+        if (remainingTime <= 0) {
+            return false;
+        }
+        boolean added = Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+            .setIfAbsent(BLACKLIST_PREFIX + id, "1", remainingTime, TimeUnit.MILLISECONDS));
+        stringRedisTemplate.opsForZSet().add(BLACKLIST_INDEX, id, expireAt);
+        markRevoked(id);
+        return added;
+    }
+
+    /**
+     * 登记已在Redis侧写入黑名单的吊销标识，更新本地过滤器并通知其他节点
+     */
+    public void markRevoked(String id) {
+        mark(id);
+        invalidationBus.publish(BUS_NAME, CacheInvalidationBus.TYPE_KEY, id);
+    }
+
+    /**
+     * 经过滤器放行到Redis的查询次数
+     */
+    public long getRedisLookups() {
+        return redisLookups.get();
+    }
+
+    /**
+     * 吊销检查总次数
+     */
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    /**
+     * 检查结果为已吊销的次数
+     */
+    public long getRevokedHits() {
+        return revokedHits.get();
+    }
+
+    private void mark(String id) {
+        recent.put(id, System.currentTimeMillis());
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(id);
+        }
+    }
+
+    /**
+     * 从Redis索引重建过滤器，清理已过期的索引条目
+     */
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            stringRedisTemplate.opsForZSet().removeRangeByScore(BLACKLIST_INDEX, 0, start);
+            Set<String> ids = stringRedisTemplate.opsForZSet().range(BLACKLIST_INDEX, 0, -1);
+            int size = ids == null ? 0 : ids.size();
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedSize, size * 2L), fpp);
+            if (ids != null) {
+                ids.forEach(rebuilt::put);
+            }
+            // 重建期间新增的吊销补入新过滤器，之前的已包含在索引中
+            recent.forEach((id, time) -> rebuilt.put(id));
+            filter = rebuilt;
+            // 切换前一刻写入旧过滤器的条目再补一次
+            recent.forEach((id, time) -> rebuilt.put(id));
+            recent.values().removeIf(time -> time < start);
+            log.debug("重建Token黑名单过滤器 - size: {}, bits: {}", size, rebuilt.bitSize());
+        } catch (Exception e) {
+            log.error("重建Token黑名单过滤器失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.CacheConfig;
+import com.czj.rbac.util.TransactionUtils;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 二级缓存
+ * L1为进程内Caffeine缓存，存放反序列化后的对象；L2为Redis，存放JSON字符串。
+ * 命中L1时无网络往返和JSON解析。返回的对象为共享实例，调用方不应修改。
+ * 删除操作经CacheInvalidationBus广播到其他节点；每次失效递增本地版本号，
+ * 失效前开始的L2读取和回源加载不会回填缓存，避免旧值复活。
+ * 事务内的删除在提交后再执行一次，清除提交前其他线程读到旧数据后回填的缓存
+ */
+@Slf4j
+public class TwoLevelCache<V> {
+
+    /**
+     * Redis中的空值标记，与原有缓存格式保持一致
+     */
+    private static final String NULL_VALUE = "NULL";
+
+    /**
+     * 本地缓存中的空值标记
+     */
+    private static final Object NULL_HOLDER = new Object();
+
+    private final String name;
+
+    private final CacheConfig.CacheProperties properties;
+
+    private final Cache<String, Object> local;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final JavaType valueType;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    /**
+     * 本地失效版本号
+     */
+    private final AtomicLong version = new AtomicLong(0);
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    TwoLevelCache(String name, CacheConfig.CacheProperties properties, JavaType valueType,
+                  RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper,
+                  CacheInvalidationBus invalidationBus) {
+        this.name = name;
+        this.invalidationBus = invalidationBus;
+        this.properties = properties;
+        this.valueType = valueType;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.local = Caffeine.newBuilder()
+            .maximumSize(properties.getLocalMaxSize())
+            .expireAfterWrite(properties.getLocalExpireTime(), TimeUnit.SECONDS)
+            .build();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * L1命中次数
+     */
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    /**
+     * L1未命中、L2命中次数
+     */
+    public long getRedisHits() {
+        return redisHits.sum();
+    }
+
+    /**
+     * 两级均未命中次数
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * 通过loader回源加载的次数
+     */
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    /**
+     * 回源加载累计耗时(纳秒)
+     */
+    public long getLoadNanos() {
+        return loadNanos.sum();
+    }
+
+    /**
+     * L1当前条目数(估算)
+     */
+    public long getLocalSize() {
+        return local.estimatedSize();
+    }
+
+    /**
+     * 获取缓存，未命中或为空值缓存时返回null
+     */
+    public V get(String key) {
+        Object value = lookup(key);
+        return value == NULL_HOLDER ? null : cast(value);
+    }
+
+    /**
+     * 获取缓存，未命中时通过loader加载并回填，加载期间发生过失效则不回填
+     */
+    public V get(String key, Supplier<V> loader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return value == NULL_HOLDER ? null : cast(value);
+        }
+        long stamp = version.get();
+        long start = System.nanoTime();
+        V loaded;
+        try {
+            loaded = loader.get();
+        } finally {
+            loadCount.increment();
+            loadNanos.add(System.nanoTime() - start);
+        }
+        if (version.get() == stamp) {
+            put(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 写入缓存，value为null时按配置写入空值缓存
+     */
+    public void put(String key, V value) {
+        String redisKey = redisKey(key);
+        try {
+            if (value == null) {
+                if (!properties.isCacheNull()) {
+                    return;
+                }
+                redisTemplate.opsForValue().set(redisKey, NULL_VALUE, properties.getNullExpireTime(), TimeUnit.SECONDS);
+                local.put(key, NULL_HOLDER);
+                return;
+            }
+            long expireTime = properties.getExpireTime();
+            if (properties.getExpireJitter() > 0) {
+                expireTime += ThreadLocalRandom.current().nextLong(properties.getExpireJitter());
+            }
+            redisTemplate.opsForValue().set(redisKey, objectMapper.writeValueAsString(value), expireTime, TimeUnit.SECONDS);
+            local.put(key, value);
+        } catch (Exception e) {
+            log.error("写入缓存失败 - cache: {}, key: {}, error: {}", name, key, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除缓存
+     */
+    public void evict(String key) {
+        delete(key);
+        broadcast(CacheInvalidationBus.TYPE_KEY, key);
+        evictAgainAfterCommit(() -> delete(key));
+    }
+
+    /**
+     * 批量删除缓存
+     */
+    public void evict(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        List<String> copy = new ArrayList<>(keys);
+        delete(copy);
+        for (String key : copy) {
+            broadcast(CacheInvalidationBus.TYPE_KEY, key);
+        }
+        evictAgainAfterCommit(() -> delete(copy));
+    }
+
+    /**
+     * 删除指定前缀的所有缓存，Redis侧使用SCAN遍历
+     */
+    public void evictByPrefix(String keyPrefix) {
+        deleteByPrefix(keyPrefix);
+        broadcast(CacheInvalidationBus.TYPE_PREFIX, keyPrefix);
+        evictAgainAfterCommit(() -> deleteByPrefix(keyPrefix));
+    }
+
+    /**
+     * 刷新Redis中缓存的过期时间
+     */
+    public void touch(String key) {
+        redisTemplate.expire(redisKey(key), properties.getExpireTime(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * 仅清除本地缓存
+     */
+    public void invalidateLocal(String key) {
+        version.incrementAndGet();
+        local.invalidate(key);
+    }
+
+    /**
+     * 仅清除指定前缀的本地缓存
+     */
+    public void invalidateLocalByPrefix(String keyPrefix) {
+        version.incrementAndGet();
+        local.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    /**
+     * 清除全部本地缓存
+     */
+    public void invalidateLocalAll() {
+        version.incrementAndGet();
+        local.invalidateAll();
+    }
+
+    /**
+     * 处理其他节点发来的失效条目
+     */
+    void onRemoteInvalidate(CacheInvalidationBus.Entry entry) {
+        switch (entry.getType()) {
+            case CacheInvalidationBus.TYPE_KEY -> invalidateLocal(entry.getKey());
+            case CacheInvalidationBus.TYPE_PREFIX -> invalidateLocalByPrefix(entry.getKey());
+            default -> invalidateLocalAll();
+        }
+    }
+
+    private void delete(String key) {
+        invalidateLocal(key);
+        redisTemplate.delete(redisKey(key));
+    }
+
+    private void delete(Collection<String> keys) {
+        version.incrementAndGet();
+        local.invalidateAll(keys);
+        List<String> redisKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            redisKeys.add(redisKey(key));
+        }
+        redisTemplate.delete(redisKeys);
+    }
+
+    private void deleteByPrefix(String keyPrefix) {
+        invalidateLocalByPrefix(keyPrefix);
+        String pattern = redisKey(keyPrefix) + "*";
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(100).build())) {
+            while (cursor.hasNext()) {
+                keys.add(cursor.next());
+            }
+        }
+        if (!keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+        log.debug("按前缀清除缓存 - cache: {}, prefix: {}, count: {}", name, keyPrefix, keys.size());
+    }
+
+    /**
+     * 处于事务中时，提交后再删除一次
+     */
+    private void evictAgainAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionUtils.afterCommit(action);
+        }
+    }
+
+    private void broadcast(String type, String key) {
+        if (invalidationBus != null) {
+            invalidationBus.publish(name, type, key);
+        }
+    }
+
+    /**
+     * 依次查询L1、L2，L2命中时解析一次并回填L1
+     */
+    private Object lookup(String key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        String redisKey = redisKey(key);
+        long stamp = version.get();
+        try {
+            Object cached = redisTemplate.opsForValue().get(redisKey);
+            if (cached == null) {
+                misses.increment();
+                return null;
+            }
+            redisHits.increment();
+            Object parsed = NULL_VALUE.equals(cached) ? NULL_HOLDER : objectMapper.readValue(cached.toString(), valueType);
+            // 读取期间发生过失效则不回填
+            if (version.get() == stamp) {
+                local.put(key, parsed);
+            }
+            return parsed;
+        } catch (Exception e) {
+            misses.increment();
+            log.error("读取缓存失败 - cache: {}, key: {}, error: {}", name, key, e.getMessage());
+            // 删除损坏的缓存数据
+            redisTemplate.delete(redisKey);
+            return null;
+        }
+    }
+
+    private String redisKey(String key) {
+        return properties.getPrefix() + key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V cast(Object value) {
+        return (V) value;
+    }
+}
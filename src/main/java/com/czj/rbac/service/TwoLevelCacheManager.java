@@ -0,0 +1,74 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.CacheConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 二级缓存管理
+ * 按名称创建并登记二级缓存，配置取自CacheConfig，并注册到缓存失效总线
+ */
+@Slf4j
+@Service
+public class TwoLevelCacheManager {
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    private final Map<String, TwoLevelCache<?>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * 创建缓存，value为单个对象
+     */
+    public <V> TwoLevelCache<V> create(String name, CacheConfig.CacheProperties properties, Class<V> valueClass) {
+        return create(name, properties, objectMapper.getTypeFactory().constructType(valueClass));
+    }
+
+    /**
+     * 创建缓存，value为对象列表
+     */
+    public <V> TwoLevelCache<List<V>> createList(String name, CacheConfig.CacheProperties properties, Class<V> elementClass) {
+        return create(name, properties, objectMapper.getTypeFactory().constructCollectionType(List.class, elementClass));
+    }
+
+    /**
+     * 获取已创建的缓存
+     */
+    public TwoLevelCache<?> getCache(String name) {
+        return caches.get(name);
+    }
+
+    /**
+     * 获取所有已创建的缓存
+     */
+    public Collection<TwoLevelCache<?>> getCaches() {
+        return Collections.unmodifiableCollection(caches.values());
+    }
+
+    private <V> TwoLevelCache<V> create(String name, CacheConfig.CacheProperties properties, JavaType valueType) {
+        TwoLevelCache<V> cache = new TwoLevelCache<>(name, properties, valueType, redisTemplate, objectMapper, invalidationBus);
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("缓存名称重复: " + name);
+        }
+        invalidationBus.register(name, cache::onRemoteInvalidate);
+        log.info("创建二级缓存 - name: {}, localMaxSize: {}, localExpireTime: {}s, expireTime: {}s",
+            name, properties.getLocalMaxSize(), properties.getLocalExpireTime(), properties.getExpireTime());
+        return cache;
+    }
+}
@@ -1,5 +1,8 @@
 package com.czj.rbac.service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 用户标识生成服务
  */
@@ -12,6 +15,19 @@ public interface UserIdentifierService {
      */
     String generateUserIdentifier();
 
+    /**
+     * 批量生成用户标识，用于批量导入
+     *
+     * @param count 数量
+     */
+    default List<String> generateUserIdentifiers(int count) {
+        List<String> identifiers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            identifiers.add(generateUserIdentifier());
+        }
+        return identifiers;
+    }
+
     /**
      * 获取当前最大序号
      */
@@ -21,4 +37,17 @@ public interface UserIdentifierService {
      * 获取池中剩余数量
      */
     int getPoolSize();
-} 
\ No newline at end of file
+
+    /**
+     * 序号格式化为XH加至少4位数字，等价于String.format("XH%04d", sequence)
+     */
+    static String format(long sequence) {
+        String digits = Long.toString(sequence);
+        StringBuilder builder = new StringBuilder(2 + Math.max(4, digits.length()));
+        builder.append("XH");
+        for (int i = digits.length(); i < 4; i++) {
+            builder.append('0');
+        }
+        return builder.append(digits).toString();
+    }
+}
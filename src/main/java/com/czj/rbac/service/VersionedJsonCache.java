@@ -0,0 +1,122 @@
+package com.czj.rbac.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 按数据集版本号缓存的JSON响应
+ * ETag取自DataVersionService的纪元和版本号，If-None-Match命中时直接返回304，不查询缓存也不序列化；
+ * 未命中时按版本号缓存序列化后的字节，同一版本的后续请求跳过Jackson
+ */
+@Slf4j
+@Service
+public class VersionedJsonCache {
+
+    /**
+     * 缓存的响应数上限，查询参数由调用方传入，防止任意参数撑大缓存
+     */
+    private static final int MAX_ENTRIES = 64;
+
+    /**
+     * 浏览器每次都带ETag回源校验，响应只允许私有缓存
+     */
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, Rendered> responses = new ConcurrentHashMap<>();
+
+    private final LongAdder notModifiedCount = new LongAdder();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder renderCount = new LongAdder();
+
+    /**
+     * 生成带ETag的JSON响应，客户端版本未变化时返回null，此时请求已被标记为304
+     *
+     * @param dataset 数据集，见DataVersionService
+     * @param key     同一数据集下区分查询参数的key
+     * @param body    响应体，只在需要序列化时调用
+     */
+    public ResponseEntity<byte[]> respond(WebRequest request, String dataset, String key, Supplier<?> body) {
+        DataVersionService.Version version = dataVersionService.getVersion(dataset);
+        if (version == null) {
+            // 版本号不可用时不支持条件请求，每次都重新生成
+            renderCount.increment();
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(render(body));
+        }
+        String etag = "\"" + dataset + "-" + version + "\"";
+        if (request.checkNotModified(etag)) {
+            notModifiedCount.increment();
+            return null;
+        }
+
+        String cacheKey = dataset + ":" + key;
+        Rendered rendered = responses.get(cacheKey);
+        byte[] bytes;
+        if (rendered != null && rendered.version.equals(version)) {
+            hitCount.increment();
+            bytes = rendered.bytes;
+        } else {
+            renderCount.increment();
+            bytes = render(body);
+            if (rendered != null || responses.size() < MAX_ENTRIES) {
+                // 并发生成时保留版本号较新的结果
+                Rendered fresh = new Rendered(version, bytes);
+                responses.merge(cacheKey, fresh, (old, value) -> value.version.isOlderThan(old.version) ? old : value);
+            }
+        }
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CACHE_CONTROL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(bytes);
+    }
+
+    public long getNotModifiedCount() {
+        return notModifiedCount.sum();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getRenderCount() {
+        return renderCount.sum();
+    }
+
+    private byte[] render(Supplier<?> body) {
+        try {
+            return objectMapper.writeValueAsBytes(body.get());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化响应失败", e);
+        }
+    }
+
+    private static final class Rendered {
+
+        private final DataVersionService.Version version;
+
+        private final byte[] bytes;
+
+        private Rendered(DataVersionService.Version version, byte[] bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.czj.rbac.service.impl;
 
 import com.czj.rbac.service.AuthService;
 import com.czj.rbac.service.SysPermissionService;
+import com.czj.rbac.service.PasswordHashService;
 import com.czj.rbac.service.TokenService;
 import com.czj.rbac.service.SysLogService;
 import com.czj.rbac.service.SysUserService;
@@ -16,7 +17,6 @@ import com.czj.rbac.common.BusinessException;
 import com.czj.rbac.common.ResponseCode;
 import com.czj.rbac.event.UserLoginEvent;
 import com.czj.rbac.util.JwtUtil;
-import com.czj.rbac.util.PasswordUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
@@ -54,6 +54,9 @@ public class AuthServiceImpl extends BaseServiceImpl implements AuthService {
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
+    @Autowired
+    private PasswordHashService passwordHashService;
+
     @Override
     public LoginVO login(String username, String password) {
         try {
@@ -214,16 +217,35 @@ public class AuthServiceImpl extends BaseServiceImpl implements AuthService {
         }
 
         // 验证密码
-        if (!PasswordUtil.matches(password, user.getPassword())) {
+        if (!passwordHashService.matches(password, user.getPassword())) {
             handleLoginFailure(user);
         }
 
+        // 旧格式或强度不足的哈希按当前配置重新计算
+        rehashPassword(user, password);
+
         // 登录成功，重置失败次数和更新登录时间
         handleLoginSuccess(user);
         
         return user;
     }
     
+    /**
+     * 登录成功后重新哈希密码，失败不影响本次登录
+     */
+    private void rehashPassword(SysUser user, String password) {
+        try {
+            String rehashed = passwordHashService.rehashIfNeeded(password, user.getPassword());
+            if (rehashed != null) {
+                userMapper.updatePassword(user.getId(), rehashed);
+                user.setPassword(rehashed);
+                log.info("用户密码已升级哈希 - userId: {}", user.getId());
+            }
+        } catch (Exception e) {
+            log.warn("用户密码升级哈希失败 - userId: {}, error: {}", user.getId(), e.getMessage());
+        }
+    }
+    
     /**
      * 处理登录失败
      */
@@ -1,10 +1,16 @@
 package com.czj.rbac.service.impl;
 
+import com.czj.rbac.mapper.SysDeptMapper;
 import com.czj.rbac.mapper.SysRoleMapper;
 import com.czj.rbac.mapper.SysUserMapper;
 import com.czj.rbac.service.DataPermissionService;
+import com.czj.rbac.service.DeptTreeIndex;
+import com.czj.rbac.service.RoleLevelIndex;
 import com.czj.rbac.service.SysPermissionService;
 import com.czj.rbac.model.SysRole;
+import com.czj.rbac.model.SysUser;
+import com.czj.rbac.model.enums.DataScope;
+import com.czj.rbac.model.query.UserDataScope;
 import com.czj.rbac.util.JwtUtil;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.Authentication;
@@ -31,23 +37,15 @@ public class DataPermissionServiceImpl implements DataPermissionService {
     
     @Autowired
     private SysUserMapper userMapper;
-
-    /*
-     * 预留角色等级配置，后续实现基于角色等级的权限控制时可以启用
-     */
-    /*
-    @Value("${rbac.role-levels.levels.ROLE_SUPER_ADMIN:100}")
-    private int superAdminLevel;
-    
-    @Value("${rbac.role-levels.levels.ROLE_ADMIN:80}")
-    private int adminLevel;
     
-    @Value("${rbac.role-levels.levels.ROLE_MANAGER:60}")
-    private int managerLevel;
+    @Autowired
+    private SysDeptMapper deptMapper;
     
-    @Value("${rbac.role-levels.levels.ROLE_USER:10}")
-    private int userLevel;
-    */
+    @Autowired
+    private DeptTreeIndex deptTreeIndex;
+
+    @Autowired
+    private RoleLevelIndex roleLevelIndex;
     
     @Override
     public boolean checkPermission(String resource, String action) {
@@ -67,7 +65,8 @@ public class DataPermissionServiceImpl implements DataPermissionService {
     }
     
     @Override
-    @Cacheable(value = "userDataPermission", key = "#targetUserId", unless = "#result == false")
+    @Cacheable(value = "userDataPermission",
+        key = "T(com.czj.rbac.util.JwtUtil).getCurrentUserId() + ':' + #targetUserId", unless = "#result == false")
     public boolean checkUserDataPermission(Long targetUserId) {
         // 获取当前用户ID和权限
         Long currentUserId = JwtUtil.getCurrentUserId();
@@ -88,6 +87,12 @@ public class DataPermissionServiceImpl implements DataPermissionService {
             return true;
         }
 
+        // 角色数据范围
+        DataScope dataScope = resolveRoleDataScope(roleMapper.findRolesByUserId(currentUserId));
+        if (dataScope == DataScope.ALL || checkDeptPermission(currentUserId, targetUserId, dataScope)) {
+            return true;
+        }
+
         // 检查管理员权限
         if (permissions.contains("sys:user:manager")) {
             return checkManagerPermission(currentUserId, targetUserId);
@@ -97,16 +102,79 @@ public class DataPermissionServiceImpl implements DataPermissionService {
         return false;
     }
     
+    @Override
+    public UserDataScope resolveUserDataScope() {
+        Long currentUserId = JwtUtil.getCurrentUserId();
+        if (currentUserId == null) {
+            log.warn("当前用户未登录");
+            return UserDataScope.self(null);
+        }
+
+        List<String> permissions = permissionService.findPermissionsByUserId(currentUserId);
+        if (permissions.contains("sys:user:all")) {
+            return UserDataScope.all(currentUserId);
+        }
+
+        List<SysRole> roles = roleMapper.findRolesByUserId(currentUserId);
+        DataScope dataScope = resolveRoleDataScope(roles);
+        if (dataScope == DataScope.ALL) {
+            return UserDataScope.all(currentUserId);
+        }
+
+        // 与checkManagerPermission一致：管理员本身需有启用的角色，可见等级低于自己的用户
+        UserDataScope scope = UserDataScope.self(currentUserId);
+        if (permissions.contains("sys:user:manager")) {
+            int managerLevel = roleLevelIndex.getUserLevel(currentUserId);
+            if (managerLevel == RoleLevelIndex.NO_ROLE) {
+                log.warn("管理员没有分配角色, managerId: {}", currentUserId);
+            } else {
+                List<Long> excludedRoleIds = roleLevelIndex.getUnmanageableRoleIds(managerLevel);
+                if (excludedRoleIds.isEmpty()) {
+                    return UserDataScope.all(currentUserId);
+                }
+                scope = UserDataScope.managed(currentUserId, excludedRoleIds);
+            }
+        }
+
+        // 部门范围在SQL中按闭包表匹配
+        if (dataScope == DataScope.DEPT || dataScope == DataScope.DEPT_AND_CHILD) {
+            Long deptId = getUserDeptId(currentUserId);
+            if (deptId != null) {
+                scope = scope.withDept(deptId, dataScope == DataScope.DEPT_AND_CHILD);
+            }
+        }
+        return scope;
+    }
+    
     @Override
     public List<Long> getDataScope(Long userId) {
-        // TODO: 实现获取数据范围的逻辑
-        return Collections.emptyList();
+        DataScope dataScope = resolveRoleDataScope(roleMapper.findRolesByUserId(userId));
+        if (dataScope == DataScope.ALL) {
+            return deptTreeIndex.getAllIds();
+        }
+        Long deptId = getUserDeptId(userId);
+        if (deptId == null || dataScope == DataScope.SELF) {
+            return Collections.emptyList();
+        }
+        return dataScope == DataScope.DEPT_AND_CHILD
+            ? deptTreeIndex.getSubtreeIds(deptId)
+            : Collections.singletonList(deptId);
     }
     
     @Override
     public List<Long> getUserDataScope(Long userId) {
-        // TODO: 实现获取用户数据范围的逻辑
-        return Collections.emptyList();
+        DataScope dataScope = resolveRoleDataScope(roleMapper.findRolesByUserId(userId));
+        if (dataScope == DataScope.ALL) {
+            return null;
+        }
+        Long deptId = getUserDeptId(userId);
+        if (deptId == null || dataScope == DataScope.SELF) {
+            return Collections.singletonList(userId);
+        }
+        List<Long> userIds = dataScope == DataScope.DEPT_AND_CHILD
+            ? deptMapper.findUserIdsInSubtree(deptId)
+            : deptMapper.findUserIdsByDeptId(deptId);
+        return userIds.contains(userId) ? userIds : appendSelf(userIds, userId);
     }
     
     @Override
@@ -136,137 +204,70 @@ public class DataPermissionServiceImpl implements DataPermissionService {
     }
     
     /**
-     * 检查管理员的数据权限
+     * 检查管理员的数据权限，按角色等级比较，只读内存索引
      */
-    @Cacheable(value = "managerPermission", key = "#managerId + ':' + #targetUserId", unless = "#result == false")
     public boolean checkManagerPermission(Long managerId, Long targetUserId) {
-        // 获取管理员的角色
-        List<SysRole> managerRoles = roleMapper.findRolesByUserId(managerId);
-        if (managerRoles == null || managerRoles.isEmpty()) {
+        if (roleLevelIndex.getUserLevel(managerId) == RoleLevelIndex.NO_ROLE) {
             log.warn("管理员没有分配角色, managerId: {}", managerId);
             return false;
         }
-
-        // 获取目标用户的角色
-        List<SysRole> targetRoles = roleMapper.findRolesByUserId(targetUserId);
-        if (targetRoles == null || targetRoles.isEmpty()) {
-            log.warn("目标用户没有分配角色, targetUserId: {}", targetUserId);
-            return false;
-        }
-
-        // TODO: 后续实现基于角色等级的权限判断
-        // 目前默认管理员可以管理所有普通用户
-        return true;
+        return roleLevelIndex.canManage(managerId, targetUserId);
     }
 
-    /*
-     * 预留角色等级相关方法，后续实现基于角色等级的权限控制时可以启用
-     */
-    /*
-    private int getHighestRoleLevel(List<SysRole> roles) {
-        return roles.stream()
-            .map(role -> {
-                switch (role.getRoleCode()) {
-                    case "ROLE_SUPER_ADMIN": return superAdminLevel;
-                    case "ROLE_ADMIN": return adminLevel;
-                    case "ROLE_MANAGER": return managerLevel;
-                    case "ROLE_USER": return userLevel;
-                    default: return 0;
-                }
-            })
-            .max(Integer::compareTo)
-            .orElse(0);
-    }
-    
-    private int getRequiredLevelForResource(String resource, String action) {
-        // 根据资源和操作类型判断所需的角色等级
-        if ("user".equals(resource)) {
-            switch (action) {
-                case "create": return adminLevel;
-                case "update": return managerLevel;
-                case "delete": return superAdminLevel;
-                case "view": return userLevel;
-                default: return superAdminLevel;
-            }
-        }
-        // 其他资源类型的权限判断
-        return superAdminLevel;
-    }
-    
-    private int getRequiredLevelForDataType(String dataType) {
-        // 根据数据类型判断所需的角色等级
-        switch (dataType) {
-            case "user": return managerLevel;
-            case "role": return adminLevel;
-            case "permission": return superAdminLevel;
-            default: return superAdminLevel;
-        }
-    }
-    */
-
-    /*
-     * 以下是预留的扩展功能，后续实现
-     */
-    
     /**
-     * 检查部门权限
-     * TODO: 部门权限相关功能预留，后续可能会用到
+     * 按部门范围检查数据权限，部门上下级关系走内存区间索引
      */
-    /*
-    @Cacheable(value = "deptPermission", key = "#currentUserId + ':' + #targetUserId")
-    private boolean checkDeptPermission(Long currentUserId, Long targetUserId) {
-        // 获取当前用户的数据权限范围
-        DataScope dataScope = getDataScope(currentUserId);
-
-        // 获取当前用户部门ID
-        Long currentDeptId = getCurrentUserDeptId(currentUserId);
-        if (currentDeptId == null) {
+    private boolean checkDeptPermission(Long currentUserId, Long targetUserId, DataScope dataScope) {
+        if (dataScope != DataScope.DEPT && dataScope != DataScope.DEPT_AND_CHILD) {
             return false;
         }
-
-        // 获取目标用户部门ID
-        Long targetDeptId = getCurrentUserDeptId(targetUserId);
-        if (targetDeptId == null) {
+        Long currentDeptId = getUserDeptId(currentUserId);
+        Long targetDeptId = getUserDeptId(targetUserId);
+        if (currentDeptId == null || targetDeptId == null) {
             return false;
         }
-
-        switch (dataScope) {
-            case ALL:
-                return true;
-            case DEPT_AND_CHILD:
-                return isChildDept(currentDeptId, targetDeptId);
-            case DEPT:
-                return currentDeptId.equals(targetDeptId);
-            case SELF:
-                return currentUserId.equals(targetUserId);
-            case CUSTOM:
-                return checkCustomDataPermission(currentUserId, targetUserId);
-            default:
-                return false;
-        }
+        return dataScope == DataScope.DEPT
+            ? currentDeptId.equals(targetDeptId)
+            : isChildDept(currentDeptId, targetDeptId);
     }
-    */
 
     /**
-     * 检查是否是子部门
-     * TODO: 部门层级关系相关功能预留
+     * 检查childDeptId是否为parentDeptId自身或其下级部门
      */
-    /*
-    @Cacheable(value = "deptHierarchy", key = "#parentDeptId + ':' + #childDeptId", unless = "#result == false")
     private boolean isChildDept(Long parentDeptId, Long childDeptId) {
-        if (parentDeptId == null || childDeptId == null) {
-            return false;
-        }
+        return deptTreeIndex.isDescendant(parentDeptId, childDeptId);
+    }
 
-        // 如果是同一个部门，直接返回true
-        if (parentDeptId.equals(childDeptId)) {
-            return true;
+    /**
+     * 合并用户所有启用角色的数据范围，取最大的一个
+     */
+    private DataScope resolveRoleDataScope(List<SysRole> roles) {
+        DataScope dataScope = DataScope.SELF;
+        if (roles != null) {
+            for (SysRole role : roles) {
+                if (role.getDataScope() != null) {
+                    dataScope = dataScope.widest(DataScope.getByCode(role.getDataScope()));
+                }
+            }
         }
+        return dataScope;
+    }
 
-        // TODO: 实现部门层级关系检查
-        return false;
+    private static List<Long> appendSelf(List<Long> userIds, Long userId) {
+        List<Long> result = new ArrayList<>(userIds.size() + 1);
+        result.addAll(userIds);
+        result.add(userId);
+        return result;
     }
-    */
+
+    private Long getUserDeptId(Long userId) {
+        SysUser user = userMapper.findById(userId);
+        return user == null ? null : user.getDeptId();
+    }
+
+    /*
+     * 以下是预留的扩展功能，后续实现
+     */
 
     /**
      * 检查自定义数据权限
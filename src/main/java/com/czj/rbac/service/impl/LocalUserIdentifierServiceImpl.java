@@ -1,114 +1,233 @@
 package com.czj.rbac.service.impl;
 
+import com.czj.rbac.common.BusinessException;
+import com.czj.rbac.common.ResponseCode;
+import com.czj.rbac.config.IdentifierConfig;
 import com.czj.rbac.service.UserIdentifierService;
-import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
 
 /**
  * 本地实现的用户标识生成服务
+ * 序号由AtomicLong分配，使用时才格式化。已预留的最大序号(高水位)写入内存映射的检查点文件并force刷盘，
+ * 只有刷盘成功后该范围内的序号才会分配出去，崩溃重启后从高水位之后继续，不会重复。
+ * 剩余量低于水位线时由后台线程提前推进高水位，分配路径上通常不做文件IO。
+ * 检查点有两个槽位轮流写入，写入中途崩溃只损坏正在写的槽位，重启时从代数最大的有效槽位恢复
  */
 @Slf4j
 @Service
 public class LocalUserIdentifierServiceImpl implements UserIdentifierService {
-    
-    private static final String SEQUENCE_FILE = "sequence.txt";
-    private static final int POOL_SIZE = 1000;
-    private static final int REFILL_THRESHOLD = 200;
-    
-    private final ConcurrentLinkedQueue<String> identifierPool;
-    private final AtomicLong maxSequence;
-    private final ReentrantLock refillLock;
-    
-    public LocalUserIdentifierServiceImpl() {
-        this.identifierPool = new ConcurrentLinkedQueue<>();
-        this.maxSequence = new AtomicLong(0);
-        this.refillLock = new ReentrantLock();
-    }
-    
+
+    /**
+     * 检查点槽位结构: [8字节代数][8字节高水位][4字节CRC32]
+     */
+    private static final int SLOT_SIZE = 20;
+
+    private static final int SLOT_COUNT = 2;
+
+    private static final int CHECKPOINT_SIZE = SLOT_SIZE * SLOT_COUNT;
+
+    @Autowired
+    private IdentifierConfig identifierConfig;
+
+    /**
+     * 下一个待分配的序号，可能暂时超过limit，超出的调用方等待高水位推进
+     */
+    private final AtomicLong cursor = new AtomicLong(1);
+
+    /**
+     * 已刷盘的高水位，不大于它的序号可以直接分配
+     */
+    private volatile long limit;
+
+    private int step;
+
+    private long lowWaterMark;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer checkpoint;
+
+    /**
+     * 最近一次写入检查点的代数，下一次写入另一个槽位
+     */
+    private long generation;
+
+    private ExecutorService reserveExecutor;
+
     @PostConstruct
-    public void init() {
-        maxSequence.set(readMaxSequence());
-        refillPool(false);
-        log.info("本地标识符服务初始化完成，当前最大序号：{}", maxSequence.get());
+    public void init() throws IOException {
+        step = identifierConfig.getSegmentStep();
+        lowWaterMark = Math.max(1, (long) (step * identifierConfig.getPrefetchRatio()));
+        Path path = Paths.get(identifierConfig.getCheckpointPath());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        checkpoint = channel.map(FileChannel.MapMode.READ_WRITE, 0, CHECKPOINT_SIZE);
+        Long saved = readCheckpoint();
+        if (saved == null) {
+            saved = readLegacySequence();
+            writeCheckpoint(saved);
+        }
+        limit = saved;
+        cursor.set(saved + 1);
+        reserveExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "user-identifier-reserve");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("本地标识符服务初始化完成，当前最大序号：{}", saved);
     }
-    
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        reserveExecutor.shutdownNow();
+        synchronized (this) {
+            checkpoint.force();
+            channel.close();
+        }
+    }
+
     @Override
     public String generateUserIdentifier() {
-        String identifier = identifierPool.poll();
-        if (identifier == null) {
-            refillPool(true);
-            identifier = identifierPool.poll();
-        }
-        
-        if (identifierPool.size() < REFILL_THRESHOLD) {
-            asyncRefillPool();
-        }
-        return identifier;
+        return UserIdentifierService.format(nextSequence());
     }
-    
+
+    /**
+     * 已分配的最大序号
+     */
     @Override
     public long getCurrentMaxSequence() {
-        return maxSequence.get();
+        return Math.min(cursor.get() - 1, limit);
     }
-    
+
+    /**
+     * 已预留但尚未分配的序号数量
+     */
     @Override
     public int getPoolSize() {
-        return identifierPool.size();
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, limit - cursor.get() + 1));
     }
-    
-    @Async
-    public void asyncRefillPool() {
-        refillPool(false);
+
+    private long nextSequence() {
+        long sequence = cursor.getAndIncrement();
+        long remaining = limit - sequence;
+        if (remaining < 0) {
+            reserve(sequence);
+        } else if (remaining == lowWaterMark) {
+            // 每个序号只分配一次，每段恰好触发一次预留
+            reserveAsync(sequence + remaining + 1);
+        }
+        return sequence;
     }
-    
-    private synchronized void refillPool(boolean urgent) {
-        if (refillLock.tryLock()) {
-            try {
-                int batchSize = urgent ? 100 : POOL_SIZE - REFILL_THRESHOLD;
-                long currentMax = maxSequence.get();
-                
-                for (long i = currentMax + 1; i <= currentMax + batchSize; i++) {
-                    String identifier = String.format("XH%04d", i);
-                    identifierPool.offer(identifier);
+
+    private void reserveAsync(long required) {
+        try {
+            reserveExecutor.execute(() -> {
+                try {
+                    reserve(required);
+                } catch (Exception e) {
+                    log.warn("预留用户标识序号失败: {}", e.getMessage());
                 }
-                
-                maxSequence.addAndGet(batchSize);
-                saveMaxSequence(maxSequence.get());
-                log.info("补充本地标识符池完成，当前最大序号：{}，补充数量：{}", maxSequence.get(), batchSize);
-            } finally {
-                refillLock.unlock();
+            });
+        } catch (Exception e) {
+            log.warn("提交序号预留任务失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 推进高水位直到覆盖required，检查点刷盘成功后才对分配可见
+     */
+    private synchronized void reserve(long required) {
+        while (limit < required) {
+            long newLimit = limit + step;
+            try {
+                writeCheckpoint(newLimit);
+            } catch (UncheckedIOException e) {
+                throw new BusinessException(ResponseCode.SYSTEM_ERROR, "保存序号检查点失败: " + e.getMessage());
             }
+            limit = newLimit;
         }
     }
-    
-    private long readMaxSequence() {
-        File file = new File(SEQUENCE_FILE);
-        if (!file.exists()) {
-            return 0;
+
+    /**
+     * 读取代数最大的有效槽位，新建的文件返回null
+     */
+    private Long readCheckpoint() {
+        Long value = null;
+        boolean empty = true;
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            int offset = slot * SLOT_SIZE;
+            long slotGeneration = checkpoint.getLong(offset);
+            long slotValue = checkpoint.getLong(offset + 8);
+            int crc = checkpoint.getInt(offset + 16);
+            if (slotGeneration == 0 && slotValue == 0 && crc == 0) {
+                continue;
+            }
+            empty = false;
+            if (crc(slotGeneration, slotValue) != crc) {
+                log.warn("序号检查点槽位校验失败，已忽略 - slot: {}", slot);
+                continue;
+            }
+            if (value == null || slotGeneration > generation) {
+                generation = slotGeneration;
+                value = slotValue;
+            }
         }
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line = reader.readLine();
-            return line == null ? 0 : Long.parseLong(line.trim());
-        } catch (IOException e) {
-            log.error("读取序号文件失败", e);
-            return 0;
+        if (value != null || empty) {
+            return value;
         }
+        throw new IllegalStateException("序号检查点文件已损坏: " + identifierConfig.getCheckpointPath());
+    }
+
+    /**
+     * 写入另一个槽位，保留上一次写入的槽位不变
+     */
+    private void writeCheckpoint(long value) {
+        long nextGeneration = generation + 1;
+        int offset = (int) (nextGeneration % SLOT_COUNT) * SLOT_SIZE;
+        checkpoint.putLong(offset, nextGeneration);
+        checkpoint.putLong(offset + 8, value);
+        checkpoint.putInt(offset + 16, crc(nextGeneration, value));
+        checkpoint.force();
+        generation = nextGeneration;
     }
-    
-    private void saveMaxSequence(long sequence) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(SEQUENCE_FILE))) {
-            writer.write(String.valueOf(sequence));
-        } catch (IOException e) {
-            log.error("保存序号文件失败", e);
+
+    private long readLegacySequence() {
+        Path path = Paths.get(identifierConfig.getLegacySequencePath());
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try {
+            String line = Files.readString(path, StandardCharsets.UTF_8).trim();
+            return line.isEmpty() ? 0 : Long.parseLong(line);
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("读取序号文件失败: " + path, e);
         }
     }
+
+    private static int crc(long generation, long value) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(16).putLong(0, generation).putLong(8, value));
+        return (int) crc.getValue();
+    }
 }
- 
\ No newline at end of file
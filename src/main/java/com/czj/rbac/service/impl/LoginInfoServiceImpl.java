@@ -1,18 +1,27 @@
 package com.czj.rbac.service.impl;
 
 import com.czj.rbac.service.LoginInfoService;
+import com.czj.rbac.service.LoginInfoWriter;
+import com.czj.rbac.service.LogPartitionService;
 import com.czj.rbac.mapper.LoginInfoMapper;
 import com.czj.rbac.model.LoginInfo;
+import com.czj.rbac.common.CursorResult;
 import com.czj.rbac.common.PageResult;
 import com.czj.rbac.util.IpUtil;
+import com.czj.rbac.util.PageCursor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -20,13 +29,39 @@ import java.util.List;
 @Service
 public class LoginInfoServiceImpl implements LoginInfoService {
 
+    /**
+     * device_info列长度
+     */
+    private static final int DEVICE_INFO_MAX_LENGTH = 200;
+
     @Autowired
     private LoginInfoMapper loginInfoMapper;
     
     @Autowired
-    private HttpServletRequest request;
+    private LoginInfoWriter loginInfoWriter;
+    
+    @Autowired
+    private LogPartitionService logPartitionService;
+    
+    @Value("${rbac.log.count-cache-seconds:60}")
+    private long countCacheSeconds;
+    
+    /**
+     * 查询条件 -> 总数，游标分页的总数只是参考值，短时间缓存避免每页都COUNT
+     */
+    private Cache<String, Long> countCache;
+    
+    @PostConstruct
+    public void init() {
+        countCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofSeconds(countCacheSeconds))
+            .build();
+    }
 
-    @Async
+    /**
+     * 在调用线程上读取请求信息后提交到批量写入器
+     */
     @Override
     public void recordLoginInfo(Long userId, String username, String loginId, boolean success, String failReason) {
         try {
@@ -34,28 +69,39 @@ public class LoginInfoServiceImpl implements LoginInfoService {
             info.setUserId(userId);
             info.setUsername(username);
             info.setLoginId(loginId);
-            info.setLoginIp(IpUtil.getIpAddress(request));
             info.setLoginTime(LocalDateTime.now());
             info.setLoginStatus(success ? 1 : 0);
             info.setFailReason(failReason);
-            
-            // TODO: 获取设备信息、浏览器信息等
-            // 可以通过User-Agent解析获取
-            
-            loginInfoMapper.insert(info);
+
+            HttpServletRequest request = currentRequest();
+            if (request != null) {
+                info.setLoginIp(IpUtil.getIpAddress(request));
+                // 保存原始User-Agent，设备类型、浏览器、操作系统留空，需要时按deviceInfo离线解析
+                info.setDeviceInfo(truncate(request.getHeader("User-Agent"), DEVICE_INFO_MAX_LENGTH));
+            }
+
+            loginInfoWriter.submitLogin(info);
         } catch (Exception e) {
             log.error("记录登录信息失败: {}", e.getMessage());
         }
     }
 
-    @Async
     @Override
     public void recordLogout(Long userId, String loginId) {
-        try {
-            loginInfoMapper.updateLogoutTime(userId, loginId, LocalDateTime.now());
-        } catch (Exception e) {
-            log.error("记录登出时间失败: {}", e.getMessage());
-        }
+        LoginInfo info = new LoginInfo();
+        info.setUserId(userId);
+        info.setLoginId(loginId);
+        info.setLogoutTime(LocalDateTime.now());
+        loginInfoWriter.submitLogout(info);
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes.getRequest() : null;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
     }
 
     @Override
@@ -75,6 +121,29 @@ public class LoginInfoServiceImpl implements LoginInfoService {
         return new PageResult<>(list, Long.valueOf(total), page, size);
     }
 
+    @Override
+    public CursorResult<LoginInfo> findByCursor(String cursor, Integer size, Long userId, String username,
+                                                String loginIp, LocalDateTime startTime, LocalDateTime endTime,
+                                                Integer loginStatus, boolean withTotal) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        int pageSize = PageCursor.normalizeSize(size);
+        
+        // 多查一条判断是否还有下一页
+        List<LoginInfo> list = loginInfoMapper.findByCursor(userId, username, loginIp, startTime, endTime, loginStatus,
+            pageCursor != null ? pageCursor.getTime() : null,
+            pageCursor != null ? pageCursor.getId() : null,
+            pageSize + 1);
+        
+        Long total = null;
+        if (withTotal) {
+            String key = String.join("|", String.valueOf(userId), String.valueOf(username), String.valueOf(loginIp),
+                String.valueOf(startTime), String.valueOf(endTime), String.valueOf(loginStatus));
+            total = countCache.get(key,
+                k -> (long) loginInfoMapper.count(userId, username, loginIp, startTime, endTime, loginStatus));
+        }
+        return PageCursor.page(list, pageSize, LoginInfo::getLoginTime, LoginInfo::getId, total);
+    }
+
     @Override
     public LoginInfo findLatestByUserId(Long userId) {
         return loginInfoMapper.findLatestByUserId(userId);
@@ -85,16 +154,11 @@ public class LoginInfoServiceImpl implements LoginInfoService {
         return loginInfoMapper.countLoginTimes(userId, startTime, endTime, loginStatus);
     }
 
-    @Scheduled(cron = "0 0 2 * * ?")  // 每天凌晨2点执行
-    @Transactional(rollbackFor = Exception.class)
+    /**
+     * 清理过期日志，定时执行由LogPartitionService负责
+     */
     @Override
     public void cleanExpiredLogs(int days) {
-        try {
-            LocalDateTime time = LocalDateTime.now().minusDays(days);
-            int count = loginInfoMapper.deleteBeforeTime(time);
-            log.info("清理{}天前的登录日志{}条", days, count);
-        } catch (Exception e) {
-            log.error("清理过期登录日志失败: {}", e.getMessage());
-        }
+        logPartitionService.purge(LogPartitionService.LOGIN_INFO, days);
     }
 } 
\ No newline at end of file
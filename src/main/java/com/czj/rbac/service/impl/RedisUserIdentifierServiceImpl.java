@@ -1,78 +1,190 @@
 package com.czj.rbac.service.impl;
 
+import com.czj.rbac.common.BusinessException;
+import com.czj.rbac.common.ResponseCode;
+import com.czj.rbac.config.IdentifierConfig;
 import com.czj.rbac.service.UserIdentifierService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Redis实现的用户标识生成服务
+ * 号段模式：每个节点通过INCRBY原子地申请一段连续序号，在本地内存中分配，分配过程不访问Redis。
+ * 当前号段剩余量低于水位线时由后台线程预取下一段，号段用完时直接切换
  */
 @Slf4j
 @Service
 public class RedisUserIdentifierServiceImpl implements UserIdentifierService {
-    
-    private static final String POOL_KEY = "user:identifier:pool";
+
+    /**
+     * 已分配出去的最大序号，所有节点共享
+     */
     private static final String MAX_KEY = "user:identifier:max";
-    private static final String LOCK_KEY = "user:identifier:pool:lock";
-    private static final int POOL_SIZE = 1000;
-    private static final int REFILL_THRESHOLD = 200;
-    
+
     @Autowired
     private StringRedisTemplate redisTemplate;
-    
+
+    @Autowired
+    private IdentifierConfig identifierConfig;
+
+    /**
+     * 当前分配中的号段
+     */
+    private volatile Segment current = Segment.EMPTY;
+
+    /**
+     * 预取好的下一个号段
+     */
+    private volatile Segment next;
+
+    private final AtomicBoolean prefetching = new AtomicBoolean();
+
+    private ExecutorService prefetchExecutor;
+
+    /**
+     * 号段[start, end]，cursor为下一个待分配的序号
+     */
+    private static final class Segment {
+        static final Segment EMPTY = new Segment(1, 0);
+
+        private final AtomicLong cursor;
+        private final long end;
+
+        Segment(long start, long end) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+        }
+
+        /**
+         * 分配一个序号，号段用完时返回-1
+         */
+        long next() {
+            long sequence = cursor.getAndIncrement();
+            return sequence <= end ? sequence : -1;
+        }
+
+        long remaining() {
+            return Math.max(0, end - cursor.get() + 1);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "user-identifier-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        prefetchExecutor.shutdownNow();
+    }
+
     @Override
     public String generateUserIdentifier() {
-        String identifier = redisTemplate.opsForSet().pop(POOL_KEY);
-        if (identifier == null) {
-            refillPool(true);
-            identifier = redisTemplate.opsForSet().pop(POOL_KEY);
-        }
-        checkAndRefillPool();
-        return identifier;
+        return UserIdentifierService.format(nextSequence());
     }
-    
+
     @Override
     public long getCurrentMaxSequence() {
         String maxValue = redisTemplate.opsForValue().get(MAX_KEY);
         return maxValue == null ? 0 : Long.parseLong(maxValue);
     }
-    
+
+    /**
+     * 本节点已申请但尚未分配的序号数量
+     */
     @Override
     public int getPoolSize() {
-        Long size = redisTemplate.opsForSet().size(POOL_KEY);
-        return size == null ? 0 : size.intValue();
+        Segment prefetched = next;
+        long remaining = current.remaining() + (prefetched != null ? prefetched.remaining() : 0);
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    private long nextSequence() {
+        while (true) {
+            Segment segment = current;
+            long sequence = segment.next();
+            if (sequence > 0) {
+                if (next == null && segment.remaining() < lowWaterMark()) {
+                    prefetch();
+                }
+                return sequence;
+            }
+            switchSegment(segment);
+        }
     }
-    
-    @Async
-    public void checkAndRefillPool() {
-        Long size = redisTemplate.opsForSet().size(POOL_KEY);
-        if (size != null && size < REFILL_THRESHOLD) {
-            refillPool(false);
+
+    /**
+     * 当前号段用完，切换到预取的号段，未预取时同步申请
+     */
+    private synchronized void switchSegment(Segment exhausted) {
+        if (current != exhausted) {
+            // 其他线程已完成切换
+            return;
+        }
+        Segment prefetched = next;
+        if (prefetched != null) {
+            next = null;
+            current = prefetched;
+        } else {
+            current = allocate();
         }
     }
-    
-    private synchronized void refillPool(boolean urgent) {
-        if (redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, "1", 10, TimeUnit.SECONDS)) {
-            try {
-                int batchSize = urgent ? 100 : POOL_SIZE - REFILL_THRESHOLD;
-                String maxValue = redisTemplate.opsForValue().get(MAX_KEY);
-                long start = maxValue == null ? 1 : Long.parseLong(maxValue) + 1;
-                
-                for (long i = start; i < start + batchSize; i++) {
-                    String identifier = String.format("XH%04d", i);
-                    redisTemplate.opsForSet().add(POOL_KEY, identifier);
+
+    private void prefetch() {
+        if (!prefetching.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    // 只有预取线程会设置next，检查后不会被其他线程填上，不会白白消耗号段
+                    if (next == null) {
+                        next = allocate();
+                    }
+                } catch (Exception e) {
+                    log.warn("预取用户标识号段失败: {}", e.getMessage());
+                } finally {
+                    prefetching.set(false);
                 }
-                
-                redisTemplate.opsForValue().set(MAX_KEY, String.valueOf(start + batchSize - 1));
-                log.info("补充标识符池完成，当前最大序号：{}，补充数量：{}", start + batchSize - 1, batchSize);
-            } finally {
-                redisTemplate.delete(LOCK_KEY);
-            }
+            });
+        } catch (Exception e) {
+            prefetching.set(false);
+            log.warn("提交号段预取任务失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 通过INCRBY申请一个号段，多个节点并发申请时各自得到不重叠的区间
+     */
+    private Segment allocate() {
+        int step = identifierConfig.getSegmentStep();
+        Long end;
+        try {
+            end = redisTemplate.opsForValue().increment(MAX_KEY, step);
+        } catch (Exception e) {
+            throw new BusinessException(ResponseCode.SERVICE_UNAVAILABLE, "申请用户标识号段失败: " + e.getMessage());
+        }
+        if (end == null) {
+            throw new BusinessException(ResponseCode.SERVICE_UNAVAILABLE, "申请用户标识号段失败");
         }
+        log.info("申请用户标识号段 - start: {}, end: {}", end - step + 1, end);
+        return new Segment(end - step + 1, end);
+    }
+
+    private long lowWaterMark() {
+        return (long) (identifierConfig.getSegmentStep() * identifierConfig.getPrefetchRatio());
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,180 @@
+package com.czj.rbac.service.impl;
+
+import com.czj.rbac.common.BusinessException;
+import com.czj.rbac.common.ResponseCode;
+import com.czj.rbac.mapper.SysDeptMapper;
+import com.czj.rbac.model.SysDept;
+import com.czj.rbac.model.dto.DeptDTO;
+import com.czj.rbac.model.vo.DeptVO;
+import com.czj.rbac.service.DeptTreeIndex;
+import com.czj.rbac.service.DistributedLockService;
+import com.czj.rbac.service.SysDeptService;
+import com.czj.rbac.service.SysLogService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Slf4j
+@Service
+public class SysDeptServiceImpl implements SysDeptService {
+
+    /**
+     * 部门结构变更共用一把锁，避免并发移动形成环。锁在事务提交后才释放，
+     * 后一个变更的环路校验能看到前一个变更已提交的闭包行
+     */
+    private static final String TREE_LOCK_KEY = "dept:tree";
+
+    private static final Comparator<DeptVO> DEPT_ORDER = Comparator
+        .comparing((DeptVO dept) -> dept.getSortOrder() == null ? 0 : dept.getSortOrder())
+        .thenComparing(DeptVO::getId);
+
+    @Autowired
+    private SysDeptMapper deptMapper;
+
+    @Autowired
+    private DeptTreeIndex deptTreeIndex;
+
+    @Autowired
+    private DistributedLockService lockService;
+
+    @Autowired
+    private SysLogService logService;
+
+    @Override
+    public List<DeptVO> findTree() {
+        List<SysDept> depts = deptMapper.findAll();
+        Map<Long, DeptVO> nodes = new HashMap<>(depts.size() * 2);
+        for (SysDept dept : depts) {
+            DeptVO vo = new DeptVO();
+            BeanUtils.copyProperties(dept, vo);
+            vo.setChildren(new ArrayList<>());
+            nodes.put(vo.getId(), vo);
+        }
+        List<DeptVO> roots = new ArrayList<>();
+        for (DeptVO node : nodes.values()) {
+            DeptVO parent = nodes.get(node.getParentId());
+            if (parent == null) {
+                roots.add(node);
+            } else {
+                parent.getChildren().add(node);
+            }
+        }
+        for (DeptVO node : nodes.values()) {
+            node.getChildren().sort(DEPT_ORDER);
+        }
+        roots.sort(DEPT_ORDER);
+        return roots;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void add(DeptDTO deptDTO) {
+        log.info("新增部门: {}", deptDTO);
+        Long parentId = normalizeParentId(deptDTO.getParentId());
+
+        lockService.executeWithTransactionLock(TREE_LOCK_KEY, 10, () -> {
+            if (parentId != SysDept.ROOT_PARENT_ID && deptMapper.findById(parentId) == null) {
+                throw new BusinessException(ResponseCode.PARAM_ERROR, "父部门不存在");
+            }
+            SysDept dept = new SysDept();
+            BeanUtils.copyProperties(deptDTO, dept);
+            dept.setParentId(parentId);
+            deptMapper.insert(dept);
+            deptMapper.insertClosure(dept.getId(), parentId);
+            deptTreeIndex.put(dept.getId(), parentId);
+
+            logService.saveLog("部门管理", "新增部门", String.format("部门[%s], 父部门ID: %s",
+                dept.getDeptName(), parentId));
+            return null;
+        });
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void update(DeptDTO deptDTO) {
+        log.info("更新部门: {}", deptDTO);
+        if (deptDTO == null || deptDTO.getId() == null) {
+            throw new BusinessException(ResponseCode.PARAM_ERROR, "部门ID不能为空");
+        }
+        Long deptId = deptDTO.getId();
+
+        lockService.executeWithTransactionLock(TREE_LOCK_KEY, 10, () -> {
+            SysDept oldDept = deptMapper.findById(deptId);
+            if (oldDept == null) {
+                throw new BusinessException(ResponseCode.PARAM_ERROR, "部门不存在");
+            }
+            SysDept dept = new SysDept();
+            BeanUtils.copyProperties(deptDTO, dept);
+
+            Long parentId = deptDTO.getParentId() == null ? null : normalizeParentId(deptDTO.getParentId());
+            boolean moved = parentId != null && !Objects.equals(parentId, oldDept.getParentId());
+            if (moved) {
+                if (parentId != SysDept.ROOT_PARENT_ID) {
+                    if (deptMapper.findById(parentId) == null) {
+                        throw new BusinessException(ResponseCode.PARAM_ERROR, "父部门不存在");
+                    }
+                    if (deptMapper.isAncestor(deptId, parentId) > 0) {
+                        throw new BusinessException(ResponseCode.PARAM_ERROR, "不能移动到自身或下级部门之下");
+                    }
+                }
+                // 闭包表增量维护：断开子树与原祖先的关联，再与新父部门的祖先建立关联
+                deptMapper.detachClosure(deptId);
+                deptMapper.attachClosure(deptId, parentId);
+            }
+            dept.setParentId(moved ? parentId : null);
+            deptMapper.update(dept);
+
+            if (moved) {
+                deptTreeIndex.put(deptId, parentId);
+                logService.saveLog("部门管理", "移动部门", String.format("部门[%s]从[%s]移动到[%s]",
+                    oldDept.getDeptName(), oldDept.getParentId(), parentId));
+            } else {
+                logService.saveLog("部门管理", "更新部门", String.format("部门[%s]", oldDept.getDeptName()));
+            }
+            return null;
+        });
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void delete(Long id) {
+        log.info("删除部门: {}", id);
+        if (id == null) {
+            throw new BusinessException(ResponseCode.PARAM_ERROR, "部门ID不能为空");
+        }
+
+        lockService.executeWithTransactionLock(TREE_LOCK_KEY, 10, () -> {
+            SysDept dept = deptMapper.findById(id);
+            if (dept == null) {
+                throw new BusinessException(ResponseCode.PARAM_ERROR, "部门不存在");
+            }
+            if (deptMapper.countChildren(id) > 0) {
+                throw new BusinessException(ResponseCode.PARAM_ERROR,
+                    String.format("部门[%s]下还有子部门，请先删除或移动子部门", dept.getDeptName()));
+            }
+            if (deptMapper.countUsers(id) > 0) {
+                throw new BusinessException(ResponseCode.PARAM_ERROR,
+                    String.format("部门[%s]下还有用户，请先调整用户部门", dept.getDeptName()));
+            }
+            deptMapper.deleteClosure(id);
+            deptMapper.deleteById(id);
+            deptTreeIndex.remove(id);
+
+            logService.saveLog("部门管理", "删除部门", String.format("删除部门[%s]", dept.getDeptName()));
+            return null;
+        });
+    }
+
+    private static Long normalizeParentId(Long parentId) {
+        return parentId == null || parentId < 0 ? SysDept.ROOT_PARENT_ID : parentId;
+    }
+}
@@ -1,22 +1,28 @@
 package com.czj.rbac.service.impl;
 
+import com.czj.rbac.service.LogPartitionService;
 import com.czj.rbac.service.SysLogService;
 import com.czj.rbac.mapper.SysLogMapper;
 import com.czj.rbac.model.SysLog;
 import com.czj.rbac.event.LogEvent;
 import com.czj.rbac.context.UserContext;
 import com.czj.rbac.model.vo.UserVO;
+import com.czj.rbac.common.CursorResult;
 import com.czj.rbac.common.PageResult;
 import com.czj.rbac.common.BusinessException;
 import com.czj.rbac.common.ResponseCode;
+import com.czj.rbac.util.PageCursor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import java.time.LocalDateTime;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.util.List;
 
 @Slf4j
@@ -29,9 +35,28 @@ public class SysLogServiceImpl implements SysLogService {
     @Autowired
     private ApplicationEventPublisher eventPublisher;
     
+    @Autowired
+    private LogPartitionService logPartitionService;
+    
     @Value("${rbac.log.retention-days:30}")
     private int logRetentionDays;
     
+    @Value("${rbac.log.count-cache-seconds:60}")
+    private long countCacheSeconds;
+    
+    /**
+     * 查询条件 -> 总数，游标分页的总数只是参考值，短时间缓存避免每页都COUNT
+     */
+    private Cache<String, Long> countCache;
+    
+    @PostConstruct
+    public void init() {
+        countCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofSeconds(countCacheSeconds))
+            .build();
+    }
+    
     @Override
     public void saveLog(String module, String operation, String content) {
         // 原有的日志记录代码
@@ -92,17 +117,31 @@ public class SysLogServiceImpl implements SysLogService {
         return new PageResult<SysLog>(logs, Long.valueOf(total), page, size);
     }
 
+    @Override
+    public CursorResult<SysLog> findByCursor(String cursor, Integer size, String module, String operation,
+                                             String startTime, String endTime, boolean withTotal) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        int pageSize = PageCursor.normalizeSize(size);
+        
+        // 多查一条判断是否还有下一页
+        List<SysLog> logs = logMapper.findByCursor(module, operation, startTime, endTime,
+            pageCursor != null ? pageCursor.getTime() : null,
+            pageCursor != null ? pageCursor.getId() : null,
+            pageSize + 1);
+        
+        Long total = null;
+        if (withTotal) {
+            String key = String.join("|", String.valueOf(module), String.valueOf(operation),
+                String.valueOf(startTime), String.valueOf(endTime));
+            total = countCache.get(key, k -> (long) logMapper.count(module, operation, startTime, endTime));
+        }
+        return PageCursor.page(logs, pageSize, SysLog::getCreateTime, SysLog::getId, total);
+    }
+
     /**
-     * 每天凌晨2点执行日志清理
+     * 清理过期日志，定时执行由LogPartitionService负责
      */
-    @Scheduled(cron = "0 0 2 * * ?")
     public void cleanExpiredLogs() {
-        try {
-            LocalDateTime expireTime = LocalDateTime.now().minusDays(logRetentionDays);
-            int count = logMapper.deleteExpiredLogs(expireTime);
-            log.info("清理过期日志完成，清理数量: {}", count);
-        } catch (Exception e) {
-            log.error("清理过期日志失败: {}", e.getMessage());
-        }
+        logPartitionService.purge(LogPartitionService.SYS_LOG, logRetentionDays);
     }
 } 
\ No newline at end of file
@@ -19,8 +19,12 @@ import jakarta.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.data.redis.core.RedisTemplate;
+import com.czj.rbac.config.CacheConfig;
+import com.czj.rbac.service.TwoLevelCache;
+import com.czj.rbac.service.TwoLevelCacheManager;
+import com.czj.rbac.service.CacheInvalidationBus;
+import com.czj.rbac.service.DataVersionService;
+import com.czj.rbac.util.TransactionUtils;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import com.czj.rbac.service.SysLogService;
 import java.util.Set;
@@ -28,6 +32,8 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Executors;
 import com.czj.rbac.service.DistributedLockService;
+import com.czj.rbac.service.PermissionEngine;
+import com.czj.rbac.service.PermissionTreeIndex;
 import com.czj.rbac.common.UserNotLoggedInException;
 import com.czj.rbac.context.UserContext;
 import com.czj.rbac.util.SecurityUtils;
@@ -36,17 +42,20 @@ import com.czj.rbac.util.SecurityUtils;
 @Service
 public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPermissionService {
 
-    @Autowired
-    private SysPermissionMapper permissionMapper;
+    /**
+     * 权限列表类缓存的代数，缓存key形如 permission:v{gen}:tree:all
+     */
+    private static final String GENERATION_KEY = "permission:generation";
+    private static final String GENERATION_CACHE = "permission:generation";
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private SysPermissionMapper permissionMapper;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private TwoLevelCacheManager cacheManager;
 
     @Autowired
-    private StringRedisTemplate stringRedisTemplate;
+    private CacheConfig cacheConfig;
 
     @Autowired
     private SysLogService logService;
@@ -54,8 +63,45 @@ public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPerm
     @Autowired
     private DistributedLockService lockService;
 
+    @Autowired
+    private PermissionEngine permissionEngine;
+
+    @Autowired
+    private PermissionTreeIndex permissionTreeIndex;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    private TwoLevelCache<PermissionVO> permissionCache;
+
+    private TwoLevelCache<List<PermissionVO>> permissionListCache;
+
+    /**
+     * 本地记录的缓存代数。小于0表示需要从Redis重新读取，此时的值是每次失效唯一的负数标记，
+     * 读取方只在标记未变时通过CAS写回，避免并发递增或远程失效后又写回旧代数
+     */
+    private final AtomicLong generation = new AtomicLong(-1);
+
+    /**
+     * 生成失效标记的序号
+     */
+    private final AtomicLong generationResets = new AtomicLong(1);
+
     @PostConstruct
     public void init() {
+        permissionCache = cacheManager.create("permission", cacheConfig.getPermission(), PermissionVO.class);
+        permissionListCache = cacheManager.createList("permission:list", cacheConfig.getPermission(), PermissionVO.class);
+        // 其他节点递增代数后重新读取
+        invalidationBus.register(GENERATION_CACHE, entry -> {
+            resetGeneration();
+            permissionListCache.invalidateLocalAll();
+        });
         // 系统启动时预热缓存
         preloadCache();
         // 启动定时刷新任务
@@ -102,32 +148,10 @@ public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPerm
     public PermissionVO findById(Long id) {
         long startTime = System.currentTimeMillis();
         try {
-            String cacheKey = "permission:" + id;
-            String permissionJson = (String) redisTemplate.opsForValue().get(cacheKey);
-            
-            if (permissionJson != null) {
-                try {
-                    return objectMapper.readValue(permissionJson, PermissionVO.class);
-                } catch (Exception e) {
-                    log.error("解析权限缓存数据失败: {}", e.getMessage());
-                    // 删除损坏的缓存数据
-                    redisTemplate.delete(cacheKey);
-                }
-            }
-            
-            SysPermission permission = permissionMapper.findById(id);
-            if (permission == null) {
-                return null;
-            }
-            
-            PermissionVO permissionVO = convert(permission, PermissionVO.class);
-            try {
-                redisTemplate.opsForValue().set(cacheKey, objectMapper.writeValueAsString(permissionVO), 1, TimeUnit.HOURS);
-            } catch (Exception e) {
-                log.error("缓存权限数据失败: {}", e.getMessage());
-            }
-            
-            return permissionVO;
+            return permissionCache.get("permission:" + id, () -> {
+                SysPermission permission = permissionMapper.findById(id);
+                return permission == null ? null : convert(permission, PermissionVO.class);
+            });
         } finally {
             long endTime = System.currentTimeMillis();
             if (endTime - startTime > 100) {
@@ -194,33 +218,18 @@ public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPerm
     public List<PermissionVO> findList(Integer status, String type) {
         log.info("查询权限列表, status: {}, type: {}", status, type);
         
-        // 1. 尝试从缓存获取
-        String cacheKey = String.format("permission:list:%s:%s", 
+        // 1. 代数未知时直接查询数据库，不读写缓存
+        String prefix = generationPrefix();
+        if (prefix == null) {
+            return convertList(permissionMapper.findList(status, type), PermissionVO.class);
+        }
+        String cacheKey = String.format("%slist:%s:%s", prefix,
             status == null ? "all" : status,
             type == null ? "all" : type);
             
-        String listJson = (String) redisTemplate.opsForValue().get(cacheKey);
-        if (listJson != null) {
-            try {
-                return objectMapper.readValue(listJson, 
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, PermissionVO.class));
-            } catch (Exception e) {
-                log.error("解析权限列表缓存数据失败: {}", e.getMessage());
-            }
-        }
-        
-        // 2. 缓存未命中，从数据库查询
-        List<SysPermission> permissions = permissionMapper.findList(status, type);
-        List<PermissionVO> permissionVOs = convertList(permissions, PermissionVO.class);
-        
-        // 3. 存入缓存
-        try {
-            redisTemplate.opsForValue().set(cacheKey, objectMapper.writeValueAsString(permissionVOs), 1, TimeUnit.HOURS);
-        } catch (Exception e) {
-            log.error("缓存权限列表数据失败: {}", e.getMessage());
-        }
-        
-        return permissionVOs;
+        // 2. 缓存未命中，从数据库查询并存入缓存
+        return permissionListCache.get(cacheKey,
+            () -> convertList(permissionMapper.findList(status, type), PermissionVO.class));
     }
 
     @Override
@@ -232,30 +241,16 @@ public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPerm
             throw new BusinessException(ResponseCode.PARAM_ERROR.getCode(), "父级ID不能为空");
         }
         
-        // 1. 尝试从缓存获取
-        String cacheKey = "permission:parent:" + parentId;
-        String listJson = (String) redisTemplate.opsForValue().get(cacheKey);
-        if (listJson != null) {
-            try {
-                return objectMapper.readValue(listJson, 
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, PermissionVO.class));
-            } catch (Exception e) {
-                log.error("解析子权限列表缓存数据失败: {}", e.getMessage());
-            }
+        // 1. 代数未知时直接查询数据库，不读写缓存
+        String prefix = generationPrefix();
+        if (prefix == null) {
+            return convertList(permissionMapper.findByParentId(parentId), PermissionVO.class);
         }
+        String cacheKey = prefix + "parent:" + parentId;
         
-        // 2. 缓存未命中，从数据库查询
-        List<SysPermission> permissions = permissionMapper.findByParentId(parentId);
-        List<PermissionVO> permissionVOs = convertList(permissions, PermissionVO.class);
-        
-        // 3. 存入缓存
-        try {
-            redisTemplate.opsForValue().set(cacheKey, objectMapper.writeValueAsString(permissionVOs), 1, TimeUnit.HOURS);
-        } catch (Exception e) {
-            log.error("缓存子权限列表数据失败: {}", e.getMessage());
-        }
-        
-        return permissionVOs;
+        // 2. 缓存未命中，从数据库查询并存入缓存
+        return permissionListCache.get(cacheKey,
+            () -> convertList(permissionMapper.findByParentId(parentId), PermissionVO.class));
     }
 
     @Override
@@ -288,32 +283,8 @@ public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPerm
 
     @Override
     public List<PermissionVO> findPermissionTree(String type) {
-        String cacheKey = "permission:tree:" + (type == null ? "all" : type);
-        
-        // 1. 尝试从缓存获取
-        String treeJson = (String) redisTemplate.opsForValue().get(cacheKey);
-        if (treeJson != null) {
-            try {
-                return objectMapper.readValue(treeJson, 
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, PermissionVO.class));
-            } catch (Exception e) {
-                log.error("解析权限树缓存数据失败: {}", e.getMessage());
-            }
-        }
-        
-        // 2. 缓存未命中，从数据库查询
-        List<SysPermission> permissions = permissionMapper.findPermissionTree(type);
-        List<PermissionVO> permissionVOs = convertList(permissions, PermissionVO.class);
-        List<PermissionVO> tree = buildTree(permissionVOs);
-        
-        // 3. 存入缓存
-        try {
-            redisTemplate.opsForValue().set(cacheKey, objectMapper.writeValueAsString(tree), 1, TimeUnit.HOURS);
-        } catch (Exception e) {
-            log.error("缓存权限树数据失败: {}", e.getMessage());
-        }
-        
-        return tree;
+        // 内存中增量维护的权限树快照，读取无需重建
+        return permissionTreeIndex.getTree(type);
     }
 
     @Override
@@ -348,17 +319,20 @@ public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPerm
         
         // 4. 保存权限
         SysPermission permission = convert(permissionDTO, SysPermission.class);
+        permission.setPid(permissionDTO.getParentId());
         // 设置默认状态
         if (permission.getStatus() == null) {
             permission.setStatus(1);
         }
         permissionMapper.insert(permission);
         
-        // 5. 清理相关缓存
+        // 5. 清理相关缓存，权限树增量插入新节点
         if (permission.getParentId() != null) {
             clearPermissionCache(permission.getParentId());
         }
-        clearPermissionTreeCache();
+        clearPermissionListCache();
+        permissionTreeIndex.put(permission.getId());
+        dataVersionService.bump(DataVersionService.PERMISSION);
         
         // 6. 记录操作日志
         logService.saveLog("权限管理", "新增权限", String.format("新增权限[%s(%s)]", 
@@ -392,14 +366,32 @@ public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPerm
             }
         }
         
-        // 4. 更新权限
+        // 4. 检查移动后的父级权限，不能移动到自身或下级权限之下
+        Long parentId = permissionDTO.getParentId();
+        if (parentId != null && parentId > 0 && !parentId.equals(oldPermission.getPid())) {
+            if (permissionMapper.findById(parentId) == null) {
+                throw new BusinessException(ResponseCode.PARAM_ERROR.getCode(), "父级权限不存在");
+            }
+            if (permissionTreeIndex.isSelfOrDescendant(permissionDTO.getId(), parentId)) {
+                throw new BusinessException(ResponseCode.PARAM_ERROR.getCode(), "不能移动到自身或下级权限之下");
+            }
+        }
+        
+        // 5. 更新权限
         SysPermission permission = convert(permissionDTO, SysPermission.class);
+        permission.setPid(parentId);
         permissionMapper.update(permission);
         
-        // 5. 清理缓存
+        // 6. 清理缓存，权限树增量更新或移动该节点
         batchClearCache(permission.getId());
+        permissionTreeIndex.put(permission.getId());
+        dataVersionService.bump(DataVersionService.PERMISSION);
+        if (permissionDTO.getPermissionCode() != null
+            && !permissionDTO.getPermissionCode().equals(oldPermission.getPermissionCode())) {
+            TransactionUtils.afterCommit(() -> permissionEngine.refreshPermission(permission.getId()));
+        }
         
-        // 6. 记录操作日志
+        // 7. 记录操作日志
         logService.saveLog("权限管理", "更新权限", String.format("权限[%s]从[%s]更新为[%s]", 
             oldPermission.getPermissionCode(), oldPermission.getPermissionName(), permission.getPermissionName()));
     }
@@ -436,6 +428,8 @@ public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPerm
         
         // 5. 清理缓存
         batchClearCache(id);
+        permissionTreeIndex.remove(Collections.singletonList(id));
+        dataVersionService.bump(DataVersionService.PERMISSION);
         
         // 6. 记录操作日志
         logService.saveLog("权限管理", "删除权限", String.format("删除权限[%s(%s)]", 
@@ -474,8 +468,11 @@ public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPerm
             // 3. 更新状态
         permissionMapper.updateStatus(id, status);
             
-            // 4. 清理缓存
+            // 4. 清理缓存，重算引用该权限的角色位图
             batchClearCache(id);
+            permissionTreeIndex.put(id);
+            dataVersionService.bump(DataVersionService.PERMISSION);
+            TransactionUtils.afterCommit(() -> permissionEngine.refreshPermission(id));
             
             // 5. 记录操作日志
             logService.saveLog("权限管理", "更新状态", String.format("权限[%s]状态更新为[%s]", 
@@ -485,136 +482,100 @@ public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPerm
         });
     }
 
-    /**
-     * 构建权限树
-     */
-    private List<PermissionVO> buildTree(List<PermissionVO> permissions) {
-        List<PermissionVO> tree = new ArrayList<>();
-        Map<Long, PermissionVO> permissionMap = new HashMap<>();
-        
-        // 1. 构建权限映射
-        for (PermissionVO permission : permissions) {
-            permissionMap.put(permission.getId(), permission);
-        }
-        
-        // 2. 构建树形结构
-        for (PermissionVO permission : permissions) {
-            if (permission.getParentId() == null || permission.getParentId() == 0) {
-                tree.add(permission);
-            } else {
-                PermissionVO parent = permissionMap.get(permission.getParentId());
-                if (parent != null) {
-                    if (parent.getChildren() == null) {
-                        parent.setChildren(new ArrayList<>());
-                    }
-                    parent.getChildren().add(permission);
-                }
-            }
-        }
-        
-        // 3. 对树进行排序
-        sortPermissionTree(tree);
-        
-        return tree;
-    }
-    
-    /**
-     * 对权限树进行排序
-     */
-    private void sortPermissionTree(List<PermissionVO> permissions) {
-        if (permissions == null || permissions.isEmpty()) {
-            return;
-        }
-        // 按创建时间排序
-        permissions.sort((a, b) -> b.getCreateTime().compareTo(a.getCreateTime()));
-        // 递归排序子节点
-        for (PermissionVO permission : permissions) {
-            if (permission.getChildren() != null) {
-                sortPermissionTree(permission.getChildren());
-            }
-        }
-    }
-
     /**
      * 清理权限缓存
      */
     private void clearPermissionCache(Long permissionId) {
         if (permissionId != null) {
-            String cacheKey = "permission:" + permissionId;
-            redisTemplate.delete(cacheKey);
+            permissionCache.evict("permission:" + permissionId);
         }
     }
 
     /**
-     * 清理权限树缓存
+     * 清理权限树缓存，权限树整体从数据库重新构建
      */
     public void clearPermissionTreeCache() {
-        Set<String> keys = redisTemplate.keys("permission:tree:*");
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-        }
+        permissionTreeIndex.invalidate();
+        dataVersionService.bump(DataVersionService.PERMISSION);
     }
 
     /**
      * 清理权限列表缓存
      */
     public void clearPermissionListCache() {
-        Set<String> keys = redisTemplate.keys("permission:list:*");
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-        }
+        nextGeneration();
     }
 
     /**
      * 清理父级权限缓存
      */
     public void clearParentPermissionCache() {
-        Set<String> keys = redisTemplate.keys("permission:parent:*");
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-        }
+        nextGeneration();
     }
 
     /**
      * 批量清理权限缓存
      */
     public void batchClearCache(Long permissionId) {
-        String lockKey = "permission:cache:clear";
-        lockService.executeWithLock(lockKey, 10, () -> {
+        try {
+            // 1. 清理单个权限缓存
+            clearPermissionCache(permissionId);
+            
+            // 2. 递增代数，权限列表、父级权限缓存整体失效，权限树由PermissionTreeIndex增量维护
+            nextGeneration();
+        } catch (Exception e) {
+            log.error("清理权限缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 当前代数的缓存key前缀，代数无法从Redis读取时返回null，调用方不应使用缓存
+     */
+    private String generationPrefix() {
+        long gen = generation.get();
+        if (gen < 0) {
+            long stamp = gen;
             try {
-                List<String> keys = new ArrayList<>();
-                
-                // 1. 添加单个权限缓存key
-                if (permissionId != null) {
-                    keys.add("permission:" + permissionId);
-                }
-                
-                // 2. 添加权限树缓存key
-                Set<String> treeKeys = redisTemplate.keys("permission:tree:*");
-                if (treeKeys != null) {
-                    keys.addAll(treeKeys);
-                }
-                
-                // 3. 添加权限列表缓存key
-                Set<String> listKeys = redisTemplate.keys("permission:list:*");
-                if (listKeys != null) {
-                    keys.addAll(listKeys);
-                }
-                
-                // 4. 添加父级权限缓存key
-                Set<String> parentKeys = redisTemplate.keys("permission:parent:*");
-                if (parentKeys != null) {
-                    keys.addAll(parentKeys);
-                }
-                
-                // 5. 批量删除缓存
-                if (!keys.isEmpty()) {
-                    redisTemplate.delete(keys);
+                String value = stringRedisTemplate.opsForValue().get(GENERATION_KEY);
+                gen = value == null ? 0 : Long.parseLong(value);
+            } catch (Exception e) {
+                log.error("读取权限缓存代数失败: {}", e.getMessage());
+                return null;
+            }
+            // 读取期间发生过递增或失效则不写回，本次请求仍使用读到的代数
+            generation.compareAndSet(stamp, gen);
+        }
+        return "permission:v" + gen + ":";
+    }
+
+    /**
+     * 标记代数需要重新读取，每次使用新的负数标记使进行中的读取无法写回
+     */
+    private void resetGeneration() {
+        generation.set(-generationResets.incrementAndGet());
+    }
+
+    /**
+     * 递增缓存代数，旧代数的缓存不再被访问并随过期时间自然淘汰。
+     * 在事务提交后执行，避免其他节点在提交前用旧数据填充新代数
+     */
+    private void nextGeneration() {
+        TransactionUtils.afterCommit(() -> {
+            try {
+                Long gen = stringRedisTemplate.opsForValue().increment(GENERATION_KEY);
+                if (gen == null) {
+                    resetGeneration();
+                } else {
+                    // 只前进不后退，并发递增的提交顺序与Redis返回顺序可能不同
+                    generation.accumulateAndGet(gen, Math::max);
                 }
+                permissionListCache.invalidateLocalAll();
+                invalidationBus.publish(GENERATION_CACHE, CacheInvalidationBus.TYPE_ALL, String.valueOf(gen));
+                log.debug("权限缓存代数递增 - generation: {}", gen);
             } catch (Exception e) {
-                log.error("清理权限缓存失败: {}", e.getMessage());
+                resetGeneration();
+                log.error("递增权限缓存代数失败: {}", e.getMessage());
             }
-            return null;
         });
     }
 
@@ -649,6 +610,8 @@ public class SysPermissionServiceImpl extends BaseServiceImpl implements SysPerm
             
             // 4. 清理缓存
             batchClearCache(null);
+            permissionTreeIndex.remove(ids);
+            dataVersionService.bump(DataVersionService.PERMISSION);
             
             // 5. 记录操作日志
             logService.saveLog("权限管理", "批量删除权限", String.format("批量删除权限: %s", ids));
@@ -6,8 +6,12 @@ import com.czj.rbac.service.SysRoleService;
 import com.czj.rbac.service.RoleCacheService;
 import com.czj.rbac.service.DistributedLockService;
 import com.czj.rbac.service.SysLogService;
-import com.czj.rbac.service.SysUserService;
 import com.czj.rbac.service.SysPermissionService;
+import com.czj.rbac.service.PermissionEngine;
+import com.czj.rbac.service.RoleLevelIndex;
+import com.czj.rbac.service.UserCacheService;
+import com.czj.rbac.service.DataVersionService;
+import com.czj.rbac.util.TransactionUtils;
 import com.czj.rbac.mapper.SysUserMapper;
 import com.czj.rbac.model.SysRole;
 import com.czj.rbac.model.vo.RoleVO;
@@ -43,9 +47,6 @@ public class SysRoleServiceImpl extends BaseServiceImpl implements SysRoleServic
     @Autowired
     private SysLogService logService;
 
-    @Autowired
-    private SysUserService userService;
-    
     @Autowired
     private SysUserMapper userMapper;
     
@@ -55,6 +56,18 @@ public class SysRoleServiceImpl extends BaseServiceImpl implements SysRoleServic
     @Autowired
     private SysPermissionService permissionService;
 
+    @Autowired
+    private PermissionEngine permissionEngine;
+
+    @Autowired
+    private RoleLevelIndex roleLevelIndex;
+
+    @Autowired
+    private UserCacheService userCacheService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
     @Override
     public RoleVO findById(Long id) {
         log.info("查询角色信息, id: {}", id);
@@ -218,6 +231,10 @@ public class SysRoleServiceImpl extends BaseServiceImpl implements SysRoleServic
                 roleMapper.insertRolePermissions(role.getId(), roleDTO.getPermissionIds());
             }
             
+            dataVersionService.bump(DataVersionService.ROLE);
+            // 新角色加入等级索引，列表过滤需要完整的角色表
+            roleLevelIndex.refreshRole(role.getId());
+            
             // 记录操作日志
             logService.saveLog("角色管理", "新增角色", String.format("角色编码: %s, 角色名称: %s", 
                 roleDTO.getRoleCode(), roleDTO.getRoleName()));
@@ -258,16 +275,15 @@ public class SysRoleServiceImpl extends BaseServiceImpl implements SysRoleServic
             // 删除缓存
             roleCacheService.deleteRoleCache(role.getId());
             roleCacheService.deleteRolePermissionCache(role.getId());
+            dataVersionService.bump(DataVersionService.ROLE);
             
             // 记录操作日志
             logService.saveLog("角色管理", "更新角色", String.format("角色[%s]从[%s]更新为[%s]", 
                 oldRole.getRoleCode(), oldRole.getRoleName(), roleDTO.getRoleName()));
             
-            // 清理相关用户的缓存
-            List<Long> userIds = userMapper.findUserIdsByRoleId(roleDTO.getId());
-            if (!userIds.isEmpty()) {
-                userService.clearUserCaches(userIds);
-            }
+            // 重算角色及相关用户的权限位图和角色等级
+            refreshRoleUsers(roleDTO.getId());
+            roleLevelIndex.refreshRole(roleDTO.getId());
             
             return null;
         });
@@ -305,6 +321,7 @@ public class SysRoleServiceImpl extends BaseServiceImpl implements SysRoleServic
             // 删除缓存
             roleCacheService.deleteRoleCache(id);
             roleCacheService.deleteRolePermissionCache(id);
+            dataVersionService.bump(DataVersionService.ROLE);
             
             // 记录操作日志
             logService.saveLog("角色管理", "删除角色", String.format("删除角色[%s(%s)]", 
@@ -338,12 +355,11 @@ public class SysRoleServiceImpl extends BaseServiceImpl implements SysRoleServic
             
             // 清理角色缓存
             roleCacheService.deleteRoleCache(id);
+            dataVersionService.bump(DataVersionService.ROLE);
             
-            // 清理相关用户的缓存
-            List<Long> userIds = userMapper.findUserIdsByRoleId(id);
-            if (!userIds.isEmpty()) {
-                userService.clearUserCaches(userIds);
-            }
+            // 重算角色及相关用户的权限位图和角色等级
+            refreshRoleUsers(id);
+            roleLevelIndex.refreshRole(id);
             
             // 记录操作日志
             logService.saveLog("角色管理", "更新状态", String.format("角色[%s]状态更新为[%s]", 
@@ -379,11 +395,8 @@ public class SysRoleServiceImpl extends BaseServiceImpl implements SysRoleServic
             // 3. 清理缓存
             roleCacheService.deleteRolePermissionCache(roleId);
             
-            // 4. 清理相关用户的缓存
-                    List<Long> userIds = userMapper.findUserIdsByRoleId(roleId);
-                    if (!userIds.isEmpty()) {
-                        userService.clearUserCaches(userIds);
-                    }
+            // 4. 重算角色及相关用户的权限位图
+            refreshRoleUsers(roleId);
             
             // 5. 记录操作日志
             List<String> permissionNames = permissionIds == null ? Collections.emptyList() :
@@ -453,6 +466,7 @@ public class SysRoleServiceImpl extends BaseServiceImpl implements SysRoleServic
                 roleCacheService.deleteRoleCache(id);
                 roleCacheService.deleteRolePermissionCache(id);
             }
+            dataVersionService.bump(DataVersionService.ROLE);
             
             // 5. 记录操作日志
             List<SysRole> roles = roleMapper.findByIds(ids);
@@ -486,11 +500,8 @@ public class SysRoleServiceImpl extends BaseServiceImpl implements SysRoleServic
             // 3. 清理缓存
             roleCacheService.deleteRolePermissionCache(roleId);
             
-            // 4. 清理相关用户的缓存
-            List<Long> userIds = userMapper.findUserIdsByRoleId(roleId);
-            if (!userIds.isEmpty()) {
-                userService.clearUserCaches(userIds);
-            }
+            // 4. 重算角色及相关用户的权限位图
+            refreshRoleUsers(roleId);
             
             // 5. 记录操作日志
             List<String> permissionNames = permissionIds == null ? Collections.emptyList() :
@@ -535,6 +546,19 @@ public class SysRoleServiceImpl extends BaseServiceImpl implements SysRoleServic
         }
     }
 
+    /**
+     * 事务提交后增量重算角色位图及其关联用户的位图，并清理这些用户的信息缓存，
+     * 回滚时不改动内存中的位图
+     */
+    private void refreshRoleUsers(Long roleId) {
+        TransactionUtils.afterCommit(() -> {
+            List<Long> userIds = permissionEngine.refreshRole(roleId);
+            if (!userIds.isEmpty()) {
+                userCacheService.batchDeleteUserCache(userIds.toArray(new Long[0]));
+            }
+        });
+    }
+
     /*
      * 该方法已废弃，请使用assignPermissions和removePermissions方法
      */
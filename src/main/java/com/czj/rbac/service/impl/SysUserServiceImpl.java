@@ -8,6 +8,10 @@ import com.czj.rbac.service.DataPermissionService;
 import com.czj.rbac.service.UserCacheService;
 import com.czj.rbac.service.SysLogService;
 import com.czj.rbac.service.DistributedLockService;
+import com.czj.rbac.service.PermissionEngine;
+import com.czj.rbac.service.RoleLevelIndex;
+import com.czj.rbac.service.PasswordHashService;
+import com.czj.rbac.service.DeptTreeIndex;
 import com.czj.rbac.model.SysUser;
 import com.czj.rbac.model.SysRole;
 import com.czj.rbac.model.vo.UserVO;
@@ -15,10 +19,10 @@ import com.czj.rbac.model.vo.RoleVO;
 import com.czj.rbac.model.vo.PermissionVO;
 import com.czj.rbac.model.dto.UserDTO;
 import com.czj.rbac.model.query.UserQuery;
+import com.czj.rbac.model.query.UserDataScope;
 import com.czj.rbac.common.PageResult;
 import com.czj.rbac.common.BusinessException;
 import com.czj.rbac.common.ResponseCode;
-import com.czj.rbac.util.PasswordUtil;
 import com.czj.rbac.util.PasswordValidator;
 import com.czj.rbac.util.SensitiveInfoUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -68,6 +72,18 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
+    @Autowired
+    private PermissionEngine permissionEngine;
+
+    @Autowired
+    private RoleLevelIndex roleLevelIndex;
+
+    @Autowired
+    private PasswordHashService passwordHashService;
+
+    @Autowired
+    private DeptTreeIndex deptTreeIndex;
+
     @Override
     public UserVO findById(Long id) {
         // 1. 尝试从缓存获取
@@ -114,21 +130,17 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
     public PageResult<UserVO> findPage(UserQuery query) {
         log.info("分页查询用户列表: {}", query);
         
-        // 1. 查询数据
-        int total = userMapper.count(query);
+        // 1. 数据权限解析为查询条件，分页和总数都在SQL中过滤
+        UserDataScope scope = dataPermissionService.resolveUserDataScope();
+        int total = userMapper.count(query, scope);
         if (total == 0) {
             return new PageResult<>(Collections.emptyList(), 0L, query.getPage(), query.getSize());
         }
         
-        List<SysUser> users = userMapper.selectPage(query);
-        
-        // 2. 过滤无权访问的数据
-        List<SysUser> filteredUsers = users.stream()
-            .filter(user -> dataPermissionService.checkUserDataPermission(user.getId()))
-            .collect(Collectors.toList());
+        List<SysUser> users = userMapper.selectPage(query, scope);
         
-        // 3. 转换并返回结果
-        List<UserVO> userVOList = filteredUsers.stream().map(user -> {
+        // 2. 转换并返回结果
+        List<UserVO> userVOList = users.stream().map(user -> {
             UserVO userVO = new UserVO();
             BeanUtils.copyProperties(user, userVO);
             
@@ -143,7 +155,7 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
             return userVO;
         }).collect(Collectors.toList());
         
-        return new PageResult<>(userVOList, (long)filteredUsers.size(), query.getPage(), query.getSize());
+        return new PageResult<>(userVOList, (long) total, query.getPage(), query.getSize());
     }
 
     @Override
@@ -217,10 +229,11 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
         if (userMapper.checkUsername(userDTO.getUsername()) > 0) {
             throw new BusinessException(ResponseCode.PARAM_ERROR.getCode(), "用户名已存在");
         }
+        checkDept(userDTO.getDeptId());
         
         // 3. 密码加密
         SysUser user = convert(userDTO);
-        user.setPassword(PasswordUtil.encode(userDTO.getPassword()));
+        user.setPassword(passwordHashService.encode(userDTO.getPassword()));
         
         // 4. 保存用户
         userMapper.insert(user);
@@ -235,11 +248,12 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
     @Transactional(rollbackFor = Exception.class)
     public void update(UserDTO userDTO) {
         log.info("更新用户: {}", userDTO);
+        checkDept(userDTO.getDeptId());
         SysUser user = convert(userDTO);
         
         // 如果密码不为空,则更新密码
         if (StringUtils.hasText(userDTO.getPassword())) {
-            user.setPassword(PasswordUtil.encode(userDTO.getPassword()));
+            user.setPassword(passwordHashService.encode(userDTO.getPassword()));
         }
         
         userMapper.update(user);
@@ -250,12 +264,20 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
             if (!userDTO.getRoleIds().isEmpty()) {
                 userMapper.insertUserRoles(user.getId(), userDTO.getRoleIds());
             }
+            permissionEngine.evictUser(user.getId());
+            roleLevelIndex.updateUserRoles(user.getId(), userDTO.getRoleIds());
         }
         
         // 删除缓存
         userCacheService.deleteUserCache(user.getId());
     }
     
+    private void checkDept(Long deptId) {
+        if (deptId != null && !deptTreeIndex.contains(deptId)) {
+            throw new BusinessException(ResponseCode.PARAM_ERROR.getCode(), "部门不存在");
+        }
+    }
+    
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void delete(Long id) {
@@ -271,6 +293,8 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
         userMapper.deleteById(id);
         // 删除缓存
         userCacheService.deleteUserCache(id);
+        permissionEngine.evictUser(id);
+        roleLevelIndex.evictUser(id);
     }
     
     @Override
@@ -350,6 +374,8 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
         
         // 删除缓存
         userCacheService.deleteUserCache(userId);
+        permissionEngine.evictUser(userId);
+        roleLevelIndex.updateUserRoles(userId, roleIds);
     }
 
     @Override
@@ -368,7 +394,7 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
         }
         
         // 验证旧密码
-        if (!PasswordUtil.matches(oldPassword, user.getPassword())) {
+        if (!passwordHashService.matches(oldPassword, user.getPassword())) {
             throw new BusinessException(ResponseCode.PASSWORD_ERROR);
         }
         
@@ -378,7 +404,7 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
         }
         
         // 更新密码
-        user.setPassword(PasswordUtil.encode(newPassword));
+        user.setPassword(passwordHashService.encode(newPassword));
         userMapper.update(user);
         
         // 重置登录失败次数
@@ -399,7 +425,7 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
         }
         
         // 重置为默认密码
-        user.setPassword(PasswordUtil.encode(defaultPassword));
+        user.setPassword(passwordHashService.encode(defaultPassword));
         userMapper.update(user);
         
         // 重置登录失败次数
@@ -454,6 +480,7 @@ public class SysUserServiceImpl extends BaseServiceImpl implements SysUserServic
         }
         try {
             userCacheService.batchDeleteUserCache(userIds.toArray(new Long[0]));
+            permissionEngine.evictUsers(userIds);
             // 记录操作日志
             logService.saveLog("用户管理", "清理缓存", 
                 String.format("批量清理用户缓存: %s", userIds));
@@ -7,28 +7,32 @@ import com.czj.rbac.model.TokenPair;
 import com.czj.rbac.model.vo.UserVO;
 import com.czj.rbac.service.DistributedLockService;
 import com.czj.rbac.service.LoginInfoService;
+import com.czj.rbac.service.TokenBlacklistService;
 import com.czj.rbac.service.TokenService;
 import com.czj.rbac.util.JwtUtil;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -36,7 +40,6 @@ import java.util.stream.Collectors;
 public class TokenServiceImpl implements TokenService {
     
     private static final String TOKEN_PREFIX = "token:";
-    private static final String TOKEN_BLACKLIST_PREFIX = "token:blacklist:";
     private static final String REFRESH_TOKEN_PREFIX = "token:refresh:";
     private static final String BEARER_PREFIX = "Bearer ";
     
@@ -59,9 +62,30 @@ public class TokenServiceImpl implements TokenService {
     private boolean kickOut;
 
     private static final String USER_SESSIONS_PREFIX = "login:sessions:";
+
+    /**
+     * 会话条目格式: loginId|过期时间戳
+     */
+    private static final String SESSION_SEPARATOR = "|";
+
+    private static final DefaultRedisScript<List> SAVE_SESSION_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        SAVE_SESSION_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/save_session.lua")));
+        SAVE_SESSION_SCRIPT.setResultType(List.class);
+    }
     
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TokenBlacklistService tokenBlacklistService;
     
     @Autowired
     private DistributedLockService lockService;
@@ -81,23 +105,23 @@ public class TokenServiceImpl implements TokenService {
         String loginId = UUID.randomUUID().toString();
         try {
             // 生成访问令牌
+            long expireAt = System.currentTimeMillis() + expireTime;
             Map<String, Object> claims = new HashMap<>();
             claims.put("userId", userId);
             claims.put("loginId", loginId);
-            String token = JwtUtil.generateJwt(claims);
+            claims.put("exp", new Date(expireAt));
+            String token = jwtUtil.generateJwt(claims);
             
             // 生成刷新令牌
-            String refreshToken = JwtUtil.generateRefreshToken(claims, refreshExpireTime);
+            String refreshToken = jwtUtil.generateRefreshToken(claims, refreshExpireTime);
             
-            // 保存用户会话信息
-            saveUserSession(userId, loginId, token);
-            
-            // 保存刷新令牌
-            String refreshTokenKey = REFRESH_TOKEN_PREFIX + userId;
-            redisTemplate.opsForValue().set(refreshTokenKey, refreshToken, refreshExpireTime, TimeUnit.MILLISECONDS);
+            // 保存用户会话信息和刷新令牌
+            saveUserSession(userId, loginId, expireAt, token, refreshToken);
             
             log.info("Token生成成功 - userId: {}", userId);
             return new TokenPair(token, refreshToken);
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Token生成失败 - userId: {}", userId, e);
             throw new BusinessException(ResponseCode.ERROR);
@@ -115,21 +139,21 @@ public class TokenServiceImpl implements TokenService {
             final String tokenToValidate = token.startsWith(BEARER_PREFIX) ? 
                 token.substring(BEARER_PREFIX.length()) : token;
             
-            // 1. 验证token基本有效性
-            if (!JwtUtil.validateToken(tokenToValidate)) {
+            // 1. 验证token基本有效性，只验签一次
+            Claims claims = jwtUtil.getValidClaims(tokenToValidate);
+            if (claims == null) {
                 log.warn("Token基本验证失败");
                 return false;
             }
             
-            // 2. 检查是否在黑名单中
-            if (isTokenBlacklisted(tokenToValidate)) {
+            // 2. 检查是否在黑名单中，本地过滤器未命中时不访问Redis
+            if (tokenBlacklistService.isRevoked(tokenToValidate, claims)) {
                 log.warn("Token已被加入黑名单");
                 return false;
             }
             
             // 3. 获取用户ID并检查Redis中的token
-            Claims claims = JwtUtil.parseJwt(tokenToValidate);
-            Long userId = Long.valueOf(claims.getSubject());
+            Long userId = JwtUtil.getUserId(claims);
             String storedToken = (String) redisTemplate.opsForValue().get(TOKEN_PREFIX + userId);
             
             // 4. 检查token是否存在于Redis中
@@ -164,13 +188,13 @@ public class TokenServiceImpl implements TokenService {
         return lockService.executeWithLock(lockKey, 10L, () -> {
             try {
                 // 1. 验证刷新token
-                if (!JwtUtil.validateRefreshToken(finalRefreshToken)) {
+                if (!jwtUtil.validateRefreshToken(finalRefreshToken)) {
                     throw new BusinessException(ResponseCode.UNAUTHORIZED, "刷新令牌已过期或无效");
                 }
                 
                 // 2. 解析刷新token
-                Claims claims = JwtUtil.parseRefreshToken(finalRefreshToken);
-                Long userId = Long.valueOf(claims.getSubject());
+                Claims claims = jwtUtil.parseRefreshToken(finalRefreshToken);
+                Long userId = JwtUtil.getUserId(claims);
                 
                 // 3. 验证是否是当前用户的刷新token
                 String storedRefreshToken = getRefreshToken(userId);
@@ -199,7 +223,7 @@ public class TokenServiceImpl implements TokenService {
             String currentToken = (String) redisTemplate.opsForValue().get(TOKEN_PREFIX + userId);
             if (currentToken != null) {
                 try {
-                    Claims claims = JwtUtil.parseJwt(currentToken);
+                    Claims claims = jwtUtil.parseJwt(currentToken);
                     String loginId = claims.get("loginId", String.class);
                     if (loginId != null) {
                         loginInfoService.recordLogout(userId, loginId);
@@ -211,14 +235,9 @@ public class TokenServiceImpl implements TokenService {
             
             // 移除用户所有会话
             String sessionsKey = USER_SESSIONS_PREFIX + userId;
-            Set<Object> sessionsObj = redisTemplate.opsForSet().members(sessionsKey);
-            Set<String> sessions = sessionsObj.stream()
-                .map(Object::toString)
-                .collect(Collectors.toSet());
+            List<String> sessions = stringRedisTemplate.opsForList().range(sessionsKey, 0, -1);
             if (sessions != null) {
-                for (String token : sessions) {
-                    addToBlacklist(token);
-                }
+                sessions.forEach(this::revokeSession);
             }
             
             // 清理Redis数据
@@ -249,13 +268,16 @@ public class TokenServiceImpl implements TokenService {
         
         try {
             // 生成访问令牌
+            String loginId = UUID.randomUUID().toString();
+            long expireAt = System.currentTimeMillis() + expireTime;
             Map<String, Object> claims = new HashMap<>();
             claims.put("userId", userId);
-            claims.put("loginId", UUID.randomUUID().toString());
-            String token = JwtUtil.generateJwt(claims);
+            claims.put("loginId", loginId);
+            claims.put("exp", new Date(expireAt));
+            String token = jwtUtil.generateJwt(claims);
             
             // 保存用户会话信息
-            saveUserSession(userId, claims.get("loginId").toString(), token);
+            saveUserSession(userId, loginId, expireAt, token, null);
             
             return BEARER_PREFIX + token;
         } catch (Exception e) {
@@ -270,36 +292,20 @@ public class TokenServiceImpl implements TokenService {
         }
         
         try {
-            Claims claims = JwtUtil.parseJwt(token);
-            long remainingTime = claims.getExpiration().getTime() - System.currentTimeMillis();
-            
-            if (remainingTime > 0) {
-                String blacklistKey = TOKEN_BLACKLIST_PREFIX + token;
-                boolean added = Boolean.TRUE.equals(
-                    redisTemplate.opsForValue().setIfAbsent(blacklistKey, "1", remainingTime, TimeUnit.MILLISECONDS)
-                );
-                
-                if (!added) {
-                    log.debug("Token已在黑名单中 - token: {}", token);
-                } else {
-                    log.debug("Token已加入黑名单 - token: {}", token);
-                }
+            Claims claims = jwtUtil.parseJwt(token);
+            if (tokenBlacklistService.revoke(token, claims)) {
+                log.debug("Token已加入黑名单 - loginId: {}", claims.get("loginId"));
+            } else {
+                log.debug("Token已在黑名单中或已过期 - loginId: {}", claims.get("loginId"));
             }
+        } catch (ExpiredJwtException e) {
+            log.debug("Token已过期，无需加入黑名单");
         } catch (Exception e) {
             log.error("Token加入黑名单失败: {}", e.getMessage());
             throw new BusinessException(ResponseCode.SYSTEM_ERROR, "Token加入黑名单失败");
         }
     }
     
-    private boolean isTokenBlacklisted(String token) {
-        try {
-            return Boolean.TRUE.equals(redisTemplate.hasKey(TOKEN_BLACKLIST_PREFIX + token));
-        } catch (Exception e) {
-            log.error("检查Token黑名单失败: {}", e.getMessage());
-            return false;
-        }
-    }
-    
     @Transactional
     private void invalidateToken(Long userId) {
         if (userId == null) {
@@ -339,8 +345,8 @@ public class TokenServiceImpl implements TokenService {
             final String tokenToUse = token.startsWith(BEARER_PREFIX) ? 
                 token.substring(BEARER_PREFIX.length()) : token;
                 
-            Claims claims = JwtUtil.parseJwt(tokenToUse);
-            return Long.valueOf(claims.getSubject());
+            Claims claims = jwtUtil.parseJwt(tokenToUse);
+            return JwtUtil.getUserId(claims);
         } catch (Exception e) {
             log.error("从Token中获取用户ID失败: {}", e.getMessage());
             return null;
@@ -357,7 +363,7 @@ public class TokenServiceImpl implements TokenService {
             final String tokenToUse = token.startsWith(BEARER_PREFIX) ? 
                 token.substring(BEARER_PREFIX.length()) : token;
                 
-            Claims claims = JwtUtil.parseJwt(tokenToUse);
+            Claims claims = jwtUtil.parseJwt(tokenToUse);
             Date expiration = claims.getExpiration();
             return expiration.getTime() - System.currentTimeMillis();
         } catch (Exception e) {
@@ -366,39 +372,62 @@ public class TokenServiceImpl implements TokenService {
         }
     }
 
-    private void saveUserSession(Long userId, String loginId, String accessToken) {
-        String sessionKey = USER_SESSIONS_PREFIX + userId;
+    /**
+     * 保存用户会话，会话列表裁剪、被挤下线会话的吊销及令牌写入由Lua脚本一次完成，
+     * 同一用户并发登录时不会相互覆盖，脚本返回前失败也不会出现已移出会话列表却未吊销的会话。
+     * 脚本返回后只更新本地黑名单过滤器并通知其他节点
+     */
+    @SuppressWarnings("unchecked")
+    private void saveUserSession(Long userId, String loginId, long expireAt, String accessToken, String refreshToken) {
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        List<String> keys = Arrays.asList(
+            USER_SESSIONS_PREFIX + userId,
+            TOKEN_PREFIX + userId,
+            REFRESH_TOKEN_PREFIX + userId,
+            TokenBlacklistService.USER_BLACKLIST_PREFIX + userId,
+            TokenBlacklistService.BLACKLIST_INDEX
+        );
+        List<String> result;
         try {
-            // 获取用户当前的会话列表，并进行类型转换
-            List<Object> sessionObjects = redisTemplate.opsForList().range(sessionKey, 0, -1);
-            List<String> sessions = sessionObjects == null ? new ArrayList<>() : 
-                sessionObjects.stream()
-                    .map(Object::toString)
-                    .collect(Collectors.toList());
-            
-            // 如果超过最大会话数，需要删除最早的会话
-            while (sessions.size() >= maxSessions) {
-                if (kickOut) {
-                    String oldestSession = sessions.remove(0);
-                    // 将旧token加入黑名单
-                    addToBlacklist(oldestSession);
-                } else {
-                    throw new BusinessException(ResponseCode.ERROR);
-                }
-            }
-            
-            // 添加新会话
-            sessions.add(accessToken);
-            
-            // 更新Redis中的会话列表
-            redisTemplate.delete(sessionKey);
-            redisTemplate.opsForList().rightPushAll(sessionKey, sessions);
-            redisTemplate.expire(sessionKey, expireTime, TimeUnit.MILLISECONDS);
-            
-            log.info("保存用户会话成功 - userId: {}, loginId: {}", userId, loginId);
+            result = stringRedisTemplate.execute(SAVE_SESSION_SCRIPT, keys,
+                loginId + SESSION_SEPARATOR + expireAt,
+                String.valueOf(maxSessions),
+                kickOut ? "1" : "0",
+                String.valueOf(expireTime),
+                // 令牌值按redisTemplate的序列化格式写入，保持读取方式不变
+                new String(valueSerializer.serialize(accessToken), StandardCharsets.UTF_8),
+                refreshToken == null ? "" : new String(valueSerializer.serialize(refreshToken), StandardCharsets.UTF_8),
+                String.valueOf(refreshExpireTime),
+                String.valueOf(System.currentTimeMillis()));
         } catch (Exception e) {
             log.error("保存用户会话失败 - userId: {}, loginId: {}", userId, loginId, e);
             throw new BusinessException(ResponseCode.ERROR);
         }
+        if (result == null || result.isEmpty() || !"OK".equals(result.get(0))) {
+            log.warn("超过最大会话数，拒绝登录 - userId: {}", userId);
+            throw new BusinessException(ResponseCode.ERROR);
+        }
+        for (String evicted : result.subList(1, result.size())) {
+            int separator = evicted.indexOf(SESSION_SEPARATOR);
+            if (separator > 0) {
+                tokenBlacklistService.markRevoked(evicted.substring(0, separator));
+            } else {
+                // 旧格式条目为完整token，脚本无法解析，由调用方吊销
+                revokeSession(evicted);
+            }
+        }
+        log.info("保存用户会话成功 - userId: {}, loginId: {}, evicted: {}", userId, loginId, result.size() - 1);
+    }
+
+    /**
+     * 吊销会话列表中的一个条目，兼容旧格式(JSON序列化的完整token)
+     */
+    private void revokeSession(String session) {
+        int separator = session.indexOf(SESSION_SEPARATOR);
+        if (separator > 0) {
+            tokenBlacklistService.revoke(session.substring(0, separator), Long.parseLong(session.substring(separator + 1)));
+        } else {
+            addToBlacklist(session.replace("\"", ""));
+        }
     }
 } 
\ No newline at end of file
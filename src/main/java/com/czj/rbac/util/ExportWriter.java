@@ -0,0 +1,156 @@
+package com.czj.rbac.util;
+
+import com.czj.rbac.model.enums.ExportFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanUtils;
+
+import java.beans.PropertyDescriptor;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 流式导出
+ * 逐行写入CSV或NDJSON，列由下划线字段名指定，getter在创建时解析一次。
+ * 不持有已写出的数据，内存占用与导出行数无关
+ */
+public class ExportWriter implements Closeable {
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<String> fields;
+
+    private final Method[] getters;
+
+    private final Writer writer;
+
+    private final JsonGenerator generator;
+
+    private long count;
+
+    /**
+     * @param format 导出格式
+     * @param out 输出流，close时一并关闭
+     * @param type 行对象类型
+     * @param fields 导出字段(下划线命名)，需已经过白名单校验
+     * @param objectMapper NDJSON格式使用的序列化配置
+     */
+    public ExportWriter(ExportFormat format, OutputStream out, Class<?> type, List<String> fields,
+                        ObjectMapper objectMapper) throws IOException {
+        this.fields = fields;
+        this.getters = new Method[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, toCamelCase(fields.get(i)));
+            if (descriptor == null || descriptor.getReadMethod() == null) {
+                throw new IllegalArgumentException("不支持导出的字段: " + fields.get(i));
+            }
+            getters[i] = descriptor.getReadMethod();
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == ExportFormat.NDJSON) {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        } else {
+            this.generator = null;
+            // BOM让Excel按UTF-8识别中文
+            writer.write('\uFEFF');
+            writeCsvLine(fields.toArray());
+        }
+    }
+
+    /**
+     * 写入一行
+     */
+    public void write(Object row) throws IOException {
+        Object[] values = new Object[getters.length];
+        for (int i = 0; i < getters.length; i++) {
+            try {
+                values[i] = getters[i].invoke(row);
+            } catch (ReflectiveOperationException e) {
+                throw new IOException("读取导出字段失败: " + fields.get(i), e);
+            }
+        }
+        if (generator != null) {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeObjectField(fields.get(i), values[i]);
+            }
+            generator.writeEndObject();
+        } else {
+            writeCsvLine(values);
+        }
+        count++;
+    }
+
+    /**
+     * 已写入的行数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator != null) {
+            generator.flush();
+            if (count > 0) {
+                writer.write('\n');
+            }
+        }
+        writer.close();
+    }
+
+    private void writeCsvLine(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(toCsv(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    static String toCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof LocalDateTime time) {
+            return time.format(DATE_TIME_FORMAT);
+        }
+        String text = value.toString();
+        if (value instanceof CharSequence && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            // 防止表格软件把内容当作公式执行
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private static String toCamelCase(String field) {
+        StringBuilder builder = new StringBuilder(field.length());
+        boolean upper = false;
+        for (char c : field.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                builder.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return builder.toString();
+    }
+}
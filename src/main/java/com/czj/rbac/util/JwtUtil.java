@@ -1,11 +1,17 @@
 package com.czj.rbac.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.StringUtils;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import java.util.Date;
@@ -13,27 +19,140 @@ import java.util.Map;
 import java.util.List;
 import java.util.Collections;
 import java.util.Base64;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * JWT编解码
+ * 密钥在构造时派生一次，访问令牌和刷新令牌各持有一个预构建的解析器，二者均线程安全。
+ * 当前请求的用户信息由AuthInterceptor调用resolveClaims写入请求属性，静态方法优先读取该属性，
+ * 未经过AuthInterceptor的请求由Spring管理的实例解析请求头后同样写入该属性
+ */
 @Slf4j
 @Component
 public class JwtUtil {
 
-    private static String secretKey;
-    private static Long expireTime;
     private static final String TOKEN_HEADER = "Authorization";
     public static final String TOKEN_PREFIX = "Bearer ";
 
-    @Value("${rbac.jwt.secret-key}")
-    public void setSecretKey(String key) {
-        // 对密钥进行Base64编码
-        secretKey = Base64.getEncoder().encodeToString(key.getBytes());
+    /**
+     * 请求属性名，保存本次请求已解析的token及Claims
+     */
+    private static final String CLAIMS_ATTRIBUTE = JwtUtil.class.getName() + ".CLAIMS";
+
+    /**
+     * 刷新令牌密钥后缀，与原有令牌格式保持一致
+     */
+    private static final String REFRESH_KEY_SUFFIX = "refresh";
+
+    /**
+     * 没有exp的token在缓存中的最长保留时间(毫秒)
+     */
+    private static final long VERIFIED_CACHE_MAX_AGE = TimeUnit.MINUTES.toMillis(5);
+
+    private final long expireTime;
+
+    private final SecretKey accessKey;
+
+    private final SecretKey refreshKey;
+
+    private final JwtParser accessParser;
+
+    private final JwtParser refreshParser;
+
+    /**
+     * 已验证token缓存，key为token摘要，条目在token的exp时刻过期
+     */
+    private final Cache<String, Claims> verifiedTokens;
+
+    /**
+     * 访问令牌解析耗时，按命中缓存、验签通过、解析失败区分
+     */
+    private Timer cachedTimer;
+    private Timer verifiedTimer;
+    private Timer invalidTimer;
+
+    /**
+     * Spring管理的实例，供静态方法解析未经过AuthInterceptor的请求
+     */
+    private static volatile JwtUtil instance;
+
+    /**
+     * 本次请求已解析的token
+     */
+    private record ParsedToken(String token, Claims claims) {
     }
 
-    @Value("${rbac.jwt.expire-time}")
-    public void setExpireTime(Long expire) {
-        expireTime = expire;
+    @Autowired
+    public JwtUtil(@Value("${rbac.jwt.secret-key}") String secret,
+                   @Value("${rbac.jwt.expire-time}") long expireTime,
+                   @Value("${rbac.jwt.verified-cache-size:10000}") long verifiedCacheSize) {
+        this.expireTime = expireTime;
+        this.accessKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.refreshKey = Keys.hmacShaKeyFor((secret + REFRESH_KEY_SUFFIX).getBytes(StandardCharsets.UTF_8));
+        this.accessParser = Jwts.parserBuilder().setSigningKey(accessKey).build();
+        this.refreshParser = Jwts.parserBuilder().setSigningKey(refreshKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        long ttl = expiration == null
+                                ? VERIFIED_CACHE_MAX_AGE
+                                : expiration.getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(ttl, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @PostConstruct
+    public void registerInstance() {
+        JwtUtil.instance = this;
+    }
+
+    /**
+     * 注册令牌解析耗时指标，未注入MeterRegistry时不记录
+     */
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        cachedTimer = parseTimer(meterRegistry, "cached");
+        verifiedTimer = parseTimer(meterRegistry, "verified");
+        invalidTimer = parseTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer parseTimer(MeterRegistry registry, String result) {
+        return Timer.builder("rbac.jwt.parse")
+                .description("访问令牌解析耗时")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
     }
 
     /**
@@ -41,7 +160,7 @@ public class JwtUtil {
      * @param claims 存储的内容
      * @return JWT令牌
      */
-    public static String generateJwt(Map<String, Object> claims) {
+    public String generateJwt(Map<String, Object> claims) {
         if (claims == null || claims.isEmpty()) {
             return null;
         }
@@ -51,10 +170,10 @@ public class JwtUtil {
             if (!claims.containsKey("exp")) {
                 claims.put("exp", new Date(System.currentTimeMillis() + expireTime));
             }
-            
+
             String jwt = Jwts.builder()
                     .setClaims(claims)
-                    .signWith(SignatureAlgorithm.HS256, secretKey)
+                    .signWith(accessKey, SignatureAlgorithm.HS256)
                     .compact();
             log.debug("Generate JWT: {}", jwt);
             return jwt;
@@ -67,7 +186,7 @@ public class JwtUtil {
     /**
      * 生成刷新令牌
      */
-    public static String generateRefreshToken(Map<String, Object> claims, long refreshExpireTime) {
+    public String generateRefreshToken(Map<String, Object> claims, long refreshExpireTime) {
         if (claims == null || claims.isEmpty()) {
             return null;
         }
@@ -75,13 +194,10 @@ public class JwtUtil {
         try {
             // 设置刷新token的过期时间
             claims.put("exp", new Date(System.currentTimeMillis() + refreshExpireTime));
-            
-            // 使用原始密钥+"refresh"生成刷新token的密钥
-            String refreshKey = Base64.getEncoder().encodeToString((new String(Base64.getDecoder().decode(secretKey)) + "refresh").getBytes());
-            
+
             return Jwts.builder()
                     .setClaims(claims)
-                    .signWith(SignatureAlgorithm.HS256, refreshKey)
+                    .signWith(refreshKey, SignatureAlgorithm.HS256)
                     .compact();
         } catch (Exception e) {
             log.error("Generate refresh token error: ", e);
@@ -92,25 +208,31 @@ public class JwtUtil {
     /**
      * 解析JWT令牌
      * @param jwt JWT令牌
-     * @return Claims对象，解析失败返回null
+     * @return Claims对象，token为空返回null，解析失败抛出异常
      */
-    public static Claims parseJwt(String jwt) {
+    public Claims parseJwt(String jwt) {
+        jwt = stripPrefix(jwt);
         if (!StringUtils.hasText(jwt)) {
             return null;
         }
 
-        // 去掉 Bearer 前缀
-        if (jwt.startsWith(TOKEN_PREFIX)) {
-            jwt = jwt.substring(TOKEN_PREFIX.length());
+        // 命中已验证缓存时跳过签名校验和JSON解析
+        long start = System.nanoTime();
+        String digest = digest(jwt);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && !isExpired(cached)) {
+            record(cachedTimer, start);
+            return cached;
         }
 
         try {
-            return Jwts.parser()
-                    .setSigningKey(secretKey)
-                    .parseClaimsJws(jwt)
-                    .getBody();
+            Claims claims = accessParser.parseClaimsJws(jwt).getBody();
+            verifiedTokens.put(digest, claims);
+            record(verifiedTimer, start);
+            return claims;
         } catch (Exception e) {
-            log.error("Parse JWT error: ", e);
+            record(invalidTimer, start);
+            log.error("Parse JWT error: {}", e.getMessage());
             throw e;
         }
     }
@@ -118,154 +240,205 @@ public class JwtUtil {
     /**
      * 解析刷新令牌
      */
-    public static Claims parseRefreshToken(String refreshToken) {
+    public Claims parseRefreshToken(String refreshToken) {
+        refreshToken = stripPrefix(refreshToken);
         if (!StringUtils.hasText(refreshToken)) {
             return null;
         }
 
         try {
-            // 使用原始密钥+"refresh"解析刷新token
-            String refreshKey = Base64.getEncoder().encodeToString((new String(Base64.getDecoder().decode(secretKey)) + "refresh").getBytes());
-            
-            return Jwts.parser()
-                    .setSigningKey(refreshKey)
-                    .parseClaimsJws(refreshToken)
-                    .getBody();
+            return refreshParser.parseClaimsJws(refreshToken).getBody();
         } catch (Exception e) {
-            log.error("Parse refresh token error: ", e);
+            log.error("Parse refresh token error: {}", e.getMessage());
             throw e;
         }
     }
 
     /**
-     * 获取当前登录用户ID
+     * 验证令牌是否有效
      */
-    public static Long getCurrentUserId() {
-        Claims claims = getClaimsFromRequest();
-        if (claims != null && claims.getSubject() != null) {
-            return Long.valueOf(claims.getSubject());
-        }
-        return null;
+    public boolean validateToken(String jwt) {
+        return getValidClaims(jwt) != null;
     }
 
     /**
-     * 获取当前登录用户名
+     * 验证令牌并返回Claims，只验签一次。与当前请求头中的token相同时复用请求内已解析的结果
+     * @return Claims对象，token为空、无效或已过期时返回null
      */
-    public static String getCurrentUsername() {
-        Claims claims = getClaimsFromRequest();
-        if (claims != null) {
-            return claims.get("username", String.class);
+    public Claims getValidClaims(String jwt) {
+        jwt = stripPrefix(jwt);
+        if (!StringUtils.hasText(jwt)) {
+            log.debug("Token is empty");
+            return null;
         }
-        return null;
-    }
 
-    /**
-     * 从请求中获取token
-     */
-    public static String getTokenFromRequest() {
+        HttpServletRequest request = currentRequest();
+        if (request != null && jwt.equals(stripPrefix(request.getHeader(TOKEN_HEADER)))) {
+            return resolveClaims(request);
+        }
         try {
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes == null) {
-                return null;
-            }
-            
-            HttpServletRequest request = attributes.getRequest();
-            String token = request.getHeader(TOKEN_HEADER);
-            
-            if (!StringUtils.hasText(token)) {
-                return null;
-            }
-            
-            // 去掉Bearer前缀
-            if (token.startsWith(TOKEN_PREFIX)) {
-                token = token.substring(TOKEN_PREFIX.length());
-            }
-            
-            return token;
+            Claims claims = parseJwt(jwt);
+            return isExpired(claims) ? null : claims;
         } catch (Exception e) {
-            log.error("Get token from request error: ", e);
+            log.debug("Token validation failed: {}", e.getMessage());
             return null;
         }
     }
 
     /**
-     * 从请求中获取Claims
+     * 验证刷新令牌是否有效
      */
-    private static Claims getClaimsFromRequest() {
+    public boolean validateRefreshToken(String refreshToken) {
+        if (!StringUtils.hasText(refreshToken)) {
+            log.debug("Refresh token is empty");
+            return false;
+        }
+
         try {
-            String jwt = getTokenFromRequest();
-            if (!StringUtils.hasText(jwt)) {
-                log.debug("No token found in request");
-                return null;
-            }
-            return parseJwt(jwt);
+            return !isExpired(parseRefreshToken(refreshToken));
         } catch (Exception e) {
-            log.error("Get claims from request error: ", e);
-            return null;
+            log.debug("Refresh token validation failed: {}", e.getMessage());
+            return false;
         }
     }
 
     /**
-     * 验证令牌是否有效
+     * 从Token中获取用户ID
+     * @param token JWT令牌
+     * @return 用户ID，解析失败返回null
+     */
+    public Long getUserIdFromToken(String token) {
+        return getUserId(parseJwt(token));
+    }
+
+    /**
+     * 解析请求中的token并保存到请求属性，同一请求内只解析一次
+     * @return Claims对象，无token或token无效时返回null
      */
-    public static boolean validateToken(String jwt) {
+    public Claims resolveClaims(HttpServletRequest request) {
+        String jwt = stripPrefix(request.getHeader(TOKEN_HEADER));
         if (!StringUtils.hasText(jwt)) {
-            log.debug("Token is empty");
-            return false;
+            return null;
+        }
+        Object parsed = request.getAttribute(CLAIMS_ATTRIBUTE);
+        if (parsed instanceof ParsedToken parsedToken && parsedToken.token().equals(jwt)) {
+            return parsedToken.claims();
         }
-
         try {
             Claims claims = parseJwt(jwt);
-            Date expiration = claims.getExpiration();
-            return expiration == null || expiration.after(new Date());
+            if (isExpired(claims)) {
+                return null;
+            }
+            request.setAttribute(CLAIMS_ATTRIBUTE, new ParsedToken(jwt, claims));
+            return claims;
         } catch (Exception e) {
-            log.debug("Token validation failed: {}", e.getMessage());
-            return false;
+            log.debug("Resolve claims failed: {}", e.getMessage());
+            return null;
         }
     }
 
     /**
-     * 验证刷新令牌是否有效
+     * 获取当前登录用户ID
      */
-    public static boolean validateRefreshToken(String refreshToken) {
-        if (!StringUtils.hasText(refreshToken)) {
-            log.debug("Refresh token is empty");
-            return false;
-        }
+    public static Long getCurrentUserId() {
+        return getUserId(getClaimsFromRequest());
+    }
 
-        try {
-            Claims claims = parseRefreshToken(refreshToken);
-            Date expiration = claims.getExpiration();
-            return expiration == null || expiration.after(new Date());
-        } catch (Exception e) {
-            log.debug("Refresh token validation failed: {}", e.getMessage());
-            return false;
+    /**
+     * 获取当前登录用户名
+     */
+    public static String getCurrentUsername() {
+        Claims claims = getClaimsFromRequest();
+        if (claims != null) {
+            return claims.get("username", String.class);
         }
+        return null;
     }
 
     /**
      * 获取当前用户权限
      */
+    @SuppressWarnings("unchecked")
     public static List<String> getCurrentUserPermissions() {
         Claims claims = getClaimsFromRequest();
         return claims != null ? (List<String>) claims.get("permissions") : Collections.emptyList();
     }
 
     /**
-     * 从Token中获取用户ID
-     * @param token JWT令牌
-     * @return 用户ID，解析失败返回null
+     * 从Claims中读取用户ID，优先userId字段，兼容以subject存放的旧令牌
      */
-    public static Long getUserIdFromToken(String token) {
-        Claims claims = parseJwt(token);
-        if (claims != null) {
-            Object userId = claims.get("userId");
-            if (userId != null) {
-                return userId instanceof Integer ? 
-                    ((Integer) userId).longValue() : 
-                    Long.valueOf(userId.toString());
-            }
+    public static Long getUserId(Claims claims) {
+        if (claims == null) {
+            return null;
         }
-        return null;
+        Object userId = claims.get("userId");
+        if (userId instanceof Number number) {
+            return number.longValue();
+        }
+        if (userId != null) {
+            return Long.valueOf(userId.toString());
+        }
+        return claims.getSubject() != null ? Long.valueOf(claims.getSubject()) : null;
+    }
+
+    /**
+     * 从请求中获取token
+     */
+    public static String getTokenFromRequest() {
+        HttpServletRequest request = currentRequest();
+        if (request == null) {
+            return null;
+        }
+        String token = stripPrefix(request.getHeader(TOKEN_HEADER));
+        return StringUtils.hasText(token) ? token : null;
+    }
+
+    /**
+     * 从请求属性中获取已解析的Claims，token与当前请求头不一致时视为未登录。
+     * 请求未经过AuthInterceptor时解析请求头，无效或已过期的token返回null
+     */
+    private static Claims getClaimsFromRequest() {
+        HttpServletRequest request = currentRequest();
+        if (request == null) {
+            return null;
+        }
+        Object parsed = request.getAttribute(CLAIMS_ATTRIBUTE);
+        if (parsed instanceof ParsedToken parsedToken
+                && parsedToken.token().equals(stripPrefix(request.getHeader(TOKEN_HEADER)))) {
+            return parsedToken.claims();
+        }
+        JwtUtil jwtUtil = instance;
+        return jwtUtil != null ? jwtUtil.resolveClaims(request) : null;
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes
+                ? servletAttributes.getRequest()
+                : null;
+    }
+
+    private static String stripPrefix(String token) {
+        if (token != null && token.startsWith(TOKEN_PREFIX)) {
+            return token.substring(TOKEN_PREFIX.length());
+        }
+        return token;
+    }
+
+    /**
+     * 计算token摘要，用作缓存和黑名单的key，避免保存原始token
+     */
+    public static String digest(String jwt) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && !expiration.after(new Date());
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package com.czj.rbac.util;
+
+import com.czj.rbac.common.BusinessException;
+import com.czj.rbac.common.CursorResult;
+import com.czj.rbac.common.ResponseCode;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 分页游标
+ * 记录上一页最后一行的(时间, id)，下一页按 time < t OR (time = t AND id < id) 定位，
+ * 查询代价与页深度无关。对外编码为不透明的Base64URL字符串
+ */
+@Getter
+public class PageCursor {
+
+    private static final String VERSION = "v1";
+
+    private static final String SEPARATOR = "|";
+
+    public static final int DEFAULT_SIZE = 10;
+
+    public static final int MAX_SIZE = 500;
+
+    private final LocalDateTime time;
+
+    private final long id;
+
+    public PageCursor(LocalDateTime time, long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    /**
+     * 编码为游标字符串
+     */
+    public String encode() {
+        String raw = VERSION + SEPARATOR + time + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串，为空时返回null表示第一页
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new PageCursor(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BusinessException(ResponseCode.PARAM_ERROR, "无效的分页游标");
+        }
+    }
+
+    /**
+     * 规范化每页大小
+     */
+    public static int normalizeSize(Integer size) {
+        if (size == null || size < 1) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * 由多查一条(size + 1)的结果构造分页结果，多出的一条只用于判断是否还有下一页
+     */
+    public static <T> CursorResult<T> page(List<T> rows, int size, Function<T, LocalDateTime> time,
+                                           Function<T, Long> id, Long total) {
+        if (rows.size() <= size) {
+            return new CursorResult<>(rows, null, size, total);
+        }
+        List<T> list = rows.subList(0, size);
+        T last = list.get(size - 1);
+        return new CursorResult<>(list, new PageCursor(time.apply(last), id.apply(last)).encode(), size, total);
+    }
+}
@@ -0,0 +1,108 @@
+package com.czj.rbac.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区
+ * 多生产者通过CAS占位写入，单消费者读取。每个槽位带序号，生产者写完元素后才发布序号，
+ * 消费者只读取已发布的槽位
+ */
+public class RingBuffer<T> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<T> slots;
+
+    /**
+     * 槽位序号：等于写入位置时可写，等于写入位置+1时可读
+     */
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 只由消费者线程修改
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于0: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 2);
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入元素，缓冲区已满时返回false
+     */
+    public boolean offer(T value) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, value);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false;
+            }
+            // sequence > position: 其他生产者已占用该位置，重读tail
+        }
+    }
+
+    /**
+     * 取出元素，没有可读元素时返回null。只能由单个消费者线程调用
+     */
+    public T poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        T value = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return value;
+    }
+
+    /**
+     * 批量取出最多max个元素到target，返回取出的数量。只能由单个消费者线程调用
+     */
+    public int drainTo(List<T> target, int max) {
+        int count = 0;
+        T value;
+        while (count < max && (value = poll()) != null) {
+            target.add(value);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 当前元素数(近似值)
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
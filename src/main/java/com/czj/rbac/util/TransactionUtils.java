@@ -0,0 +1,53 @@
+package com.czj.rbac.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionUtils {
+
+    /**
+     * 标记当前线程正在执行提交后回调，此时再注册的回调不会被事务管理器调用
+     */
+    private static final ThreadLocal<Boolean> IN_AFTER_COMMIT = new ThreadLocal<>();
+
+    /**
+     * 在当前事务提交后执行，没有事务或已处于提交后回调中时立即执行
+     *
+     * @param action 要执行的操作
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || IN_AFTER_COMMIT.get() != null) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                IN_AFTER_COMMIT.set(Boolean.TRUE);
+                try {
+                    action.run();
+                } finally {
+                    IN_AFTER_COMMIT.remove();
+                }
+            }
+        });
+    }
+
+    /**
+     * 在当前事务结束(提交或回滚)后执行，没有事务时立即执行
+     *
+     * @param action 要执行的操作
+     */
+    public static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,58 @@
+-- 日志表按天分区
+-- sys_log按create_time、sys_login_info按login_time做RANGE COLUMNS分区，过期数据由LogPartitionService整区删除。
+-- 迁移只创建两个分区: p_history存放执行迁移当天之前的已有数据，p_future(MAXVALUE)接收之后的数据；
+-- 按天的分区由LogPartitionService在应用启动时及之后每天从p_future拆出。带时间条件的分页查询只扫描相关分区。
+-- 分区键必须包含在所有唯一键中，因此主键改为(id, 时间列)。
+-- 注意: PARTITION BY会重建整张表，数据量大的环境请在低峰期或使用在线DDL工具执行
+
+-- p_history的上界为执行迁移的日期，分区定义只接受常量，通过预处理语句拼接
+SET @history_bound = DATE_FORMAT(CURDATE(), '%Y-%m-%d');
+
+-- 1. 系统日志表，分区列不允许为NULL，先补齐缺失的创建时间
+UPDATE sys_log SET create_time = CURRENT_TIMESTAMP WHERE create_time IS NULL;
+ALTER TABLE sys_log MODIFY create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间';
+ALTER TABLE sys_log DROP PRIMARY KEY, ADD PRIMARY KEY (id, create_time);
+SET @partition_sql = CONCAT('ALTER TABLE sys_log PARTITION BY RANGE COLUMNS (create_time) (',
+    'PARTITION p_history VALUES LESS THAN (''', @history_bound, '''), ',
+    'PARTITION p_future VALUES LESS THAN (MAXVALUE))');
+PREPARE partition_stmt FROM @partition_sql;
+EXECUTE partition_stmt;
+DEALLOCATE PREPARE partition_stmt;
+
+-- 2. 登录信息表
+-- 应用(LoginInfoMapper)读写sys_login_info，V1.0.21创建的login_info未被使用且缺少设备相关列。
+-- 从db/migration全新建库时sys_login_info不存在，按应用使用的结构补建，已有的表不受影响
+CREATE TABLE IF NOT EXISTS sys_login_info (
+    id BIGINT AUTO_INCREMENT COMMENT '主键ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    username VARCHAR(50) NOT NULL COMMENT '用户名',
+    login_id VARCHAR(50) NOT NULL COMMENT '登录标识',
+    device_type VARCHAR(20) COMMENT '设备类型',
+    device_info VARCHAR(200) COMMENT '设备信息',
+    browser VARCHAR(50) COMMENT '浏览器',
+    os VARCHAR(50) COMMENT '操作系统',
+    login_ip VARCHAR(50) COMMENT '登录IP',
+    login_location VARCHAR(100) COMMENT '登录地点',
+    login_time DATETIME NOT NULL COMMENT '登录时间',
+    logout_time DATETIME COMMENT '登出时间',
+    login_status TINYINT COMMENT '登录状态(1-成功 0-失败)',
+    fail_reason VARCHAR(200) COMMENT '失败原因',
+    status TINYINT DEFAULT 1 COMMENT '状态(1-正常 0-删除)',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (id),
+    INDEX idx_user_id (user_id),
+    INDEX idx_login_time (login_time),
+    INDEX idx_login_ip (login_ip),
+    INDEX idx_status (status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='登录信息记录表';
+-- 分区列不允许为NULL，先用创建时间补齐缺失的登录时间
+UPDATE sys_login_info SET login_time = COALESCE(create_time, CURRENT_TIMESTAMP) WHERE login_time IS NULL;
+ALTER TABLE sys_login_info MODIFY login_time DATETIME NOT NULL COMMENT '登录时间';
+ALTER TABLE sys_login_info DROP PRIMARY KEY, ADD PRIMARY KEY (id, login_time);
+SET @partition_sql = CONCAT('ALTER TABLE sys_login_info PARTITION BY RANGE COLUMNS (login_time) (',
+    'PARTITION p_history VALUES LESS THAN (''', @history_bound, '''), ',
+    'PARTITION p_future VALUES LESS THAN (MAXVALUE))');
+PREPARE partition_stmt FROM @partition_sql;
+EXECUTE partition_stmt;
+DEALLOCATE PREPARE partition_stmt;
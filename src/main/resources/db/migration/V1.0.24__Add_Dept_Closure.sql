@@ -0,0 +1,52 @@
+-- 部门树与数据权限范围
+-- sys_dept_closure为部门树的闭包表，每个部门与其自身及所有祖先各有一行(depth为层级差)，
+-- "X是否在Y之下"为主键点查，"某部门子树下的所有用户"为一次JOIN，无需递归查询。
+-- 部门移动时由SysDeptMapper.moveClosure增量维护，只改动被移动子树与原/新祖先之间的行。
+
+-- 1. 部门表
+CREATE TABLE IF NOT EXISTS sys_dept (
+    id BIGINT AUTO_INCREMENT COMMENT '主键ID',
+    parent_id BIGINT NOT NULL DEFAULT 0 COMMENT '父部门ID，0为顶级部门',
+    dept_name VARCHAR(50) NOT NULL COMMENT '部门名称',
+    sort_order INT DEFAULT 0 COMMENT '排序号',
+    status TINYINT DEFAULT 1 COMMENT '状态：0-禁用，1-启用',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (id),
+    KEY idx_parent_id (parent_id)
+) COMMENT '部门表';
+
+-- 2. 部门闭包表
+CREATE TABLE IF NOT EXISTS sys_dept_closure (
+    ancestor_id BIGINT NOT NULL COMMENT '祖先部门ID',
+    descendant_id BIGINT NOT NULL COMMENT '后代部门ID',
+    depth INT NOT NULL COMMENT '层级差，自身为0',
+    PRIMARY KEY (ancestor_id, descendant_id),
+    KEY idx_descendant_id (descendant_id, ancestor_id) COMMENT '按后代查祖先'
+) COMMENT '部门闭包表';
+
+-- 3. 用户所属部门
+ALTER TABLE sys_user ADD COLUMN dept_id BIGINT DEFAULT NULL COMMENT '所属部门ID' AFTER avatar;
+ALTER TABLE sys_user ADD KEY idx_dept_id (dept_id);
+
+-- 4. 角色数据权限范围：1-全部 2-仅本人 3-本部门及以下 4-本部门，默认仅本人，与原有行为一致
+ALTER TABLE sys_role ADD COLUMN data_scope TINYINT NOT NULL DEFAULT 2 COMMENT '数据权限范围' AFTER description;
+
+-- 5. 部门管理权限
+INSERT INTO sys_permission (permission_name, permission_code, description, pid, type, path, status, sort_order)
+SELECT N'部门管理', 'sys:dept:query', N'查看部门树', p.id, 'menu', '/system/dept', 1, 5
+FROM sys_permission p WHERE p.permission_code = 'system:manage';
+
+INSERT INTO sys_permission (permission_name, permission_code, description, pid, type, path, status, sort_order)
+SELECT t.permission_name, t.permission_code, t.description, p.id, 'button', NULL, 1, t.sort_order
+FROM sys_permission p,
+     (SELECT N'新增部门' AS permission_name, 'sys:dept:add' AS permission_code, N'新增部门' AS description, 1 AS sort_order
+      UNION ALL SELECT N'编辑部门', 'sys:dept:update', N'编辑、移动部门', 2
+      UNION ALL SELECT N'删除部门', 'sys:dept:delete', N'删除部门', 3) t
+WHERE p.permission_code = 'sys:dept:query';
+
+INSERT INTO sys_role_permission (role_id, permission_id)
+SELECT r.id, p.id
+FROM sys_role r, sys_permission p
+WHERE r.role_code = 'SUPER_ADMIN'
+AND p.permission_code IN ('sys:dept:query', 'sys:dept:add', 'sys:dept:update', 'sys:dept:delete');
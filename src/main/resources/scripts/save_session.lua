@@ -0,0 +1,46 @@
+-- 原子保存登录会话：裁剪会话列表、吊销被挤下线的会话、写入访问令牌和刷新令牌
+-- 只访问KEYS中声明的key，被挤下线的会话写入该用户的会话黑名单，不再按loginId拼接key
+-- KEYS[1] 会话列表  KEYS[2] 访问令牌  KEYS[3] 刷新令牌  KEYS[4] 用户会话黑名单  KEYS[5] 黑名单索引
+-- ARGV[1] 新会话条目(loginId|过期时间戳)  ARGV[2] 最大会话数  ARGV[3] 是否踢出旧会话(1/0)
+-- ARGV[4] 会话过期时间(毫秒)  ARGV[5] 访问令牌值  ARGV[6] 刷新令牌值(为空时不写入)
+-- ARGV[7] 刷新令牌过期时间(毫秒)  ARGV[8] 当前时间戳
+-- 返回: {状态(OK/REJECTED), 被挤下线的会话条目...}
+local maxSessions = tonumber(ARGV[2])
+local now = tonumber(ARGV[8])
+local size = redis.call('LLEN', KEYS[1])
+local excess = math.min(size, size - maxSessions + 1)
+
+if excess > 0 and ARGV[3] ~= '1' then
+    return {'REJECTED'}
+end
+
+local result = {'OK'}
+local revokedUntil = 0
+for i = 1, excess do
+    local entry = redis.call('LPOP', KEYS[1])
+    table.insert(result, entry)
+    local sep = string.find(entry, '|', 1, true)
+    if sep then
+        local loginId = string.sub(entry, 1, sep - 1)
+        local expireAt = tonumber(string.sub(entry, sep + 1))
+        if expireAt and expireAt > now then
+            redis.call('ZADD', KEYS[4], expireAt, loginId)
+            redis.call('ZADD', KEYS[5], expireAt, loginId)
+            revokedUntil = math.max(revokedUntil, expireAt)
+        end
+    end
+end
+
+if revokedUntil > 0 then
+    redis.call('ZREMRANGEBYSCORE', KEYS[4], '-inf', now)
+    local last = redis.call('ZRANGE', KEYS[4], -1, -1, 'WITHSCORES')
+    redis.call('PEXPIREAT', KEYS[4], math.max(revokedUntil, tonumber(last[2])))
+end
+
+redis.call('RPUSH', KEYS[1], ARGV[1])
+redis.call('PEXPIRE', KEYS[1], ARGV[4])
+redis.call('SET', KEYS[2], ARGV[5], 'PX', ARGV[4])
+if ARGV[6] ~= '' then
+    redis.call('SET', KEYS[3], ARGV[6], 'PX', ARGV[7])
+end
+return result
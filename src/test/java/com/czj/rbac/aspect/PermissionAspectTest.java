@@ -0,0 +1,93 @@
+package com.czj.rbac.aspect;
+
+import com.czj.rbac.annotation.RequirePermission;
+import com.czj.rbac.common.BusinessException;
+import com.czj.rbac.service.UnifiedPermissionService;
+import com.czj.rbac.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PermissionAspectTest {
+
+    private static final String TEST_SECRET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UnifiedPermissionService permissionService = mock(UnifiedPermissionService.class);
+
+    private final JwtUtil jwtUtil = new JwtUtil(TEST_SECRET, 3600000L, 100);
+
+    private UserEndpoint endpoint;
+
+    /**
+     * 带权限注解的目标方法
+     */
+    public static class UserEndpoint {
+
+        @RequirePermission("sys:user:query")
+        public String query() {
+            return "ok";
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        PermissionAspect aspect = new PermissionAspect();
+        ReflectionTestUtils.setField(aspect, "permissionService", permissionService);
+        ReflectionTestUtils.setField(aspect, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(aspect, "meterRegistry", meterRegistry);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new UserEndpoint());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        endpoint = factory.getProxy();
+
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 1L);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", JwtUtil.TOKEN_PREFIX + jwtUtil.generateJwt(claims));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testCheckPermission_GrantedRecordsTimer() {
+        when(permissionService.checkFunctionPermissions(eq(1L), eq(new String[]{"sys:user:query"}), eq(false)))
+            .thenReturn(true);
+
+        assertEquals("ok", endpoint.query());
+        assertEquals("ok", endpoint.query());
+
+        assertEquals(2, meterRegistry.get("rbac.permission.check")
+            .tag("permission", "sys:user:query")
+            .tag("result", "granted")
+            .timer().count());
+    }
+
+    @Test
+    public void testCheckPermission_DeniedRecordsTimer() {
+        when(permissionService.checkFunctionPermissions(anyLong(), any(), anyBoolean())).thenReturn(false);
+
+        assertThrows(BusinessException.class, () -> endpoint.query());
+
+        assertEquals(1, meterRegistry.get("rbac.permission.check").tag("result", "denied").timer().count());
+        assertNull(meterRegistry.find("rbac.permission.check").tag("result", "granted").timer());
+    }
+}
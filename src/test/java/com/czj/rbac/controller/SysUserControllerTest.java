@@ -44,6 +44,9 @@ public class SysUserControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
     private String testToken;
 
     @BeforeEach
@@ -56,7 +59,7 @@ public class SysUserControllerTest {
         claims.put("iat", new Date().getTime());
         claims.put("exp", new Date().getTime() + 3600000); // 1小时后过期
         
-        testToken = JwtUtil.TOKEN_PREFIX + JwtUtil.generateJwt(claims);
+        testToken = JwtUtil.TOKEN_PREFIX + jwtUtil.generateJwt(claims);
     }
 
     @Test
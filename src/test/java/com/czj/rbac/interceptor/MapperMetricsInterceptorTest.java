@@ -0,0 +1,71 @@
+package com.czj.rbac.interceptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.SQLException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class MapperMetricsInterceptorTest {
+
+    private static final String STATEMENT_ID = "com.czj.rbac.mapper.SysUserMapper.findById";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Executor target;
+
+    private Executor executor;
+
+    private MappedStatement statement;
+
+    @BeforeEach
+    public void setUp() {
+        MapperMetricsInterceptor interceptor = new MapperMetricsInterceptor();
+        ReflectionTestUtils.setField(interceptor, "meterRegistry", meterRegistry);
+        target = mock(Executor.class);
+        // 与MyBatis加载插件的方式一致，按@Intercepts签名拦截
+        executor = (Executor) Plugin.wrap(target, interceptor);
+        Configuration configuration = new Configuration();
+        SqlSource sqlSource = parameter -> null;
+        statement = new MappedStatement.Builder(configuration, STATEMENT_ID, sqlSource, SqlCommandType.SELECT).build();
+    }
+
+    @Test
+    public void testQuery_RecordsTimerPerStatement() throws Exception {
+        when(target.query(any(), any(), any(), any())).thenReturn(Collections.emptyList());
+
+        executor.query(statement, 1L, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        executor.query(statement, 2L, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+
+        assertEquals(2, meterRegistry.get("rbac.mapper")
+            .tag("statement", STATEMENT_ID)
+            .tag("command", "SELECT")
+            .tag("outcome", "success")
+            .timer().count());
+    }
+
+    @Test
+    public void testQuery_FailureRecordedAsError() throws Exception {
+        when(target.query(any(), any(), any(), any())).thenThrow(new SQLException("timeout"));
+
+        assertThrows(SQLException.class,
+            () -> executor.query(statement, 1L, RowBounds.DEFAULT, (ResultHandler<?>) Executor.NO_RESULT_HANDLER));
+
+        assertEquals(1, meterRegistry.get("rbac.mapper").tag("outcome", "error").timer().count());
+        assertNull(meterRegistry.find("rbac.mapper").tag("outcome", "success").timer());
+    }
+}
@@ -0,0 +1,206 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.LogConfig;
+import com.czj.rbac.mapper.SysLogMapper;
+import com.czj.rbac.model.SysLog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@ExtendWith(MockitoExtension.class)
+public class AuditLogWriterTest {
+
+    @InjectMocks
+    private AuditLogWriter auditLogWriter;
+
+    @Mock
+    private SysLogMapper logMapper;
+
+    @Mock
+    private AuditSpillStore spillStore;
+
+    @Spy
+    private LogConfig logConfig = new LogConfig();
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        auditLogWriter.destroy();
+    }
+
+    private static SysLog sysLog(int i) {
+        SysLog sysLog = new SysLog();
+        sysLog.setModule("test");
+        sysLog.setContent("content-" + i);
+        return sysLog;
+    }
+
+    private void awaitSpilled(long expected) throws InterruptedException {
+        await(() -> auditLogWriter.getSpilledCount() >= expected);
+    }
+
+    /**
+     * 轮询等待写入线程，溢出日志的方法是synchronized的，不能用verify(timeout)等待
+     */
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSubmit_BatchedBySize() throws Exception {
+        logConfig.getWriter().setBatchSize(100);
+        logConfig.getWriter().setFlushInterval(10000);
+        auditLogWriter.init();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(auditLogWriter.submit(sysLog(i)));
+        }
+
+        verify(logMapper, timeout(5000).times(10)).batchInsert(argThat(list -> ((List<SysLog>) list).size() == 100));
+        verify(logMapper, never()).insert(any());
+        assertEquals(1000, auditLogWriter.getWrittenCount());
+    }
+
+    @Test
+    public void testSubmit_FlushedByInterval() {
+        logConfig.getWriter().setFlushInterval(50);
+        auditLogWriter.init();
+
+        auditLogWriter.submit(sysLog(1));
+
+        verify(logMapper, timeout(2000)).batchInsert(argThat(list -> list.size() == 1));
+    }
+
+    @Test
+    public void testSubmit_DropWhenFull() throws Exception {
+        logConfig.getWriter().setBufferSize(4);
+        logConfig.getWriter().setFlushInterval(10000);
+        logConfig.getWriter().setBatchSize(1);
+        logConfig.getWriter().setOverflowPolicy(LogConfig.OverflowPolicy.DROP);
+        // 让写入线程阻塞在第一批写库上，缓冲区不再被消费
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return 1;
+        }).when(logMapper).batchInsert(anyList());
+        auditLogWriter.init();
+        auditLogWriter.submit(sysLog(0));
+        assertTrue(writing.await(2, TimeUnit.SECONDS));
+
+        try {
+            int accepted = 0;
+            for (int i = 1; i <= 10; i++) {
+                if (auditLogWriter.submit(sysLog(i))) {
+                    accepted++;
+                }
+            }
+
+            assertEquals(4, accepted);
+            assertEquals(6, auditLogWriter.getDroppedCount());
+            verify(spillStore, never()).append(any(SysLog.class));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testDatabaseDown_SpillsBatchAndBacksOff() throws Exception {
+        logConfig.getWriter().setFlushInterval(50);
+        logConfig.getWriter().setRetryInterval(60000);
+        doThrow(new RuntimeException("db down")).when(logMapper).batchInsert(anyList());
+        when(spillStore.append(anyList())).thenReturn(true);
+        auditLogWriter.init();
+
+        auditLogWriter.submit(sysLog(1));
+        awaitSpilled(1);
+        auditLogWriter.submit(sysLog(2));
+        awaitSpilled(2);
+
+        // 退避期内不再写库，也不回放
+        verify(spillStore, times(2)).append(anyList());
+        verify(logMapper, times(1)).batchInsert(anyList());
+        verify(spillStore, never()).replay(anyInt(), anyInt(), any());
+        assertFalse(auditLogWriter.isDatabaseAvailable());
+        assertEquals(2, auditLogWriter.getSpilledCount());
+        assertEquals(0, auditLogWriter.getFailedCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBadRow_QuarantinedWithoutSpilling() throws Exception {
+        logConfig.getWriter().setFlushInterval(50);
+        SysLog bad = sysLog(2);
+        doThrow(new DataIntegrityViolationException("Data too long")).when(logMapper).batchInsert(anyList());
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == bad) {
+                throw new DataIntegrityViolationException("Data too long");
+            }
+            return 1;
+        }).when(logMapper).insert(any());
+        when(spillStore.quarantine(anyList())).thenReturn(1);
+        auditLogWriter.init();
+
+        auditLogWriter.submit(sysLog(1));
+        auditLogWriter.submit(bad);
+        auditLogWriter.submit(sysLog(3));
+
+        await(() -> auditLogWriter.getQuarantinedCount() > 0);
+        verify(spillStore).quarantine(argThat(list -> ((List<SysLog>) list).equals(List.of(bad))));
+        verify(logMapper, times(3)).insert(any());
+        verify(spillStore, never()).append(anyList());
+        // 数据库可用，不进入退避
+        assertTrue(auditLogWriter.isDatabaseAvailable());
+        assertEquals(2, auditLogWriter.getWrittenCount());
+        assertEquals(1, auditLogWriter.getQuarantinedCount());
+    }
+
+    @Test
+    public void testReplay_BadRowDoesNotBlockJournal() throws Exception {
+        logConfig.getWriter().setFlushInterval(50);
+        SysLog bad = sysLog(2);
+        List<SysLog> journal = List.of(sysLog(1), bad);
+        doThrow(new DataIntegrityViolationException("Data too long")).when(logMapper).batchInsert(anyList());
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == bad) {
+                throw new DataIntegrityViolationException("Data too long");
+            }
+            return 1;
+        }).when(logMapper).insert(any());
+        when(spillStore.quarantine(anyList())).thenReturn(1);
+        when(spillStore.hasPending()).thenReturn(true, false);
+        AtomicBoolean replayed = new AtomicBoolean();
+        when(spillStore.replay(anyInt(), anyInt(), any())).thenAnswer(invocation -> {
+            replayed.set(invocation.<Predicate<List<SysLog>>>getArgument(2).test(journal));
+            return replayed.get() ? journal.size() : 0;
+        });
+        auditLogWriter.init();
+
+        await(replayed::get);
+        assertTrue(replayed.get());
+        verify(spillStore).quarantine(List.of(bad));
+        assertEquals(1, auditLogWriter.getWrittenCount());
+        assertTrue(auditLogWriter.isDatabaseAvailable());
+    }
+}
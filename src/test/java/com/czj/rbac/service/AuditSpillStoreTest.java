@@ -0,0 +1,144 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.LogConfig;
+import com.czj.rbac.model.SysLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AuditSpillStoreTest {
+
+    @TempDir
+    Path spillDir;
+
+    private LogConfig logConfig;
+
+    private AuditSpillStore spillStore;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        logConfig = new LogConfig();
+        logConfig.getWriter().setSpillPath(spillDir.toString());
+        logConfig.getWriter().setSegmentSize(4096);
+        spillStore = newStore();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        spillStore.destroy();
+    }
+
+    private AuditSpillStore newStore() throws Exception {
+        AuditSpillStore store = new AuditSpillStore();
+        ReflectionTestUtils.setField(store, "logConfig", logConfig);
+        ReflectionTestUtils.setField(store, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        store.init();
+        return store;
+    }
+
+    private static SysLog sysLog(int i) {
+        SysLog sysLog = new SysLog();
+        sysLog.setModule("test");
+        sysLog.setContent("content-" + i);
+        sysLog.setCreateTime(LocalDateTime.now());
+        return sysLog;
+    }
+
+    @Test
+    public void testAppendAndReplay_RotatesSegments() {
+        List<SysLog> logs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            logs.add(sysLog(i));
+        }
+        assertTrue(spillStore.append(logs));
+        assertTrue(spillStore.getSegmentCount() > 1);
+
+        List<SysLog> replayed = new ArrayList<>();
+        int count = spillStore.replay(50, batch -> replayed.addAll(batch));
+
+        assertEquals(200, count);
+        assertEquals("content-0", replayed.get(0).getContent());
+        assertEquals("content-199", replayed.get(199).getContent());
+        assertFalse(spillStore.hasPending());
+    }
+
+    @Test
+    public void testReplay_LimitedBatchesPerPass() {
+        List<SysLog> logs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            logs.add(sysLog(i));
+        }
+        assertTrue(spillStore.append(logs));
+
+        List<SysLog> replayed = new ArrayList<>();
+        int[] batches = {0};
+        int count = spillStore.replay(10, 3, batch -> batches[0]++ >= 0 && replayed.addAll(batch));
+        assertEquals(3, batches[0]);
+        assertEquals(replayed.size(), count);
+        assertTrue(spillStore.hasPending());
+
+        // 下一轮从上次的进度继续
+        assertEquals(200 - count, spillStore.replay(10, Integer.MAX_VALUE, batch -> replayed.addAll(batch)));
+        assertEquals("content-" + count, replayed.get(count).getContent());
+        assertEquals("content-199", replayed.get(199).getContent());
+        assertFalse(spillStore.hasPending());
+    }
+
+    @Test
+    public void testReplayFailure_ResumesFromCheckpointAfterRestart() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            spillStore.append(sysLog(i));
+        }
+        int[] calls = {0};
+        int count = spillStore.replay(4, batch -> calls[0]++ == 0);
+        assertEquals(4, count);
+        spillStore.destroy();
+
+        // 重启后从已持久化的进度继续
+        spillStore = newStore();
+        assertTrue(spillStore.hasPending());
+        List<SysLog> replayed = new ArrayList<>();
+        assertEquals(6, spillStore.replay(4, batch -> replayed.addAll(batch)));
+        assertEquals("content-4", replayed.get(0).getContent());
+        assertFalse(spillStore.hasPending());
+    }
+
+    @Test
+    public void testAppend_RejectedWhenSpillFull() {
+        logConfig.getWriter().setSpillMaxSize(2 * 4096);
+        List<SysLog> logs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            logs.add(sysLog(i));
+        }
+
+        assertFalse(spillStore.append(logs));
+        assertEquals(2, spillStore.getSegmentCount());
+        assertFalse(spillStore.append(sysLog(200)));
+
+        // 回放腾出空间后恢复追加
+        assertTrue(spillStore.replay(50, batch -> true) > 0);
+        assertTrue(spillStore.append(sysLog(201)));
+    }
+
+    @Test
+    public void testQuarantine_WritesLinesOutsideJournal() throws Exception {
+        assertEquals(2, spillStore.quarantine(List.of(sysLog(1), sysLog(2))));
+
+        List<String> lines = Files.readAllLines(spillDir.resolve("quarantine.ndjson"));
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("content-1"));
+        assertFalse(spillStore.hasPending());
+    }
+}
@@ -0,0 +1,127 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.CacheConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheInvalidationBusTest {
+    @InjectMocks
+    private CacheInvalidationBus invalidationBus;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private CacheConfig cacheConfig = new CacheConfig();
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("rbac:cache:invalidate".getBytes(StandardCharsets.UTF_8),
+            body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFlush_BatchesEntries() throws Exception {
+        invalidationBus.publish("user", CacheInvalidationBus.TYPE_KEY, "user:info:1");
+        invalidationBus.publish("user", CacheInvalidationBus.TYPE_KEY, "user:info:2");
+        invalidationBus.publish("permission:list", CacheInvalidationBus.TYPE_PREFIX, "permission:tree:");
+
+        invalidationBus.flush();
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate, times(1)).convertAndSend(eq("rbac:cache:invalidate"), payload.capture());
+        CacheInvalidationBus.InvalidationMessage sent =
+            objectMapper.readValue(payload.getValue(), CacheInvalidationBus.InvalidationMessage.class);
+        assertEquals(3, sent.getEntries().size());
+        assertEquals("permission:tree:", sent.getEntries().get(2).getKey());
+    }
+
+    @Test
+    public void testOnMessage_DispatchesRemoteAndIgnoresOwn() throws Exception {
+        List<CacheInvalidationBus.Entry> received = new ArrayList<>();
+        invalidationBus.register("user", received::add);
+
+        // 其他节点的消息
+        CacheInvalidationBus.InvalidationMessage remote = new CacheInvalidationBus.InvalidationMessage();
+        remote.setNodeId("other-node");
+        remote.setSequence(1);
+        remote.setEntries(Collections.singletonList(
+            new CacheInvalidationBus.Entry("user", CacheInvalidationBus.TYPE_KEY, "user:info:1")));
+        invalidationBus.onMessage(message(objectMapper.writeValueAsString(remote)), null);
+        assertEquals(1, received.size());
+
+        // 自己发出的消息
+        invalidationBus.publish("user", CacheInvalidationBus.TYPE_KEY, "user:info:2");
+        invalidationBus.flush();
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(anyString(), payload.capture());
+        invalidationBus.onMessage(message(payload.getValue()), null);
+        assertEquals(1, received.size());
+    }
+
+    private void receive(String node, long sequence, String key) throws Exception {
+        CacheInvalidationBus.InvalidationMessage remote = new CacheInvalidationBus.InvalidationMessage();
+        remote.setNodeId(node);
+        remote.setSequence(sequence);
+        remote.setEntries(Collections.singletonList(
+            new CacheInvalidationBus.Entry("user", CacheInvalidationBus.TYPE_KEY, key)));
+        invalidationBus.onMessage(message(objectMapper.writeValueAsString(remote)), null);
+    }
+
+    @Test
+    public void testOnMessage_SequenceGapInvalidatesAllCaches() throws Exception {
+        List<CacheInvalidationBus.Entry> users = new ArrayList<>();
+        List<CacheInvalidationBus.Entry> roles = new ArrayList<>();
+        invalidationBus.register("user", users::add);
+        invalidationBus.register("role", roles::add);
+
+        receive("node-a", 1, "user:info:1");
+        receive("node-a", 2, "user:info:2");
+        // 其他节点的序号各自独立
+        receive("node-b", 7, "user:info:3");
+        assertEquals(0, invalidationBus.getResyncCount());
+        assertTrue(roles.isEmpty());
+
+        // 丢失了序号3
+        receive("node-a", 4, "user:info:4");
+        assertEquals(1, invalidationBus.getResyncCount());
+        assertEquals(CacheInvalidationBus.TYPE_ALL, roles.get(0).getType());
+        assertTrue(users.stream().anyMatch(entry -> CacheInvalidationBus.TYPE_ALL.equals(entry.getType())));
+        assertEquals("user:info:4", users.get(users.size() - 1).getKey());
+    }
+
+    @Test
+    public void testResubscribe_InvalidatesAllCaches() {
+        List<CacheInvalidationBus.Entry> received = new ArrayList<>();
+        invalidationBus.register("user", received::add);
+        byte[] channel = "rbac:cache:invalidate".getBytes(StandardCharsets.UTF_8);
+
+        invalidationBus.onChannelSubscribed(channel, 1);
+        assertTrue(received.isEmpty());
+
+        invalidationBus.onChannelSubscribed(channel, 1);
+        assertEquals(1, received.size());
+        assertEquals(CacheInvalidationBus.TYPE_ALL, received.get(0).getType());
+    }
+}
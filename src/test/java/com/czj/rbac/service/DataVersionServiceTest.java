@@ -0,0 +1,95 @@
+package com.czj.rbac.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DataVersionServiceTest {
+
+    private static final String KEY = "data:version:permission";
+
+    @InjectMocks
+    private DataVersionService dataVersionService;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private CacheInvalidationBus.Listener listener;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        dataVersionService.init();
+        ArgumentCaptor<CacheInvalidationBus.Listener> captor = ArgumentCaptor.forClass(CacheInvalidationBus.Listener.class);
+        verify(invalidationBus).register(eq("data:version"), captor.capture());
+        listener = captor.getValue();
+    }
+
+    @Test
+    public void testGetVersion_CreatesEpochWithCounter() {
+        when(hashOperations.multiGet(eq(KEY), anyCollection()))
+            .thenReturn(Arrays.asList(null, null), Arrays.asList("e1", null));
+        when(hashOperations.putIfAbsent(eq(KEY), eq("epoch"), anyString())).thenReturn(false);
+        when(hashOperations.get(KEY, "epoch")).thenReturn("e1");
+
+        DataVersionService.Version version = dataVersionService.getVersion(DataVersionService.PERMISSION);
+
+        assertEquals("e1-0", version.toString());
+        // 之后读取本地记录
+        assertSame(version, dataVersionService.getVersion(DataVersionService.PERMISSION));
+        verify(hashOperations, times(2)).multiGet(eq(KEY), anyCollection());
+    }
+
+    @Test
+    public void testBump_FlushesDeltasBeforeIncrement() {
+        when(hashOperations.increment(KEY, "version", 1)).thenReturn(5L);
+        when(hashOperations.putIfAbsent(eq(KEY), eq("epoch"), anyString())).thenReturn(false);
+        when(hashOperations.get(KEY, "epoch")).thenReturn("e1");
+
+        dataVersionService.bump(DataVersionService.PERMISSION);
+
+        InOrder inOrder = inOrder(invalidationBus, hashOperations);
+        inOrder.verify(invalidationBus).flush();
+        inOrder.verify(hashOperations).increment(KEY, "version", 1);
+        inOrder.verify(invalidationBus).publish("data:version", CacheInvalidationBus.TYPE_KEY, "permission:e1-5");
+        assertEquals("e1-5", dataVersionService.getVersion(DataVersionService.PERMISSION).toString());
+    }
+
+    @Test
+    public void testRemoteBump_AdoptsVersionFromMessage() {
+        listener.onInvalidate(new CacheInvalidationBus.Entry("data:version", CacheInvalidationBus.TYPE_KEY, "permission:e1-7"));
+        // 乱序到达的旧版本号被忽略
+        listener.onInvalidate(new CacheInvalidationBus.Entry("data:version", CacheInvalidationBus.TYPE_KEY, "permission:e1-6"));
+
+        assertEquals("e1-7", dataVersionService.getVersion(DataVersionService.PERMISSION).toString());
+        verifyNoInteractions(hashOperations);
+    }
+
+    @Test
+    public void testRemoteBump_NewEpochReplacesOldCounter() {
+        listener.onInvalidate(new CacheInvalidationBus.Entry("data:version", CacheInvalidationBus.TYPE_KEY, "permission:e1-7"));
+        listener.onInvalidate(new CacheInvalidationBus.Entry("data:version", CacheInvalidationBus.TYPE_KEY, "permission:e2-1"));
+
+        assertEquals("e2-1", dataVersionService.getVersion(DataVersionService.PERMISSION).toString());
+    }
+}
@@ -0,0 +1,85 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.mapper.SysDeptMapper;
+import com.czj.rbac.model.SysDept;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DeptTreeIndexTest {
+
+    @InjectMocks
+    private DeptTreeIndex deptTreeIndex;
+
+    @Mock
+    private SysDeptMapper deptMapper;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @BeforeEach
+    public void setUp() {
+        // 1 ─┬─ 2 ─── 4
+        //    └─ 3 ─── 5 ─── 6
+        // 7
+        when(deptMapper.findAll()).thenReturn(List.of(
+            dept(1L, 0L), dept(2L, 1L), dept(3L, 1L), dept(4L, 2L),
+            dept(5L, 3L), dept(6L, 5L), dept(7L, 0L)));
+    }
+
+    @Test
+    public void testIsDescendant() {
+        assertTrue(deptTreeIndex.isDescendant(1L, 6L));
+        assertTrue(deptTreeIndex.isDescendant(3L, 3L));
+        assertFalse(deptTreeIndex.isDescendant(2L, 5L));
+        assertFalse(deptTreeIndex.isDescendant(6L, 3L));
+        assertFalse(deptTreeIndex.isDescendant(1L, 7L));
+        assertFalse(deptTreeIndex.isDescendant(1L, 99L));
+        assertEquals(7, deptTreeIndex.size());
+    }
+
+    @Test
+    public void testGetSubtreeIds() {
+        assertEquals(List.of(3L, 5L, 6L), deptTreeIndex.getSubtreeIds(3L));
+        assertEquals(List.of(1L, 2L, 4L, 3L, 5L, 6L), deptTreeIndex.getSubtreeIds(1L));
+        assertEquals(List.of(7L), deptTreeIndex.getSubtreeIds(7L));
+        assertTrue(deptTreeIndex.getSubtreeIds(99L).isEmpty());
+    }
+
+    @Test
+    public void testMoveAndRemove() {
+        deptTreeIndex.getAllIds();
+
+        // 无事务时立即生效：把5(含6)移动到2下
+        deptTreeIndex.put(5L, 2L);
+
+        assertEquals(List.of(2L, 4L, 5L, 6L), deptTreeIndex.getSubtreeIds(2L));
+        assertEquals(List.of(3L), deptTreeIndex.getSubtreeIds(3L));
+        assertFalse(deptTreeIndex.isDescendant(3L, 6L));
+
+        deptTreeIndex.remove(4L);
+
+        assertFalse(deptTreeIndex.contains(4L));
+        assertEquals(6, deptTreeIndex.size());
+        // 只在首次访问时加载，之后在内存中增量重建
+        verify(deptMapper, times(1)).findAll();
+        verify(invalidationBus, times(2)).publish(eq("dept:tree"), eq(CacheInvalidationBus.TYPE_ALL), isNull());
+    }
+
+    private static SysDept dept(Long id, Long parentId) {
+        SysDept dept = new SysDept();
+        dept.setId(id);
+        dept.setParentId(parentId);
+        return dept;
+    }
+}
@@ -0,0 +1,74 @@
+package com.czj.rbac.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+public class DistributedLockServiceTest {
+
+    @InjectMocks
+    private DistributedLockService lockService;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("lock:dept:tree"), any(), anyLong(), eq(TimeUnit.SECONDS)))
+            .thenReturn(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testTransactionLock_ReleasedAfterCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals("done", lockService.executeWithTransactionLock("dept:tree", 10, () -> "done"));
+
+        // 提交前仍持有锁
+        verify(redisTemplate, never()).delete(anyString());
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        verify(redisTemplate).delete("lock:dept:tree");
+    }
+
+    @Test
+    public void testTransactionLock_WithoutTransactionReleasesImmediately() {
+        assertEquals("done", lockService.executeWithTransactionLock("dept:tree", 10, () -> "done"));
+
+        verify(redisTemplate).delete("lock:dept:tree");
+    }
+}
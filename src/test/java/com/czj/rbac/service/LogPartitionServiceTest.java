@@ -0,0 +1,121 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.LogConfig;
+import com.czj.rbac.config.LoginLogConfig;
+import com.czj.rbac.mapper.LoginInfoMapper;
+import com.czj.rbac.mapper.PartitionMapper;
+import com.czj.rbac.mapper.SysLogMapper;
+import com.czj.rbac.model.TablePartition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class LogPartitionServiceTest {
+
+    @InjectMocks
+    private LogPartitionService logPartitionService;
+
+    @Mock
+    private PartitionMapper partitionMapper;
+
+    @Mock
+    private SysLogMapper logMapper;
+
+    @Mock
+    private LoginInfoMapper loginInfoMapper;
+
+    @Spy
+    private LogConfig logConfig = new LogConfig();
+
+    @Spy
+    private LoginLogConfig loginLogConfig = new LoginLogConfig();
+
+    private static TablePartition partition(String name, LocalDate lessThan) {
+        TablePartition partition = new TablePartition();
+        partition.setName(name);
+        partition.setLessThan(lessThan != null ? lessThan.toString() : null);
+        return partition;
+    }
+
+    @Test
+    public void testPurge_DropsOnlyFullyExpiredPartitions() {
+        LocalDate today = LocalDate.now();
+        when(partitionMapper.listPartitions(LogPartitionService.SYS_LOG)).thenReturn(List.of(
+            partition("p_history", today.minusDays(40)),
+            partition("p_old", today.minusDays(30)),
+            partition("p_recent", today.minusDays(29)),
+            partition("p_future", null)));
+
+        assertEquals(2, logPartitionService.purge(LogPartitionService.SYS_LOG, 30));
+
+        verify(partitionMapper).dropPartitions(LogPartitionService.SYS_LOG, List.of("p_history", "p_old"));
+        verifyNoInteractions(logMapper);
+    }
+
+    @Test
+    public void testPurge_NotPartitioned_DeletesInBatches() {
+        logConfig.getPartition().setDeleteBatchSize(100);
+        when(partitionMapper.listPartitions(LogPartitionService.SYS_LOG)).thenReturn(Collections.emptyList());
+        when(logMapper.deleteExpiredLogs(any(), eq(100))).thenReturn(100, 100, 20);
+
+        assertEquals(220, logPartitionService.purge(LogPartitionService.SYS_LOG, 30));
+
+        verify(logMapper, times(3)).deleteExpiredLogs(any(), eq(100));
+        verify(partitionMapper, never()).dropPartitions(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPrecreate_SplitsFuturePartitionUpToHorizon() {
+        logConfig.getPartition().setPrecreateDays(3);
+        LocalDate today = LocalDate.now();
+        when(partitionMapper.listPartitions(LogPartitionService.LOGIN_INFO)).thenReturn(List.of(
+            partition("p_history", today.minusDays(5)),
+            partition("p_today", today.plusDays(1)),
+            partition("p_future", null)));
+
+        assertEquals(3, logPartitionService.precreate(LogPartitionService.LOGIN_INFO));
+
+        verify(partitionMapper).addPartitions(eq(LogPartitionService.LOGIN_INFO), eq("p_future"), argThat(list -> {
+            List<TablePartition> partitions = (List<TablePartition>) list;
+            return partitions.size() == 3
+                && partitions.get(0).getLessThan().equals(today.plusDays(2).toString())
+                && partitions.get(2).getLessThan().equals(today.plusDays(4).toString());
+        }));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPrecreate_AfterMigrationCreatesDailyPartitionsFromToday() {
+        logConfig.getPartition().setPrecreateDays(3);
+        LocalDate today = LocalDate.now();
+        // 迁移只建了p_history和p_future
+        when(partitionMapper.listPartitions(LogPartitionService.SYS_LOG)).thenReturn(List.of(
+            partition("p_history", today),
+            partition("p_future", null)));
+
+        assertEquals(4, logPartitionService.precreate(LogPartitionService.SYS_LOG));
+
+        verify(partitionMapper).addPartitions(eq(LogPartitionService.SYS_LOG), eq("p_future"), argThat(list -> {
+            List<TablePartition> partitions = (List<TablePartition>) list;
+            return partitions.size() == 4
+                && partitions.get(0).getName().equals(today.format(DateTimeFormatter.ofPattern("'p'yyyyMMdd")))
+                && partitions.get(0).getLessThan().equals(today.plusDays(1).toString())
+                && partitions.get(3).getLessThan().equals(today.plusDays(4).toString());
+        }));
+    }
+}
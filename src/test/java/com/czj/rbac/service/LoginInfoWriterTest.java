@@ -0,0 +1,102 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.LoginLogConfig;
+import com.czj.rbac.mapper.LoginInfoMapper;
+import com.czj.rbac.model.LoginInfo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+
+@ExtendWith(MockitoExtension.class)
+public class LoginInfoWriterTest {
+
+    @InjectMocks
+    private LoginInfoWriter loginInfoWriter;
+
+    @Mock
+    private LoginInfoMapper loginInfoMapper;
+
+    @Spy
+    private LoginLogConfig loginLogConfig = new LoginLogConfig();
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        loginInfoWriter.destroy();
+    }
+
+    private static LoginInfo login(long userId) {
+        LoginInfo info = new LoginInfo();
+        info.setUserId(userId);
+        info.setUsername("user" + userId);
+        info.setLoginId("login-" + userId);
+        info.setLoginTime(LocalDateTime.now());
+        info.setLoginStatus(1);
+        return info;
+    }
+
+    private static LoginInfo logout(long userId) {
+        LoginInfo info = new LoginInfo();
+        info.setUserId(userId);
+        info.setLoginId("login-" + userId);
+        info.setLogoutTime(LocalDateTime.now());
+        return info;
+    }
+
+    private void awaitFlushed(long inserted) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loginInfoWriter.getInsertedCount() + loginInfoWriter.getFailedCount() < inserted
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testLoginsBatched_LogoutAfterInsert() throws Exception {
+        loginLogConfig.getWriter().setBatchSize(50);
+        loginLogConfig.getWriter().setFlushInterval(10000);
+        loginInfoWriter.init();
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(loginInfoWriter.submitLogin(login(i)));
+        }
+        loginInfoWriter.submitLogout(logout(1));
+        loginInfoWriter.destroy();
+
+        InOrder inOrder = inOrder(loginInfoMapper);
+        inOrder.verify(loginInfoMapper, atLeast(2)).batchInsert(anyList());
+        inOrder.verify(loginInfoMapper).batchUpdateLogoutTime(argThat(list -> list.size() == 1));
+        verify(loginInfoMapper, never()).batchInsert(argThat(list -> list.size() > 50));
+        verify(loginInfoMapper, never()).insert(any());
+        assertEquals(100, loginInfoWriter.getInsertedCount());
+        assertEquals(1, loginInfoWriter.getLogoutCount());
+        assertTrue(loginInfoWriter.getFlushCount() > 0);
+    }
+
+    @Test
+    public void testBatchFailure_FallsBackToSingleInsert() throws Exception {
+        loginLogConfig.getWriter().setFlushInterval(20);
+        doThrow(new RuntimeException("bad row")).when(loginInfoMapper).batchInsert(anyList());
+        lenient().doThrow(new RuntimeException("bad row")).when(loginInfoMapper).insert(argThat(info -> info.getUserId() == 2L));
+        loginInfoWriter.init();
+
+        for (int i = 1; i <= 3; i++) {
+            loginInfoWriter.submitLogin(login(i));
+        }
+        awaitFlushed(3);
+
+        assertEquals(2, loginInfoWriter.getInsertedCount());
+        assertEquals(1, loginInfoWriter.getFailedCount());
+    }
+}
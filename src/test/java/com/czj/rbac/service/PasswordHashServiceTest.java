@@ -0,0 +1,83 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.common.BusinessException;
+import com.czj.rbac.common.ResponseCode;
+import com.czj.rbac.config.PasswordConfig;
+import com.czj.rbac.util.PasswordUtil;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+
+public class PasswordHashServiceTest {
+
+    private PasswordHashService passwordHashService;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    public void setUp() {
+        PasswordConfig config = new PasswordConfig();
+        config.setStrength(4);
+        config.setPoolSize(1);
+        config.setQueueCapacity(1);
+        executor = config.passwordHashExecutor();
+        passwordHashService = new PasswordHashService();
+        ReflectionTestUtils.setField(passwordHashService, "passwordConfig", config);
+        ReflectionTestUtils.setField(passwordHashService, "passwordHashExecutor", executor);
+        passwordHashService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testEncodeAndMatches() {
+        String encoded = passwordHashService.encode("123456");
+
+        assertTrue(encoded.startsWith("$2"));
+        assertTrue(passwordHashService.matches("123456", encoded));
+        assertFalse(passwordHashService.matches("654321", encoded));
+        assertFalse(passwordHashService.needsRehash(encoded));
+    }
+
+    @Test
+    public void testLegacyHash_MatchesAndRehashes() {
+        String legacy = PasswordUtil.encode("123456");
+
+        assertTrue(passwordHashService.matches("123456", legacy));
+        assertTrue(passwordHashService.needsRehash(legacy));
+        String rehashed = passwordHashService.rehashIfNeeded("123456", legacy);
+        assertTrue(passwordHashService.matches("123456", rehashed));
+        assertNull(passwordHashService.rehashIfNeeded("123456", rehashed));
+    }
+
+    @Test
+    public void testSaturated_RejectsFast() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // 占满唯一的线程和队列
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> { });
+        try {
+            BusinessException e = assertThrows(BusinessException.class, () -> passwordHashService.encode("123456"));
+            assertEquals(ResponseCode.SERVICE_UNAVAILABLE.getCode(), e.getCode());
+            assertEquals(1, passwordHashService.getRejectedCount());
+        } finally {
+            release.countDown();
+        }
+    }
+}
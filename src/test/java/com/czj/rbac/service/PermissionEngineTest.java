@@ -0,0 +1,182 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.mapper.SysPermissionMapper;
+import com.czj.rbac.mapper.SysRoleMapper;
+import com.czj.rbac.mapper.SysUserMapper;
+import com.czj.rbac.model.SysPermission;
+import com.czj.rbac.model.SysRole;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class PermissionEngineTest {
+    @InjectMocks
+    private PermissionEngine permissionEngine;
+
+    @Mock
+    private SysPermissionMapper permissionMapper;
+
+    @Mock
+    private SysRoleMapper roleMapper;
+
+    @Mock
+    private SysUserMapper userMapper;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private static SysRole role(Long id, int status) {
+        SysRole role = new SysRole();
+        role.setId(id);
+        role.setStatus(status);
+        return role;
+    }
+
+    private void givenRole(Long roleId, String... codes) {
+        when(roleMapper.findById(roleId)).thenReturn(role(roleId, 1));
+        when(permissionMapper.findPermissionsByRoleId(roleId)).thenReturn(permissions(codes));
+    }
+
+    private static List<SysPermission> permissions(String... codes) {
+        List<SysPermission> list = new ArrayList<>();
+        for (String code : codes) {
+            SysPermission permission = new SysPermission();
+            permission.setPermissionCode(code);
+            list.add(permission);
+        }
+        return list;
+    }
+
+    @Test
+    public void testHasPermission_ColdEngine() {
+        when(userMapper.findRoleIdsByUserId(1L)).thenReturn(Arrays.asList(10L, 11L));
+        givenRole(10L, "user:list");
+        givenRole(11L, "user:add");
+
+        assertTrue(permissionEngine.hasPermission(1L, "user:list"));
+        assertTrue(permissionEngine.hasPermission(1L, "user:add"));
+        assertFalse(permissionEngine.hasPermission(1L, "user:delete"));
+        // 位图已缓存，只查询一次数据库
+        verify(userMapper, times(1)).findRoleIdsByUserId(1L);
+        verify(permissionMapper, times(1)).findPermissionsByRoleId(10L);
+    }
+
+    @Test
+    public void testAnyAndAllPermissions() {
+        when(userMapper.findRoleIdsByUserId(1L)).thenReturn(Collections.singletonList(10L));
+        givenRole(10L, "role:list", "role:edit");
+
+        assertTrue(permissionEngine.hasAnyPermission(1L, new String[]{"role:delete", "role:edit"}));
+        assertFalse(permissionEngine.hasAnyPermission(1L, new String[]{"role:delete"}));
+        assertTrue(permissionEngine.hasAllPermissions(1L, new String[]{"role:list", "role:edit"}));
+        assertFalse(permissionEngine.hasAllPermissions(1L, new String[]{"role:list", "role:delete"}));
+    }
+
+    @Test
+    public void testCompile_BeyondOneWord() {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 130; i++) {
+            codes.add("perm:" + i);
+        }
+        long[] bits = permissionEngine.compile(codes);
+        assertEquals(3, bits.length);
+        assertEquals(130, Arrays.stream(bits).map(Long::bitCount).sum());
+    }
+
+    @Test
+    public void testEvictUser_Reloads() {
+        when(userMapper.findRoleIdsByUserId(1L))
+            .thenReturn(Collections.singletonList(10L))
+            .thenReturn(Arrays.asList(10L, 11L));
+        givenRole(10L, "user:list");
+        givenRole(11L, "user:delete");
+
+        assertFalse(permissionEngine.hasPermission(1L, "user:delete"));
+        permissionEngine.evictUser(1L);
+        assertTrue(permissionEngine.hasPermission(1L, "user:delete"));
+    }
+
+    @Test
+    public void testEvictUser_RevokedRolesStopGrantingAfterCommit() {
+        when(userMapper.findRoleIdsByUserId(1L))
+            .thenReturn(Collections.singletonList(10L))
+            .thenReturn(Collections.emptyList());
+        givenRole(10L, "user:delete");
+        assertTrue(permissionEngine.hasPermission(1L, "user:delete"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            permissionEngine.evictUser(1L);
+            // 提交前不清除，避免并发校验回填提交前的角色
+            assertTrue(permissionEngine.hasPermission(1L, "user:delete"));
+            verify(userMapper, times(1)).findRoleIdsByUserId(1L);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertFalse(permissionEngine.hasPermission(1L, "user:delete"));
+        verify(invalidationBus).publish(anyString(), eq(CacheInvalidationBus.TYPE_KEY), eq("user:1"));
+    }
+
+    @Test
+    public void testRefreshRole_RecomputesOnlyRoleUsers() {
+        when(userMapper.findRoleIdsByUserId(1L)).thenReturn(Collections.singletonList(10L));
+        when(userMapper.findRoleIdsByUserId(2L)).thenReturn(Collections.singletonList(20L));
+        when(roleMapper.findById(10L)).thenReturn(role(10L, 1));
+        when(permissionMapper.findPermissionsByRoleId(10L))
+            .thenReturn(permissions("user:list"))
+            .thenReturn(permissions("user:list", "user:edit"));
+        givenRole(20L, "log:list");
+        when(userMapper.findUserIdsByRoleId(10L)).thenReturn(Collections.singletonList(1L));
+
+        assertFalse(permissionEngine.hasPermission(1L, "user:edit"));
+        assertTrue(permissionEngine.hasPermission(2L, "log:list"));
+
+        assertEquals(Collections.singletonList(1L), permissionEngine.refreshRole(10L));
+
+        assertTrue(permissionEngine.hasPermission(1L, "user:edit"));
+        assertTrue(permissionEngine.hasPermission(2L, "log:list"));
+        // 用户角色无需重新查询
+        verify(userMapper, times(1)).findRoleIdsByUserId(1L);
+        verify(userMapper, times(1)).findRoleIdsByUserId(2L);
+    }
+
+    @Test
+    public void testRefreshRole_DisabledRoleGrantsNothing() {
+        when(userMapper.findRoleIdsByUserId(1L)).thenReturn(Collections.singletonList(10L));
+        when(roleMapper.findById(10L)).thenReturn(role(10L, 1)).thenReturn(role(10L, 0));
+        when(permissionMapper.findPermissionsByRoleId(10L)).thenReturn(permissions("user:list"));
+        when(userMapper.findUserIdsByRoleId(10L)).thenReturn(Collections.singletonList(1L));
+
+        assertTrue(permissionEngine.hasPermission(1L, "user:list"));
+        permissionEngine.refreshRole(10L);
+        assertFalse(permissionEngine.hasPermission(1L, "user:list"));
+    }
+
+    @Test
+    public void testHasPermission_NullArguments() {
+        assertFalse(permissionEngine.hasPermission(null, "user:list"));
+        assertFalse(permissionEngine.hasPermission(1L, null));
+        verifyNoInteractions(permissionMapper);
+    }
+}
@@ -0,0 +1,117 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.mapper.SysPermissionMapper;
+import com.czj.rbac.model.SysPermission;
+import com.czj.rbac.model.vo.PermissionVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PermissionTreeIndexTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @InjectMocks
+    private PermissionTreeIndex permissionTreeIndex;
+
+    @Mock
+    private SysPermissionMapper permissionMapper;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @BeforeEach
+    public void setUp() {
+        // 1(menu) ─┬─ 2 ─── 4
+        //          └─ 3
+        // 5(button)
+        when(permissionMapper.findList(isNull(), isNull())).thenReturn(new ArrayList<>(List.of(
+            permission(1L, 0L, "menu"), permission(2L, 1L, "menu"), permission(3L, 1L, "button"),
+            permission(4L, 2L, "button"), permission(5L, 0L, "button"))));
+    }
+
+    @Test
+    public void testGetTree() {
+        List<PermissionVO> tree = permissionTreeIndex.getTree(null);
+
+        // 同层按创建时间倒序
+        assertEquals(List.of(5L, 1L), ids(tree));
+        assertEquals(List.of(3L, 2L), ids(tree.get(1).getChildren()));
+        assertEquals(List.of(4L), ids(tree.get(1).getChildren().get(1).getChildren()));
+        assertEquals(List.of(1L), ids(permissionTreeIndex.getTree("menu")));
+        assertEquals(5, permissionTreeIndex.size());
+    }
+
+    @Test
+    public void testMoveSharesUntouchedSubtrees() {
+        List<PermissionVO> before = permissionTreeIndex.getTree(null);
+        long version = permissionTreeIndex.getVersion();
+        PermissionVO untouched = before.get(1).getChildren().get(0);
+
+        // 把2(含4)移动到5下，无事务时立即生效
+        when(permissionMapper.findById(2L)).thenReturn(permission(2L, 5L, "menu"));
+        permissionTreeIndex.put(2L);
+
+        List<PermissionVO> after = permissionTreeIndex.getTree(null);
+        assertEquals(List.of(2L), ids(after.get(0).getChildren()));
+        assertEquals(List.of(4L), ids(after.get(0).getChildren().get(0).getChildren()));
+        assertEquals(List.of(3L), ids(after.get(1).getChildren()));
+        assertSame(untouched, after.get(1).getChildren().get(0));
+        assertTrue(permissionTreeIndex.isSelfOrDescendant(5L, 4L));
+        assertFalse(permissionTreeIndex.isSelfOrDescendant(1L, 4L));
+        assertTrue(permissionTreeIndex.getVersion() > version);
+        // 旧快照不受影响
+        assertEquals(List.of(3L, 2L), ids(before.get(1).getChildren()));
+        verify(permissionMapper, times(1)).findList(isNull(), isNull());
+        verify(invalidationBus).publish(eq("permission:tree"), eq(CacheInvalidationBus.TYPE_KEY), eq("2"));
+    }
+
+    @Test
+    public void testInsertAndRemove() {
+        permissionTreeIndex.getTree(null);
+
+        SysPermission added = permission(6L, 2L, "button");
+        added.setCreateTime(BASE_TIME.minusDays(1));
+        when(permissionMapper.findById(6L)).thenReturn(added);
+        permissionTreeIndex.put(6L);
+
+        assertEquals(List.of(4L, 6L), ids(permissionTreeIndex.getTree(null).get(1).getChildren().get(1).getChildren()));
+
+        permissionTreeIndex.remove(List.of(4L, 3L));
+
+        PermissionVO root = permissionTreeIndex.getTree(null).get(1);
+        assertEquals(List.of(2L), ids(root.getChildren()));
+        assertEquals(List.of(6L), ids(root.getChildren().get(0).getChildren()));
+        assertEquals(4, permissionTreeIndex.size());
+    }
+
+    private static List<Long> ids(List<PermissionVO> nodes) {
+        return nodes == null ? Collections.emptyList()
+            : nodes.stream().map(PermissionVO::getId).collect(Collectors.toList());
+    }
+
+    private static SysPermission permission(Long id, Long pid, String type) {
+        SysPermission permission = new SysPermission();
+        permission.setId(id);
+        permission.setPid(pid);
+        permission.setType(type);
+        permission.setPermissionCode("perm:" + id);
+        permission.setStatus(1);
+        permission.setCreateTime(BASE_TIME.plusSeconds(id));
+        return permission;
+    }
+}
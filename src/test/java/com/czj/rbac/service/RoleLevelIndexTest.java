@@ -0,0 +1,139 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.RoleLevelConfig;
+import com.czj.rbac.mapper.SysRoleMapper;
+import com.czj.rbac.mapper.SysUserMapper;
+import com.czj.rbac.model.SysRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RoleLevelIndexTest {
+
+    private static final long SUPER_ADMIN = 1L;
+    private static final long ADMIN = 2L;
+    private static final long MANAGER = 3L;
+    private static final long USER = 4L;
+
+    @InjectMocks
+    private RoleLevelIndex roleLevelIndex;
+
+    @Mock
+    private SysRoleMapper roleMapper;
+
+    @Mock
+    private SysUserMapper userMapper;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @Spy
+    private RoleLevelConfig roleLevelConfig = new RoleLevelConfig();
+
+    @BeforeEach
+    public void setUp() {
+        roleLevelConfig.setLevels(Map.of("ROLE_SUPER_ADMIN", 100, "ROLE_ADMIN", 80, "ROLE_MANAGER", 60, "ROLE_USER", 10));
+        lenient().when(roleMapper.findList(isNull())).thenReturn(List.of(
+            role(SUPER_ADMIN, "ROLE_SUPER_ADMIN", 1),
+            role(ADMIN, "ROLE_ADMIN", 1),
+            role(MANAGER, "ROLE_MANAGER", 1),
+            role(USER, "ROLE_USER", 1)));
+        // 用户ID与其角色对应：10超管 20管理员 30经理 40普通用户 50无角色
+        lenient().when(userMapper.findRoleIdsByUserId(10L)).thenReturn(List.of(SUPER_ADMIN));
+        lenient().when(userMapper.findRoleIdsByUserId(11L)).thenReturn(List.of(SUPER_ADMIN));
+        lenient().when(userMapper.findRoleIdsByUserId(20L)).thenReturn(List.of(USER, ADMIN));
+        lenient().when(userMapper.findRoleIdsByUserId(30L)).thenReturn(List.of(MANAGER));
+        lenient().when(userMapper.findRoleIdsByUserId(40L)).thenReturn(List.of(USER));
+        lenient().when(userMapper.findRoleIdsByUserId(50L)).thenReturn(Collections.emptyList());
+    }
+
+    private static SysRole role(long id, String code, int status) {
+        SysRole role = new SysRole();
+        role.setId(id);
+        role.setRoleCode(code);
+        role.setStatus(status);
+        return role;
+    }
+
+    @Test
+    public void testCanManage() {
+        assertEquals(80, roleLevelIndex.getUserLevel(20L));
+        assertTrue(roleLevelIndex.canManage(20L, 30L));
+        assertFalse(roleLevelIndex.canManage(30L, 20L));
+        // 超级管理员可管理包括其他超级管理员在内的所有用户
+        assertTrue(roleLevelIndex.canManage(10L, 11L));
+        // 目标没有角色视为最低等级，管理者没有角色不可管理他人
+        assertTrue(roleLevelIndex.canManage(40L, 50L));
+        assertFalse(roleLevelIndex.canManage(50L, 40L));
+        assertTrue(roleLevelIndex.canManage(50L, 50L));
+    }
+
+    @Test
+    public void testLookupsHitMemoryAfterFirstLoad() {
+        List<Long> targets = List.of(10L, 30L, 40L, 50L);
+        targets.forEach(targetId -> roleLevelIndex.canManage(20L, targetId));
+        clearInvocations(roleMapper, userMapper);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(List.of(30L, 40L, 50L),
+                targets.stream().filter(targetId -> roleLevelIndex.canManage(20L, targetId)).toList());
+        }
+
+        verifyNoInteractions(roleMapper, userMapper);
+    }
+
+    @Test
+    public void testGetUnmanageableRoleIds() {
+        // 等级不低于经理的启用角色
+        assertEquals(Set.of(SUPER_ADMIN, ADMIN, MANAGER), new HashSet<>(roleLevelIndex.getUnmanageableRoleIds(60)));
+        // 超级管理员可管理所有人
+        assertTrue(roleLevelIndex.getUnmanageableRoleIds(100).isEmpty());
+
+        when(roleMapper.findById(ADMIN)).thenReturn(role(ADMIN, "ROLE_ADMIN", 0));
+        roleLevelIndex.refreshRole(ADMIN);
+
+        // 禁用的角色不再排除
+        assertEquals(Set.of(SUPER_ADMIN, MANAGER), new HashSet<>(roleLevelIndex.getUnmanageableRoleIds(60)));
+    }
+
+    @Test
+    public void testUpdateUserRoles() {
+        assertFalse(roleLevelIndex.canManage(30L, 20L));
+
+        roleLevelIndex.updateUserRoles(30L, List.of(SUPER_ADMIN));
+
+        assertEquals(100, roleLevelIndex.getUserLevel(30L));
+        assertTrue(roleLevelIndex.canManage(30L, 20L));
+        verify(userMapper, times(1)).findRoleIdsByUserId(30L);
+        verify(invalidationBus).publish(eq("permission:role-level"), eq(CacheInvalidationBus.TYPE_KEY), eq("user:30"));
+    }
+
+    @Test
+    public void testRefreshRole_Disabled() {
+        assertEquals(80, roleLevelIndex.getUserLevel(20L));
+        assertTrue(roleLevelIndex.canManage(20L, 30L));
+
+        when(roleMapper.findById(ADMIN)).thenReturn(role(ADMIN, "ROLE_ADMIN", 0));
+        roleLevelIndex.refreshRole(ADMIN);
+
+        // 管理员角色禁用后只剩普通用户角色
+        assertEquals(10, roleLevelIndex.getUserLevel(20L));
+        assertFalse(roleLevelIndex.canManage(20L, 30L));
+        verify(userMapper, times(1)).findRoleIdsByUserId(20L);
+    }
+}
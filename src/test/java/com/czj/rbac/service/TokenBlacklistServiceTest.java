@@ -0,0 +1,122 @@
+package com.czj.rbac.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenBlacklistServiceTest {
+
+    @InjectMocks
+    private TokenBlacklistService tokenBlacklistService;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(tokenBlacklistService, "expectedSize", 1000L);
+        ReflectionTestUtils.setField(tokenBlacklistService, "fpp", 0.01);
+        ReflectionTestUtils.setField(tokenBlacklistService, "refreshInterval", 60000L);
+        lenient().when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    private static Claims claims(String loginId) {
+        Claims claims = Jwts.claims();
+        claims.setExpiration(new Date(System.currentTimeMillis() + 3600000L));
+        claims.put("loginId", loginId);
+        return claims;
+    }
+
+    @Test
+    public void testIsRevoked_FilterMissSkipsRedis() {
+        when(zSetOperations.range("token:blacklist:index", 0, -1)).thenReturn(Collections.emptySet());
+        tokenBlacklistService.rebuild();
+
+        for (int i = 0; i < 100; i++) {
+            assertFalse(tokenBlacklistService.isRevoked("jwt" + i, claims("login-" + i)));
+        }
+        verify(stringRedisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    public void testRevoke_UsesLoginIdKey() {
+        when(zSetOperations.range("token:blacklist:index", 0, -1)).thenReturn(Collections.singleton("login-1"));
+        tokenBlacklistService.rebuild();
+        when(valueOperations.setIfAbsent(eq("token:blacklist:login-2"), eq("1"), anyLong(), eq(TimeUnit.MILLISECONDS)))
+            .thenReturn(true);
+        when(stringRedisTemplate.hasKey(startsWith("token:blacklist:login-"))).thenReturn(true);
+
+        assertTrue(tokenBlacklistService.revoke("jwt2", claims("login-2")));
+
+        assertTrue(tokenBlacklistService.isRevoked("jwt1", claims("login-1")));
+        assertTrue(tokenBlacklistService.isRevoked("jwt2", claims("login-2")));
+        verify(invalidationBus).publish("token:blacklist", CacheInvalidationBus.TYPE_KEY, "login-2");
+    }
+
+    @Test
+    public void testIsRevoked_EvictedSessionInUserBlacklist() {
+        Claims claims = claims("login-4");
+        claims.put("userId", 7L);
+        when(stringRedisTemplate.hasKey("token:blacklist:login-4")).thenReturn(false);
+        when(zSetOperations.score("token:blacklist:user:7", "login-4"))
+            .thenReturn((double) (System.currentTimeMillis() + 60000));
+
+        assertTrue(tokenBlacklistService.isRevoked("jwt4", claims));
+    }
+
+    @Test
+    public void testIsRevoked_NotLoadedFallsBackToRedis() {
+        when(stringRedisTemplate.hasKey("token:blacklist:login-3")).thenReturn(false);
+
+        assertFalse(tokenBlacklistService.isRevoked("jwt3", claims("login-3")));
+        verify(stringRedisTemplate).hasKey("token:blacklist:login-3");
+    }
+
+    @Test
+    public void testInit_MessageDuringRegistrationTriggersRebuild() {
+        // 订阅生效后立即收到全量失效消息
+        doAnswer(invocation -> {
+            invocation.<CacheInvalidationBus.Listener>getArgument(1)
+                .onInvalidate(new CacheInvalidationBus.Entry("token:blacklist", CacheInvalidationBus.TYPE_ALL, null));
+            return null;
+        }).when(invalidationBus).register(anyString(), any());
+        when(zSetOperations.range("token:blacklist:index", 0, -1)).thenReturn(Collections.emptySet());
+
+        tokenBlacklistService.init();
+        try {
+            // 定时任务首次执行和消息触发的重建各一次
+            verify(zSetOperations, timeout(1000).times(2)).range("token:blacklist:index", 0, -1);
+        } finally {
+            tokenBlacklistService.destroy();
+        }
+    }
+}
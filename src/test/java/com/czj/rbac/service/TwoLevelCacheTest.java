@@ -0,0 +1,162 @@
+package com.czj.rbac.service;
+
+import com.czj.rbac.config.CacheConfig;
+import com.czj.rbac.model.vo.UserVO;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+public class TwoLevelCacheTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    // 与Spring Boot默认配置一致，忽略未知字段
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private TwoLevelCache<UserVO> cache;
+
+    @BeforeEach
+    public void setUp() {
+        CacheConfig.CacheProperties properties = new CacheConfig.CacheProperties();
+        cache = new TwoLevelCache<>("user", properties,
+            objectMapper.getTypeFactory().constructType(UserVO.class), redisTemplate, objectMapper, invalidationBus);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    public void testGet_RedisHitFillsLocal() throws Exception {
+        UserVO userVO = new UserVO();
+        userVO.setId(1L);
+        userVO.setUsername("admin");
+        when(valueOperations.get("user:info:1")).thenReturn(objectMapper.writeValueAsString(userVO));
+
+        UserVO first = cache.get("user:info:1");
+        UserVO second = cache.get("user:info:1");
+
+        assertEquals("admin", first.getUsername());
+        assertSame(first, second);
+        // 第二次命中本地缓存，不再访问Redis
+        verify(valueOperations, times(1)).get("user:info:1");
+    }
+
+    @Test
+    public void testGet_LoaderCachesNull() {
+        when(valueOperations.get("user:info:2")).thenReturn(null);
+
+        assertNull(cache.get("user:info:2", () -> null));
+        assertNull(cache.get("user:info:2", () -> fail("不应再次加载")));
+
+        verify(valueOperations).set("user:info:2", "NULL", 60L, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testEvict_ClearsBothLevels() {
+        UserVO userVO = new UserVO();
+        userVO.setId(3L);
+        cache.put("user:info:3", userVO);
+        assertSame(userVO, cache.get("user:info:3"));
+
+        cache.evict("user:info:3");
+
+        verify(redisTemplate).delete("user:info:3");
+        when(valueOperations.get("user:info:3")).thenReturn(null);
+        assertNull(cache.get("user:info:3"));
+    }
+
+    @Test
+    public void testGet_CorruptedValueDeleted() {
+        when(valueOperations.get("user:info:4")).thenReturn("{not json");
+
+        assertNull(cache.get("user:info:4"));
+        verify(redisTemplate).delete("user:info:4");
+    }
+
+    @Test
+    public void testGet_LoaderNotCachedWhenEvictedDuringLoad() {
+        when(valueOperations.get("user:info:5")).thenReturn(null);
+        UserVO stale = new UserVO();
+        stale.setId(5L);
+
+        UserVO loaded = cache.get("user:info:5", () -> {
+            // 加载期间其他线程删除了缓存
+            cache.evict("user:info:5");
+            return stale;
+        });
+
+        assertSame(stale, loaded);
+        verify(valueOperations, never()).set(eq("user:info:5"), any(), anyLong(), any());
+        assertNull(cache.get("user:info:5"));
+    }
+
+    @Test
+    public void testEvict_RepeatedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evict("user:info:6");
+            verify(redisTemplate, times(1)).delete("user:info:6");
+
+            // 提交前其他线程读到旧数据并回填
+            UserVO stale = new UserVO();
+            stale.setId(6L);
+            cache.put("user:info:6", stale);
+            assertSame(stale, cache.get("user:info:6"));
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(redisTemplate, times(2)).delete("user:info:6");
+        when(valueOperations.get("user:info:6")).thenReturn(null);
+        assertNull(cache.get("user:info:6"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvictByPrefix_ScansAndDeletesKeys() {
+        UserVO userVO = new UserVO();
+        userVO.setId(7L);
+        cache.put("user:info:7", userVO);
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenReturn(true, true, false);
+        when(cursor.next()).thenReturn("user:info:7", "user:info:8");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+
+        cache.evictByPrefix("user:info:");
+
+        verify(redisTemplate).delete(List.of("user:info:7", "user:info:8"));
+        verify(cursor).close();
+        verify(invalidationBus).publish("user", CacheInvalidationBus.TYPE_PREFIX, "user:info:");
+        when(valueOperations.get("user:info:7")).thenReturn(null);
+        assertNull(cache.get("user:info:7"));
+    }
+}
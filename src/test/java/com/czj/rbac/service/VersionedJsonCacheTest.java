@@ -0,0 +1,117 @@
+package com.czj.rbac.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class VersionedJsonCacheTest {
+
+    @InjectMocks
+    private VersionedJsonCache versionedJsonCache;
+
+    @Mock
+    private DataVersionService dataVersionService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private final Supplier<Object> body = () -> {
+        renders.incrementAndGet();
+        return List.of("sys:user:query");
+    };
+
+    @Test
+    public void testNotModifiedSkipsRendering() {
+        when(dataVersionService.getVersion(DataVersionService.PERMISSION)).thenReturn(version("k1", 3));
+
+        ResponseEntity<byte[]> first = versionedJsonCache.respond(request(null), DataVersionService.PERMISSION, "tree", body);
+        String etag = first.getHeaders().getETag();
+        assertEquals("\"permission-k1-3\"", etag);
+        assertEquals("[\"sys:user:query\"]", new String(first.getBody()));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<byte[]> second = versionedJsonCache.respond(
+            new ServletWebRequest(ifNoneMatch(etag), response), DataVersionService.PERMISSION, "tree", body);
+
+        assertNull(second);
+        assertEquals(304, response.getStatus());
+        assertEquals(1, renders.get());
+        assertEquals(1, versionedJsonCache.getNotModifiedCount());
+    }
+
+    @Test
+    public void testRenderedBytesCachedPerVersion() {
+        when(dataVersionService.getVersion(DataVersionService.ROLE)).thenReturn(version("k1", 1), version("k1", 1), version("k1", 2));
+
+        byte[] first = versionedJsonCache.respond(request(null), DataVersionService.ROLE, "list", body).getBody();
+        byte[] second = versionedJsonCache.respond(request(null), DataVersionService.ROLE, "list", body).getBody();
+        assertSame(first, second);
+        assertEquals(1, renders.get());
+
+        // 版本号变化后旧的ETag不再命中，重新序列化
+        ResponseEntity<byte[]> third = versionedJsonCache.respond(
+            request("\"role-k1-1\""), DataVersionService.ROLE, "list", body);
+        assertEquals("\"role-k1-2\"", third.getHeaders().getETag());
+        assertEquals(2, renders.get());
+        assertEquals(1, versionedJsonCache.getHitCount());
+    }
+
+    @Test
+    public void testVersionUnavailable() {
+        when(dataVersionService.getVersion(DataVersionService.ROLE)).thenReturn(null);
+
+        ResponseEntity<byte[]> response = versionedJsonCache.respond(
+            request("\"role-k1-0\""), DataVersionService.ROLE, "list", body);
+
+        assertNull(response.getHeaders().getETag());
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void testEpochChangeInvalidatesETag() {
+        when(dataVersionService.getVersion(DataVersionService.ROLE)).thenReturn(version("k2", 1));
+
+        // Redis清空后计数器从头开始，旧纪元的ETag不再命中
+        ResponseEntity<byte[]> response = versionedJsonCache.respond(
+            request("\"role-k1-1\""), DataVersionService.ROLE, "list", body);
+
+        assertEquals("\"role-k2-1\"", response.getHeaders().getETag());
+        assertEquals(1, renders.get());
+    }
+
+    private static DataVersionService.Version version(String epoch, long value) {
+        return new DataVersionService.Version(epoch, value);
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        return new ServletWebRequest(ifNoneMatch(ifNoneMatch), new MockHttpServletResponse());
+    }
+
+    private static MockHttpServletRequest ifNoneMatch(String etag) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/permission/tree");
+        if (etag != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        return request;
+    }
+}
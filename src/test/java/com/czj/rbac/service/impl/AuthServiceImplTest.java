@@ -0,0 +1,80 @@
+package com.czj.rbac.service.impl;
+
+import com.czj.rbac.interceptor.AuthInterceptor;
+import com.czj.rbac.mapper.SysUserMapper;
+import com.czj.rbac.service.SysLogService;
+import com.czj.rbac.service.TokenBlacklistService;
+import com.czj.rbac.service.TokenService;
+import com.czj.rbac.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthServiceImplTest {
+
+    private static final String TEST_SECRET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    @InjectMocks
+    private AuthServiceImpl authService;
+
+    @Mock
+    private TokenService tokenService;
+
+    @Mock
+    private SysLogService logService;
+
+    @Mock
+    private SysUserMapper userMapper;
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testLogout_RevokesToken() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil(TEST_SECRET, 3600000L, 10000);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 1L);
+        claims.put("username", "admin");
+        String jwt = jwtUtil.generateJwt(claims);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/logout");
+        request.addHeader("Authorization", JwtUtil.TOKEN_PREFIX + jwt);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        // 登出在拦截器白名单中，携带的token仍需被解析
+        AuthInterceptor interceptor = new AuthInterceptor();
+        ReflectionTestUtils.setField(interceptor, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(interceptor, "tokenBlacklistService", mock(TokenBlacklistService.class));
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+
+        authService.logout();
+
+        verify(tokenService).removeToken(1L);
+    }
+
+    @Test
+    public void testLogout_WithoutToken() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(
+            new MockHttpServletRequest("POST", "/auth/logout")));
+
+        authService.logout();
+
+        verifyNoInteractions(tokenService);
+    }
+}
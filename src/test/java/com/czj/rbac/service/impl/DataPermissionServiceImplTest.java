@@ -0,0 +1,158 @@
+package com.czj.rbac.service.impl;
+
+import com.czj.rbac.mapper.SysRoleMapper;
+import com.czj.rbac.mapper.SysUserMapper;
+import com.czj.rbac.model.SysRole;
+import com.czj.rbac.model.SysUser;
+import com.czj.rbac.model.enums.DataScope;
+import com.czj.rbac.model.query.UserDataScope;
+import com.czj.rbac.service.RoleLevelIndex;
+import com.czj.rbac.service.SysPermissionService;
+import com.czj.rbac.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DataPermissionServiceImplTest {
+
+    private static final Long CURRENT_USER_ID = 7L;
+
+    @InjectMocks
+    private DataPermissionServiceImpl dataPermissionService;
+
+    @Mock
+    private SysPermissionService permissionService;
+
+    @Mock
+    private SysRoleMapper roleMapper;
+
+    @Mock
+    private SysUserMapper userMapper;
+
+    @Mock
+    private RoleLevelIndex roleLevelIndex;
+
+    private MockedStatic<JwtUtil> jwtUtil;
+
+    @BeforeEach
+    public void setUp() {
+        jwtUtil = mockStatic(JwtUtil.class);
+        jwtUtil.when(JwtUtil::getCurrentUserId).thenReturn(CURRENT_USER_ID);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jwtUtil.close();
+    }
+
+    @Test
+    public void testResolveUserDataScope_All() {
+        when(permissionService.findPermissionsByUserId(CURRENT_USER_ID)).thenReturn(List.of("sys:user:all"));
+
+        UserDataScope scope = dataPermissionService.resolveUserDataScope();
+
+        assertTrue(scope.isAll());
+        verifyNoInteractions(roleMapper);
+    }
+
+    @Test
+    public void testResolveUserDataScope_Manager() {
+        when(permissionService.findPermissionsByUserId(CURRENT_USER_ID)).thenReturn(List.of("sys:user:manager"));
+        when(roleMapper.findRolesByUserId(CURRENT_USER_ID)).thenReturn(List.of(new SysRole()));
+        when(roleLevelIndex.getUserLevel(CURRENT_USER_ID)).thenReturn(60);
+        when(roleLevelIndex.getUnmanageableRoleIds(60)).thenReturn(List.of(1L, 2L, 3L));
+
+        UserDataScope scope = dataPermissionService.resolveUserDataScope();
+
+        assertFalse(scope.isAll());
+        assertTrue(scope.isManaged());
+        assertEquals(List.of(1L, 2L, 3L), scope.getExcludedRoleIds());
+        assertEquals(CURRENT_USER_ID, scope.getUserId());
+        // 只查询一次管理员角色，不逐行查询目标用户
+        verify(roleMapper, times(1)).findRolesByUserId(anyLong());
+    }
+
+    @Test
+    public void testResolveUserDataScope_SuperAdminLevelManager() {
+        when(permissionService.findPermissionsByUserId(CURRENT_USER_ID)).thenReturn(List.of("sys:user:manager"));
+        when(roleMapper.findRolesByUserId(CURRENT_USER_ID)).thenReturn(List.of(new SysRole()));
+        when(roleLevelIndex.getUserLevel(CURRENT_USER_ID)).thenReturn(100);
+        when(roleLevelIndex.getUnmanageableRoleIds(100)).thenReturn(Collections.emptyList());
+
+        assertTrue(dataPermissionService.resolveUserDataScope().isAll());
+    }
+
+    @Test
+    public void testCheckUserDataPermission_ManagerComparesRoleLevels() {
+        when(permissionService.findPermissionsByUserId(CURRENT_USER_ID)).thenReturn(List.of("sys:user:manager"));
+        when(roleMapper.findRolesByUserId(CURRENT_USER_ID)).thenReturn(List.of(new SysRole()));
+        when(roleLevelIndex.getUserLevel(CURRENT_USER_ID)).thenReturn(60);
+        when(roleLevelIndex.canManage(CURRENT_USER_ID, 8L)).thenReturn(true);
+        when(roleLevelIndex.canManage(CURRENT_USER_ID, 9L)).thenReturn(false);
+
+        assertTrue(dataPermissionService.checkUserDataPermission(8L));
+        assertFalse(dataPermissionService.checkUserDataPermission(9L));
+        // 目标用户的角色走内存索引，不查询数据库
+        verify(roleMapper, never()).findRolesByUserId(8L);
+        verify(roleMapper, never()).findRolesByUserId(9L);
+    }
+
+    @Test
+    public void testResolveUserDataScope_ManagerWithoutRole() {
+        when(permissionService.findPermissionsByUserId(CURRENT_USER_ID)).thenReturn(List.of("sys:user:manager"));
+        when(roleMapper.findRolesByUserId(CURRENT_USER_ID)).thenReturn(Collections.emptyList());
+        when(roleLevelIndex.getUserLevel(CURRENT_USER_ID)).thenReturn(RoleLevelIndex.NO_ROLE);
+
+        UserDataScope scope = dataPermissionService.resolveUserDataScope();
+
+        assertFalse(scope.isAll());
+        assertFalse(scope.isManaged());
+        assertEquals(CURRENT_USER_ID, scope.getUserId());
+    }
+
+    @Test
+    public void testResolveUserDataScope_NotLoggedIn() {
+        jwtUtil.when(JwtUtil::getCurrentUserId).thenReturn(null);
+
+        UserDataScope scope = dataPermissionService.resolveUserDataScope();
+
+        assertFalse(scope.isAll());
+        assertFalse(scope.isManaged());
+        assertNull(scope.getUserId());
+        verifyNoInteractions(permissionService);
+    }
+
+    @Test
+    public void testResolveUserDataScope_DeptAndChild() {
+        SysRole deptRole = new SysRole();
+        deptRole.setDataScope(DataScope.DEPT_AND_CHILD.getCode());
+        SysRole selfRole = new SysRole();
+        selfRole.setDataScope(DataScope.SELF.getCode());
+        SysUser currentUser = new SysUser();
+        currentUser.setDeptId(3L);
+        when(permissionService.findPermissionsByUserId(CURRENT_USER_ID)).thenReturn(Collections.emptyList());
+        when(roleMapper.findRolesByUserId(CURRENT_USER_ID)).thenReturn(List.of(selfRole, deptRole));
+        when(userMapper.findById(CURRENT_USER_ID)).thenReturn(currentUser);
+
+        UserDataScope scope = dataPermissionService.resolveUserDataScope();
+
+        // 多个角色取最大范围
+        assertFalse(scope.isAll());
+        assertFalse(scope.isManaged());
+        assertEquals(3L, scope.getDeptId());
+        assertTrue(scope.isIncludeChildDepts());
+    }
+}
@@ -0,0 +1,159 @@
+package com.czj.rbac.service.impl;
+
+import com.czj.rbac.config.IdentifierConfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class LocalUserIdentifierServiceImplTest {
+
+    @TempDir
+    Path dir;
+
+    private IdentifierConfig identifierConfig;
+
+    private LocalUserIdentifierServiceImpl identifierService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        identifierConfig = new IdentifierConfig();
+        identifierConfig.setSegmentStep(100);
+        identifierConfig.setCheckpointPath(dir.resolve("sequence.checkpoint").toString());
+        // 不读取工作目录下的旧序号文件
+        identifierConfig.setLegacySequencePath(dir.resolve("sequence.txt").toString());
+        identifierService = newService();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        identifierService.destroy();
+    }
+
+    private LocalUserIdentifierServiceImpl newService() throws Exception {
+        LocalUserIdentifierServiceImpl service = new LocalUserIdentifierServiceImpl();
+        ReflectionTestUtils.setField(service, "identifierConfig", identifierConfig);
+        service.init();
+        return service;
+    }
+
+    private static long sequenceOf(String identifier) {
+        return Long.parseLong(identifier.substring(2));
+    }
+
+    @Test
+    public void testGenerate_ConcurrentUniqueAndContiguous() throws Exception {
+        long start = identifierService.getCurrentMaxSequence();
+        int threads = 16;
+        int perThread = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        Set<Long> sequences = ConcurrentHashMap.newKeySet();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    for (int i = 0; i < perThread; i++) {
+                        String identifier = identifierService.generateUserIdentifier();
+                        assertNotNull(identifier);
+                        sequences.add(sequenceOf(identifier));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int total = threads * perThread;
+        assertEquals(total, sequences.size());
+        // 未发生崩溃时序号连续
+        for (long sequence = start + 1; sequence <= start + total; sequence++) {
+            assertTrue(sequences.contains(sequence), "missing: " + sequence);
+        }
+        assertEquals(start + total, identifierService.getCurrentMaxSequence());
+    }
+
+    @Test
+    public void testRestart_ContinuesAfterCheckpoint() throws Exception {
+        long last = 0;
+        for (int i = 0; i < 150; i++) {
+            last = sequenceOf(identifierService.generateUserIdentifier());
+        }
+        // 不调用destroy，模拟进程崩溃，检查点已在分配前刷盘
+        LocalUserIdentifierServiceImpl restarted = newService();
+        try {
+            long next = sequenceOf(restarted.generateUserIdentifier());
+            assertTrue(next > last, "next: " + next + ", last: " + last);
+        } finally {
+            restarted.destroy();
+        }
+    }
+
+    @Test
+    public void testRestart_RecoversFromOtherSlotAfterTornWrite() throws Exception {
+        long last = 0;
+        for (int i = 0; i < 150; i++) {
+            last = sequenceOf(identifierService.generateUserIdentifier());
+        }
+        identifierService.destroy();
+
+        // 模拟写入下一个检查点时崩溃：代数较小的槽位只写入了代数和高水位，CRC未写入
+        Path path = dir.resolve("sequence.checkpoint");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer slots = ByteBuffer.allocate(40);
+            channel.read(slots, 0);
+            int older = slots.getLong(0) < slots.getLong(20) ? 0 : 20;
+            ByteBuffer torn = ByteBuffer.allocate(16)
+                .putLong(0, Math.max(slots.getLong(0), slots.getLong(20)) + 1)
+                .putLong(8, Long.MAX_VALUE);
+            channel.write(torn, older);
+            channel.force(true);
+        }
+
+        identifierService = newService();
+        long next = sequenceOf(identifierService.generateUserIdentifier());
+        assertTrue(next > last, "next: " + next + ", last: " + last);
+        assertTrue(next < Long.MAX_VALUE / 2);
+    }
+
+    @Test
+    public void testInit_ContinuesFromLegacySequenceFile() throws Exception {
+        identifierService.destroy();
+        Files.writeString(dir.resolve("sequence.txt"), "1600");
+        identifierConfig.setCheckpointPath(dir.resolve("migrated.checkpoint").toString());
+
+        identifierService = newService();
+        assertEquals(1601L, sequenceOf(identifierService.generateUserIdentifier()));
+        identifierService.destroy();
+
+        // 检查点已建立后不再读取旧序号文件
+        Files.writeString(dir.resolve("sequence.txt"), "0");
+        identifierService = newService();
+        assertTrue(sequenceOf(identifierService.generateUserIdentifier()) > 1601L);
+    }
+}
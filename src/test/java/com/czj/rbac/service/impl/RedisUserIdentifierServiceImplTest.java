@@ -0,0 +1,104 @@
+package com.czj.rbac.service.impl;
+
+import com.czj.rbac.config.IdentifierConfig;
+import com.czj.rbac.service.UserIdentifierService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ExtendWith(MockitoExtension.class)
+public class RedisUserIdentifierServiceImplTest {
+
+    @InjectMocks
+    private RedisUserIdentifierServiceImpl identifierService;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Spy
+    private IdentifierConfig identifierConfig = new IdentifierConfig();
+
+    /**
+     * 模拟Redis中的计数器
+     */
+    private final AtomicLong counter = new AtomicLong();
+
+    @BeforeEach
+    public void setUp() {
+        identifierConfig.setSegmentStep(100);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(valueOperations.increment(anyString(), anyLong()))
+            .thenAnswer(invocation -> counter.addAndGet(invocation.getArgument(1)));
+        identifierService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        identifierService.destroy();
+    }
+
+    @Test
+    public void testGenerate_SequentialWithinSegment() {
+        List<String> identifiers = identifierService.generateUserIdentifiers(50);
+
+        assertEquals("XH0001", identifiers.get(0));
+        assertEquals("XH0050", identifiers.get(49));
+        verify(valueOperations, times(1)).increment("user:identifier:max", 100L);
+    }
+
+    @Test
+    public void testGenerate_ConcurrentUniqueAcrossSegments() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Set<String> identifiers = ConcurrentHashMap.newKeySet();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        identifiers.add(identifierService.generateUserIdentifier());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(8000, identifiers.size());
+        // 每个号段100个，预取最多多申请一段
+        assertTrue(counter.get() <= 8100, "allocated: " + counter.get());
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("XH0007", UserIdentifierService.format(7));
+        assertEquals("XH12345", UserIdentifierService.format(12345));
+    }
+}
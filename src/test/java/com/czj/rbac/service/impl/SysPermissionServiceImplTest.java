@@ -0,0 +1,99 @@
+package com.czj.rbac.service.impl;
+
+import com.czj.rbac.mapper.SysPermissionMapper;
+import com.czj.rbac.model.SysPermission;
+import com.czj.rbac.model.vo.PermissionVO;
+import com.czj.rbac.service.CacheInvalidationBus;
+import com.czj.rbac.service.TwoLevelCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SysPermissionServiceImplTest {
+
+    @InjectMocks
+    private SysPermissionServiceImpl permissionService;
+
+    @Mock
+    private SysPermissionMapper permissionMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @Mock
+    private TwoLevelCache<List<PermissionVO>> listCache;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(permissionService, "permissionListCache", listCache);
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(listCache.get(anyString(), any())).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    public void testFindList_ConcurrentBumpNotOverwrittenByRead() {
+        when(valueOperations.get("permission:generation")).thenAnswer(invocation -> {
+            // 读取期间本节点递增了代数
+            permissionService.clearPermissionListCache();
+            return "4";
+        });
+        when(valueOperations.increment("permission:generation")).thenReturn(5L);
+
+        permissionService.findList(null, null);
+        permissionService.findList(null, null);
+
+        verify(listCache).get(eq("permission:v4:list:all:all"), any());
+        verify(listCache).get(eq("permission:v5:list:all:all"), any());
+        verify(valueOperations, times(1)).get("permission:generation");
+    }
+
+    @Test
+    public void testFindList_FailedBumpForcesReread() {
+        when(valueOperations.get("permission:generation")).thenAnswer(invocation -> {
+            // 读取期间递增失败，代数被标记为未知
+            permissionService.clearPermissionListCache();
+            return "4";
+        }).thenReturn("6");
+        when(valueOperations.increment("permission:generation")).thenThrow(new RedisConnectionFailureException("down"));
+
+        permissionService.findList(null, null);
+        permissionService.findList(null, null);
+
+        verify(listCache).get(eq("permission:v4:list:all:all"), any());
+        verify(listCache).get(eq("permission:v6:list:all:all"), any());
+    }
+
+    @Test
+    public void testFindList_GenerationUnreadableSkipsCache() {
+        SysPermission permission = new SysPermission();
+        permission.setId(1L);
+        when(valueOperations.get("permission:generation")).thenThrow(new RedisConnectionFailureException("down"));
+        when(permissionMapper.findList(null, null)).thenReturn(List.of(permission));
+
+        List<PermissionVO> result = permissionService.findList(null, null);
+
+        assertEquals(1, result.size());
+        verifyNoInteractions(listCache);
+    }
+}
@@ -0,0 +1,109 @@
+package com.czj.rbac.service.impl;
+
+import com.czj.rbac.mapper.SysPermissionMapper;
+import com.czj.rbac.mapper.SysRoleMapper;
+import com.czj.rbac.model.SysRole;
+import com.czj.rbac.service.DistributedLockService;
+import com.czj.rbac.service.PermissionEngine;
+import com.czj.rbac.service.RoleCacheService;
+import com.czj.rbac.service.SysLogService;
+import com.czj.rbac.service.UserCacheService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SysRoleServiceImplTest {
+
+    private static final Long ROLE_ID = 10L;
+
+    @InjectMocks
+    private SysRoleServiceImpl roleService;
+
+    @Mock
+    private SysRoleMapper roleMapper;
+
+    @Mock
+    private SysPermissionMapper permissionMapper;
+
+    @Mock
+    private RoleCacheService roleCacheService;
+
+    @Mock
+    private DistributedLockService lockService;
+
+    @Mock
+    private SysLogService logService;
+
+    @Mock
+    private PermissionEngine permissionEngine;
+
+    @Mock
+    private UserCacheService userCacheService;
+
+    @BeforeEach
+    public void setUp() {
+        SysRole role = new SysRole();
+        role.setId(ROLE_ID);
+        role.setRoleName("测试角色");
+        when(roleMapper.findById(ROLE_ID)).thenReturn(role);
+        when(permissionMapper.findByIds(anyList())).thenReturn(Collections.emptyList());
+        when(lockService.executeWithLock(anyString(), anyLong(), any()))
+            .thenAnswer(invocation -> invocation.<DistributedLockService.DistributedTask<?>>getArgument(2).execute());
+        // 模拟事务内调用
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testAssignPermissions_RollbackKeepsBitmaps() {
+        roleService.assignPermissions(ROLE_ID, List.of(1L, 2L));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verifyNoInteractions(permissionEngine, userCacheService);
+    }
+
+    @Test
+    public void testAssignPermissions_RefreshAfterCommit() {
+        when(permissionEngine.refreshRole(ROLE_ID)).thenReturn(List.of(100L));
+
+        roleService.assignPermissions(ROLE_ID, List.of(1L, 2L));
+
+        // 提交前不改动内存位图
+        verifyNoInteractions(permissionEngine);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(permissionEngine).refreshRole(ROLE_ID);
+        verify(userCacheService).batchDeleteUserCache(100L);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.czj.rbac.service.impl;
 
+import com.czj.rbac.service.PasswordHashService;
 import com.czj.rbac.mapper.SysRoleMapper;
 import com.czj.rbac.mapper.SysUserMapper;
 import com.czj.rbac.model.SysUser;
@@ -35,6 +36,9 @@ public class SysUserServiceImplTest {
     @Mock
     private SysRoleMapper roleMapper;
 
+    @Mock
+    private PasswordHashService passwordHashService;
+
     @Test
     public void testFindById_Success() {
         // 准备测试数据
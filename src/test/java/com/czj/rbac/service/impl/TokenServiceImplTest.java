@@ -0,0 +1,119 @@
+package com.czj.rbac.service.impl;
+
+import com.czj.rbac.common.BusinessException;
+import com.czj.rbac.model.TokenPair;
+import com.czj.rbac.service.TokenBlacklistService;
+import com.czj.rbac.util.JwtUtil;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenServiceImplTest {
+
+    @InjectMocks
+    private TokenServiceImpl tokenService;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private TokenBlacklistService tokenBlacklistService;
+
+    @Spy
+    private JwtUtil jwtUtil = new JwtUtil("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789", 3600000L, 100);
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(tokenService, "expireTime", 3600000L);
+        ReflectionTestUtils.setField(tokenService, "refreshExpireTime", 86400000L);
+        ReflectionTestUtils.setField(tokenService, "maxSessions", 1);
+        ReflectionTestUtils.setField(tokenService, "kickOut", true);
+        lenient().doReturn(new GenericJackson2JsonRedisSerializer()).when(redisTemplate).getValueSerializer();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGenerateTokenPair_SingleScriptCall() {
+        long expireAt = System.currentTimeMillis() + 60000;
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenReturn(Arrays.asList("OK", "old-login|" + expireAt));
+
+        TokenPair tokenPair = tokenService.generateTokenPair(1L);
+
+        assertNotNull(tokenPair.getToken());
+        assertNotNull(tokenPair.getRefreshToken());
+        verify(stringRedisTemplate, times(1)).execute(any(RedisScript.class),
+            eq(Arrays.asList("login:sessions:1", "token:1", "token:refresh:1",
+                "token:blacklist:user:1", "token:blacklist:index")),
+            any(Object[].class));
+        // 黑名单已由脚本写入，只更新本地过滤器
+        verify(tokenBlacklistService).markRevoked("old-login");
+        verify(tokenBlacklistService, never()).revoke(anyString(), anyLong());
+        verifyNoMoreInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGenerateTokenPair_ScriptFailureRevokesNothing() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenThrow(new RedisSystemException("connection reset", null));
+
+        assertThrows(BusinessException.class, () -> tokenService.generateTokenPair(1L));
+        // 脚本未执行完成时会话列表不变，不需要补偿吊销
+        verifyNoInteractions(tokenBlacklistService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGenerateTokenPair_Rejected() {
+        ReflectionTestUtils.setField(tokenService, "kickOut", false);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenReturn(Collections.singletonList("REJECTED"));
+
+        assertThrows(BusinessException.class, () -> tokenService.generateTokenPair(1L));
+        verifyNoInteractions(tokenBlacklistService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testValidateToken_BlacklistedNotServedFromVerifiedCache() {
+        ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 1L);
+        String token = jwtUtil.generateJwt(claims);
+        when(valueOperations.get("token:1")).thenReturn(token);
+        when(tokenBlacklistService.isRevoked(eq(token), any())).thenReturn(false, true);
+
+        assertTrue(tokenService.validateToken("Bearer " + token));
+        // 已验证缓存仍持有该token，吊销后必须被拒绝
+        assertFalse(tokenService.validateToken("Bearer " + token));
+        // 每次校验只解析一次
+        verify(jwtUtil, times(2)).parseJwt(token);
+    }
+}
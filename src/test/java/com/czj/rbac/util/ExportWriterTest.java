@@ -0,0 +1,79 @@
+package com.czj.rbac.util;
+
+import com.czj.rbac.model.SysLog;
+import com.czj.rbac.model.enums.ExportFormat;
+import com.czj.rbac.model.query.UserQuery;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ExportWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static SysLog sysLog(long id, String content) {
+        SysLog sysLog = new SysLog();
+        sysLog.setId(id);
+        sysLog.setModule("用户管理");
+        sysLog.setContent(content);
+        sysLog.setCreateTime(LocalDateTime.of(2026, 10, 17, 9, 30));
+        return sysLog;
+    }
+
+    private String export(ExportFormat format, List<String> fields, SysLog... rows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportWriter writer = new ExportWriter(format, out, SysLog.class, fields, objectMapper)) {
+            for (SysLog row : rows) {
+                writer.write(row);
+            }
+            assertEquals(rows.length, writer.getCount());
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testCsv_EscapesAndFormats() throws Exception {
+        String csv = export(ExportFormat.CSV, List.of("id", "module", "content", "create_time"),
+            sysLog(1, "a,\"b\""), sysLog(2, "=cmd()"));
+
+        String[] lines = csv.substring(1).split("\r\n");
+        assertEquals("id,module,content,create_time", lines[0]);
+        assertEquals("1,用户管理,\"a,\"\"b\"\"\",2026-10-17 09:30:00", lines[1]);
+        assertEquals("2,用户管理,'=cmd(),2026-10-17 09:30:00", lines[2]);
+    }
+
+    @Test
+    public void testNdjson_OneObjectPerLine() throws Exception {
+        String ndjson = export(ExportFormat.NDJSON, List.of("id", "content"), sysLog(1, "x"), sysLog(2, "y"));
+
+        assertEquals("{\"id\":1,\"content\":\"x\"}\n{\"id\":2,\"content\":\"y\"}\n", ndjson);
+    }
+
+    @Test
+    public void testUnknownField_Rejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> export(ExportFormat.CSV, List.of("no_such_field")));
+    }
+
+    @Test
+    public void testExportFields_LimitedToWhitelist() {
+        UserQuery query = new UserQuery();
+        query.setNeedExport(true);
+        query.setExportFields(new ArrayList<>(List.of("username", "password")));
+
+        assertEquals(List.of("username"), query.resolveExportFields());
+        query.setExportFields(null);
+        assertFalse(query.resolveExportFields().contains("password"));
+        assertTrue(query.resolveExportFields().contains("email"));
+    }
+}
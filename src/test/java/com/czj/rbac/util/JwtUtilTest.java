@@ -1,10 +1,15 @@
 package com.czj.rbac.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import io.jsonwebtoken.MalformedJwtException;
@@ -16,10 +21,13 @@ public class JwtUtilTest {
     private static final String TEST_USERNAME = "admin";
     private static final Long TEST_USER_ID = 1L;
     private static final List<String> TEST_PERMISSIONS = Arrays.asList("sys:admin");
+    private static final String TEST_SECRET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
     private MockHttpServletRequest request;
+    private JwtUtil jwtUtil;
 
     @BeforeEach
     void setUp() {
+        jwtUtil = new JwtUtil(TEST_SECRET, 3600000L, 10000);
         request = new MockHttpServletRequest();
         RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
     }
@@ -27,6 +35,7 @@ public class JwtUtilTest {
     @AfterEach
     void tearDown() {
         RequestContextHolder.resetRequestAttributes();
+        ReflectionTestUtils.setField(JwtUtil.class, "instance", null);
     }
 
     @Test
@@ -36,10 +45,10 @@ public class JwtUtilTest {
         claims.put("username", TEST_USERNAME);
         claims.put("permissions", TEST_PERMISSIONS);
 
-        String jwt = JwtUtil.generateJwt(claims);
+        String jwt = jwtUtil.generateJwt(claims);
         assertNotNull(jwt);
         
-        Claims parsedClaims = JwtUtil.parseJwt(jwt);
+        Claims parsedClaims = jwtUtil.parseJwt(jwt);
         assertNotNull(parsedClaims);
         assertEquals(TEST_USER_ID.intValue(), ((Integer) parsedClaims.get("userId")).intValue());
         assertEquals(TEST_USERNAME, parsedClaims.get("username"));
@@ -54,13 +63,13 @@ public class JwtUtilTest {
         claims.put("username", "admin");
 
         // 生成有效的JWT
-        String jwt = JwtUtil.generateJwt(claims);
-        assertTrue(JwtUtil.validateToken(jwt));
+        String jwt = jwtUtil.generateJwt(claims);
+        assertTrue(jwtUtil.validateToken(jwt));
     }
 
     @Test
     void testValidateToken_Invalid() {
-        assertFalse(JwtUtil.validateToken("invalid-token"));
+        assertFalse(jwtUtil.validateToken("invalid-token"));
     }
 
     @Test
@@ -70,22 +79,22 @@ public class JwtUtilTest {
         claims.put("username", TEST_USERNAME);
         claims.put("exp", new Date(System.currentTimeMillis() - 3600000L)); // 1小时前过期
 
-        String jwt = JwtUtil.generateJwt(claims);
+        String jwt = jwtUtil.generateJwt(claims);
         assertNotNull(jwt);
-        assertFalse(JwtUtil.validateToken(jwt));
+        assertFalse(jwtUtil.validateToken(jwt));
     }
 
     @Test
     void testParseJwt_InvalidFormat() {
         assertThrows(MalformedJwtException.class, () -> {
-            JwtUtil.parseJwt("invalid.token.format");
+            jwtUtil.parseJwt("invalid.token.format");
         });
     }
 
     @Test
     void testParseJwt_EmptyToken() {
-        assertNull(JwtUtil.parseJwt(""));
-        assertNull(JwtUtil.parseJwt(null));
+        assertNull(jwtUtil.parseJwt(""));
+        assertNull(jwtUtil.parseJwt(null));
     }
 
     @Test
@@ -94,8 +103,9 @@ public class JwtUtilTest {
         claims.put("userId", TEST_USER_ID);
         claims.put("username", TEST_USERNAME);
         
-        String jwt = JwtUtil.generateJwt(claims);
+        String jwt = jwtUtil.generateJwt(claims);
         request.addHeader("Authorization", jwt);
+        jwtUtil.resolveClaims(request);
         
         assertEquals(TEST_USERNAME, JwtUtil.getCurrentUsername());
     }
@@ -105,14 +115,32 @@ public class JwtUtilTest {
         assertNull(JwtUtil.getCurrentUsername());
     }
 
+    @Test
+    void testResolveClaims_InvalidToken() {
+        request.addHeader("Authorization", JwtUtil.TOKEN_PREFIX + "invalid.token.format");
+        assertNull(jwtUtil.resolveClaims(request));
+        assertNull(JwtUtil.getCurrentUserId());
+    }
+
+    @Test
+    void testRefreshToken_NotAcceptedAsAccessToken() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", TEST_USER_ID);
+
+        String refreshToken = jwtUtil.generateRefreshToken(claims, 3600000L);
+        assertTrue(jwtUtil.validateRefreshToken(refreshToken));
+        assertFalse(jwtUtil.validateToken(refreshToken));
+    }
+
     @Test
     void testGetCurrentUserId_Success() {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", TEST_USER_ID);
         claims.put("username", TEST_USERNAME);
         
-        String jwt = JwtUtil.generateJwt(claims);
+        String jwt = jwtUtil.generateJwt(claims);
         request.addHeader("Authorization", jwt);
+        jwtUtil.resolveClaims(request);
         
         assertEquals(TEST_USER_ID, JwtUtil.getCurrentUserId());
     }
@@ -124,9 +152,96 @@ public class JwtUtilTest {
         claims.put("username", TEST_USERNAME);
         claims.put("permissions", TEST_PERMISSIONS);
         
-        String jwt = JwtUtil.generateJwt(claims);
+        String jwt = jwtUtil.generateJwt(claims);
         request.addHeader("Authorization", jwt);
+        jwtUtil.resolveClaims(request);
         
         assertEquals(TEST_PERMISSIONS, JwtUtil.getCurrentUserPermissions());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testParseJwt_VerifiedCacheHit() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", TEST_USER_ID);
+
+        String jwt = jwtUtil.generateJwt(claims);
+        Claims first = jwtUtil.parseJwt(jwt);
+
+        // 命中缓存时直接返回已验证的Claims，不重新解析
+        assertSame(first, jwtUtil.parseJwt(JwtUtil.TOKEN_PREFIX + jwt));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testParseJwt_ExpiredEntryEvicted() throws Exception {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", TEST_USER_ID);
+        claims.put("exp", new Date(System.currentTimeMillis() + 1000L));
+
+        String jwt = jwtUtil.generateJwt(claims);
+        assertNotNull(jwtUtil.parseJwt(jwt));
+        Thread.sleep(1100L);
+
+        Cache<String, Claims> verifiedTokens = (Cache<String, Claims>) ReflectionTestUtils.getField(jwtUtil, "verifiedTokens");
+        verifiedTokens.cleanUp();
+        assertNull(verifiedTokens.getIfPresent(JwtUtil.digest(jwt)));
+        // 过期后重新验签并拒绝
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseJwt(jwt));
+        assertFalse(jwtUtil.validateToken(jwt));
+    }
+
+    @Test
+    void testGetValidClaims_ReusesRequestClaims() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", TEST_USER_ID);
+
+        String jwt = jwtUtil.generateJwt(claims);
+        request.addHeader("Authorization", JwtUtil.TOKEN_PREFIX + jwt);
+        Claims resolved = jwtUtil.resolveClaims(request);
+
+        assertSame(resolved, jwtUtil.getValidClaims(jwt));
+        assertNull(jwtUtil.getValidClaims("invalid.token.format"));
+    }
+
+    @Test
+    void testParseJwt_TimersBoundToInjectedRegistryOnly() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        jwtUtil.setMeterRegistry(registry);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", TEST_USER_ID);
+
+        String jwt = jwtUtil.generateJwt(claims);
+        jwtUtil.parseJwt(jwt);
+        jwtUtil.parseJwt(jwt);
+        assertThrows(MalformedJwtException.class, () -> jwtUtil.parseJwt("invalid.token.format"));
+
+        assertEquals(1, registry.get("rbac.jwt.parse").tag("result", "verified").timer().count());
+        assertEquals(1, registry.get("rbac.jwt.parse").tag("result", "cached").timer().count());
+        assertEquals(1, registry.get("rbac.jwt.parse").tag("result", "invalid").timer().count());
+        assertNull(Metrics.globalRegistry.find("rbac.jwt.parse").timer());
+    }
+
+    @Test
+    void testGetCurrentUserId_WithoutAuthInterceptor() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", TEST_USER_ID);
+        claims.put("username", TEST_USERNAME);
+        request.addHeader("Authorization", JwtUtil.TOKEN_PREFIX + jwtUtil.generateJwt(claims));
+
+        // 未注册Spring实例时只读取请求属性
+        assertNull(JwtUtil.getCurrentUserId());
+
+        jwtUtil.registerInstance();
+        assertEquals(TEST_USER_ID, JwtUtil.getCurrentUserId());
+        assertEquals(TEST_USERNAME, JwtUtil.getCurrentUsername());
+    }
+
+    @Test
+    void testGetCurrentUserId_WithoutAuthInterceptorInvalidToken() {
+        jwtUtil.registerInstance();
+        request.addHeader("Authorization", JwtUtil.TOKEN_PREFIX + "invalid.token.format");
+
+        assertNull(JwtUtil.getCurrentUserId());
+        assertEquals(Collections.emptyList(), JwtUtil.getCurrentUserPermissions());
+    }
+}
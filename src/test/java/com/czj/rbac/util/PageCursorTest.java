@@ -0,0 +1,63 @@
+package com.czj.rbac.util;
+
+import com.czj.rbac.common.BusinessException;
+import com.czj.rbac.common.CursorResult;
+import com.czj.rbac.common.ResponseCode;
+import com.czj.rbac.model.SysLog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PageCursorTest {
+
+    private static SysLog sysLog(long id, LocalDateTime time) {
+        SysLog sysLog = new SysLog();
+        sysLog.setId(id);
+        sysLog.setCreateTime(time);
+        return sysLog;
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        LocalDateTime time = LocalDateTime.of(2026, 10, 17, 9, 0, 1);
+        String cursor = new PageCursor(time, 42L).encode();
+
+        PageCursor decoded = PageCursor.decode(cursor);
+        assertEquals(time, decoded.getTime());
+        assertEquals(42L, decoded.getId());
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(""));
+    }
+
+    @Test
+    public void testDecode_InvalidCursor() {
+        BusinessException e = assertThrows(BusinessException.class, () -> PageCursor.decode("not-a-cursor"));
+        assertEquals(ResponseCode.PARAM_ERROR.getCode(), e.getCode());
+    }
+
+    @Test
+    public void testPage_NextCursorFromLastRow() {
+        LocalDateTime time = LocalDateTime.of(2026, 10, 17, 9, 0);
+        List<SysLog> rows = new ArrayList<>();
+        for (long id = 10; id > 7; id--) {
+            rows.add(sysLog(id, time));
+        }
+
+        CursorResult<SysLog> result = PageCursor.page(rows, 2, SysLog::getCreateTime, SysLog::getId, null);
+        assertEquals(2, result.getList().size());
+        assertTrue(result.getHasMore());
+        PageCursor next = PageCursor.decode(result.getNextCursor());
+        assertEquals(9L, next.getId());
+        assertEquals(time, next.getTime());
+
+        CursorResult<SysLog> last = PageCursor.page(rows.subList(0, 2), 2, SysLog::getCreateTime, SysLog::getId, 2L);
+        assertFalse(last.getHasMore());
+        assertNull(last.getNextCursor());
+        assertEquals(2L, last.getTotal());
+    }
+}